@@ -0,0 +1,97 @@
+package com.vance.jms.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jms.support.converter.MessageConverter;
+
+import com.vance.jms.config.CompressingMessageConverter;
+import com.vance.jms.config.MqConfig;
+import com.vance.jms.constant.Constant;
+import com.vance.jms.model.CustomMessage;
+
+import jakarta.jms.BytesMessage;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.Session;
+
+/**
+ * CustomMessage 在各種 MessageConverter 下的轉換成本
+ * 比較 Jackson 文本、二進制格式及加上 Deflate 壓縮後的 toMessage 與 fromMessage
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConverterBenchmark {
+
+    @Param({ "64", "4096" })
+    int contentLength;
+
+    private Session session;
+    private CustomMessage customMessage;
+    private MessageConverter jackson;
+    private MessageConverter binary;
+    private MessageConverter compressed;
+    private Message jacksonMessage;
+    private byte[] binaryBody;
+
+    @Setup
+    public void setUp() throws JMSException {
+        session = StubJms.session();
+        customMessage = new CustomMessage("4f1c2a9e-6b1d-4c3e-9a57-2d0f7f3b8c11",
+                "測試訊息內容 sample payload ".repeat(contentLength / 24 + 1).substring(0, contentLength),
+                System.currentTimeMillis());
+
+        MqConfig mqConfig = new MqConfig();
+        mqConfig.getCompression().setEnabled(true);
+        jackson = Fixtures.jacksonConverter();
+        binary = Fixtures.binaryConverter();
+        compressed = new CompressingMessageConverter(jackson, Fixtures.payloadCompressor(mqConfig));
+
+        jacksonMessage = jackson.toMessage(customMessage, session);
+        BytesMessage bytesMessage = (BytesMessage) binary.toMessage(customMessage, session);
+        bytesMessage.reset();
+        binaryBody = new byte[(int) bytesMessage.getBodyLength()];
+        bytesMessage.readBytes(binaryBody);
+    }
+
+    @Benchmark
+    public Message jacksonToMessage() throws JMSException {
+        return jackson.toMessage(customMessage, session);
+    }
+
+    @Benchmark
+    public Object jacksonFromMessage() throws JMSException {
+        return jackson.fromMessage(jacksonMessage);
+    }
+
+    @Benchmark
+    public Message binaryToMessage() throws JMSException {
+        return binary.toMessage(customMessage, session);
+    }
+
+    @Benchmark
+    public Object binaryFromMessage() throws JMSException {
+        StubBytesMessage message = new StubBytesMessage(binaryBody);
+        message.setShortProperty(Constant.BinaryType.TYPE_ID_PROPERTY, Constant.BinaryType.CUSTOM_MESSAGE);
+        return binary.fromMessage(message);
+    }
+
+    @Benchmark
+    public Message compressedJacksonToMessage() throws JMSException {
+        return compressed.toMessage(customMessage, session);
+    }
+}
@@ -0,0 +1,85 @@
+package com.vance.jms.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.vance.jms.config.MqConfig;
+import com.vance.jms.model.CustomMessage;
+import com.vance.jms.service.ChunkReassembler;
+import com.vance.jms.service.IdempotencyFilter;
+import com.vance.jms.service.MessageReceiver;
+import com.vance.jms.service.MessagingMetrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.jms.JMSException;
+
+/**
+ * MessageReceiver.onMessage 依訊息類型分派的成本 (連接檢查、解壓縮判斷、讀取本文及選出處理器)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+
+    private MessageReceiver messageReceiver;
+    private StubTextMessage textMessage;
+    private StubBytesMessage bytesMessage;
+    private StubBytesMessage binaryObjectMessage;
+
+    @Setup
+    public void setUp() throws JMSException {
+        MqConfig mqConfig = new MqConfig();
+        ChunkReassembler chunkReassembler = new ChunkReassembler();
+        ReflectionTestUtils.setField(chunkReassembler, "mqConfig", mqConfig);
+
+        messageReceiver = new MessageReceiver();
+        ReflectionTestUtils.setField(messageReceiver, "mqConnectionService",
+                Fixtures.connectedService(mqConfig, StubJms.connectionFactory(new LongAdder())));
+        ReflectionTestUtils.setField(messageReceiver, "chunkReassembler", chunkReassembler);
+        ReflectionTestUtils.setField(messageReceiver, "payloadCompressor", Fixtures.payloadCompressor(mqConfig));
+        ReflectionTestUtils.setField(messageReceiver, "binaryMessageConverter", Fixtures.binaryConverter());
+        ReflectionTestUtils.setField(messageReceiver, "mqConfig", mqConfig);
+        ReflectionTestUtils.setField(messageReceiver, "messagingMetrics",
+                new MessagingMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(messageReceiver, "payloadLogger", Fixtures.payloadLogger(mqConfig));
+        ReflectionTestUtils.setField(messageReceiver, "messageHandlerRegistry", Fixtures.handlerRegistry());
+        ReflectionTestUtils.setField(messageReceiver, "idempotencyFilter", new IdempotencyFilter());
+
+        textMessage = new StubTextMessage("測試文本訊息 sample text payload");
+        bytesMessage = new StubBytesMessage(new byte[1024]);
+        binaryObjectMessage = (StubBytesMessage) Fixtures.binaryConverter()
+                .toMessage(CustomMessage.of("id-1", "測試訊息內容 sample payload"), StubJms.session());
+    }
+
+    @Benchmark
+    public void onTextMessage() {
+        messageReceiver.onMessage(textMessage);
+    }
+
+    @Benchmark
+    public void onBytesMessage() {
+        bytesMessage.reset();
+        messageReceiver.onMessage(bytesMessage);
+    }
+
+    @Benchmark
+    public void onBinaryObjectMessage() {
+        binaryObjectMessage.reset();
+        messageReceiver.onMessage(binaryObjectMessage);
+    }
+}
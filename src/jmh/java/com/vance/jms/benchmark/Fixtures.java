@@ -0,0 +1,101 @@
+package com.vance.jms.benchmark;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.jms.support.converter.MappingJackson2MessageConverter;
+import org.springframework.jms.support.converter.MessageConverter;
+import org.springframework.jms.support.converter.MessageType;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.vance.jms.config.BinaryMessageConverter;
+import com.vance.jms.config.CustomMessageBinaryCodec;
+import com.vance.jms.config.MessageHandler;
+import com.vance.jms.config.MqConfig;
+import com.vance.jms.config.PayloadCodec;
+import com.vance.jms.model.CustomMessage;
+import com.vance.jms.service.MessageHandlerRegistry;
+import com.vance.jms.service.MqConnectionService;
+import com.vance.jms.service.PayloadCompressor;
+import com.vance.jms.service.PayloadLogger;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.jms.ConnectionFactory;
+
+/**
+ * 效能測試共用的元件，依 JmsConfig 的設定建立，不啟動 Spring 容器
+ */
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    /**
+     * 與 JmsConfig.jacksonJmsMessageConverter 相同設定的 Jackson 轉換器
+     */
+    static MessageConverter jacksonConverter() {
+        MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter();
+        converter.setTargetType(MessageType.TEXT);
+        converter.setTypeIdPropertyName("_type");
+        return converter;
+    }
+
+    /**
+     * 與 JmsConfig.binaryMessageConverter 相同設定的二進制轉換器
+     */
+    static BinaryMessageConverter binaryConverter() {
+        return new BinaryMessageConverter(jacksonConverter(), List.of(new CustomMessageBinaryCodec()));
+    }
+
+    /**
+     * 依設定初始化的壓縮服務
+     */
+    static PayloadCompressor payloadCompressor(MqConfig mqConfig) {
+        PayloadCompressor compressor = new PayloadCompressor();
+        ReflectionTestUtils.setField(compressor, "mqConfig", mqConfig);
+        ReflectionTestUtils.setField(compressor, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(compressor, "customCodecs",
+                new StaticListableBeanFactory().getBeanProvider(PayloadCodec.class));
+        compressor.init();
+        return compressor;
+    }
+
+    /**
+     * 依設定初始化的訊息內容日誌服務
+     */
+    static PayloadLogger payloadLogger(MqConfig mqConfig) {
+        PayloadLogger payloadLogger = new PayloadLogger();
+        ReflectionTestUtils.setField(payloadLogger, "mqConfig", mqConfig);
+        payloadLogger.init();
+        return payloadLogger;
+    }
+
+    /**
+     * 登記文本、二進制數據及 CustomMessage 處理器的登記服務，處理器不做任何事，只量測分派成本
+     */
+    static MessageHandlerRegistry handlerRegistry() {
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("text", MessageHandler.of("text", String.class, text -> {
+        }));
+        beanFactory.addBean("bytes", MessageHandler.of("bytes", byte[].class, bytes -> {
+        }));
+        beanFactory.addBean("customMessage", MessageHandler.of("customMessage", CustomMessage.class, message -> {
+        }));
+        MessageHandlerRegistry registry = new MessageHandlerRegistry();
+        ReflectionTestUtils.setField(registry, "handlerProvider", beanFactory.getBeanProvider(MessageHandler.class));
+        ReflectionTestUtils.setField(registry, "meterRegistry", new SimpleMeterRegistry());
+        registry.init();
+        return registry;
+    }
+
+    /**
+     * 狀態為已連接的 MqConnectionService，不實際建立監控連接
+     */
+    static MqConnectionService connectedService(MqConfig mqConfig, ConnectionFactory connectionFactory) {
+        MqConnectionService service = new MqConnectionService(mqConfig, connectionFactory, event -> {
+        });
+        ReflectionTestUtils.setField(service, "connected", new AtomicBoolean(true));
+        return service;
+    }
+}
@@ -0,0 +1,123 @@
+package com.vance.jms.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.vance.jms.config.CompressingMessageConverter;
+import com.vance.jms.config.MqConfig;
+import com.vance.jms.config.PooledConnectionFactory;
+import com.vance.jms.model.BatchSendResult;
+import com.vance.jms.model.CustomMessage;
+import com.vance.jms.service.MessageSender;
+import com.vance.jms.service.MessagingMetrics;
+import com.vance.jms.service.OutboxService;
+import com.vance.jms.service.SendCircuitBreaker;
+import com.vance.jms.service.ShardRouter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.jms.ConnectionFactory;
+import jakarta.jms.DeliveryMode;
+
+/**
+ * MessageSender 的同步發送路徑，從 MessageSender 經 JmsTemplate、PooledConnectionFactory 到 MessageProducer.send
+ * 使用 StubJms 取代 MQ，量測的是應用程式及 Spring JMS 的成本，不含網路及隊列管理器
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SendPathBenchmark {
+
+    private final LongAdder sent = new LongAdder();
+    private PooledConnectionFactory pooledConnectionFactory;
+    private MessageSender messageSender;
+    private CustomMessage customMessage;
+    private String text;
+    private byte[] bytes;
+    private List<CustomMessage> batch;
+
+    @Setup
+    public void setUp() {
+        MqConfig mqConfig = new MqConfig();
+        mqConfig.setQueueName("DEV.QUEUE.1");
+        ConnectionFactory connectionFactory = StubJms.connectionFactory(sent);
+
+        // 與 JmsConfig 相同的發送端設定
+        pooledConnectionFactory = new PooledConnectionFactory(connectionFactory);
+        pooledConnectionFactory.setSessionCacheSize(mqConfig.getPool().getSessionCacheSize());
+        pooledConnectionFactory.setCacheProducers(mqConfig.getPool().isCacheProducers());
+        JmsTemplate jmsTemplate = new JmsTemplate(pooledConnectionFactory);
+        jmsTemplate.setMessageConverter(
+                new CompressingMessageConverter(Fixtures.jacksonConverter(), Fixtures.payloadCompressor(mqConfig)));
+        jmsTemplate.setExplicitQosEnabled(true);
+        jmsTemplate.setTimeToLive(TimeUnit.SECONDS.toMillis(mqConfig.getMessageTtlSeconds()));
+        jmsTemplate.setDeliveryMode(DeliveryMode.NON_PERSISTENT);
+        jmsTemplate.setSessionTransacted(true);
+
+        messageSender = new MessageSender();
+        ReflectionTestUtils.setField(messageSender, "jmsTemplate", jmsTemplate);
+        ReflectionTestUtils.setField(messageSender, "mqConfig", mqConfig);
+        ReflectionTestUtils.setField(messageSender, "mqConnectionService",
+                Fixtures.connectedService(mqConfig, connectionFactory));
+        // 未啟用 outbox 的 OutboxService，不會寫入本地暫存
+        ReflectionTestUtils.setField(messageSender, "outboxService", new OutboxService());
+        ReflectionTestUtils.setField(messageSender, "messagingMetrics",
+                new MessagingMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(messageSender, "payloadLogger", Fixtures.payloadLogger(mqConfig));
+        // 未啟用分流的 ShardRouter，發送到 ibm.mq 的 Queue Manager
+        ReflectionTestUtils.setField(messageSender, "shardRouter", new ShardRouter());
+        // 未啟用的斷路器，直接執行發送
+        ReflectionTestUtils.setField(messageSender, "sendCircuitBreaker", new SendCircuitBreaker());
+
+        customMessage = CustomMessage.of("4f1c2a9e-6b1d-4c3e-9a57-2d0f7f3b8c11", "測試訊息內容 sample payload");
+        text = "測試文本訊息 sample text payload";
+        bytes = new byte[1024];
+        batch = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            batch.add(CustomMessage.of("id-" + i, "批次訊息內容 " + i));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        pooledConnectionFactory.destroy();
+    }
+
+    @Benchmark
+    public void sendMessage() {
+        messageSender.sendMessage(customMessage);
+    }
+
+    @Benchmark
+    public void sendTextMessage() {
+        messageSender.sendTextMessage(text);
+    }
+
+    @Benchmark
+    public void sendByteMessage() {
+        messageSender.sendByteMessage(bytes);
+    }
+
+    @Benchmark
+    public BatchSendResult sendBatchOfTen() {
+        return messageSender.sendBatch(batch);
+    }
+}
@@ -0,0 +1,210 @@
+package com.vance.jms.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import jakarta.jms.BytesMessage;
+import jakarta.jms.JMSException;
+import jakarta.jms.MessageEOFException;
+import jakarta.jms.MessageFormatException;
+
+/**
+ * 效能測試使用的記憶體內 BytesMessage
+ * 寫入模式下累積到 ByteArrayOutputStream，reset 後切換為讀取模式
+ */
+public class StubBytesMessage extends StubMessage implements BytesMessage {
+
+    private ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private ByteBuffer in;
+
+    public StubBytesMessage() {
+    }
+
+    /**
+     * 建立已在讀取模式的訊息
+     *
+     * @param body 訊息本文
+     */
+    public StubBytesMessage(byte[] body) {
+        this.out = null;
+        this.in = ByteBuffer.wrap(body);
+    }
+
+    @Override
+    public long getBodyLength() {
+        return in != null ? in.limit() : out.size();
+    }
+
+    @Override
+    public boolean readBoolean() throws JMSException {
+        return readByte() != 0;
+    }
+
+    @Override
+    public byte readByte() throws JMSException {
+        return reading(1).get();
+    }
+
+    @Override
+    public int readUnsignedByte() throws JMSException {
+        return readByte() & 0xFF;
+    }
+
+    @Override
+    public short readShort() throws JMSException {
+        return reading(2).getShort();
+    }
+
+    @Override
+    public int readUnsignedShort() throws JMSException {
+        return readShort() & 0xFFFF;
+    }
+
+    @Override
+    public char readChar() throws JMSException {
+        return reading(2).getChar();
+    }
+
+    @Override
+    public int readInt() throws JMSException {
+        return reading(4).getInt();
+    }
+
+    @Override
+    public long readLong() throws JMSException {
+        return reading(8).getLong();
+    }
+
+    @Override
+    public float readFloat() throws JMSException {
+        return reading(4).getFloat();
+    }
+
+    @Override
+    public double readDouble() throws JMSException {
+        return reading(8).getDouble();
+    }
+
+    @Override
+    public String readUTF() throws JMSException {
+        byte[] bytes = new byte[readUnsignedShort()];
+        reading(bytes.length).get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int readBytes(byte[] value) throws JMSException {
+        return readBytes(value, value.length);
+    }
+
+    @Override
+    public int readBytes(byte[] value, int length) throws JMSException {
+        ByteBuffer buffer = reading(0);
+        if (!buffer.hasRemaining()) {
+            return -1;
+        }
+        int n = Math.min(length, buffer.remaining());
+        buffer.get(value, 0, n);
+        return n;
+    }
+
+    @Override
+    public void writeBoolean(boolean value) throws JMSException {
+        writeByte((byte) (value ? 1 : 0));
+    }
+
+    @Override
+    public void writeByte(byte value) throws JMSException {
+        writing().write(value);
+    }
+
+    @Override
+    public void writeShort(short value) throws JMSException {
+        writeBytes(ByteBuffer.allocate(2).putShort(value).array());
+    }
+
+    @Override
+    public void writeChar(char value) throws JMSException {
+        writeBytes(ByteBuffer.allocate(2).putChar(value).array());
+    }
+
+    @Override
+    public void writeInt(int value) throws JMSException {
+        writeBytes(ByteBuffer.allocate(4).putInt(value).array());
+    }
+
+    @Override
+    public void writeLong(long value) throws JMSException {
+        writeBytes(ByteBuffer.allocate(8).putLong(value).array());
+    }
+
+    @Override
+    public void writeFloat(float value) throws JMSException {
+        writeInt(Float.floatToIntBits(value));
+    }
+
+    @Override
+    public void writeDouble(double value) throws JMSException {
+        writeLong(Double.doubleToLongBits(value));
+    }
+
+    @Override
+    public void writeUTF(String value) throws JMSException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeShort((short) bytes.length);
+        writeBytes(bytes);
+    }
+
+    @Override
+    public void writeBytes(byte[] value) throws JMSException {
+        writing().write(value, 0, value.length);
+    }
+
+    @Override
+    public void writeBytes(byte[] value, int offset, int length) throws JMSException {
+        writing().write(value, offset, length);
+    }
+
+    @Override
+    public void writeObject(Object value) throws JMSException {
+        if (value instanceof byte[] bytes) {
+            writeBytes(bytes);
+        } else {
+            throw new MessageFormatException("不支援的型別: " + value);
+        }
+    }
+
+    @Override
+    public void reset() {
+        if (in == null) {
+            in = ByteBuffer.wrap(out.toByteArray());
+            out = null;
+        } else {
+            in.rewind();
+        }
+    }
+
+    @Override
+    public void clearBody() {
+        out = new ByteArrayOutputStream();
+        in = null;
+    }
+
+    private ByteBuffer reading(int length) throws JMSException {
+        if (in == null) {
+            throw new MessageFormatException("訊息在寫入模式");
+        }
+        if (in.remaining() < length) {
+            throw new MessageEOFException("已讀到訊息結尾");
+        }
+        return in;
+    }
+
+    private ByteArrayOutputStream writing() throws JMSException {
+        if (out == null) {
+            throw new MessageFormatException("訊息在讀取模式");
+        }
+        return out;
+    }
+}
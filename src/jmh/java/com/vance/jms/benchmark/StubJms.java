@@ -0,0 +1,102 @@
+package com.vance.jms.benchmark;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import jakarta.jms.Connection;
+import jakarta.jms.ConnectionFactory;
+import jakarta.jms.MessageProducer;
+import jakarta.jms.Queue;
+import jakarta.jms.Session;
+
+/**
+ * 效能測試使用的 JMS 連接元件，不連接 MQ
+ * ConnectionFactory、Connection、Session 及 MessageProducer 以動態代理實作，只處理發送路徑用到的方法：
+ * Session 建立記憶體內的 StubTextMessage 及 StubBytesMessage，Producer 送出的訊息只計數。
+ * 發送端實際經由 PooledConnectionFactory 快取 Session 及 Producer，代理的呼叫成本只在建立時發生一次。
+ */
+public final class StubJms {
+
+    private StubJms() {
+    }
+
+    /**
+     * 建立不連接 MQ 的 ConnectionFactory
+     *
+     * @param sent 記錄送出訊息數量的計數器
+     * @return ConnectionFactory
+     */
+    public static ConnectionFactory connectionFactory(LongAdder sent) {
+        Connection connection = proxy(Connection.class, Map.of(
+                "createSession", args -> session(args, sent)));
+        return proxy(ConnectionFactory.class, Map.of("createConnection", args -> connection));
+    }
+
+    /**
+     * 建立不連接 MQ 的交易 Session，供直接呼叫 MessageConverter 的測試使用
+     *
+     * @return Session
+     */
+    public static Session session() {
+        return session(new Object[] { true, Session.SESSION_TRANSACTED }, new LongAdder());
+    }
+
+    private static Session session(Object[] args, LongAdder sent) {
+        boolean transacted = args != null && args.length == 2 && (Boolean) args[0];
+        MessageProducer producer = proxy(MessageProducer.class, Map.of("send", producerArgs -> {
+            sent.increment();
+            return null;
+        }));
+        return proxy(Session.class, Map.of(
+                "createTextMessage", sessionArgs -> sessionArgs == null ? new StubTextMessage()
+                        : new StubTextMessage((String) sessionArgs[0]),
+                "createBytesMessage", sessionArgs -> new StubBytesMessage(),
+                "createQueue", sessionArgs -> queue((String) sessionArgs[0]),
+                "createProducer", sessionArgs -> producer,
+                "getTransacted", sessionArgs -> transacted,
+                "getAcknowledgeMode", sessionArgs -> transacted ? Session.SESSION_TRANSACTED
+                        : Session.AUTO_ACKNOWLEDGE));
+    }
+
+    private static Queue queue(String name) {
+        return proxy(Queue.class, Map.of("getQueueName", args -> name, "toString", args -> "queue:///" + name));
+    }
+
+    /**
+     * 建立只處理指定方法的代理；其他無返回值的方法不做任何事，返回基本型別的方法返回預設值，其餘拋出異常
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Map<String, Function<Object[], Object>> handlers) {
+        return (T) Proxy.newProxyInstance(StubJms.class.getClassLoader(), new Class<?>[] { type },
+                (proxy, method, args) -> {
+                    Function<Object[], Object> handler = handlers.get(method.getName());
+                    if (handler != null) {
+                        return handler.apply(args);
+                    }
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "toString":
+                            return "Stub" + type.getSimpleName();
+                        default:
+                            break;
+                    }
+                    Class<?> returnType = method.getReturnType();
+                    if (returnType == void.class) {
+                        return null;
+                    }
+                    if (returnType.isPrimitive()) {
+                        return Array.get(Array.newInstance(returnType, 1), 0);
+                    }
+                    if (method.getName().startsWith("get")) {
+                        return null;
+                    }
+                    throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName());
+                });
+    }
+}
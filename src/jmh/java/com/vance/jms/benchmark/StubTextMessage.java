@@ -0,0 +1,33 @@
+package com.vance.jms.benchmark;
+
+import jakarta.jms.TextMessage;
+
+/**
+ * 效能測試使用的記憶體內 TextMessage
+ */
+public class StubTextMessage extends StubMessage implements TextMessage {
+
+    private String text;
+
+    public StubTextMessage() {
+    }
+
+    public StubTextMessage(String text) {
+        this.text = text;
+    }
+
+    @Override
+    public void setText(String text) {
+        this.text = text;
+    }
+
+    @Override
+    public String getText() {
+        return text;
+    }
+
+    @Override
+    public void clearBody() {
+        text = null;
+    }
+}
@@ -0,0 +1,22 @@
+package com.vance.jms.config;
+
+import java.util.List;
+
+import jakarta.jms.Message;
+
+/**
+ * 批次接收模式下的訊息處理介面
+ * 由 BatchMessageListenerContainer 在同一個交易 Session 中收集一批訊息後呼叫，
+ * 正常返回時整批 commit，拋出異常時整批 rollback
+ */
+@FunctionalInterface
+public interface BatchMessageHandler {
+
+    /**
+     * 處理一批訊息
+     *
+     * @param messages 同一個交易中收到的訊息，依接收順序排列
+     * @throws Exception 處理失敗時拋出，整批訊息將被 rollback
+     */
+    void onMessages(List<Message> messages) throws Exception;
+}
@@ -0,0 +1,122 @@
+package com.vance.jms.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.transaction.TransactionStatus;
+
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageConsumer;
+import jakarta.jms.Session;
+
+/**
+ * 批次接收的監聽器容器
+ * 在同一個交易 Session 中最多收集 batchSize 筆訊息，或在收到第一筆後等待至多 batchReceiveTimeout 毫秒，
+ * 交給 BatchMessageHandler 處理後整批 commit 一次；處理失敗時整批 rollback，由 MQ 重新投遞。
+ * 未取得 Session 或 Consumer (例如設定了外部交易管理器) 時退回逐筆處理。
+ */
+public class BatchMessageListenerContainer extends MonitoredMessageListenerContainer {
+
+    private int batchSize = 50;
+    private long batchReceiveTimeout = 200;
+    private BatchMessageHandler batchMessageHandler;
+
+    /**
+     * 設定每批最多的訊息數量
+     *
+     * @param batchSize 每批最多的訊息數量
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * 設定收到第一筆訊息後，等待湊滿一批的最長時間 (毫秒)
+     *
+     * @param batchReceiveTimeout 等待時間 (毫秒)
+     */
+    public void setBatchReceiveTimeout(long batchReceiveTimeout) {
+        this.batchReceiveTimeout = batchReceiveTimeout;
+    }
+
+    /**
+     * 設定批次訊息處理器
+     *
+     * @param batchMessageHandler 批次訊息處理器
+     */
+    public void setBatchMessageHandler(BatchMessageHandler batchMessageHandler) {
+        this.batchMessageHandler = batchMessageHandler;
+    }
+
+    @Override
+    protected boolean doReceiveAndExecute(Object invoker, Session session, MessageConsumer consumer,
+            TransactionStatus status) throws JMSException {
+        if (session == null || consumer == null || status != null || batchMessageHandler == null) {
+            return super.doReceiveAndExecute(invoker, session, consumer, status);
+        }
+
+        List<Message> batch = receiveBatch(consumer);
+        if (batch.isEmpty()) {
+            if (isSessionLocallyTransacted(session) && shouldCommitAfterNoMessageReceived(session)) {
+                commitIfNecessary(session, null);
+            }
+            noMessageReceived(invoker, session);
+            return false;
+        }
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Received batch of " + batch.size() + " messages in session [" + session + "]");
+        }
+        messageReceived(invoker, session);
+        if (!isAcceptMessagesWhileStopping() && !isRunning()) {
+            if (logger.isWarnEnabled()) {
+                logger.warn("Rejecting batch of " + batch.size() + " messages because of the listener container "
+                        + "having been stopped in the meantime");
+            }
+            rollbackIfNecessary(session);
+            return true;
+        }
+
+        long start = System.nanoTime();
+        try {
+            batchMessageHandler.onMessages(batch);
+        } catch (Throwable ex) {
+            recordHandled(batch.size(), System.nanoTime() - start);
+            rollbackOnExceptionIfNecessary(session, ex);
+            handleListenerException(ex);
+            return true;
+        }
+        recordHandled(batch.size(), System.nanoTime() - start);
+        commitIfNecessary(session, batch.get(batch.size() - 1));
+        return true;
+    }
+
+    /**
+     * 收集一批訊息
+     * 第一筆依容器的 receiveTimeout 等待，之後在 batchReceiveTimeout 內持續接收直到湊滿 batchSize
+     *
+     * @param consumer 訊息消費者
+     * @return 收到的訊息，沒有訊息時為空
+     * @throws JMSException 接收失敗時拋出
+     */
+    private List<Message> receiveBatch(MessageConsumer consumer) throws JMSException {
+        Message first = receiveMessage(consumer);
+        if (first == null) {
+            return List.of();
+        }
+        List<Message> batch = new ArrayList<>(Math.min(batchSize, 64));
+        batch.add(first);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(batchReceiveTimeout);
+        while (batch.size() < batchSize) {
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            Message next = remainingMillis > 0 ? consumer.receive(remainingMillis) : consumer.receiveNoWait();
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return batch;
+    }
+}
@@ -0,0 +1,85 @@
+package com.vance.jms.config;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 單一型別的二進制編碼方式
+ * 由 BinaryMessageConverter 依型別 ID 及 Class 預先登記，發送及接收時不需反射
+ *
+ * @param <T> 編碼的型別
+ */
+public interface BinaryCodec<T> {
+
+    /**
+     * 型別 ID，寫入訊息屬性供接收端選擇解碼方式，不可重複
+     *
+     * @return 型別 ID
+     */
+    short getTypeId();
+
+    /**
+     * 編碼的型別
+     *
+     * @return 型別
+     */
+    Class<T> getType();
+
+    /**
+     * 將物件寫入輸出
+     *
+     * @param value 物件
+     * @param out   輸出
+     * @throws IOException 寫入失敗時拋出
+     */
+    void encode(T value, DataOutput out) throws IOException;
+
+    /**
+     * 從輸入讀取物件
+     *
+     * @param in 輸入
+     * @return 物件
+     * @throws IOException 內容不完整或格式錯誤時拋出
+     */
+    T decode(DataInput in) throws IOException;
+
+    /**
+     * 寫入以長度為前綴的 UTF-8 字串，null 以長度 -1 表示
+     *
+     * @param out   輸出
+     * @param value 字串
+     * @throws IOException 寫入失敗時拋出
+     */
+    static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * 讀取以長度為前綴的 UTF-8 字串
+     *
+     * @param in 輸入
+     * @return 字串，長度為 -1 時為 null
+     * @throws IOException 內容不完整或長度無效時拋出
+     */
+    static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length == -1) {
+            return null;
+        }
+        if (length < 0 || (in instanceof DataInputStream stream && length > stream.available())) {
+            throw new IOException("無效的字串長度: " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
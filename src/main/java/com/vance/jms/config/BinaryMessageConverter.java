@@ -0,0 +1,113 @@
+package com.vance.jms.config;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jms.support.converter.MessageConversionException;
+import org.springframework.jms.support.converter.MessageConverter;
+
+import com.vance.jms.constant.Constant;
+
+import jakarta.jms.BytesMessage;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.Session;
+
+/**
+ * 以二進制格式傳送已登記型別的訊息轉換器
+ * 已登記 BinaryCodec 的型別寫成 BytesMessage，本文為 [格式版本: byte][欄位]，型別以 mqTypeId 數字屬性表示，
+ * 取代 Jackson 的 JSON 文本及完整類別名稱 _type 屬性；其他型別 (例如 String、byte[]) 交給 fallback 轉換器。
+ * 解碼時忽略本文末端多出的內容，讓新版本可以在尾端加入欄位。
+ */
+public class BinaryMessageConverter implements MessageConverter {
+
+    private final MessageConverter fallback;
+    private final Map<Class<?>, BinaryCodec<?>> codecsByType = new HashMap<>();
+    private final Map<Short, BinaryCodec<?>> codecsById = new HashMap<>();
+
+    /**
+     * @param fallback 未登記型別使用的轉換器
+     * @param codecs   要登記的二進制編碼，型別 ID 不可重複
+     */
+    public BinaryMessageConverter(MessageConverter fallback, List<BinaryCodec<?>> codecs) {
+        this.fallback = fallback;
+        for (BinaryCodec<?> codec : codecs) {
+            if (codecsById.putIfAbsent(codec.getTypeId(), codec) != null) {
+                throw new IllegalArgumentException("重複的二進制型別 ID: " + codec.getTypeId());
+            }
+            codecsByType.put(codec.getType(), codec);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Message toMessage(Object object, Session session) throws JMSException, MessageConversionException {
+        BinaryCodec<Object> codec = (BinaryCodec<Object>) codecsByType.get(object.getClass());
+        if (codec == null) {
+            return fallback.toMessage(object, session);
+        }
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            out.writeByte(Constant.BinaryType.FORMAT_VERSION);
+            codec.encode(object, out);
+        } catch (IOException e) {
+            throw new MessageConversionException("無法以二進制格式編碼: " + object.getClass().getName(), e);
+        }
+        BytesMessage message = session.createBytesMessage();
+        message.setShortProperty(Constant.BinaryType.TYPE_ID_PROPERTY, codec.getTypeId());
+        message.writeBytes(buffer.toByteArray());
+        return message;
+    }
+
+    @Override
+    public Object fromMessage(Message message) throws JMSException, MessageConversionException {
+        if (!(message instanceof BytesMessage bytesMessage) || !isBinary(message)) {
+            return fallback.fromMessage(message);
+        }
+        byte[] body = new byte[(int) bytesMessage.getBodyLength()];
+        bytesMessage.readBytes(body);
+        return decode(message, body);
+    }
+
+    /**
+     * 依訊息的型別 ID 屬性解碼已讀出的本文，用於本文已另外讀取 (例如解壓縮後) 的二進制訊息
+     *
+     * @param message 帶有型別 ID 屬性的訊息
+     * @param body    訊息本文
+     * @return 解碼後的物件
+     * @throws JMSException 讀取屬性失敗時拋出
+     */
+    public Object decode(Message message, byte[] body) throws JMSException {
+        short typeId = message.getShortProperty(Constant.BinaryType.TYPE_ID_PROPERTY);
+        BinaryCodec<?> codec = codecsById.get(typeId);
+        if (codec == null) {
+            throw new MessageConversionException("未知的二進制型別 ID: " + typeId);
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(body))) {
+            byte version = in.readByte();
+            if (version != Constant.BinaryType.FORMAT_VERSION) {
+                throw new MessageConversionException("不支援的二進制格式版本: " + version);
+            }
+            return codec.decode(in);
+        } catch (IOException e) {
+            throw new MessageConversionException("無法解碼二進制訊息，型別 ID: " + typeId, e);
+        }
+    }
+
+    /**
+     * 判斷訊息是否為此轉換器產生的二進制訊息
+     *
+     * @param message 收到的訊息
+     * @return 帶有型別 ID 屬性時為 true
+     * @throws JMSException 讀取屬性失敗時拋出
+     */
+    public boolean isBinary(Message message) throws JMSException {
+        return message.propertyExists(Constant.BinaryType.TYPE_ID_PROPERTY);
+    }
+}
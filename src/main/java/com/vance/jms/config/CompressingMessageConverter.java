@@ -0,0 +1,110 @@
+package com.vance.jms.config;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+
+import org.springframework.jms.support.converter.MessageConversionException;
+import org.springframework.jms.support.converter.MessageConverter;
+
+import com.vance.jms.constant.Constant;
+import com.vance.jms.model.CustomMessage;
+import com.vance.jms.service.PayloadCompressor;
+
+import jakarta.jms.BytesMessage;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.Session;
+import jakarta.jms.TextMessage;
+
+/**
+ * 在既有 MessageConverter 之後加上壓縮的訊息轉換器
+ * 發送時由委派的轉換器產生訊息，內容達到門檻且壓縮後變小時改以 BytesMessage 發送，
+ * 並以 mqCodec、mqOriginalType、mqOriginalLength 屬性記錄還原所需資訊；接收時先解壓縮內容再轉換
+ * 發送 CustomMessage 時另以 mqPartitionKey 屬性記錄其 id，接收端分區處理不需解析本文即可取得分區鍵
+ */
+public class CompressingMessageConverter implements MessageConverter {
+
+    private final MessageConverter delegate;
+    private final PayloadCompressor payloadCompressor;
+
+    public CompressingMessageConverter(MessageConverter delegate, PayloadCompressor payloadCompressor) {
+        this.delegate = delegate;
+        this.payloadCompressor = payloadCompressor;
+    }
+
+    @Override
+    public Message toMessage(Object object, Session session) throws JMSException, MessageConversionException {
+        Message message = delegate.toMessage(object, session);
+        if (object instanceof CustomMessage customMessage && customMessage.getId() != null) {
+            message.setStringProperty(Constant.PartitionProperty.KEY, customMessage.getId());
+        }
+        if (!payloadCompressor.isEnabled()) {
+            return message;
+        }
+
+        byte[] body;
+        String originalType;
+        if (message instanceof TextMessage textMessage && textMessage.getText() != null) {
+            body = textMessage.getText().getBytes(StandardCharsets.UTF_8);
+            originalType = Constant.CompressionProperty.TYPE_TEXT;
+        } else if (message instanceof BytesMessage bytesMessage) {
+            bytesMessage.reset();
+            body = new byte[(int) bytesMessage.getBodyLength()];
+            bytesMessage.readBytes(body);
+            bytesMessage.reset();
+            originalType = Constant.CompressionProperty.TYPE_BYTES;
+        } else {
+            return message;
+        }
+
+        byte[] compressed;
+        try {
+            compressed = payloadCompressor.compress(body);
+        } catch (IOException e) {
+            throw new MessageConversionException("壓縮訊息失敗", e);
+        }
+        if (compressed == null) {
+            return message;
+        }
+
+        BytesMessage compressedMessage = session.createBytesMessage();
+        copyProperties(message, compressedMessage);
+        compressedMessage.setStringProperty(Constant.CompressionProperty.CODEC, payloadCompressor.getCodecName());
+        compressedMessage.setStringProperty(Constant.CompressionProperty.ORIGINAL_TYPE, originalType);
+        compressedMessage.setIntProperty(Constant.CompressionProperty.ORIGINAL_LENGTH, body.length);
+        compressedMessage.writeBytes(compressed);
+        return compressedMessage;
+    }
+
+    /**
+     * 未壓縮的訊息交給委派的轉換器；壓縮的二進制格式物件由 BinaryMessageConverter 解碼，
+     * 其他壓縮內容以解壓縮後的 String 或 byte[] 返回
+     */
+    @Override
+    public Object fromMessage(Message message) throws JMSException, MessageConversionException {
+        Object body = payloadCompressor.decompress(message);
+        if (body == null) {
+            return delegate.fromMessage(message);
+        }
+        if (body instanceof byte[] bytes && delegate instanceof BinaryMessageConverter binaryMessageConverter
+                && binaryMessageConverter.isBinary(message)) {
+            return binaryMessageConverter.decode(message, bytes);
+        }
+        return body;
+    }
+
+    private static void copyProperties(Message source, Message target) throws JMSException {
+        Enumeration<?> names = source.getPropertyNames();
+        while (names.hasMoreElements()) {
+            String name = (String) names.nextElement();
+            target.setObjectProperty(name, source.getObjectProperty(name));
+        }
+        if (source.getJMSCorrelationID() != null) {
+            target.setJMSCorrelationID(source.getJMSCorrelationID());
+        }
+        if (source.getJMSType() != null) {
+            target.setJMSType(source.getJMSType());
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.vance.jms.config;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import com.vance.jms.constant.Constant;
+import com.vance.jms.model.CustomMessage;
+
+/**
+ * CustomMessage 的二進制編碼
+ * 格式: [id: 長度前綴 UTF-8][content: 長度前綴 UTF-8][timestamp: long]
+ */
+public class CustomMessageBinaryCodec implements BinaryCodec<CustomMessage> {
+
+    @Override
+    public short getTypeId() {
+        return Constant.BinaryType.CUSTOM_MESSAGE;
+    }
+
+    @Override
+    public Class<CustomMessage> getType() {
+        return CustomMessage.class;
+    }
+
+    @Override
+    public void encode(CustomMessage value, DataOutput out) throws IOException {
+        BinaryCodec.writeString(out, value.getId());
+        BinaryCodec.writeString(out, value.getContent());
+        out.writeLong(value.getTimestamp());
+    }
+
+    @Override
+    public CustomMessage decode(DataInput in) throws IOException {
+        String id = BinaryCodec.readString(in);
+        String content = BinaryCodec.readString(in);
+        long timestamp = in.readLong();
+        return new CustomMessage(id, content, timestamp);
+    }
+}
@@ -0,0 +1,72 @@
+package com.vance.jms.config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 使用 java.util.zip 的 Deflate 壓縮演算法
+ * Deflater 及 Inflater 會配置原生記憶體，因此每個執行緒重複使用同一個實例
+ */
+public class DeflatePayloadCodec implements PayloadCodec {
+
+    public static final String NAME = "deflate";
+
+    private static final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() -> new byte[16 * 1024]);
+
+    private final ThreadLocal<Deflater> deflaters;
+    private final ThreadLocal<Inflater> inflaters = ThreadLocal.withInitial(Inflater::new);
+
+    /**
+     * @param level 壓縮等級 (0-9)
+     */
+    public DeflatePayloadCodec(int level) {
+        this.deflaters = ThreadLocal.withInitial(() -> new Deflater(level));
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public byte[] compress(byte[] data) {
+        Deflater deflater = deflaters.get();
+        deflater.reset();
+        deflater.setInput(data);
+        deflater.finish();
+        byte[] buffer = BUFFER.get();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        while (!deflater.finished()) {
+            int n = deflater.deflate(buffer);
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public byte[] decompress(byte[] data, int originalLength) throws IOException {
+        Inflater inflater = inflaters.get();
+        inflater.reset();
+        inflater.setInput(data);
+        byte[] result = new byte[originalLength];
+        int offset = 0;
+        try {
+            while (!inflater.finished()) {
+                int n = inflater.inflate(result, offset, result.length - offset);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary() || offset == result.length)) {
+                    throw new IOException("壓縮數據不完整或長度不符");
+                }
+                offset += n;
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("壓縮數據格式錯誤", e);
+        }
+        if (offset != originalLength) {
+            throw new IOException("解壓縮後長度不符，預期 " + originalLength + " bytes，實際 " + offset + " bytes");
+        }
+        return result;
+    }
+}
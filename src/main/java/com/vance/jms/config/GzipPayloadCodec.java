@@ -0,0 +1,54 @@
+package com.vance.jms.config;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 使用 GZIP 格式的壓縮演算法，壓縮後的內容可直接以一般工具解開，便於排查隊列中的訊息
+ */
+public class GzipPayloadCodec implements PayloadCodec {
+
+    public static final String NAME = "gzip";
+
+    private final int level;
+
+    /**
+     * @param level 壓縮等級 (0-9)
+     */
+    public GzipPayloadCodec(int level) {
+        this.level = level;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public byte[] compress(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(level);
+            }
+        }) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public byte[] decompress(byte[] data, int originalLength) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            byte[] result = in.readNBytes(originalLength);
+            if (result.length != originalLength || in.read() != -1) {
+                throw new IOException("解壓縮後長度不符，預期 " + originalLength + " bytes");
+            }
+            return result;
+        }
+    }
+}
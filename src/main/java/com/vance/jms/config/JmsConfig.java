@@ -1,12 +1,21 @@
 package com.vance.jms.config;
 
+import java.util.List;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.ssl.SslBundles;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.jms.annotation.EnableJms;
-import org.springframework.jms.config.DefaultJmsListenerContainerFactory;
 import org.springframework.jms.config.JmsListenerContainerFactory;
 import org.springframework.jms.core.JmsTemplate;
 import org.springframework.jms.support.converter.MappingJackson2MessageConverter;
@@ -15,16 +24,25 @@ import org.springframework.jms.support.converter.MessageType;
 import org.springframework.util.backoff.BackOff;
 import org.springframework.util.backoff.BackOffExecution;
 
+import com.ibm.mq.jakarta.jms.MQConnectionFactory;
+import com.ibm.mq.spring.boot.MQConfigurationProperties;
+import com.ibm.mq.spring.boot.MQConnectionFactoryCustomizer;
+import com.ibm.mq.spring.boot.MQConnectionFactoryFactory;
+import com.vance.jms.service.PayloadCompressor;
+
 import jakarta.jms.ConnectionFactory;
 import jakarta.jms.DeliveryMode;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * JMS 配置類
+ * 自行建立 IBM MQ ConnectionFactory，發送端透過 PooledConnectionFactory 共用連接、Session 及 Producer，
+ * 監聽器容器及連接狀態檢查則直接使用實際的 MQ ConnectionFactory
  */
 @Slf4j
 @Configuration
 @EnableJms
+@EnableConfigurationProperties(MQConfigurationProperties.class)
 public class JmsConfig {
 
     @Autowired
@@ -36,21 +54,40 @@ public class JmsConfig {
      * 禁用 DefaultMessageListenerContainer 的默認重試機制，使用自定義的 MQ 重連機制
      */
     @Bean
-    JmsListenerContainerFactory<?> jmsListenerContainerFactory(ConnectionFactory connectionFactory) {
-        DefaultJmsListenerContainerFactory factory = new DefaultJmsListenerContainerFactory();
+    JmsListenerContainerFactory<?> jmsListenerContainerFactory(
+            @Qualifier("mqConnectionFactory") ConnectionFactory connectionFactory,
+            @Qualifier("jmsListenerTaskExecutor") ObjectProvider<TaskExecutor> listenerTaskExecutor,
+            ObjectProvider<BatchMessageHandler> batchMessageHandler,
+            CompressingMessageConverter messageConverter) {
+        MonitoredJmsListenerContainerFactory factory = new MonitoredJmsListenerContainerFactory();
         factory.setConnectionFactory(connectionFactory);
-        factory.setMessageConverter(jacksonJmsMessageConverter());
+        factory.setMessageConverter(messageConverter);
+
+        // 設定批次接收，batchSize 大於 1 時整批訊息在同一個交易中 commit 一次
+        MqConfig.Listener listener = mqConfig.getListener();
+        if (listener.getBatchSize() > 1) {
+            factory.setBatchSize(listener.getBatchSize());
+            factory.setBatchReceiveTimeout(listener.getBatchReceiveTimeoutMs());
+            factory.setBatchMessageHandler(batchMessageHandler.getObject());
+            log.info("已啟用批次接收，每批最多 {} 筆，等待 {} ms", listener.getBatchSize(),
+                    listener.getBatchReceiveTimeoutMs());
+        }
 
-        // 設定為自動啟動，但由 JmsLifecycleManagerService 控制啟動和停止
-        factory.setAutoStartup(true);
+        // 啟用虛擬執行緒模式時改用共用的虛擬執行緒 TaskExecutor，否則沿用容器默認的平台執行緒
+        listenerTaskExecutor.ifAvailable(factory::setTaskExecutor);
+
+        // 不隨 context 自動啟動，由 JmsLifecycleManagerService 在收到 ConnectionResumedEvent 後啟動，連接中斷時停止
+        factory.setAutoStartup(false);
 
         // 設定錯誤處理策略
         factory.setErrorHandler(t -> {
             log.error("JMS 監聽器錯誤處理: {}, {}", t.getMessage(), t);
         });
 
-        // 設定並發消費者數量(視情況可調整併發的數量)
-        factory.setConcurrency("1-1");
+        // 設定並發消費者數量，啟用自動調整時由 ListenerAutoscalerService 在上下限之間調整
+        MqConfig.Autoscaler autoscaler = mqConfig.getAutoscaler();
+        int initialConsumers = autoscaler.isEnabled() ? Math.max(1, autoscaler.getMinConsumers()) : 1;
+        factory.setConcurrency(initialConsumers + "-" + initialConsumers);
 
         // 設定接收超時
         factory.setReceiveTimeout(1000L);
@@ -80,13 +117,62 @@ public class JmsConfig {
         return factory;
     }
 
+    /**
+     * 配置以虛擬執行緒執行監聽器消費者的 TaskExecutor，僅在 mq-config.listener.virtual-threads=true 時建立
+     * 所有使用此 TaskExecutor 的監聽器容器共用同一個 Semaphore，限制同時持有的 MQ Session 數量。
+     * 不使用 SimpleAsyncTaskExecutor 的 concurrencyLimit，因其會阻塞提交任務的容器啟動執行緒。
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "mq-config.listener", name = "virtual-threads", havingValue = "true")
+    SimpleAsyncTaskExecutor jmsListenerTaskExecutor() {
+        int maxSessions = Math.max(1, mqConfig.getListener().getMaxConcurrentSessions());
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("mq-listener-vt-");
+        executor.setVirtualThreads(true);
+        executor.setTaskDecorator(new SessionLimitingTaskDecorator(new Semaphore(maxSessions, true)));
+        log.info("已啟用監聽器虛擬執行緒模式，MQ Session 上限: {}", maxSessions);
+        return executor;
+    }
+
+    /**
+     * 依 ibm.mq 設定建立實際的 IBM MQ ConnectionFactory
+     * 由於自行定義了 ConnectionFactory，IBM MQ Starter 的自動配置會退出，因此在此沿用其建立邏輯
+     */
+    @Bean
+    MQConnectionFactory mqConnectionFactory(MQConfigurationProperties properties,
+            ObjectProvider<SslBundles> sslBundles,
+            ObjectProvider<List<MQConnectionFactoryCustomizer>> factoryCustomizers) {
+        return new MQConnectionFactoryFactory(properties, sslBundles.getIfAvailable(),
+                factoryCustomizers.getIfAvailable()).createConnectionFactory(MQConnectionFactory.class);
+    }
+
+    /**
+     * 配置發送端連接池，共用實體連接並快取 Session 及 Producer
+     * 池的大小由 MqConfig.pool 控制
+     */
+    @Bean
+    @Primary
+    PooledConnectionFactory pooledConnectionFactory(
+            @Qualifier("mqConnectionFactory") ConnectionFactory mqConnectionFactory) {
+        MqConfig.Pool pool = mqConfig.getPool();
+        PooledConnectionFactory pooledConnectionFactory = new PooledConnectionFactory(mqConnectionFactory);
+        pooledConnectionFactory.setSessionCacheSize(pool.getSessionCacheSize());
+        pooledConnectionFactory.setCacheProducers(pool.isCacheProducers());
+        pooledConnectionFactory.setCacheConsumers(false);
+        // 共用連接發生異常時自動重建，避免沿用已失效的連接
+        pooledConnectionFactory.setReconnectOnException(true);
+        log.info("已配置發送端連接池，Session 快取大小: {}，快取 Producer: {}", pool.getSessionCacheSize(),
+                pool.isCacheProducers());
+        return pooledConnectionFactory;
+    }
+
     /**
      * 配置 JmsTemplate，設定訊息過期時間
+     * 使用 PooledConnectionFactory，避免每次發送都重新建立連接
      */
     @Bean
-    JmsTemplate jmsTemplate(ConnectionFactory connectionFactory) {
+    JmsTemplate jmsTemplate(ConnectionFactory connectionFactory, CompressingMessageConverter messageConverter) {
         JmsTemplate jmsTemplate = new JmsTemplate(connectionFactory);
-        jmsTemplate.setMessageConverter(jacksonJmsMessageConverter());
+        jmsTemplate.setMessageConverter(messageConverter);
 
         // 啟用明確的 QoS 設定
         jmsTemplate.setExplicitQosEnabled(true);
@@ -97,9 +183,34 @@ public class JmsConfig {
         // 設定訊息傳遞模式 (PERSISTENT 或 NON_PERSISTENT)
         jmsTemplate.setDeliveryMode(DeliveryMode.NON_PERSISTENT);
 
+        // 使用交易 Session，讓批次發送可以在同一個交易中一次 commit
+        jmsTemplate.setSessionTransacted(true);
+
         return jmsTemplate;
     }
 
+    /**
+     * 配置發送及接收共用的訊息轉換器
+     * 依 mq-config.converter.format 選擇 Jackson 或二進制格式，轉換之後再依 mq-config.compression 壓縮內容
+     */
+    @Bean
+    CompressingMessageConverter compressingMessageConverter(PayloadCompressor payloadCompressor) {
+        MqConfig.Converter.Format format = mqConfig.getConverter().getFormat();
+        MessageConverter converter = format == MqConfig.Converter.Format.BINARY ? binaryMessageConverter()
+                : jacksonJmsMessageConverter();
+        log.info("物件訊息格式: {}", format);
+        return new CompressingMessageConverter(converter, payloadCompressor);
+    }
+
+    /**
+     * 配置二進制訊息轉換器，已登記的型別以數字型別 ID 及二進制本文傳送，其他型別交給 Jackson 轉換器
+     * 不論發送格式為何，接收端都以此轉換器解碼二進制訊息
+     */
+    @Bean
+    BinaryMessageConverter binaryMessageConverter() {
+        return new BinaryMessageConverter(jacksonJmsMessageConverter(), List.of(new CustomMessageBinaryCodec()));
+    }
+
     /**
      * 配置 Jackson 訊息轉換器，用於將 Java 物件轉換為 JMS 訊息
      */
@@ -0,0 +1,122 @@
+package com.vance.jms.config;
+
+import java.util.Objects;
+
+/**
+ * 單一訊息內容類型的處理介面
+ * 註冊為 Spring bean 的實作由 MessageHandlerRegistry 登記，MessageReceiver 轉換訊息內容後交給最符合的處理器。
+ * 內容類型依訊息轉換結果而定：文本為 String、二進制為 byte[]、分段重組後為 InputStream、
+ * 物件訊息為解碼後的物件 (例如 CustomMessage)。
+ * 可再以 JMSType 或訊息屬性縮小範圍；條件越具體的處理器優先，相同時依 @Order 排序。
+ *
+ * @param <T> 處理的內容類型
+ */
+public interface MessageHandler<T> {
+
+    /**
+     * 處理器名稱，用於日誌、指標及執行緒名稱
+     *
+     * @return 處理器名稱
+     */
+    default String getName() {
+        return getClass().getSimpleName();
+    }
+
+    /**
+     * 處理的內容類型，子類別的內容也會交給此處理器
+     *
+     * @return 內容類型
+     */
+    Class<T> getPayloadType();
+
+    /**
+     * 只處理 JMSType 等於此值的訊息
+     *
+     * @return JMSType，不限制時為 null
+     */
+    default String getJmsType() {
+        return null;
+    }
+
+    /**
+     * 只處理此訊息屬性等於 getHeaderValue 的訊息
+     *
+     * @return 訊息屬性名稱，不限制時為 null
+     */
+    default String getHeaderName() {
+        return null;
+    }
+
+    /**
+     * getHeaderName 指定的訊息屬性需符合的值
+     *
+     * @return 訊息屬性值
+     */
+    default String getHeaderValue() {
+        return null;
+    }
+
+    /**
+     * 專屬執行緒數量。大於 0 時以專屬的執行緒池處理，同時處理此類型的執行緒不超過此數量，
+     * 監聽器執行緒等待處理完畢後才返回並 commit，處理失敗時 rollback；等於 0 時在監聽器執行緒上直接處理。
+     * 批次接收模式及 InputStream 內容一律在監聽器執行緒上處理，以保留交易及串流的生命週期。
+     *
+     * @return 專屬執行緒數量
+     */
+    default int getConcurrency() {
+        return 0;
+    }
+
+    /**
+     * 專屬執行緒池的等待佇列容量，佇列已滿時由監聽器執行緒直接處理
+     *
+     * @return 等待佇列容量
+     */
+    default int getQueueCapacity() {
+        return 1000;
+    }
+
+    /**
+     * 處理訊息內容
+     *
+     * @param payload 轉換後的訊息內容
+     * @throws Exception 處理失敗時拋出
+     */
+    void handle(T payload) throws Exception;
+
+    /**
+     * 建立只依內容類型分派、在監聽器執行緒上處理的處理器
+     *
+     * @param name        處理器名稱
+     * @param payloadType 內容類型
+     * @param handler     處理動作
+     * @return 處理器
+     */
+    static <T> MessageHandler<T> of(String name, Class<T> payloadType, PayloadConsumer<T> handler) {
+        Objects.requireNonNull(handler, "handler");
+        return new MessageHandler<>() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public Class<T> getPayloadType() {
+                return payloadType;
+            }
+
+            @Override
+            public void handle(T payload) throws Exception {
+                handler.accept(payload);
+            }
+        };
+    }
+
+    /**
+     * 處理訊息內容的動作
+     */
+    @FunctionalInterface
+    interface PayloadConsumer<T> {
+        void accept(T payload) throws Exception;
+    }
+}
@@ -0,0 +1,71 @@
+package com.vance.jms.config;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+import com.vance.jms.model.CustomMessage;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 預設的訊息處理器
+ * 各內容類型的範例處理器，排序在最後；應用程式註冊相同類型或條件更具體的 MessageHandler bean 即可取代
+ */
+@Slf4j
+@Configuration
+public class MessageHandlerConfig {
+
+    /**
+     * 處理接收到的 CustomMessage 物件訊息
+     */
+    @Bean
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    MessageHandler<CustomMessage> customMessageHandler() {
+        return MessageHandler.of("customMessage", CustomMessage.class, message -> {
+            log.debug("處理訊息物件: {}", message);
+            // 在這裡添加處理 Message 物件的邏輯
+        });
+    }
+
+    /**
+     * 處理接收到的文本訊息
+     */
+    @Bean
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    MessageHandler<String> textMessageHandler() {
+        return MessageHandler.of("text", String.class, text -> {
+            log.debug("處理文本訊息: {}", text);
+            // 在這裡添加處理文本訊息的邏輯
+        });
+    }
+
+    /**
+     * 處理接收到的二進制數據訊息
+     */
+    @Bean
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    MessageHandler<byte[]> bytesMessageHandler() {
+        return MessageHandler.of("bytes", byte[].class, bytes -> {
+            log.debug("處理二進制數據訊息: {} bytes", bytes.length);
+            // 在這裡添加處理二進制數據的邏輯
+        });
+    }
+
+    /**
+     * 處理分段重組後的二進制數據，內容可能已寫入暫存檔，請以串流方式讀取；串流由 MessageReceiver 負責關閉
+     */
+    @Bean
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    MessageHandler<InputStream> byteStreamHandler() {
+        return MessageHandler.of("byteStream", InputStream.class, in -> {
+            long length = in.transferTo(OutputStream.nullOutputStream());
+            log.info("處理重組後的二進制數據: {} bytes", length);
+            // 在這裡添加處理大型二進制數據的邏輯
+        });
+    }
+}
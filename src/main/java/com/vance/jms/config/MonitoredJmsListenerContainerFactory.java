@@ -0,0 +1,78 @@
+package com.vance.jms.config;
+
+import org.springframework.jms.config.DefaultJmsListenerContainerFactory;
+import org.springframework.jms.config.JmsListenerEndpoint;
+import org.springframework.jms.config.SimpleJmsListenerEndpoint;
+import org.springframework.jms.listener.DefaultMessageListenerContainer;
+
+/**
+ * 建立 MonitoredMessageListenerContainer 的監聽器容器工廠
+ * 設定了 BatchMessageHandler 且 batchSize 大於 1 時改為建立 BatchMessageListenerContainer，
+ * 端點的 MessageListener 本身實作 BatchMessageHandler 時 (例如各隊列的監聽器) 以其取代工廠的批次處理器
+ */
+public class MonitoredJmsListenerContainerFactory extends DefaultJmsListenerContainerFactory {
+
+    private int batchSize = 1;
+    private long batchReceiveTimeout = 200;
+    private BatchMessageHandler batchMessageHandler;
+
+    /**
+     * 設定每批最多的訊息數量，1 表示逐筆處理
+     *
+     * @param batchSize 每批最多的訊息數量
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * 設定收到第一筆訊息後，等待湊滿一批的最長時間 (毫秒)
+     *
+     * @param batchReceiveTimeout 等待時間 (毫秒)
+     */
+    public void setBatchReceiveTimeout(long batchReceiveTimeout) {
+        this.batchReceiveTimeout = batchReceiveTimeout;
+    }
+
+    /**
+     * 設定批次訊息處理器
+     *
+     * @param batchMessageHandler 批次訊息處理器
+     */
+    public void setBatchMessageHandler(BatchMessageHandler batchMessageHandler) {
+        this.batchMessageHandler = batchMessageHandler;
+    }
+
+    @Override
+    public DefaultMessageListenerContainer createListenerContainer(JmsListenerEndpoint endpoint) {
+        DefaultMessageListenerContainer container = super.createListenerContainer(endpoint);
+        if (container instanceof BatchMessageListenerContainer batchContainer
+                && endpoint instanceof SimpleJmsListenerEndpoint simpleEndpoint
+                && simpleEndpoint.getMessageListener() instanceof BatchMessageHandler handler) {
+            batchContainer.setBatchMessageHandler(handler);
+        }
+        return container;
+    }
+
+    @Override
+    protected DefaultMessageListenerContainer createContainerInstance() {
+        if (isBatchMode()) {
+            return new BatchMessageListenerContainer();
+        }
+        return new MonitoredMessageListenerContainer();
+    }
+
+    @Override
+    protected void initializeContainer(DefaultMessageListenerContainer container) {
+        super.initializeContainer(container);
+        if (container instanceof BatchMessageListenerContainer batchContainer) {
+            batchContainer.setBatchSize(batchSize);
+            batchContainer.setBatchReceiveTimeout(batchReceiveTimeout);
+            batchContainer.setBatchMessageHandler(batchMessageHandler);
+        }
+    }
+
+    private boolean isBatchMode() {
+        return batchMessageHandler != null && batchSize > 1;
+    }
+}
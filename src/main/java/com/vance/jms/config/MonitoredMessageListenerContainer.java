@@ -0,0 +1,91 @@
+package com.vance.jms.config;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.jms.listener.DefaultMessageListenerContainer;
+
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.Session;
+
+/**
+ * 記錄接收統計的監聽器容器
+ * 累計收到訊息及空轉 (receive 逾時未取得訊息) 的次數，以及監聽器處理訊息的耗時，
+ * 供 ListenerAutoscalerService 判斷是否調整消費者數量
+ */
+public class MonitoredMessageListenerContainer extends DefaultMessageListenerContainer {
+
+    private final AtomicLong receivedCount = new AtomicLong();
+    private final AtomicLong idleReceiveCount = new AtomicLong();
+    private final AtomicLong handledCount = new AtomicLong();
+    private final AtomicLong handlerNanos = new AtomicLong();
+
+    @Override
+    protected void messageReceived(Object invoker, Session session) {
+        receivedCount.incrementAndGet();
+        super.messageReceived(invoker, session);
+    }
+
+    @Override
+    protected void noMessageReceived(Object invoker, Session session) {
+        idleReceiveCount.incrementAndGet();
+        super.noMessageReceived(invoker, session);
+    }
+
+    @Override
+    protected void invokeListener(Session session, Message message) throws JMSException {
+        long start = System.nanoTime();
+        try {
+            super.invokeListener(session, message);
+        } finally {
+            recordHandled(1, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 累計監聽器處理的訊息數量及耗時
+     *
+     * @param messages 處理的訊息數量
+     * @param nanos    處理耗時 (奈秒)
+     */
+    protected void recordHandled(int messages, long nanos) {
+        handlerNanos.addAndGet(nanos);
+        handledCount.addAndGet(messages);
+    }
+
+    /**
+     * 獲取累計收到的訊息數量
+     *
+     * @return 收到的訊息數量
+     */
+    public long getReceivedCount() {
+        return receivedCount.get();
+    }
+
+    /**
+     * 獲取累計 receive 逾時未取得訊息的次數
+     *
+     * @return 空轉次數
+     */
+    public long getIdleReceiveCount() {
+        return idleReceiveCount.get();
+    }
+
+    /**
+     * 獲取累計由監聽器處理完成的訊息數量
+     *
+     * @return 處理數量
+     */
+    public long getHandledCount() {
+        return handledCount.get();
+    }
+
+    /**
+     * 獲取監聽器累計處理耗時 (奈秒)
+     *
+     * @return 處理耗時
+     */
+    public long getHandlerNanos() {
+        return handlerNanos.get();
+    }
+}
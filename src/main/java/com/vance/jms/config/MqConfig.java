@@ -1,5 +1,10 @@
 package com.vance.jms.config;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
@@ -22,16 +27,26 @@ public class MqConfig {
      */
     private String queueName;
 
+    /**
+     * 預設隊列以外的其他隊列，每個隊列有各自的監聽器容器及發送設定，可透過發送 API 的 queue 參數指定
+     */
+    private List<QueueDefinition> queues = new ArrayList<>();
+
     /**
      * 訊息過期時間 (秒)
      */
     private int messageTtlSeconds;
 
     /**
-     * 重新連接嘗試之間的間隔（秒）。默認為 30 秒。
+     * 重新連接退避延遲的上限（秒）。每次重試的延遲以 decorrelated jitter 指數增加，最多到此值。默認為 30 秒。
      */
     private int reconnectIntervalSeconds = 30;
 
+    /**
+     * 重新連接退避的初始延遲（毫秒），也是每次延遲的下限。默認為 1000 毫秒。
+     */
+    private long reconnectInitialDelayMillis = 1000;
+
     /**
      * 最大重新連接嘗試次數。默認為 30 次。
      */
@@ -41,4 +56,701 @@ public class MqConfig {
      * 達到最大重新連接嘗試次數後，再次嘗試之前的暫停持續時間（分鐘）。默認為 30 分鐘。
      */
     private int reconnectPauseMinutes = 30;
+
+    /**
+     * 備援連接狀態檢查的間隔（秒）。連接中斷主要由監控連接的 ExceptionListener 即時偵測，默認為 60 秒。
+     */
+    private int statusCheckIntervalSeconds = 60;
+
+    /**
+     * 單次批次發送允許的最大訊息數量。默認為 500 筆。
+     */
+    private int maxBatchSize = 500;
+
+    /**
+     * 以 application/octet-stream 串流發送二進制數據時允許的最大位元組數。默認為 4 MB。
+     */
+    private long maxStreamBytes = 4L * 1024 * 1024;
+
+    /**
+     * 發送端連接池設定
+     */
+    private Pool pool = new Pool();
+
+    /**
+     * 非同步發送設定
+     */
+    private AsyncSend asyncSend = new AsyncSend();
+
+    /**
+     * 監聽器消費者數量自動調整設定
+     */
+    private Autoscaler autoscaler = new Autoscaler();
+
+    /**
+     * 監聽器執行緒設定
+     */
+    private Listener listener = new Listener();
+
+    /**
+     * MQ 斷線時的本地暫存 (outbox) 設定
+     */
+    private Outbox outbox = new Outbox();
+
+    /**
+     * 大型二進制訊息分段設定
+     */
+    private Chunking chunking = new Chunking();
+
+    /**
+     * 訊息內容壓縮設定
+     */
+    private Compression compression = new Compression();
+
+    /**
+     * 訊息格式設定
+     */
+    private Converter converter = new Converter();
+
+    /**
+     * 訊息內容日誌設定
+     */
+    private PayloadLogging payloadLogging = new PayloadLogging();
+
+    /**
+     * 接收端重複訊息過濾設定
+     */
+    private Idempotency idempotency = new Idempotency();
+
+    /**
+     * 發送端跨多個 Queue Manager 分流設定
+     */
+    private Sharding sharding = new Sharding();
+
+    /**
+     * 發送端斷路器設定
+     */
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    /**
+     * NDJSON 串流匯入設定
+     */
+    private Ingest ingest = new Ingest();
+
+    /**
+     * 單一隊列的設定
+     * 未設定的 QoS 項目沿用全域設定 (messageTtlSeconds 及 JmsTemplate 的傳遞模式)
+     */
+    @Data
+    public static class QueueDefinition {
+        /**
+         * 隊列的邏輯名稱，發送 API 以此名稱指定隊列，也用於監聽器容器 ID (queue-名稱)。
+         */
+        private String name;
+
+        /**
+         * MQ 上的實際隊列名稱。默認與 name 相同。
+         */
+        private String destination = "";
+
+        /**
+         * 是否建立監聽器容器接收此隊列的訊息，false 表示只用於發送。默認為 true。
+         */
+        private boolean listen = true;
+
+        /**
+         * 監聽器的消費者數量，例如 "3" 或 "1-5"。默認為空，使用 1 個消費者。
+         */
+        private String concurrency = "";
+
+        /**
+         * 發送到此隊列的訊息過期時間（秒），未設定時沿用 messageTtlSeconds。
+         */
+        private Integer messageTtlSeconds;
+
+        /**
+         * 發送到此隊列的傳遞模式 (PERSISTENT 或 NON_PERSISTENT)，未設定時沿用 JmsTemplate 的設定。
+         */
+        private DeliveryMode deliveryMode;
+
+        /**
+         * 處理此隊列訊息的 MessageHandler 名稱。默認為空，表示所有處理器都可處理。
+         */
+        private Set<String> handlers = new HashSet<>();
+
+        /**
+         * MQ 上的實際隊列名稱
+         *
+         * @return destination，未設定時為 name
+         */
+        public String resolveDestination() {
+            return destination == null || destination.isEmpty() ? name : destination;
+        }
+
+        /**
+         * 訊息傳遞模式
+         */
+        public enum DeliveryMode {
+            PERSISTENT(jakarta.jms.DeliveryMode.PERSISTENT),
+            NON_PERSISTENT(jakarta.jms.DeliveryMode.NON_PERSISTENT);
+
+            private final int value;
+
+            DeliveryMode(int value) {
+                this.value = value;
+            }
+
+            public int getValue() {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * 發送端連接池設定
+     */
+    @Data
+    public static class Pool {
+        /**
+         * 每種 Session 模式快取的 Session 數量，即可同時重複使用的 Session 上限。默認為 10。
+         */
+        private int sessionCacheSize = 10;
+
+        /**
+         * 是否在 Session 中依目的地快取 MessageProducer。默認為 true。
+         */
+        private boolean cacheProducers = true;
+    }
+
+    /**
+     * 非同步發送設定
+     */
+    @Data
+    public static class AsyncSend {
+        /**
+         * 非同步發送通道數量，每條通道持有一個 Session 及 Producer。默認為 4。
+         */
+        private int lanes = 4;
+    }
+
+    /**
+     * 監聽器消費者數量自動調整設定
+     * 依隊列積壓量、監聽器處理耗時及空轉比例調整 mainMessageListener 的消費者數量
+     */
+    @Data
+    public static class Autoscaler {
+        /**
+         * 是否啟用自動調整。未啟用時消費者數量固定為 1。默認為 false。
+         */
+        private boolean enabled = false;
+
+        /**
+         * 最少消費者數量。默認為 1。
+         */
+        private int minConsumers = 1;
+
+        /**
+         * 最多消費者數量。默認為 10。
+         */
+        private int maxConsumers = 10;
+
+        /**
+         * 每次調整增減的消費者數量。默認為 1。
+         */
+        private int step = 1;
+
+        /**
+         * 評估間隔（秒）。默認為 5 秒。
+         */
+        private int evaluationIntervalSeconds = 5;
+
+        /**
+         * 空轉比例低於此值時視為消費者已飽和。默認為 0.1。
+         */
+        private double scaleUpIdleRatio = 0.1;
+
+        /**
+         * 空轉比例高於此值時視為消費者過多。默認為 0.6。
+         */
+        private double scaleDownIdleRatio = 0.6;
+
+        /**
+         * 隊列積壓量達到此值時視為需要擴充。默認為 100。
+         */
+        private int scaleUpBacklog = 100;
+
+        /**
+         * 以 QueueBrowser 估算積壓量時最多瀏覽的訊息數量，0 表示不瀏覽隊列。默認為 500。
+         */
+        private int backlogProbeLimit = 500;
+
+        /**
+         * 連續多少個評估週期符合擴充條件才擴充。默認為 2。
+         */
+        private int scaleUpWindows = 2;
+
+        /**
+         * 連續多少個評估週期符合縮減條件才縮減。默認為 6。
+         */
+        private int scaleDownWindows = 6;
+
+        /**
+         * 每次調整後的冷卻時間（秒），期間不再調整。默認為 30 秒。
+         */
+        private int cooldownSeconds = 30;
+
+        /**
+         * 平均處理耗時超過此值（毫秒）時不再擴充，避免加重下游負擔，0 表示不檢查。默認為 2000。
+         */
+        private long maxHandlerLatencyMs = 2000;
+    }
+
+    /**
+     * 監聽器執行緒設定
+     */
+    @Data
+    public static class Listener {
+        /**
+         * 是否以虛擬執行緒執行監聽器消費者。默認為 false，使用平台執行緒。
+         */
+        private boolean virtualThreads = false;
+
+        /**
+         * 虛擬執行緒模式下，所有監聽器容器同時持有的 MQ Session 上限。默認為 200。
+         */
+        private int maxConcurrentSessions = 200;
+
+        /**
+         * 批次接收時每批最多的訊息數量，整批在同一個交易中 commit 一次，1 表示逐筆處理。默認為 1。
+         */
+        private int batchSize = 1;
+
+        /**
+         * 批次接收時，收到第一筆訊息後等待湊滿一批的最長時間（毫秒）。默認為 200。
+         */
+        private long batchReceiveTimeoutMs = 200;
+
+        /**
+         * 批次接收時依分區鍵平行處理的通道數量，相同分區鍵的訊息依接收順序處理，小於 2 表示不啟用。默認為 0。
+         */
+        private int partitions = 0;
+
+        /**
+         * 作為分區鍵的訊息屬性名稱，未設定或訊息沒有此屬性時依序使用 JMSXGroupID、發送端記錄的 mqPartitionKey、分段群組 ID 及二進制 CustomMessage 的 id。
+         */
+        private String partitionKeyProperty = "";
+
+        /**
+         * 每條分區通道的佇列容量，至少為 batch-size。默認為 1024。
+         */
+        private int partitionQueueCapacity = 1024;
+    }
+
+    /**
+     * MQ 斷線時的本地暫存 (outbox) 設定
+     * 啟用後，斷線期間的發送寫入本地日誌檔，連接恢復後依序重送
+     */
+    @Data
+    public static class Outbox {
+        /**
+         * 是否啟用本地暫存。未啟用時斷線期間的發送直接回傳 503。默認為 false。
+         */
+        private boolean enabled = false;
+
+        /**
+         * 日誌檔存放目錄。默認為 data/outbox。
+         */
+        private String directory = "data/outbox";
+
+        /**
+         * 單一日誌段檔案大小（位元組），也是單筆訊息大小的上限。默認為 16 MB。
+         */
+        private int segmentSizeBytes = 16 * 1024 * 1024;
+
+        /**
+         * 所有日誌段檔案合計的大小上限（位元組），超過時拒絕暫存。默認為 256 MB。
+         */
+        private long maxTotalBytes = 256L * 1024 * 1024;
+
+        /**
+         * 寫入日誌後同步到磁碟的策略。默認為 INTERVAL。
+         */
+        private FsyncPolicy fsyncPolicy = FsyncPolicy.INTERVAL;
+
+        /**
+         * fsyncPolicy 為 INTERVAL 時同步到磁碟的間隔（毫秒）。默認為 1000。
+         */
+        private long fsyncIntervalMs = 1000;
+
+        /**
+         * 重送時每秒最多發送的訊息數量。默認為 200。
+         */
+        private double replayRatePerSecond = 200;
+
+        /**
+         * 檢查是否有待重送訊息的間隔（毫秒），補足連接恢復事件之外的重送時機。默認為 5000。
+         */
+        private long drainIntervalMs = 5000;
+
+        /**
+         * 日誌同步到磁碟的策略
+         */
+        public enum FsyncPolicy {
+            /**
+             * 每次寫入後立即同步，斷電也不遺失已回應的訊息
+             */
+            ALWAYS,
+            /**
+             * 定期同步，斷電時可能遺失最近一個間隔內的訊息
+             */
+            INTERVAL,
+            /**
+             * 不主動同步，交由作業系統寫回
+             */
+            NEVER
+        }
+    }
+
+    /**
+     * 大型二進制訊息分段設定
+     * 發送端將超過 chunkSizeBytes 的二進制數據切分為多個 BytesMessage，接收端依序重組
+     */
+    @Data
+    public static class Chunking {
+        /**
+         * 是否在發送端切分大型二進制數據。接收端一律支援重組。默認為 false。
+         */
+        private boolean enabled = false;
+
+        /**
+         * 每段訊息的最大位元組數，需小於隊列管理器的最大訊息長度。默認為 1 MB。
+         */
+        private int chunkSizeBytes = 1024 * 1024;
+
+        /**
+         * 重組時每個分段群組保留在記憶體中的位元組數，超過時改寫入暫存檔。默認為 4 MB。
+         */
+        private int memoryThresholdBytes = 4 * 1024 * 1024;
+
+        /**
+         * 單一分段群組重組後允許的最大位元組數。默認為 1 GB。
+         */
+        private long maxGroupBytes = 1024L * 1024 * 1024;
+
+        /**
+         * 同時重組中的分段群組數量上限。默認為 16。
+         */
+        private int maxOpenGroups = 16;
+
+        /**
+         * 分段群組超過此時間（秒）未收到新的分段時視為不完整並丟棄。默認為 300 秒。
+         */
+        private int groupTimeoutSeconds = 300;
+
+        /**
+         * 重組暫存檔存放目錄，空白時使用系統暫存目錄。
+         */
+        private String spoolDirectory = "";
+    }
+
+    /**
+     * 訊息內容壓縮設定
+     * 經由 MessageConverter 發送且內容達到門檻的訊息，壓縮後以 BytesMessage 發送，並以訊息屬性記錄演算法
+     */
+    @Data
+    public static class Compression {
+        /**
+         * 是否壓縮發送的訊息。接收端一律支援解壓縮。默認為 false。
+         */
+        private boolean enabled = false;
+
+        /**
+         * 壓縮演算法名稱，內建 deflate 與 gzip，其他演算法可註冊 PayloadCodec bean 後使用。默認為 deflate。
+         */
+        private String codec = "deflate";
+
+        /**
+         * 內容達到此位元組數才壓縮。默認為 1024。
+         */
+        private int thresholdBytes = 1024;
+
+        /**
+         * 壓縮等級 (0-9)，數值越大壓縮率越高但越耗 CPU。默認為 6。
+         */
+        private int level = 6;
+
+        /**
+         * 解壓縮後允許的最大位元組數，避免異常的長度屬性耗盡記憶體。默認為 64 MB。
+         */
+        private int maxDecompressedBytes = 64 * 1024 * 1024;
+    }
+
+    /**
+     * 訊息格式設定
+     */
+    @Data
+    public static class Converter {
+        /**
+         * 發送物件訊息使用的格式：JSON 為 Jackson 文本訊息，BINARY 為帶有數字型別 ID 的二進制訊息。
+         * 接收端兩種格式皆可處理。默認為 JSON。
+         */
+        private Format format = Format.JSON;
+
+        /**
+         * 是否接受以 Java 序列化傳送的 ObjectMessage。反序列化不受信任的內容有安全風險，默認為 false。
+         */
+        private boolean allowObjectMessage = false;
+
+        /**
+         * 物件訊息格式
+         */
+        public enum Format {
+            JSON, BINARY
+        }
+    }
+
+    /**
+     * 訊息內容日誌設定
+     * 發送及接收的訊息內容依比例抽樣記錄，每個類別每秒有數量上限，且內容會截斷；
+     * 列於 fullPayloadQueues 的隊列不抽樣、不限流、不截斷，可透過 /api/mq/payload-logging 於執行期間切換
+     */
+    @Data
+    public static class PayloadLogging {
+        /**
+         * 抽樣記錄的比例 (0 到 1)。0 表示不記錄，1 表示全部記錄 (仍受每秒上限限制)。默認為 0.01。
+         */
+        private double sampleRate = 0.01;
+
+        /**
+         * 每個類別 (request、send、receive) 每秒最多記錄的筆數。默認為 10。
+         */
+        private int maxPerSecond = 10;
+
+        /**
+         * 記錄內容的最大字元數，超過時截斷。默認為 256。
+         */
+        private int maxLength = 256;
+
+        /**
+         * 啟動時即記錄完整內容的隊列名稱。默認為空。
+         */
+        private Set<String> fullPayloadQueues = new HashSet<>();
+    }
+
+    /**
+     * 接收端重複訊息過濾設定
+     * 以 CustomMessage 的 id 或 JMSMessageID 記錄已處理的訊息，時間窗內再次收到時略過處理器
+     */
+    @Data
+    public static class Idempotency {
+        /**
+         * 是否啟用重複訊息過濾。默認為 false。
+         */
+        private boolean enabled = false;
+
+        /**
+         * 已處理訊息 ID 的保留時間（分鐘），超過後再次收到視為新訊息。默認為 60。
+         */
+        private int windowMinutes = 60;
+
+        /**
+         * 最多保留的訊息 ID 數量，超過時淘汰最久未出現的 ID。默認為 100000。
+         */
+        private int maxEntries = 100_000;
+
+        /**
+         * Bloom filter 的誤判率，只影響需要查詢精確記錄的比例，不會誤判重複。默認為 0.01。
+         */
+        private double falsePositiveRate = 0.01;
+
+        /**
+         * 快照檔案路徑，設定後定期及關閉時將已處理的 ID 寫入檔案，啟動時載入。默認為空，不寫入快照。
+         */
+        private String snapshotFile = "";
+
+        /**
+         * 寫入快照的間隔（秒）。默認為 60。
+         */
+        private int snapshotIntervalSeconds = 60;
+    }
+
+    /**
+     * 發送端斷路器設定
+     * 依最近的發送結果計算錯誤率及延遲百分位數，超過門檻時開啟斷路器，開啟期間發送立即失敗；
+     * 經過 openDurationSeconds 後進入半開狀態，只放行 halfOpenProbes 筆探測發送，全部成功才關閉
+     */
+    @Data
+    public static class CircuitBreaker {
+        /**
+         * 是否啟用斷路器。默認為 false。
+         */
+        private boolean enabled = false;
+
+        /**
+         * 計算錯誤率及延遲的滑動視窗大小 (最近的發送次數)。默認為 100。
+         */
+        private int windowSize = 100;
+
+        /**
+         * 視窗中至少有幾次發送才開始判斷。默認為 20。
+         */
+        private int minimumCalls = 20;
+
+        /**
+         * 開啟斷路器的錯誤率（百分比）。默認為 50。
+         */
+        private int failureRateThreshold = 50;
+
+        /**
+         * 判斷延遲的百分位數，例如 0.95 表示 p95。默認為 0.95。
+         */
+        private double latencyPercentile = 0.95;
+
+        /**
+         * 延遲百分位數超過此值（毫秒）時開啟斷路器。默認為 2000。
+         */
+        private long latencyThresholdMs = 2000;
+
+        /**
+         * 斷路器開啟後等待多久（秒）進入半開狀態。默認為 30。
+         */
+        private int openDurationSeconds = 30;
+
+        /**
+         * 半開狀態放行的探測發送數量，全部成功時關閉斷路器。默認為 3。
+         */
+        private int halfOpenProbes = 3;
+    }
+
+    /**
+     * NDJSON 串流匯入設定
+     * /ingest 以非阻塞方式讀取請求內容，同時進行中的非同步發送達到 maxInFlight 時暫停讀取，由 TCP 流量控制讓客戶端放慢上傳；
+     * /stream 在請求執行緒中邊讀邊送，以同一個交易 Session 定期 commit
+     */
+    @Data
+    public static class Ingest {
+        /**
+         * 每個請求同時進行中 (已送出、尚未收到 MQ 確認) 的非同步發送上限。默認為 64。
+         */
+        private int maxInFlight = 64;
+
+        /**
+         * 單行 JSON 的位元組上限，超過時中止匯入並返回 413。默認為 1 MB。
+         */
+        private int maxLineBytes = 1024 * 1024;
+
+        /**
+         * 單一匯入請求的處理時間上限（秒）。默認為 300。
+         */
+        private int timeoutSeconds = 300;
+
+        /**
+         * /ingest 在 MQ 確認寫入後繼續讀取、解析及送出的執行緒數量，不佔用 MQ 客戶端的回呼執行緒。默認為 2。
+         */
+        private int resumeThreads = 2;
+
+        /**
+         * /stream 端點在同一個交易中累積多少筆訊息後 commit 一次。默認為 500。
+         * 不可超過 Queue Manager 的 MAXUMSGS (預設 10000)。
+         */
+        private int commitInterval = 500;
+
+        /**
+         * /stream 端點距上次 commit 超過此毫秒數時，在下一筆訊息送出後提前 commit，
+         * 避免上傳緩慢時訊息長時間停留在未 commit 的交易中。默認為 1000。
+         * 此期限只在送出訊息時檢查，不是獨立的計時器：上傳停頓時，已送出的訊息會留在交易中，
+         * 直到下一行到達、請求內容結束 (commit) 或讀取失敗/逾時 (rollback)；
+         * 交易 Session 只能由請求執行緒使用，因此不從其他執行緒 commit。
+         */
+        private long commitIntervalMillis = 1000;
+    }
+
+    /**
+     * 發送端分流設定
+     * 啟用後發送到隊列的訊息依策略分配到多個 Queue Manager，每個 Queue Manager 有各自的連接池及健康狀態，
+     * 無法連接的 Queue Manager 暫時不分配訊息。接收端仍只監聽 ibm.mq 設定的 Queue Manager。
+     */
+    @Data
+    public static class Sharding {
+        /**
+         * 是否啟用分流。默認為 false，所有訊息發送到 ibm.mq 設定的 Queue Manager。
+         */
+        private boolean enabled = false;
+
+        /**
+         * 分配策略：CONSISTENT_HASH 依訊息鍵分配，相同鍵固定發送到同一個 Queue Manager；
+         * WEIGHTED_ROUND_ROBIN 依權重輪流分配。默認為 CONSISTENT_HASH。
+         */
+        private Strategy strategy = Strategy.CONSISTENT_HASH;
+
+        /**
+         * 一致性雜湊中每單位權重的虛擬節點數量。默認為 100。
+         */
+        private int virtualNodes = 100;
+
+        /**
+         * 檢查各 Queue Manager 健康狀態及重新連接的間隔（秒）。默認為 10。
+         */
+        private int healthCheckIntervalSeconds = 10;
+
+        /**
+         * 參與分流的 Queue Manager，未設定的連接參數沿用 ibm.mq 的設定
+         */
+        private List<Shard> shards = new ArrayList<>();
+
+        public enum Strategy {
+            CONSISTENT_HASH,
+            WEIGHTED_ROUND_ROBIN
+        }
+    }
+
+    /**
+     * 單一 Queue Manager 的連接設定
+     */
+    @Data
+    public static class Shard {
+        /**
+         * 分流節點名稱，用於日誌及指標。默認為 queueManager。
+         */
+        private String name = "";
+
+        /**
+         * Queue Manager 名稱
+         */
+        private String queueManager;
+
+        /**
+         * 連接位址，例如 "host(1414)"
+         */
+        private String connName;
+
+        /**
+         * 連接通道。默認為空，沿用 ibm.mq.channel。
+         */
+        private String channel = "";
+
+        /**
+         * 連接使用者。默認為空，沿用 ibm.mq.user。
+         */
+        private String user = "";
+
+        /**
+         * 連接密碼。默認為空，沿用 ibm.mq.password。
+         */
+        private String password = "";
+
+        /**
+         * 分配權重，越大分配到的訊息越多。默認為 1。
+         */
+        private int weight = 1;
+
+        /**
+         * 分流節點名稱
+         *
+         * @return name，未設定時為 queueManager
+         */
+        public String resolveName() {
+            return name == null || name.isEmpty() ? queueManager : name;
+        }
+    }
 }
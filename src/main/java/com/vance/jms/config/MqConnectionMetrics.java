@@ -0,0 +1,57 @@
+package com.vance.jms.config;
+
+import org.springframework.stereotype.Component;
+
+import com.vance.jms.service.MqConnectionService;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * MQ 連接狀態指標
+ * 由 Spring Boot 在 MeterRegistry 建立後綁定，數值在讀取時才向 MqConnectionService 取得，
+ * 連接服務本身不需要依賴 Micrometer
+ */
+@Component
+public class MqConnectionMetrics implements MeterBinder {
+
+    // 連接狀態: 1 已連接、0 未連接 (重新連接中)、-1 重新連接已暫停
+    static final int STATE_CONNECTED = 1;
+    static final int STATE_DISCONNECTED = 0;
+    static final int STATE_PAUSED = -1;
+
+    private final MqConnectionService mqConnectionService;
+
+    public MqConnectionMetrics(MqConnectionService mqConnectionService) {
+        this.mqConnectionService = mqConnectionService;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("jms.connection.state", mqConnectionService, MqConnectionMetrics::state)
+                .description("MQ 連接狀態 (1 已連接、0 重新連接中、-1 重新連接已暫停)").register(registry);
+        Gauge.builder("jms.connection.reconnect.current", mqConnectionService,
+                MqConnectionService::getCurrentReconnectAttempts)
+                .description("自上次成功連接或暫停以來的重新連接嘗試次數").register(registry);
+        FunctionCounter.builder("jms.connection.reconnect.attempts", mqConnectionService,
+                MqConnectionService::getTotalReconnectAttempts)
+                .description("重新連接嘗試總次數").register(registry);
+        FunctionCounter.builder("jms.connection.reconnect.failures", mqConnectionService,
+                MqConnectionService::getTotalReconnectFailures)
+                .description("重新連接失敗總次數").register(registry);
+        FunctionCounter.builder("jms.connection.paused", mqConnectionService,
+                MqConnectionService::getTotalPausedSeconds)
+                .description("重新連接處於暫停狀態的累計時間").baseUnit("seconds")
+                .register(registry);
+    }
+
+    private static int state(MqConnectionService service) {
+        return switch (service.getState()) {
+            case CONNECTED -> STATE_CONNECTED;
+            case PAUSED -> STATE_PAUSED;
+            case RECONNECTING -> STATE_DISCONNECTED;
+        };
+    }
+}
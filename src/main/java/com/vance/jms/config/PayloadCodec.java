@@ -0,0 +1,37 @@
+package com.vance.jms.config;
+
+import java.io.IOException;
+
+/**
+ * 訊息內容的壓縮演算法
+ * 內建 deflate 與 gzip；註冊為 Spring bean 的實作會由 PayloadCompressor 一併登記，
+ * 可在 mq-config.compression.codec 以名稱選用 (例如加入 LZ4 或 Zstd 函式庫後自行實作)
+ */
+public interface PayloadCodec {
+
+    /**
+     * 演算法名稱，寫入訊息屬性供接收端選擇解壓縮方式
+     *
+     * @return 演算法名稱
+     */
+    String getName();
+
+    /**
+     * 壓縮數據
+     *
+     * @param data 原始數據
+     * @return 壓縮後的數據
+     * @throws IOException 壓縮失敗時拋出
+     */
+    byte[] compress(byte[] data) throws IOException;
+
+    /**
+     * 解壓縮數據
+     *
+     * @param data           壓縮後的數據
+     * @param originalLength 原始數據的位元組數
+     * @return 原始數據
+     * @throws IOException 數據損壞或長度不符時拋出
+     */
+    byte[] decompress(byte[] data, int originalLength) throws IOException;
+}
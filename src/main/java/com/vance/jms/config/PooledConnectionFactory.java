@@ -0,0 +1,132 @@
+package com.vance.jms.config;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.jms.connection.CachingConnectionFactory;
+
+import jakarta.jms.Connection;
+import jakarta.jms.ConnectionFactory;
+import jakarta.jms.JMSException;
+import jakarta.jms.Session;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 發送端使用的連接池
+ * 以 CachingConnectionFactory 共用單一實體連接，並依 Session 模式快取 Session 及各目的地的 MessageProducer，
+ * 同時記錄 Session 取用的命中、未命中次數及等待時間
+ */
+@Slf4j
+public class PooledConnectionFactory extends CachingConnectionFactory {
+
+    private final AtomicLong sessionRequests = new AtomicLong();
+    private final AtomicLong sessionMisses = new AtomicLong();
+    private final AtomicLong sessionWaitNanos = new AtomicLong();
+    private final AtomicLong maxSessionWaitNanos = new AtomicLong();
+    private final AtomicLong connectionCreations = new AtomicLong();
+    private final AtomicLong resets = new AtomicLong();
+
+    /**
+     * 建立包裝實際 MQ ConnectionFactory 的連接池
+     *
+     * @param targetConnectionFactory 實際的 IBM MQ ConnectionFactory
+     */
+    public PooledConnectionFactory(ConnectionFactory targetConnectionFactory) {
+        super(targetConnectionFactory);
+    }
+
+    @Override
+    protected Session getSession(Connection con, Integer mode) throws JMSException {
+        long start = System.nanoTime();
+        try {
+            return super.getSession(con, mode);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            sessionRequests.incrementAndGet();
+            sessionWaitNanos.addAndGet(elapsed);
+            maxSessionWaitNanos.accumulateAndGet(elapsed, Math::max);
+        }
+    }
+
+    @Override
+    protected Session createSession(Connection con, Integer mode) throws JMSException {
+        // 只有快取中沒有可用的 Session 時才會建立實體 Session
+        sessionMisses.incrementAndGet();
+        return super.createSession(con, mode);
+    }
+
+    @Override
+    protected Connection doCreateConnection() throws JMSException {
+        connectionCreations.incrementAndGet();
+        return super.doCreateConnection();
+    }
+
+    @Override
+    public void resetConnection() {
+        resets.incrementAndGet();
+        super.resetConnection();
+        log.info("連接池已清空，共用連接及快取的 Session/Producer 已關閉");
+    }
+
+    /**
+     * 獲取 Session 取用總次數
+     *
+     * @return 取用次數
+     */
+    public long getSessionRequests() {
+        return sessionRequests.get();
+    }
+
+    /**
+     * 獲取命中快取的 Session 取用次數
+     *
+     * @return 命中次數
+     */
+    public long getSessionHits() {
+        return Math.max(0, sessionRequests.get() - sessionMisses.get());
+    }
+
+    /**
+     * 獲取未命中快取而建立實體 Session 的次數
+     *
+     * @return 未命中次數
+     */
+    public long getSessionMisses() {
+        return sessionMisses.get();
+    }
+
+    /**
+     * 獲取取用 Session 的累計等待時間 (奈秒)
+     *
+     * @return 累計等待時間
+     */
+    public long getSessionWaitNanos() {
+        return sessionWaitNanos.get();
+    }
+
+    /**
+     * 獲取取用 Session 的最大單次等待時間 (奈秒)
+     *
+     * @return 最大等待時間
+     */
+    public long getMaxSessionWaitNanos() {
+        return maxSessionWaitNanos.get();
+    }
+
+    /**
+     * 獲取建立實體連接的次數
+     *
+     * @return 建立次數
+     */
+    public long getConnectionCreations() {
+        return connectionCreations.get();
+    }
+
+    /**
+     * 獲取連接池被清空重建的次數
+     *
+     * @return 清空次數
+     */
+    public long getResets() {
+        return resets.get();
+    }
+}
@@ -0,0 +1,75 @@
+package com.vance.jms.config;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jms.annotation.JmsListenerConfigurer;
+import org.springframework.jms.config.JmsListenerContainerFactory;
+import org.springframework.jms.config.JmsListenerEndpointRegistrar;
+import org.springframework.jms.config.SimpleJmsListenerEndpoint;
+import org.springframework.stereotype.Component;
+
+import com.vance.jms.service.MessageReceiver;
+import com.vance.jms.service.QueueTopology;
+
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageListener;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 為 mq-config.queues 中需要監聽的隊列註冊監聽器容器
+ * 容器與 mainMessageListener 使用相同的容器工廠並註冊在同一個 JmsListenerEndpointRegistry，
+ * 因此一樣由 JmsLifecycleManagerService 依 MQ 連接狀態啟動和停止
+ */
+@Slf4j
+@Component
+public class QueueListenerConfigurer implements JmsListenerConfigurer {
+
+    @Autowired
+    private QueueTopology queueTopology;
+
+    @Autowired
+    private MessageReceiver messageReceiver;
+
+    @Autowired
+    private JmsListenerContainerFactory<?> jmsListenerContainerFactory;
+
+    @Override
+    public void configureJmsListeners(JmsListenerEndpointRegistrar registrar) {
+        for (MqConfig.QueueDefinition definition : queueTopology.getListenedQueues()) {
+            QueueTopology.QueueTarget target = queueTopology.resolve(definition.getName());
+            SimpleJmsListenerEndpoint endpoint = new SimpleJmsListenerEndpoint();
+            endpoint.setId("queue-" + target.name());
+            endpoint.setDestination(target.destination());
+            if (!definition.getConcurrency().isEmpty()) {
+                endpoint.setConcurrency(definition.getConcurrency());
+            }
+            endpoint.setMessageListener(new QueueListener(target));
+            registrar.registerEndpoint(endpoint, jmsListenerContainerFactory);
+            log.info("已註冊隊列 {} 的監聽器容器: {}", target.name(), endpoint.getId());
+        }
+    }
+
+    /**
+     * 將訊息連同接收的隊列交給 MessageReceiver，批次接收模式下由 BatchMessageListenerContainer 呼叫 onMessages
+     */
+    private final class QueueListener implements MessageListener, BatchMessageHandler {
+
+        private final QueueTopology.QueueTarget target;
+
+        private QueueListener(QueueTopology.QueueTarget target) {
+            this.target = target;
+        }
+
+        @Override
+        public void onMessage(Message message) {
+            messageReceiver.onMessage(target, message);
+        }
+
+        @Override
+        public void onMessages(List<Message> messages) throws JMSException {
+            messageReceiver.onMessages(target, messages);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.vance.jms.config;
+
+import java.util.concurrent.Semaphore;
+
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * 限制同時持有 MQ Session 的監聽器消費者數量
+ * DefaultMessageListenerContainer 的每個消費者任務在執行期間持有一個 Session，
+ * 任務開始前取得許可、結束後釋放，多個監聽器容器共用同一個 Semaphore 時即為全域上限。
+ * 等待許可的任務在虛擬執行緒上只是掛起，不佔用平台執行緒。
+ */
+public class SessionLimitingTaskDecorator implements TaskDecorator {
+
+    private final Semaphore sessionPermits;
+
+    public SessionLimitingTaskDecorator(Semaphore sessionPermits) {
+        this.sessionPermits = sessionPermits;
+    }
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        return () -> {
+            // 不可中斷地等待，避免任務未執行即結束，導致容器以為消費者仍在排程中
+            sessionPermits.acquireUninterruptibly();
+            try {
+                runnable.run();
+            } finally {
+                sessionPermits.release();
+            }
+        };
+    }
+}
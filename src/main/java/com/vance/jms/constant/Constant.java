@@ -8,4 +8,52 @@ public final class Constant {
         public static final String UTF8 = "UTF-8"; // UTF-8
         public static final String BIG5 = "BIG5"; // BIG5
     }
+
+    /**
+     * Outbox 暫存的訊息類型
+     */
+    public static class OutboxType {
+        public static final byte OBJECT = 1; // CustomMessage (JSON)
+        public static final byte TEXT = 2; // 文本 (UTF-8)
+        public static final byte BYTES = 3; // 二進制數據
+    }
+
+    /**
+     * 大型二進制訊息分段使用的訊息屬性
+     */
+    public static class ChunkProperty {
+        public static final String GROUP_ID = "chunkGroupId"; // 分段群組 ID
+        public static final String SEQ = "chunkSeq"; // 分段序號，從 1 開始
+        public static final String LAST = "chunkLast"; // 是否為最後一段
+        public static final String TOTAL_LENGTH = "chunkTotalLength"; // 原始數據總長度，未知時為 -1
+        public static final String ABORTED = "chunkAborted"; // 發送端已中止群組，接收端捨棄已收到的分段
+    }
+
+    /**
+     * 分區處理使用的訊息屬性
+     */
+    public static class PartitionProperty {
+        public static final String GROUP_ID = "JMSXGroupID"; // JMS 訊息群組 ID
+        public static final String KEY = "mqPartitionKey"; // CustomMessage 的 id，由發送端的訊息轉換器設定
+    }
+
+    /**
+     * 壓縮訊息使用的訊息屬性
+     */
+    public static class CompressionProperty {
+        public static final String CODEC = "mqCodec"; // 壓縮演算法名稱
+        public static final String ORIGINAL_TYPE = "mqOriginalType"; // 壓縮前的訊息類型 (TEXT 或 BYTES)
+        public static final String ORIGINAL_LENGTH = "mqOriginalLength"; // 壓縮前的位元組數
+        public static final String TYPE_TEXT = "TEXT"; // 文本訊息 (UTF-8)
+        public static final String TYPE_BYTES = "BYTES"; // 二進制訊息
+    }
+
+    /**
+     * 二進制訊息格式使用的屬性及型別 ID
+     */
+    public static class BinaryType {
+        public static final String TYPE_ID_PROPERTY = "mqTypeId"; // 型別 ID 訊息屬性
+        public static final byte FORMAT_VERSION = 1; // 訊息本文的格式版本
+        public static final short CUSTOM_MESSAGE = 1; // CustomMessage
+    }
 }
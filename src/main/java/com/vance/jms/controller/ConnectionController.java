@@ -9,9 +9,17 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.vance.jms.service.ChunkReassembler;
+import com.vance.jms.service.ConnectionPoolService;
+import com.vance.jms.service.IdempotencyFilter;
 import com.vance.jms.service.MqConnectionService;
+import com.vance.jms.service.OutboxService;
+import com.vance.jms.service.PayloadLogger;
+import com.vance.jms.service.SendCircuitBreaker;
+import com.vance.jms.service.ShardRouter;
 
 /**
  * MQ 連接狀態管理和查看的 REST 控制器
@@ -23,6 +31,27 @@ public class ConnectionController {
     @Autowired
     private MqConnectionService mqConnectionService;
 
+    @Autowired
+    private ConnectionPoolService connectionPoolService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private ChunkReassembler chunkReassembler;
+
+    @Autowired
+    private PayloadLogger payloadLogger;
+
+    @Autowired
+    private IdempotencyFilter idempotencyFilter;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private SendCircuitBreaker sendCircuitBreaker;
+
     /**
      * 觸發手動重新連接 MQ 伺服器的嘗試
      *
@@ -47,10 +76,95 @@ public class ConnectionController {
     public ResponseEntity<Map<String, Object>> getStatus() {
         Map<String, Object> status = new HashMap<>();
         status.put("connected", mqConnectionService.isConnected());
+        status.put("state", mqConnectionService.getState());
         status.put("currentAttempts", mqConnectionService.getCurrentReconnectAttempts());
         LocalDateTime pausedUntil = mqConnectionService.getPausedUntil();
         status.put("pausedUntil", pausedUntil != null ? pausedUntil.toString() : null);
 
         return ResponseEntity.ok(status);
     }
+
+    /**
+     * 獲取發送端連接池的統計資訊
+     *
+     * @return 包含 Session 命中、未命中及等待時間的回應實體
+     */
+    @GetMapping("/pool")
+    public ResponseEntity<Map<String, Object>> getPoolStatistics() {
+        return ResponseEntity.ok(connectionPoolService.getStatistics());
+    }
+
+    /**
+     * 獲取本地暫存 (outbox) 的統計資訊
+     *
+     * @return 包含待重送數量及日誌段使用量的回應實體
+     */
+    @GetMapping("/outbox")
+    public ResponseEntity<Map<String, Object>> getOutboxStatistics() {
+        return ResponseEntity.ok(outboxService.getStatistics());
+    }
+
+    /**
+     * 獲取大型二進制訊息分段重組的統計資訊
+     *
+     * @return 包含重組中、已完成及已丟棄群組數量的回應實體
+     */
+    @GetMapping("/chunks")
+    public ResponseEntity<Map<String, Object>> getChunkStatistics() {
+        return ResponseEntity.ok(chunkReassembler.getStatistics());
+    }
+
+    /**
+     * 獲取訊息內容日誌的設定及限流統計
+     *
+     * @return 包含抽樣比例、完整內容隊列及各類別略過筆數的回應實體
+     */
+    @GetMapping("/payload-logging")
+    public ResponseEntity<Map<String, Object>> getPayloadLogging() {
+        return ResponseEntity.ok(payloadLogger.getStatistics());
+    }
+
+    /**
+     * 切換指定隊列是否記錄完整的訊息內容
+     *
+     * @param queue   隊列名稱
+     * @param enabled true 時記錄完整內容，false 時恢復抽樣及截斷
+     * @return 切換後的設定
+     */
+    @PostMapping("/payload-logging/full")
+    public ResponseEntity<Map<String, Object>> setFullPayloadLogging(@RequestParam String queue,
+            @RequestParam boolean enabled) {
+        payloadLogger.setFullPayload(queue, enabled);
+        return ResponseEntity.ok(payloadLogger.getStatistics());
+    }
+
+    /**
+     * 獲取接收端重複訊息過濾的統計
+     *
+     * @return 包含記錄中的 ID 數量及略過的重複訊息數的回應實體
+     */
+    @GetMapping("/idempotency")
+    public ResponseEntity<Map<String, Object>> getIdempotencyStatistics() {
+        return ResponseEntity.ok(idempotencyFilter.getStatistics());
+    }
+
+    /**
+     * 獲取發送端分流統計資訊
+     *
+     * @return 包含各 Queue Manager 健康狀態及連接池使用情況的回應實體
+     */
+    @GetMapping("/shards")
+    public ResponseEntity<Map<String, Object>> getShardStatistics() {
+        return ResponseEntity.ok(shardRouter.getStatistics());
+    }
+
+    /**
+     * 獲取發送端斷路器統計資訊
+     *
+     * @return 包含斷路器狀態、視窗內錯誤及緩慢發送數量的回應實體
+     */
+    @GetMapping("/circuit-breaker")
+    public ResponseEntity<Map<String, Object>> getCircuitBreakerStatistics() {
+        return ResponseEntity.ok(sendCircuitBreaker.getStatistics());
+    }
 }
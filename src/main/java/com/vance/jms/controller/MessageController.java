@@ -1,26 +1,51 @@
 package com.vance.jms.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Base64;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus; // 引入 HttpStatus
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.DeferredResultProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
 
+import com.vance.jms.config.MqConfig;
 import com.vance.jms.exception.MqNotConnectedException; // 引入 MQ 未連接異常
+import com.vance.jms.exception.PayloadTooLargeException;
+import com.vance.jms.exception.UnknownQueueException;
+import com.vance.jms.model.BatchSendResult;
 import com.vance.jms.model.CustomMessage;
+import com.vance.jms.model.IngestResult;
+import com.vance.jms.service.IngestionService;
 import com.vance.jms.service.MessageSender;
+import com.vance.jms.service.PayloadLogger;
 
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * 訊息控制器，提供 API 端點來發送訊息
+ * 各端點可用 queue 參數指定 mq-config.queues 中設定的隊列，未指定時發送到預設隊列
  */
 @Slf4j
 @RestController
@@ -30,15 +55,26 @@ public class MessageController {
     @Autowired
     MessageSender messageSender;
 
+    @Autowired
+    MqConfig mqConfig;
+
+    @Autowired
+    PayloadLogger payloadLogger;
+
+    @Autowired
+    IngestionService ingestionService;
+
     /**
      * 發送物件訊息
      *
      * @param message 要發送的訊息
+     * @param queue   目標隊列名稱，未指定時為預設隊列
      * @return 操作結果
      */
     @PostMapping("send")
-    public ResponseEntity<Map<String, Object>> sendMessage(@RequestBody CustomMessage message) {
-        log.info("收到發送訊息請求: {}", message);
+    public ResponseEntity<Map<String, Object>> sendMessage(@RequestBody CustomMessage message,
+            @RequestParam(required = false) String queue) {
+        payloadLogger.log(PayloadLogger.CATEGORY_REQUEST, queueName(queue), message);
 
         // 如果沒有提供 ID，則生成一個
         if (message.getId() == null || message.getId().isEmpty()) {
@@ -50,7 +86,7 @@ public class MessageController {
 
         try {
             // 發送訊息
-            messageSender.sendMessage(message);
+            messageSender.sendMessage(queue, message);
 
             // 返回結果
             Map<String, Object> response = new HashMap<>();
@@ -58,6 +94,8 @@ public class MessageController {
             response.put("message", "訊息已成功發送");
             response.put("messageId", message.getId());
             return ResponseEntity.ok(response);
+        } catch (UnknownQueueException e) {
+            return unknownQueue(e);
         } catch (MqNotConnectedException e) {
             log.error("由於 MQ 連接問題，無法發送自定義訊息: {}", e.getMessage());
             Map<String, Object> errorResponse = new HashMap<>();
@@ -75,26 +113,93 @@ public class MessageController {
         }
     }
 
+    /**
+     * 批次發送物件訊息
+     * 整批訊息在同一個交易中發送，任一筆失敗時整批回滾
+     *
+     * @param messages 要發送的訊息清單
+     * @param queue    目標隊列名稱，未指定時為預設隊列
+     * @return 整批交易結果及每筆訊息的發送結果
+     */
+    @PostMapping("send-batch")
+    public ResponseEntity<Map<String, Object>> sendBatch(@RequestBody List<CustomMessage> messages,
+            @RequestParam(required = false) String queue) {
+        log.debug("收到批次發送訊息請求: {} 筆", messages != null ? messages.size() : "null");
+
+        if (messages == null || messages.isEmpty() || messages.size() > mqConfig.getMaxBatchSize()) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "批次訊息數量必須介於 1 到 " + mqConfig.getMaxBatchSize() + " 筆之間。");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+        }
+
+        // 補上缺少的 ID 及時間戳
+        long timestamp = System.currentTimeMillis();
+        for (CustomMessage message : messages) {
+            if (message.getId() == null || message.getId().isEmpty()) {
+                message.setId(UUID.randomUUID().toString());
+            }
+            message.setTimestamp(timestamp);
+        }
+
+        try {
+            // 批次發送訊息
+            BatchSendResult result = messageSender.sendBatch(queue, messages);
+
+            // 返回結果
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", result.isCommitted());
+            response.put("message", result.isSpooled() ? "MQ 目前不可用，批次訊息已暫存，將於連接恢復後發送"
+                    : result.isCommitted() ? "批次訊息已成功發送" : "批次訊息發送失敗，整批已回滾");
+            response.put("spooled", result.isSpooled());
+            response.put("total", messages.size());
+            response.put("successCount", result.getSuccessCount());
+            response.put("failureCount", result.getFailureCount());
+            response.put("results", result.getResults());
+            return result.isCommitted() ? ResponseEntity.ok(response)
+                    : ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        } catch (UnknownQueueException e) {
+            return unknownQueue(e);
+        } catch (MqNotConnectedException e) {
+            log.error("由於 MQ 連接問題，無法批次發送訊息: {}", e.getMessage());
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "MQ 服務目前不可用。請稍後再試。");
+            errorResponse.put("errorDetail", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(errorResponse);
+        } catch (Exception e) {
+            log.error("批次發送訊息時發生意外錯誤: {} 筆", messages.size(), e);
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "處理您的請求時發生意外錯誤。");
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+        }
+    }
+
     /**
      * 發送文本訊息
      *
      * @param payload 包含文本內容的請求體
+     * @param queue   目標隊列名稱，未指定時為預設隊列
      * @return 操作結果
      */
     @PostMapping("send-text")
-    public ResponseEntity<Map<String, Object>> sendTextMessage(@RequestBody Map<String, String> payload) {
+    public ResponseEntity<Map<String, Object>> sendTextMessage(@RequestBody Map<String, String> payload,
+            @RequestParam(required = false) String queue) {
         String text = payload.get("text");
-        log.info("收到發送文本訊息請求: {}", text);
+        payloadLogger.log(PayloadLogger.CATEGORY_REQUEST, queueName(queue), text);
 
         try {
             // 發送文本訊息
-            messageSender.sendTextMessage(text);
+            messageSender.sendTextMessage(queue, text);
 
             // 返回結果
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("message", "文本訊息已成功發送");
             return ResponseEntity.ok(response);
+        } catch (UnknownQueueException e) {
+            return unknownQueue(e);
         } catch (MqNotConnectedException e) {
             log.error("由於 MQ 連接問題，無法發送文本訊息: {}", e.getMessage());
             Map<String, Object> errorResponse = new HashMap<>();
@@ -116,12 +221,14 @@ public class MessageController {
      * 接受 Base64 編碼的二進制數據
      *
      * @param payload 包含 Base64 編碼的二進制數據的請求體
+     * @param queue   目標隊列名稱，未指定時為預設隊列
      * @return 操作結果
      */
     @PostMapping("send-bytes")
-    public ResponseEntity<Map<String, Object>> sendByteMessage(@RequestBody Map<String, String> payload) {
+    public ResponseEntity<Map<String, Object>> sendByteMessage(@RequestBody Map<String, String> payload,
+            @RequestParam(required = false) String queue) {
         String base64Data = payload.get("data");
-        log.info("收到發送二進制數據請求: {} 字符的 Base64 數據", base64Data != null ? base64Data.length() : "null");
+        log.debug("收到發送二進制數據請求: {} 字符的 Base64 數據", base64Data != null ? base64Data.length() : "null");
 
         if (base64Data == null) {
             Map<String, Object> errorResponse = new HashMap<>();
@@ -133,7 +240,7 @@ public class MessageController {
         byte[] bytes;
         try {
             bytes = Base64.getDecoder().decode(base64Data);
-            log.info("解碼後的二進制數據大小: {} bytes", bytes.length);
+            log.debug("解碼後的二進制數據大小: {} bytes", bytes.length);
         } catch (IllegalArgumentException e) {
             log.error("無法解碼 Base64 數據: {}", e.getMessage());
             Map<String, Object> errorResponse = new HashMap<>();
@@ -145,7 +252,7 @@ public class MessageController {
 
         try {
             // 發送二進制數據
-            messageSender.sendByteMessage(bytes);
+            messageSender.sendByteMessage(queue, bytes);
 
             // 返回結果
             Map<String, Object> response = new HashMap<>();
@@ -153,6 +260,8 @@ public class MessageController {
             response.put("message", "二進制數據已成功發送");
             response.put("byteLength", bytes.length);
             return ResponseEntity.ok(response);
+        } catch (UnknownQueueException e) {
+            return unknownQueue(e);
         } catch (MqNotConnectedException e) {
             log.error("由於 MQ 連接問題，無法發送二進制訊息: {}", e.getMessage());
             Map<String, Object> errorResponse = new HashMap<>();
@@ -169,4 +278,291 @@ public class MessageController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
         }
     }
+
+    /**
+     * 以串流方式發送二進制數據訊息
+     * 接受 application/octet-stream 的原始內容，直接寫入 BytesMessage，不經過 Base64 及 JSON 解析
+     *
+     * @param body          請求內容的輸入串流
+     * @param contentLength 請求的 Content-Length，未提供時為 null
+     * @param queue         目標隊列名稱，未指定時為預設隊列
+     * @return 操作結果
+     */
+    @PostMapping(value = "send-bytes", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<Map<String, Object>> sendByteStream(InputStream body,
+            @RequestHeader(value = HttpHeaders.CONTENT_LENGTH, required = false) Long contentLength,
+            @RequestParam(required = false) String queue) {
+        log.debug("收到串流發送二進制數據請求: {} bytes", contentLength != null ? contentLength : "未知長度");
+
+        // 已知長度超過上限時直接拒絕，不讀取內容
+        if (contentLength != null && contentLength > mqConfig.getMaxStreamBytes()) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "二進制數據超過 " + mqConfig.getMaxStreamBytes() + " bytes 的上限。");
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(errorResponse);
+        }
+
+        try {
+            // 發送二進制數據
+            long byteLength = messageSender.sendByteStream(queue, body, mqConfig.getMaxStreamBytes());
+
+            // 返回結果
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "二進制數據已成功發送");
+            response.put("byteLength", byteLength);
+            return ResponseEntity.ok(response);
+        } catch (PayloadTooLargeException e) {
+            log.error("串流二進制數據超過上限: {}", e.getMessage());
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "二進制數據超過 " + mqConfig.getMaxStreamBytes() + " bytes 的上限。");
+            errorResponse.put("errorDetail", e.getMessage());
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(errorResponse);
+        } catch (UnknownQueueException e) {
+            return unknownQueue(e);
+        } catch (MqNotConnectedException e) {
+            log.error("由於 MQ 連接問題，無法發送串流二進制訊息: {}", e.getMessage());
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "MQ 服務目前不可用。請稍後再試。");
+            errorResponse.put("errorDetail", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(errorResponse);
+        } catch (Exception e) {
+            log.error("發送串流二進制訊息時發生意外錯誤", e);
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "處理您的請求時發生意外錯誤。");
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+        }
+    }
+
+    /**
+     * 非同步發送物件訊息
+     * 請求執行緒在訊息交給 MQ 客戶端後即釋放，MQ 確認寫入後才回應
+     *
+     * @param message 要發送的訊息
+     * @param queue   目標隊列名稱，未指定時為預設隊列
+     * @return 操作結果
+     */
+    @PostMapping("send-async")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> sendMessageAsync(
+            @RequestBody CustomMessage message, @RequestParam(required = false) String queue) {
+        payloadLogger.log(PayloadLogger.CATEGORY_REQUEST, queueName(queue), message);
+
+        // 如果沒有提供 ID，則生成一個
+        if (message.getId() == null || message.getId().isEmpty()) {
+            message.setId(UUID.randomUUID().toString());
+        }
+
+        // 設置時間戳
+        message.setTimestamp(System.currentTimeMillis());
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "訊息已成功發送");
+        response.put("messageId", message.getId());
+        return toAsyncResponse(() -> messageSender.sendMessageAsync(queue, message), response, "自定義訊息");
+    }
+
+    /**
+     * 非同步發送文本訊息
+     *
+     * @param payload 包含文本內容的請求體
+     * @param queue   目標隊列名稱，未指定時為預設隊列
+     * @return 操作結果
+     */
+    @PostMapping("send-text-async")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> sendTextMessageAsync(
+            @RequestBody Map<String, String> payload, @RequestParam(required = false) String queue) {
+        String text = payload.get("text");
+        payloadLogger.log(PayloadLogger.CATEGORY_REQUEST, queueName(queue), text);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "文本訊息已成功發送");
+        return toAsyncResponse(() -> messageSender.sendTextMessageAsync(queue, text), response, "文本訊息");
+    }
+
+    /**
+     * 非同步發送二進制數據訊息
+     * 接受 Base64 編碼的二進制數據
+     *
+     * @param payload 包含 Base64 編碼的二進制數據的請求體
+     * @param queue   目標隊列名稱，未指定時為預設隊列
+     * @return 操作結果
+     */
+    @PostMapping("send-bytes-async")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> sendByteMessageAsync(
+            @RequestBody Map<String, String> payload, @RequestParam(required = false) String queue) {
+        String base64Data = payload.get("data");
+        log.debug("收到非同步發送二進制數據請求: {} 字符的 Base64 數據", base64Data != null ? base64Data.length() : "null");
+
+        if (base64Data == null) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "請求中缺少二進制訊息的 'data' 欄位。");
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse));
+        }
+
+        byte[] bytes;
+        try {
+            bytes = Base64.getDecoder().decode(base64Data);
+        } catch (IllegalArgumentException e) {
+            log.error("無法解碼 Base64 數據: {}", e.getMessage());
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "提供的 Base64 數據無效。");
+            errorResponse.put("errorDetail", e.getMessage());
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse));
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "二進制數據已成功發送");
+        response.put("byteLength", bytes.length);
+        return toAsyncResponse(() -> messageSender.sendByteMessageAsync(queue, bytes), response, "二進制訊息");
+    }
+
+    /**
+     * 以 NDJSON 串流匯入物件訊息
+     * 每行一個 CustomMessage，以非阻塞方式讀取並非同步發送；同時進行中的發送達到上限時暫停讀取，
+     * MQ 變慢時由 TCP 流量控制讓客戶端放慢上傳，不在記憶體中累積訊息，等待期間也不佔用請求執行緒
+     *
+     * @param request HTTP 請求，用於取得請求內容的輸入串流
+     * @param queue   目標隊列名稱，未指定時為預設隊列
+     * @return 全部訊息處理完畢後的匯入結果
+     */
+    @PostMapping(value = "ingest", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public DeferredResult<ResponseEntity<Map<String, Object>>> ingest(HttpServletRequest request,
+            @RequestParam(required = false) String queue) {
+        DeferredResult<ResponseEntity<Map<String, Object>>> result = new DeferredResult<>(
+                TimeUnit.SECONDS.toMillis(mqConfig.getIngest().getTimeoutSeconds()));
+        // 非阻塞讀取需在請求進入非同步模式後才能註冊 ReadListener
+        WebAsyncUtils.getAsyncManager(request).registerDeferredResultInterceptor(IngestionService.class,
+                new DeferredResultProcessingInterceptor() {
+                    @Override
+                    public <T> void preProcess(NativeWebRequest webRequest, DeferredResult<T> deferredResult)
+                            throws IOException {
+                        IngestionService.Ingestion ingestion = ingestionService.ingest(request.getInputStream(),
+                                queue, summary -> result.setResult(ingestResponse(summary)));
+                        result.onTimeout(() -> {
+                            ingestion.abort(new TimeoutException("Ingestion timed out."));
+                            result.setResult(ingestResponse(ingestion.snapshot()));
+                        });
+                    }
+                });
+        return result;
+    }
+
+    /**
+     * 以 NDJSON 串流批次發送物件訊息
+     * 每行一個 CustomMessage，在請求執行緒中邊讀邊送，所有訊息共用同一個交易 Session，
+     * 依 mq-config.ingest.commit-interval 定期 commit；中途失敗時只回滾最後一次 commit 之後的訊息
+     *
+     * @param body  請求內容的輸入串流
+     * @param queue 目標隊列名稱，未指定時為預設隊列
+     * @return 匯入結果，包含成功、失敗筆數、commit 次數及處理速率
+     */
+    @PostMapping(value = "stream", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<Map<String, Object>> stream(InputStream body,
+            @RequestParam(required = false) String queue) {
+        log.debug("收到 NDJSON 串流發送請求，隊列: {}", queue != null ? queue : "預設");
+        return ingestResponse(ingestionService.stream(body, queue));
+    }
+
+    /**
+     * 將匯入結果轉換為 HTTP 回應
+     * 全部處理完畢時回應 200，MQ 未連接時 503，隊列未設定時 400，單行過長時 413，逾時 408
+     */
+    private ResponseEntity<Map<String, Object>> ingestResponse(IngestResult summary) {
+        Throwable cause = summary.getAbortCause();
+        if (cause instanceof UnknownQueueException unknownQueueException) {
+            return unknownQueue(unknownQueueException);
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", !summary.isAborted() && summary.getFailed() == 0);
+        response.put("summary", summary);
+        if (cause == null) {
+            response.put("message", "NDJSON 匯入完成");
+            return ResponseEntity.ok(response);
+        }
+        response.put("errorDetail", cause.getMessage());
+        if (cause instanceof MqNotConnectedException) {
+            response.put("message", "MQ 服務目前不可用，匯入已中止。請稍後再試。");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+        }
+        if (cause instanceof PayloadTooLargeException) {
+            response.put("message", "單行 JSON 超過 " + mqConfig.getIngest().getMaxLineBytes() + " bytes 的上限。");
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(response);
+        }
+        if (cause instanceof TimeoutException) {
+            response.put("message", "匯入處理逾時，已中止。");
+            return ResponseEntity.status(HttpStatus.REQUEST_TIMEOUT).body(response);
+        }
+        log.error("NDJSON 匯入時發生意外錯誤", cause);
+        response.put("message", "匯入請求內容時發生錯誤，已中止。");
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+    }
+
+    /**
+     * 將非同步發送結果轉換為 HTTP 回應
+     * MQ 未連接時回應 503，其他錯誤回應 500
+     *
+     * @param send            執行非同步發送的動作
+     * @param successResponse 發送成功時的回應內容
+     * @param description     訊息種類說明，用於日誌
+     * @return MQ 確認寫入後完成的回應
+     */
+    private CompletableFuture<ResponseEntity<Map<String, Object>>> toAsyncResponse(
+            Supplier<CompletableFuture<Void>> send, Map<String, Object> successResponse,
+            String description) {
+        CompletableFuture<Void> future;
+        try {
+            future = send.get();
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        return future.handle((result, throwable) -> {
+            if (throwable == null) {
+                return ResponseEntity.ok(successResponse);
+            }
+            Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                    ? throwable.getCause()
+                    : throwable;
+            if (cause instanceof UnknownQueueException unknownQueueException) {
+                return unknownQueue(unknownQueueException);
+            }
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            if (cause instanceof MqNotConnectedException) {
+                log.error("由於 MQ 連接問題，無法非同步發送{}: {}", description, cause.getMessage());
+                errorResponse.put("message", "MQ 服務目前不可用。請稍後再試。");
+                errorResponse.put("errorDetail", cause.getMessage());
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(errorResponse);
+            }
+            log.error("非同步發送{}時發生意外錯誤", description, cause);
+            errorResponse.put("message", "處理您的請求時發生意外錯誤。");
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+        });
+    }
+
+    /**
+     * 隊列未在 mq-config.queues 中設定時回應 400
+     */
+    private ResponseEntity<Map<String, Object>> unknownQueue(UnknownQueueException e) {
+        log.warn("指定的隊列未設定: {}", e.getMessage());
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("success", false);
+        errorResponse.put("message", "指定的隊列未設定。");
+        errorResponse.put("errorDetail", e.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+    }
+
+    /**
+     * 日誌使用的隊列名稱，未指定時為預設隊列
+     */
+    private String queueName(String queue) {
+        return queue == null || queue.isEmpty() ? mqConfig.getQueueName() : queue;
+    }
 }
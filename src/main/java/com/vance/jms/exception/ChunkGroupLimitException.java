@@ -0,0 +1,17 @@
+package com.vance.jms.exception;
+
+/**
+ * 分段群組數量已達上限異常
+ * 當重組中的分段群組數量已達 mq-config.chunking.max-open-groups，又收到新群組的分段時拋出此異常；
+ * 監聽器不處理此異常，由監聽器容器 rollback，讓 MQ 稍後重新投遞該分段
+ */
+public class ChunkGroupLimitException extends RuntimeException {
+    /**
+     * 使用指定的錯誤訊息建立一個新的分段群組數量已達上限異常
+     *
+     * @param message 錯誤訊息
+     */
+    public ChunkGroupLimitException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,16 @@
+package com.vance.jms.exception;
+
+/**
+ * Outbox 已滿異常
+ * 當本地暫存日誌已達大小上限，或單筆訊息超過日誌段大小時拋出此異常
+ */
+public class OutboxFullException extends RuntimeException {
+    /**
+     * 使用指定的錯誤訊息建立一個新的 Outbox 已滿異常
+     *
+     * @param message 錯誤訊息
+     */
+    public OutboxFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,16 @@
+package com.vance.jms.exception;
+
+/**
+ * 訊息內容過大異常
+ * 當發送的內容超過設定的大小上限時拋出此異常
+ */
+public class PayloadTooLargeException extends RuntimeException {
+    /**
+     * 使用指定的錯誤訊息建立一個新的訊息內容過大異常
+     *
+     * @param message 錯誤訊息
+     */
+    public PayloadTooLargeException(String message) {
+        super(message);
+    }
+}
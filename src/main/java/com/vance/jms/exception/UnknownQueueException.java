@@ -0,0 +1,16 @@
+package com.vance.jms.exception;
+
+/**
+ * 未知隊列異常
+ * 當發送時指定的隊列名稱不是預設隊列，也未在 mq-config.queues 中設定時拋出此異常
+ */
+public class UnknownQueueException extends RuntimeException {
+    /**
+     * 使用指定的錯誤訊息建立一個新的未知隊列異常
+     *
+     * @param message 錯誤訊息
+     */
+    public UnknownQueueException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,72 @@
+package com.vance.jms.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 批次發送結果，記錄整批交易是否提交以及每筆訊息的發送結果
+ */
+@Data
+@NoArgsConstructor
+public class BatchSendResult {
+
+    /**
+     * 整批訊息是否已成功 commit
+     */
+    private boolean committed;
+
+    /**
+     * 整批訊息是否因 MQ 不可用而寫入本地暫存，待連接恢復後重送
+     */
+    private boolean spooled;
+
+    /**
+     * 每筆訊息的發送結果，順序與請求相同
+     */
+    private List<ItemResult> results = new ArrayList<>();
+
+    /**
+     * 新增一筆訊息的發送結果
+     *
+     * @param messageId 訊息 ID
+     * @param success   是否發送成功
+     * @param error     失敗原因，成功時為 null
+     */
+    public void addResult(String messageId, boolean success, String error) {
+        results.add(new ItemResult(messageId, success, error));
+    }
+
+    /**
+     * 取得發送成功的訊息數量
+     *
+     * @return 成功數量
+     */
+    public long getSuccessCount() {
+        return results.stream().filter(ItemResult::isSuccess).count();
+    }
+
+    /**
+     * 取得發送失敗的訊息數量
+     *
+     * @return 失敗數量
+     */
+    public long getFailureCount() {
+        return results.size() - getSuccessCount();
+    }
+
+    /**
+     * 單筆訊息的發送結果
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ItemResult {
+        private String messageId;
+        private boolean success;
+        private String error;
+    }
+}
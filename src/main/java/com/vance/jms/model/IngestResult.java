@@ -0,0 +1,82 @@
+package com.vance.jms.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 串流匯入結果，記錄收到、發送成功及失敗的訊息數量與處理速率
+ */
+@Data
+@NoArgsConstructor
+public class IngestResult {
+
+    /**
+     * 回應中最多列出的失敗明細數量
+     */
+    public static final int MAX_ERRORS = 20;
+
+    /**
+     * 收到的訊息行數 (不含空白行)
+     */
+    private long received;
+
+    /**
+     * 發送成功的訊息數
+     */
+    private long sent;
+
+    /**
+     * 解析或發送失敗的訊息數
+     */
+    private long failed;
+
+    /**
+     * 交易 commit 次數，逐筆非同步發送時為 0
+     */
+    private long commits;
+
+    /**
+     * 匯入是否在讀完請求內容前中止 (例如 MQ 不可用或逾時)
+     */
+    private boolean aborted;
+
+    /**
+     * 中止原因，未中止時為 null
+     */
+    private String abortReason;
+
+    /**
+     * 中止的異常，供控制器決定回應狀態碼，不輸出到回應
+     */
+    @JsonIgnore
+    private Throwable abortCause;
+
+    /**
+     * 處理耗時 (毫秒)
+     */
+    private long elapsedMillis;
+
+    /**
+     * 每秒發送成功的訊息數
+     */
+    private double messagesPerSecond;
+
+    /**
+     * 前 MAX_ERRORS 筆失敗明細
+     */
+    private List<LineError> errors = new ArrayList<>();
+
+    /**
+     * 單行的失敗明細
+     *
+     * @param line  行號 (從 1 開始，不含空白行)
+     * @param error 失敗原因
+     */
+    public record LineError(long line, String error) {
+    }
+}
@@ -0,0 +1,263 @@
+package com.vance.jms.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.support.JmsUtils;
+import org.springframework.stereotype.Service;
+
+import com.vance.jms.config.MqConfig;
+import com.vance.jms.event.ConnectionPausedEvent;
+import com.vance.jms.event.ConnectionResumedEvent;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.jms.CompletionListener;
+import jakarta.jms.Connection;
+import jakarta.jms.ConnectionFactory;
+import jakarta.jms.Destination;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageProducer;
+import jakarta.jms.Session;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 非同步發送使用的 Producer 池
+ * 以 JMS 2.0 CompletionListener 進行非同步發送，呼叫端在訊息交給 MQ 客戶端後即返回，
+ * 由 MQ 確認寫入後再完成 CompletableFuture。
+ * 每條通道 (lane) 持有一個非交易 Session 及 Producer，同一時間只允許一個執行緒使用，
+ * 多條通道共用同一個連接，連接狀態事件發生時全部關閉重建。
+ * Spring 管理的實例使用 ibm.mq 的連接；啟用分流時每個 QueueManagerShard 另外建立自己的實例，
+ * 由節點在中斷或關閉時關閉。
+ */
+@Slf4j
+@Service
+public class AsyncProducerPool {
+
+    @Autowired
+    @Qualifier("mqConnectionFactory")
+    private ConnectionFactory connectionFactory;
+
+    @Autowired
+    private JmsTemplate jmsTemplate;
+
+    @Autowired
+    private MqConfig mqConfig;
+
+    private final ReentrantLock connectionLock = new ReentrantLock();
+    private final AtomicInteger nextLane = new AtomicInteger();
+    private volatile Connection connection;
+    private volatile Lane[] lanes;
+
+    public AsyncProducerPool() {
+    }
+
+    /**
+     * 建立不由 Spring 管理的 Producer 池，例如分流節點專屬的非同步發送通道
+     *
+     * @param connectionFactory 建立共用連接的 ConnectionFactory
+     * @param jmsTemplate       提供 MessageConverter 及 DestinationResolver 的 JmsTemplate
+     * @param mqConfig          提供通道數量的設定
+     */
+    public AsyncProducerPool(ConnectionFactory connectionFactory, JmsTemplate jmsTemplate, MqConfig mqConfig) {
+        this.connectionFactory = connectionFactory;
+        this.jmsTemplate = jmsTemplate;
+        this.mqConfig = mqConfig;
+    }
+
+    /**
+     * 非同步發送訊息，payload 由 JmsTemplate 的 MessageConverter 轉換
+     * QoS 設定 (過期時間、傳遞模式、優先級) 沿用 JmsTemplate
+     *
+     * @param queueName 目的地隊列名稱
+     * @param payload   要發送的內容
+     * @return MQ 確認寫入後完成的 Future，發送失敗時以異常完成
+     */
+    public CompletableFuture<Void> send(String queueName, Object payload) {
+        return send(queueName, payload, jmsTemplate);
+    }
+
+    /**
+     * 非同步發送訊息，QoS 設定 (過期時間、傳遞模式、優先級) 沿用指定的 JmsTemplate
+     * payload 仍由預設 JmsTemplate 的 MessageConverter 轉換
+     *
+     * @param queueName 目的地隊列名稱
+     * @param payload   要發送的內容
+     * @param qos       提供 QoS 設定的 JmsTemplate，例如 QueueTopology 為隊列建立的 JmsTemplate
+     * @return MQ 確認寫入後完成的 Future，發送失敗時以異常完成
+     */
+    public CompletableFuture<Void> send(String queueName, Object payload, JmsTemplate qos) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        Lane lane = nextLane();
+        lane.lock.lock();
+        try {
+            lane.open(obtainConnection());
+            Message message = jmsTemplate.getMessageConverter().toMessage(payload, lane.session);
+            lane.producer.send(lane.resolveDestination(queueName), message, qos.getDeliveryMode(),
+                    qos.getPriority(), qos.getTimeToLive(), new CompletionListener() {
+                        @Override
+                        public void onCompletion(Message message) {
+                            future.complete(null);
+                        }
+
+                        @Override
+                        public void onException(Message message, Exception exception) {
+                            future.completeExceptionally(exception);
+                        }
+                    });
+        } catch (JMSException e) {
+            lane.close();
+            future.completeExceptionally(JmsUtils.convertJmsAccessException(e));
+        } catch (RuntimeException e) {
+            lane.close();
+            future.completeExceptionally(e);
+        } finally {
+            lane.lock.unlock();
+        }
+        return future;
+    }
+
+    /**
+     * 處理連接暫停事件，關閉所有通道及共用連接
+     *
+     * @param event 連接暫停事件
+     */
+    @EventListener
+    public void handleConnectionPaused(ConnectionPausedEvent event) {
+        log.warn("收到連接暫停事件，關閉非同步發送通道。");
+        close();
+    }
+
+    /**
+     * 處理連接恢復事件，關閉舊的通道，下次發送時重新建立
+     *
+     * @param event 連接恢復事件
+     */
+    @EventListener
+    public void handleConnectionResumed(ConnectionResumedEvent event) {
+        log.info("收到連接恢復事件，重建非同步發送通道。");
+        close();
+    }
+
+    /**
+     * 關閉所有通道及共用連接
+     * 關閉 Session 時會等待尚未完成的非同步發送
+     */
+    @PreDestroy
+    public void close() {
+        Connection current;
+        connectionLock.lock();
+        try {
+            current = connection;
+            connection = null;
+        } finally {
+            connectionLock.unlock();
+        }
+
+        // 先移除共用連接再逐一關閉通道，期間新的發送會使用重新建立的連接
+        Lane[] snapshot = lanes;
+        if (snapshot != null) {
+            for (Lane lane : snapshot) {
+                lane.lock.lock();
+                try {
+                    if (lane.owner == current) {
+                        lane.close();
+                    }
+                } finally {
+                    lane.lock.unlock();
+                }
+            }
+        }
+        JmsUtils.closeConnection(current);
+    }
+
+    private Lane nextLane() {
+        Lane[] current = lanes;
+        if (current == null) {
+            connectionLock.lock();
+            try {
+                if (lanes == null) {
+                    int size = Math.max(1, mqConfig.getAsyncSend().getLanes());
+                    Lane[] created = new Lane[size];
+                    for (int i = 0; i < size; i++) {
+                        created[i] = new Lane();
+                    }
+                    lanes = created;
+                }
+                current = lanes;
+            } finally {
+                connectionLock.unlock();
+            }
+        }
+        return current[Math.floorMod(nextLane.getAndIncrement(), current.length)];
+    }
+
+    private Connection obtainConnection() throws JMSException {
+        Connection current = connection;
+        if (current != null) {
+            return current;
+        }
+        connectionLock.lock();
+        try {
+            if (connection == null) {
+                Connection created = connectionFactory.createConnection();
+                // 共用連接中斷時關閉所有通道，下次發送時重新建立
+                created.setExceptionListener(e -> {
+                    log.error("非同步發送連接中斷: {}", e.getMessage());
+                    close();
+                });
+                connection = created;
+            }
+            return connection;
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    /**
+     * 單一發送通道，持有一個非交易 Session、未綁定目的地的 Producer 及目的地快取
+     */
+    private class Lane {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<String, Destination> destinations = new HashMap<>();
+        private Connection owner;
+        private Session session;
+        private MessageProducer producer;
+
+        private void open(Connection current) throws JMSException {
+            if (session != null && owner == current) {
+                return;
+            }
+            close();
+            owner = current;
+            session = current.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            producer = session.createProducer(null);
+        }
+
+        private Destination resolveDestination(String queueName) throws JMSException {
+            Destination destination = destinations.get(queueName);
+            if (destination == null) {
+                destination = jmsTemplate.getDestinationResolver().resolveDestinationName(session, queueName,
+                        jmsTemplate.isPubSubDomain());
+                destinations.put(queueName, destination);
+            }
+            return destination;
+        }
+
+        private void close() {
+            JmsUtils.closeMessageProducer(producer);
+            JmsUtils.closeSession(session);
+            producer = null;
+            session = null;
+            owner = null;
+            destinations.clear();
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package com.vance.jms.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.io.output.DeferredFileOutputStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import com.vance.jms.config.MqConfig;
+import com.vance.jms.constant.Constant;
+import com.vance.jms.exception.ChunkGroupLimitException;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.jms.BytesMessage;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 大型二進制訊息的分段重組服務
+ * 依 chunkGroupId 將分段依序寫入重組緩衝區，超過記憶體門檻時改寫入暫存檔；
+ * 重複的分段會被忽略，亂序到達的分段依序號暫存 (同樣超過記憶體門檻時寫入暫存檔)，前面的分段到齊後再依序寫入，
+ * 不佔用監聽器執行緒等待，單一消費者也能收齊亂序的群組。
+ * 逾時、超過大小上限或長度不符的群組會被丟棄，並在 groupTimeoutSeconds 內忽略其後續分段；
+ * 收到發送端的中止訊息 (chunkAborted) 時立即捨棄該群組，不需等待逾時。
+ */
+@Slf4j
+@Service
+public class ChunkReassembler {
+
+    // 讀取分段內容使用的緩衝區，每個執行緒重複使用
+    private static final ThreadLocal<byte[]> COPY_BUFFER = ThreadLocal.withInitial(() -> new byte[64 * 1024]);
+
+    @Autowired
+    private MqConfig mqConfig;
+
+    private final Map<String, ChunkGroup> groups = new ConcurrentHashMap<>();
+    private final Map<String, Long> discardedGroups = new ConcurrentHashMap<>();
+    private final AtomicLong completedCount = new AtomicLong();
+    private final AtomicLong discardedCount = new AtomicLong();
+    private final AtomicLong abortedCount = new AtomicLong();
+
+    /**
+     * 判斷訊息是否為分段訊息
+     *
+     * @param message 收到的訊息
+     * @return 帶有分段群組 ID 時為 true
+     * @throws JMSException 讀取屬性失敗時拋出
+     */
+    public boolean isChunk(Message message) throws JMSException {
+        return message.propertyExists(Constant.ChunkProperty.GROUP_ID);
+    }
+
+    /**
+     * 加入一段分段訊息
+     *
+     * @param message 分段訊息
+     * @return 收到最後一段時返回重組後內容的輸入串流 (關閉時刪除暫存檔)；其餘情況返回 null
+     * @throws JMSException             讀取訊息失敗時拋出
+     * @throws ChunkGroupLimitException 重組中的群組數量已達上限時拋出，由監聽器容器 rollback 後重新投遞
+     * @throws UncheckedIOException     寫入暫存檔失敗時拋出
+     */
+    public InputStream append(BytesMessage message) throws JMSException {
+        String groupId = message.getStringProperty(Constant.ChunkProperty.GROUP_ID);
+        int seq = message.getIntProperty(Constant.ChunkProperty.SEQ);
+        boolean last = message.getBooleanProperty(Constant.ChunkProperty.LAST);
+        if (message.getBooleanProperty(Constant.ChunkProperty.ABORTED)) {
+            abort(groupId);
+            return null;
+        }
+        if (discardedGroups.containsKey(groupId)) {
+            log.warn("分段群組 {} 已被丟棄，忽略第 {} 段", groupId, seq);
+            return null;
+        }
+
+        ChunkGroup group = groups.computeIfAbsent(groupId, this::openGroup);
+        group.lock.lock();
+        try {
+            if (!group.discarded && discardedGroups.containsKey(groupId)) {
+                // 中止訊息在建立群組期間到達
+                release(group);
+            }
+            if (group.discarded) {
+                log.warn("分段群組 {} 已被丟棄，忽略第 {} 段", groupId, seq);
+                return null;
+            }
+            if (seq < group.nextSeq || group.pending.containsKey(seq)) {
+                log.debug("忽略分段群組 {} 的重複分段 {}", groupId, seq);
+                return null;
+            }
+
+            long length = message.getBodyLength();
+            if (group.size + length > mqConfig.getChunking().getMaxGroupBytes()) {
+                discard(group, "超過大小上限 " + mqConfig.getChunking().getMaxGroupBytes() + " bytes");
+                return null;
+            }
+            group.size += length;
+            group.lastActivity = System.nanoTime();
+            long totalLength = last ? message.getLongProperty(Constant.ChunkProperty.TOTAL_LENGTH) : -1;
+            if (seq > group.nextSeq) {
+                // 亂序到達的分段先暫存，前面的分段到齊後再依序寫入，不讓監聽器執行緒等待
+                DeferredFileOutputStream out = newBuffer(
+                        (int) Math.max(0, mqConfig.getChunking().getMemoryThresholdBytes() - group.size));
+                copyBody(message, out);
+                out.close();
+                group.pending.put(seq, new PendingChunk(out, last, totalLength));
+                log.debug("分段群組 {} 的第 {} 段先到達，等待第 {} 段", groupId, seq, group.nextSeq);
+                return null;
+            }
+
+            copyBody(message, group.out);
+            group.nextSeq++;
+            boolean complete = last;
+            PendingChunk next;
+            while (!complete && (next = group.pending.remove(group.nextSeq)) != null) {
+                transfer(next, group);
+                group.nextSeq++;
+                complete = next.last();
+                totalLength = next.totalLength();
+            }
+            return complete ? complete(group, totalLength) : null;
+        } catch (IOException e) {
+            discard(group, "寫入暫存失敗: " + e.getMessage());
+            throw new UncheckedIOException("寫入分段重組暫存失敗", e);
+        } finally {
+            group.lock.unlock();
+        }
+    }
+
+    /**
+     * 定期丟棄逾時未完成的分段群組，並清除過期的丟棄記錄
+     */
+    @Scheduled(fixedDelay = 30000)
+    public void expireGroups() {
+        long timeoutNanos = TimeUnit.SECONDS.toNanos(mqConfig.getChunking().getGroupTimeoutSeconds());
+        long now = System.nanoTime();
+        for (ChunkGroup group : groups.values()) {
+            if (now - group.lastActivity > timeoutNanos) {
+                group.lock.lock();
+                try {
+                    if (!group.discarded && now - group.lastActivity > timeoutNanos) {
+                        discard(group, "逾時未收到後續分段");
+                    }
+                } finally {
+                    group.lock.unlock();
+                }
+            }
+        }
+        discardedGroups.values().removeIf(discardedAt -> now - discardedAt > timeoutNanos);
+    }
+
+    /**
+     * 獲取分段重組的統計資訊
+     *
+     * @return 包含重組中、已完成、已丟棄及發送端中止群組數量的 Map
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("openGroups", groups.size());
+        statistics.put("completed", completedCount.get());
+        statistics.put("discarded", discardedCount.get());
+        statistics.put("aborted", abortedCount.get());
+        return statistics;
+    }
+
+    /**
+     * 關閉時丟棄所有未完成的分段群組並刪除暫存檔
+     */
+    @PreDestroy
+    public void close() {
+        for (ChunkGroup group : groups.values()) {
+            group.lock.lock();
+            try {
+                if (!group.discarded) {
+                    discard(group, "服務關閉");
+                }
+            } finally {
+                group.lock.unlock();
+            }
+        }
+    }
+
+    private ChunkGroup openGroup(String groupId) {
+        MqConfig.Chunking config = mqConfig.getChunking();
+        if (groups.size() >= config.getMaxOpenGroups()) {
+            throw new ChunkGroupLimitException("重組中的分段群組數量已達上限: " + config.getMaxOpenGroups());
+        }
+        return new ChunkGroup(groupId, newBuffer(config.getMemoryThresholdBytes()));
+    }
+
+    /**
+     * 建立超過門檻時改寫入暫存檔的緩衝區
+     *
+     * @param threshold 保留在記憶體中的位元組數
+     */
+    private DeferredFileOutputStream newBuffer(int threshold) {
+        DeferredFileOutputStream.Builder builder = DeferredFileOutputStream.builder()
+                .setThreshold(threshold)
+                .setPrefix("mq-chunk-")
+                .setSuffix(".tmp");
+        String spoolDirectory = mqConfig.getChunking().getSpoolDirectory();
+        if (StringUtils.hasText(spoolDirectory)) {
+            builder.setDirectory(new File(spoolDirectory));
+        }
+        return builder.get();
+    }
+
+    private void copyBody(BytesMessage message, OutputStream out) throws JMSException, IOException {
+        byte[] buffer = COPY_BUFFER.get();
+        int read;
+        while ((read = message.readBytes(buffer)) > 0) {
+            out.write(buffer, 0, read);
+        }
+    }
+
+    /**
+     * 將暫存的亂序分段寫入群組並刪除其暫存檔
+     */
+    private void transfer(PendingChunk chunk, ChunkGroup group) throws IOException {
+        if (chunk.data().isInMemory()) {
+            group.out.write(chunk.data().getData());
+            return;
+        }
+        Path path = chunk.data().getPath();
+        try {
+            Files.copy(path, group.out);
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    private InputStream complete(ChunkGroup group, long totalLength) throws IOException {
+        groups.remove(group.id);
+        group.out.close();
+        if (totalLength >= 0 && totalLength != group.size) {
+            discard(group, "長度不符，預期 " + totalLength + " bytes，實際 " + group.size + " bytes");
+            return null;
+        }
+        completedCount.incrementAndGet();
+        log.info("分段群組 {} 重組完成，共 {} 段，{} bytes", group.id, group.nextSeq - 1, group.size);
+        if (group.out.isInMemory()) {
+            return new ByteArrayInputStream(group.out.getData());
+        }
+        Path path = group.out.getPath();
+        return new FilterInputStream(Files.newInputStream(path)) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    Files.deleteIfExists(path);
+                }
+            }
+        };
+    }
+
+    /**
+     * 發送端中止群組：捨棄已收到的分段，並在 groupTimeoutSeconds 內忽略之後到達的分段
+     */
+    private void abort(String groupId) {
+        discardedGroups.put(groupId, System.nanoTime());
+        abortedCount.incrementAndGet();
+        ChunkGroup group = groups.get(groupId);
+        if (group != null) {
+            group.lock.lock();
+            try {
+                if (!group.discarded) {
+                    release(group);
+                }
+            } finally {
+                group.lock.unlock();
+            }
+        }
+        log.warn("分段群組 {} 已由發送端中止，捨棄已收到的分段", groupId);
+    }
+
+    /**
+     * 丟棄分段群組並刪除暫存檔，呼叫前需持有群組的鎖
+     */
+    private void discard(ChunkGroup group, String reason) {
+        discardedCount.incrementAndGet();
+        log.error("丟棄分段群組 {}: {}", group.id, reason);
+        release(group);
+    }
+
+    /**
+     * 移除分段群組、記錄為已丟棄並刪除暫存檔，呼叫前需持有群組的鎖
+     */
+    private void release(ChunkGroup group) {
+        group.discarded = true;
+        groups.remove(group.id, group);
+        discardedGroups.putIfAbsent(group.id, System.nanoTime());
+        try {
+            group.out.close();
+            if (!group.out.isInMemory()) {
+                Files.deleteIfExists(group.out.getPath());
+            }
+            for (PendingChunk chunk : group.pending.values()) {
+                if (!chunk.data().isInMemory()) {
+                    Files.deleteIfExists(chunk.data().getPath());
+                }
+            }
+            group.pending.clear();
+        } catch (IOException e) {
+            log.warn("刪除分段群組 {} 的暫存檔失敗: {}", group.id, e.getMessage());
+        }
+    }
+
+    /**
+     * 重組中的分段群組
+     */
+    private static final class ChunkGroup {
+        private final String id;
+        private final DeferredFileOutputStream out;
+        private final ReentrantLock lock = new ReentrantLock();
+        // 亂序到達、尚未寫入的分段，依序號保存
+        private final Map<Integer, PendingChunk> pending = new HashMap<>();
+        private int nextSeq = 1;
+        private long size;
+        private boolean discarded;
+        private volatile long lastActivity = System.nanoTime();
+
+        private ChunkGroup(String id, DeferredFileOutputStream out) {
+            this.id = id;
+            this.out = out;
+        }
+    }
+
+    /**
+     * 亂序到達、等待前面分段的分段內容
+     *
+     * @param data        分段內容，超過記憶體門檻時寫入暫存檔
+     * @param last        是否為最後一段
+     * @param totalLength 最後一段帶有的原始數據總長度，其他分段為 -1
+     */
+    private record PendingChunk(DeferredFileOutputStream data, boolean last, long totalLength) {
+    }
+}
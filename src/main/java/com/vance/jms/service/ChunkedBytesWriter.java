@@ -0,0 +1,141 @@
+package com.vance.jms.service;
+
+import java.util.UUID;
+
+import org.springframework.jms.support.JmsUtils;
+
+import com.vance.jms.constant.Constant;
+
+import jakarta.jms.BytesMessage;
+import jakarta.jms.JMSException;
+import jakarta.jms.MessageProducer;
+import jakarta.jms.Session;
+
+/**
+ * 將二進制數據依分段大小切分為多個 BytesMessage 發送
+ * 每段在下一段開始寫入或結束時才送出，因此能正確標記最後一段，可用於長度未知的串流。
+ * 只有一段時以一般訊息發送，不附加分段屬性。
+ * 每段送出後立即 commit，避免單一交易過大；中途失敗時由 abort 補送中止訊息，接收端收到後立即捨棄該群組，
+ * 中止訊息也無法送出 (例如連接中斷) 時，接收端才會因群組不完整而逾時丟棄。
+ */
+class ChunkedBytesWriter {
+
+    private final Session session;
+    private final MessageProducer producer;
+    private final int chunkSize;
+    private final long totalLength;
+    private final String groupId = UUID.randomUUID().toString();
+
+    private BytesMessage current;
+    private int currentSize;
+    private int seq;
+    private int committed;
+    private long written;
+
+    /**
+     * @param session     交易 Session
+     * @param producer    已設定目的地及 QoS 的 Producer
+     * @param chunkSize   每段的最大位元組數
+     * @param totalLength 原始數據總長度，未知時為 -1
+     */
+    ChunkedBytesWriter(Session session, MessageProducer producer, int chunkSize, long totalLength) {
+        this.session = session;
+        this.producer = producer;
+        this.chunkSize = chunkSize;
+        this.totalLength = totalLength;
+    }
+
+    /**
+     * 寫入一段數據，湊滿分段大小的訊息會在下一次寫入時送出
+     *
+     * @param buffer 數據
+     * @param offset 起始位置
+     * @param length 長度
+     * @throws JMSException 建立或發送訊息失敗時拋出
+     */
+    void write(byte[] buffer, int offset, int length) throws JMSException {
+        while (length > 0) {
+            if (current != null && currentSize == chunkSize) {
+                send(false);
+            }
+            if (current == null) {
+                current = session.createBytesMessage();
+                currentSize = 0;
+                seq++;
+            }
+            int n = Math.min(length, chunkSize - currentSize);
+            current.writeBytes(buffer, offset, n);
+            currentSize += n;
+            written += n;
+            offset += n;
+            length -= n;
+        }
+    }
+
+    /**
+     * 送出最後一段
+     *
+     * @return 寫入的總位元組數
+     * @throws JMSException 發送訊息失敗時拋出
+     */
+    long finish() throws JMSException {
+        if (current == null) {
+            current = session.createBytesMessage();
+            seq++;
+        }
+        send(true);
+        return written;
+    }
+
+    /**
+     * 中止發送：捨棄尚未送出的分段，若已有分段 commit，補送一則帶 chunkAborted 屬性的訊息讓接收端捨棄該群組。
+     * 呼叫前應先 rollback 目前的交易
+     *
+     * @return 已送出中止訊息時為 true；尚未有分段 commit 時為 false
+     * @throws JMSException 發送中止訊息失敗時拋出
+     */
+    boolean abort() throws JMSException {
+        current = null;
+        if (committed == 0) {
+            return false;
+        }
+        BytesMessage message = session.createBytesMessage();
+        message.setStringProperty(Constant.ChunkProperty.GROUP_ID, groupId);
+        message.setIntProperty(Constant.ChunkProperty.SEQ, committed + 1);
+        message.setBooleanProperty(Constant.ChunkProperty.ABORTED, true);
+        producer.send(message);
+        JmsUtils.commitIfNecessary(session);
+        return true;
+    }
+
+    /**
+     * 分段群組 ID
+     *
+     * @return 群組 ID
+     */
+    String getGroupId() {
+        return groupId;
+    }
+
+    /**
+     * 送出的分段數量
+     *
+     * @return 分段數量
+     */
+    int getChunkCount() {
+        return seq;
+    }
+
+    private void send(boolean last) throws JMSException {
+        if (!last || seq > 1) {
+            current.setStringProperty(Constant.ChunkProperty.GROUP_ID, groupId);
+            current.setIntProperty(Constant.ChunkProperty.SEQ, seq);
+            current.setBooleanProperty(Constant.ChunkProperty.LAST, last);
+            current.setLongProperty(Constant.ChunkProperty.TOTAL_LENGTH, last ? written : totalLength);
+        }
+        producer.send(current);
+        JmsUtils.commitIfNecessary(session);
+        committed++;
+        current = null;
+    }
+}
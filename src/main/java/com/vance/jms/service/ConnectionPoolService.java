@@ -0,0 +1,82 @@
+package com.vance.jms.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.vance.jms.config.PooledConnectionFactory;
+import com.vance.jms.event.ConnectionPausedEvent;
+import com.vance.jms.event.ConnectionResumedEvent;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 根據 MQ 連接狀態事件管理發送端連接池，並提供連接池統計資訊。
+ */
+@Slf4j
+@Service
+public class ConnectionPoolService {
+
+    @Autowired
+    private PooledConnectionFactory pooledConnectionFactory;
+
+    /**
+     * 處理連接暫停事件。
+     * 清空連接池，避免斷線期間保留已失效的連接、Session 及 Producer。
+     *
+     * @param event 連接暫停事件。
+     */
+    @EventListener
+    public void handleConnectionPaused(ConnectionPausedEvent event) {
+        log.warn("收到連接暫停事件，清空發送端連接池。");
+        flush();
+    }
+
+    /**
+     * 處理連接恢復事件。
+     * 清空連接池，讓後續發送使用重新建立的連接。
+     *
+     * @param event 連接恢復事件。
+     */
+    @EventListener
+    public void handleConnectionResumed(ConnectionResumedEvent event) {
+        log.info("收到連接恢復事件，重建發送端連接池。");
+        flush();
+    }
+
+    /**
+     * 獲取連接池統計資訊
+     *
+     * @return 包含命中、未命中及等待時間等統計的 Map
+     */
+    public Map<String, Object> getStatistics() {
+        long requests = pooledConnectionFactory.getSessionRequests();
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("sessionCacheSize", pooledConnectionFactory.getSessionCacheSize());
+        statistics.put("sessionRequests", requests);
+        statistics.put("sessionHits", pooledConnectionFactory.getSessionHits());
+        statistics.put("sessionMisses", pooledConnectionFactory.getSessionMisses());
+        statistics.put("averageWaitMicros", requests == 0 ? 0
+                : TimeUnit.NANOSECONDS.toMicros(pooledConnectionFactory.getSessionWaitNanos() / requests));
+        statistics.put("maxWaitMicros",
+                TimeUnit.NANOSECONDS.toMicros(pooledConnectionFactory.getMaxSessionWaitNanos()));
+        statistics.put("connectionCreations", pooledConnectionFactory.getConnectionCreations());
+        statistics.put("resets", pooledConnectionFactory.getResets());
+        return statistics;
+    }
+
+    /**
+     * 清空連接池，關閉共用連接及所有快取的 Session/Producer
+     */
+    private void flush() {
+        try {
+            pooledConnectionFactory.resetConnection();
+        } catch (Exception e) {
+            log.error("清空發送端連接池失敗。", e);
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package com.vance.jms.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import com.vance.jms.config.MqConfig;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 接收端重複訊息過濾服務
+ * rollback 或重新連接後 MQ 會重新投遞訊息，處理器因此可能收到已處理過的訊息。
+ * 處理成功後記錄訊息 ID，時間窗內再次收到相同 ID 時由 MessageReceiver 略過處理器。
+ * 已處理的 ID 依處理時間排序保存，數量及時間都有上限；前面以兩代輪替的 Bloom filter 過濾，
+ * 絕大多數的新訊息不需取得鎖即可判定，Bloom filter 誤判時再以精確記錄確認，不會把新訊息當成重複。
+ * 設定快照檔案時定期寫入已處理的 ID，重新啟動後仍能辨識重新投遞的訊息。
+ */
+@Slf4j
+@Service
+public class IdempotencyFilter {
+
+    private static final int SNAPSHOT_VERSION = 1;
+
+    @Autowired
+    private MqConfig mqConfig;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // 訊息 ID 及處理時間 (epoch 毫秒)，依處理時間先後排列，最舊的在最前面
+    private final LinkedHashMap<String, Long> processed = new LinkedHashMap<>();
+    private volatile BloomFilter<CharSequence> current;
+    private volatile BloomFilter<CharSequence> previous;
+    private volatile long generationStartedMillis;
+    private volatile boolean enabled;
+    private Counter duplicates;
+
+    /**
+     * 依設定建立 Bloom filter，並載入快照
+     */
+    @PostConstruct
+    public void init() {
+        MqConfig.Idempotency config = mqConfig.getIdempotency();
+        if (!config.isEnabled()) {
+            return;
+        }
+        current = newBloomFilter();
+        previous = newBloomFilter();
+        generationStartedMillis = System.currentTimeMillis();
+        loadSnapshot();
+        duplicates = Counter.builder("jms.idempotency.duplicates").description("略過的重複訊息數")
+                .register(meterRegistry);
+        Gauge.builder("jms.idempotency.entries", this, IdempotencyFilter::size)
+                .description("記錄中的已處理訊息 ID 數量").register(meterRegistry);
+        enabled = true;
+        log.info("已啟用重複訊息過濾: 保留 {} 分鐘，最多 {} 筆，快照: {}", config.getWindowMinutes(),
+                config.getMaxEntries(), config.getSnapshotFile().isEmpty() ? "無" : config.getSnapshotFile());
+    }
+
+    /**
+     * 是否已啟用重複訊息過濾
+     *
+     * @return 已啟用時為 true
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 檢查訊息是否已在時間窗內處理過
+     *
+     * @param id 訊息 ID
+     * @return 已處理過時為 true
+     */
+    public boolean isDuplicate(String id) {
+        return isDuplicate(id, System.currentTimeMillis());
+    }
+
+    boolean isDuplicate(String id, long nowMillis) {
+        if (!current.mightContain(id) && !previous.mightContain(id)) {
+            return false;
+        }
+        Long processedAt;
+        synchronized (processed) {
+            processedAt = processed.get(id);
+        }
+        if (processedAt == null || nowMillis - processedAt >= windowMillis()) {
+            return false;
+        }
+        duplicates.increment();
+        return true;
+    }
+
+    /**
+     * 記錄訊息已處理，應在處理器成功返回後呼叫；處理失敗的訊息不可記錄，否則重新投遞時會被當成重複略過
+     *
+     * @param id 訊息 ID
+     */
+    public void markProcessed(String id) {
+        markProcessed(id, System.currentTimeMillis());
+    }
+
+    void markProcessed(String id, long nowMillis) {
+        rotateIfNeeded(nowMillis);
+        current.put(id);
+        synchronized (processed) {
+            processed.remove(id);
+            processed.put(id, nowMillis);
+            evict(nowMillis);
+        }
+    }
+
+    /**
+     * 每一代 Bloom filter 涵蓋一個時間窗，檢查時同時查詢目前及上一代，
+     * 因此 ID 至少在一個時間窗內可被查到，之後隨輪替自然淘汰
+     */
+    private void rotateIfNeeded(long nowMillis) {
+        if (nowMillis - generationStartedMillis < windowMillis()) {
+            return;
+        }
+        synchronized (this) {
+            if (nowMillis - generationStartedMillis >= windowMillis()) {
+                previous = current;
+                current = newBloomFilter();
+                generationStartedMillis = nowMillis;
+            }
+        }
+    }
+
+    /**
+     * 移除超過時間窗或超過數量上限的最舊記錄，呼叫端需持有 processed 的鎖
+     */
+    private void evict(long nowMillis) {
+        int maxEntries = Math.max(1, mqConfig.getIdempotency().getMaxEntries());
+        long window = windowMillis();
+        Iterator<Map.Entry<String, Long>> iterator = processed.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            if (processed.size() <= maxEntries && nowMillis - eldest.getValue() < window) {
+                break;
+            }
+            iterator.remove();
+        }
+    }
+
+    private int size() {
+        synchronized (processed) {
+            return processed.size();
+        }
+    }
+
+    private long windowMillis() {
+        return TimeUnit.MINUTES.toMillis(mqConfig.getIdempotency().getWindowMinutes());
+    }
+
+    private BloomFilter<CharSequence> newBloomFilter() {
+        MqConfig.Idempotency config = mqConfig.getIdempotency();
+        return BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8), Math.max(1, config.getMaxEntries()),
+                config.getFalsePositiveRate());
+    }
+
+    /**
+     * 獲取重複訊息過濾的統計資訊
+     *
+     * @return 是否啟用、記錄中的 ID 數量及略過的重複訊息數
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("enabled", enabled);
+        if (enabled) {
+            statistics.put("entries", size());
+            statistics.put("duplicates", (long) duplicates.count());
+            statistics.put("windowMinutes", mqConfig.getIdempotency().getWindowMinutes());
+        }
+        return statistics;
+    }
+
+    /**
+     * 定期寫入快照
+     */
+    @Scheduled(fixedDelayString = "#{@mqConfig.idempotency.snapshotIntervalSeconds * 1000}")
+    public void scheduledSnapshot() {
+        writeSnapshot();
+    }
+
+    /**
+     * 關閉時寫入最後一次快照
+     */
+    @PreDestroy
+    public void close() {
+        writeSnapshot();
+    }
+
+    /**
+     * 將已處理的 ID 寫入暫存檔後再取代快照檔案，寫入中途失敗不會損壞上一次的快照
+     */
+    void writeSnapshot() {
+        String file = mqConfig.getIdempotency().getSnapshotFile();
+        if (!enabled || file.isEmpty()) {
+            return;
+        }
+        List<String> ids;
+        long[] times;
+        synchronized (processed) {
+            ids = new ArrayList<>(processed.keySet());
+            times = processed.values().stream().mapToLong(Long::longValue).toArray();
+        }
+        Path path = Path.of(file);
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeInt(ids.size());
+                for (int i = 0; i < ids.size(); i++) {
+                    out.writeUTF(ids.get(i));
+                    out.writeLong(times[i]);
+                }
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("已寫入重複訊息過濾快照: {} 筆", ids.size());
+        } catch (IOException e) {
+            log.warn("寫入重複訊息過濾快照失敗: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 載入快照中仍在時間窗內的 ID，快照不存在或格式錯誤時從空白開始
+     */
+    private void loadSnapshot() {
+        String file = mqConfig.getIdempotency().getSnapshotFile();
+        if (file.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        int loaded = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(Path.of(file))))) {
+            if (in.readInt() != SNAPSHOT_VERSION) {
+                log.warn("重複訊息過濾快照版本不符，已忽略: {}", file);
+                return;
+            }
+            int count = in.readInt();
+            synchronized (processed) {
+                for (int i = 0; i < count; i++) {
+                    String id = in.readUTF();
+                    long processedAt = in.readLong();
+                    if (now - processedAt < windowMillis()) {
+                        processed.put(id, processedAt);
+                        current.put(id);
+                        loaded++;
+                    }
+                }
+                evict(now);
+            }
+            log.info("已載入重複訊息過濾快照: {} 筆", loaded);
+        } catch (NoSuchFileException e) {
+            log.debug("重複訊息過濾快照不存在: {}", file);
+        } catch (IOException e) {
+            log.warn("載入重複訊息過濾快照失敗，已載入 {} 筆: {}", loaded, e.getMessage());
+        }
+    }
+}
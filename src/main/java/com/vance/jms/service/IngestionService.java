@@ -0,0 +1,475 @@
+package com.vance.jms.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vance.jms.config.MqConfig;
+import com.vance.jms.exception.MqNotConnectedException;
+import com.vance.jms.exception.PayloadTooLargeException;
+import com.vance.jms.exception.UnknownQueueException;
+import com.vance.jms.model.CustomMessage;
+import com.vance.jms.model.IngestResult;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * NDJSON 串流匯入服務
+ * 以 Servlet 非阻塞 IO (ReadListener) 讀取請求內容，每一行解析為 CustomMessage 後以非同步發送送出。
+ * 讀取由需求驅動：同時進行中的發送達到 mq-config.ingest.maxInFlight 時停止讀取，等 MQ 確認寫入釋放名額後才繼續，
+ * 未讀取的內容留在 TCP 接收緩衝區，由流量控制讓客戶端放慢上傳；等待期間不佔用 Tomcat 執行緒，
+ * 記憶體中最多只有一個讀取緩衝區解出的訊息。
+ * 發送完成回呼在 MQ 客戶端的執行緒上只更新計數，繼續讀取、解析及送出交給 resumeThreads 個執行緒，
+ * 避免在回呼執行緒上進行 Servlet IO 及新的發送。
+ * MQ 不可用 (含斷路器開啟) 或隊列未設定時停止讀取並中止匯入，已送出的發送完成後返回結果。
+ * stream() 則在請求執行緒中以阻塞方式讀取，透過 MessageSender.sendStream 以同一個交易 Session 發送並定期 commit。
+ */
+@Slf4j
+@Service
+public class IngestionService {
+
+    private static final int READ_BUFFER_BYTES = 8192;
+    // 每個匯入最多只有一個排隊中的繼續處理工作，佇列長度即同時進行中的匯入數量上限
+    private static final int RESUME_QUEUE_CAPACITY = 1024;
+
+    @Autowired
+    private MessageSender messageSender;
+
+    @Autowired
+    private MqConfig mqConfig;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private ExecutorService resumeExecutor;
+
+    /**
+     * 建立發送完成後繼續處理匯入的執行緒池
+     */
+    @PostConstruct
+    public void init() {
+        int threads = Math.max(1, mqConfig.getIngest().getResumeThreads());
+        AtomicInteger index = new AtomicInteger();
+        resumeExecutor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(RESUME_QUEUE_CAPACITY), r -> {
+                    Thread thread = new Thread(r, "ingest-resume-" + index.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * 停止繼續處理匯入的執行緒池
+     */
+    @PreDestroy
+    public void close() {
+        resumeExecutor.shutdownNow();
+    }
+
+    /**
+     * 開始匯入，請求必須已進入非同步模式
+     *
+     * @param input      請求內容
+     * @param queue      目標隊列名稱，null 表示預設隊列
+     * @param onComplete 全部訊息處理完畢或中止後、所有已送出的發送都完成時呼叫一次
+     * @return 進行中的匯入，可用於逾時時中止
+     */
+    public Ingestion ingest(ServletInputStream input, String queue, Consumer<IngestResult> onComplete) {
+        Ingestion ingestion = new Ingestion(input, queue, onComplete);
+        input.setReadListener(ingestion);
+        return ingestion;
+    }
+
+    /**
+     * 在呼叫端執行緒中邊讀邊送，所有訊息共用同一個交易 Session 並定期 commit (見 MessageSender.sendStream)
+     * 每次只解析下一行，記憶體中最多只有一個讀取緩衝區的內容；無法解析的行計入失敗後略過
+     *
+     * @param input 請求內容，以阻塞方式讀取
+     * @param queue 目標隊列名稱，null 表示預設隊列
+     * @return 匯入結果，MQ 不可用、隊列未設定或讀取失敗時為已中止的結果
+     */
+    public IngestResult stream(InputStream input, String queue) {
+        long startNanos = System.nanoTime();
+        LineReader lines = new LineReader(input);
+        IngestResult result;
+        try {
+            result = messageSender.sendStream(queue, lines);
+        } catch (MqNotConnectedException | UnknownQueueException e) {
+            result = new IngestResult();
+            result.setAborted(true);
+            result.setAbortCause(e);
+            result.setAbortReason(e.getMessage());
+        }
+        lines.tracker.fill(result);
+        long elapsedNanos = System.nanoTime() - startNanos;
+        result.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        result.setMessagesPerSecond(elapsedNanos > 0 ? result.getSent() * 1e9 / elapsedNanos : 0);
+        log.info("NDJSON 串流匯入完成: 收到 {} 筆，成功 {} 筆，失敗 {} 筆，commit {} 次，{} ms{}", result.getReceived(),
+                result.getSent(), result.getFailed(), result.getCommits(), result.getElapsedMillis(),
+                result.isAborted() ? "，已中止: " + result.getAbortReason() : "");
+        return result;
+    }
+
+    /**
+     * 以阻塞方式讀取 NDJSON，逐筆交出可解析的訊息
+     * 讀取失敗時拋出 UncheckedIOException，單行過長時拋出 PayloadTooLargeException，由 MessageSender 回滾並中止
+     */
+    private class LineReader implements Iterator<CustomMessage> {
+
+        private final InputStream input;
+        private final NdjsonDecoder decoder = new NdjsonDecoder(mqConfig.getIngest().getMaxLineBytes());
+        private final byte[] buffer = new byte[READ_BUFFER_BYTES];
+        private final Queue<byte[]> lines = new ArrayDeque<>();
+        private final LineTracker tracker = new LineTracker();
+        private CustomMessage next;
+        private boolean endOfInput;
+
+        private LineReader(InputStream input) {
+            this.input = input;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null) {
+                if (!lines.isEmpty()) {
+                    next = tracker.parse(lines.poll()).message();
+                } else if (endOfInput) {
+                    return false;
+                } else {
+                    read();
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public CustomMessage next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            CustomMessage message = next;
+            next = null;
+            return message;
+        }
+
+        private void read() {
+            int count;
+            try {
+                count = input.read(buffer);
+            } catch (IOException e) {
+                throw new UncheckedIOException("讀取匯入請求內容失敗", e);
+            }
+            if (count < 0) {
+                endOfInput = true;
+                decoder.finish(lines::add);
+            } else {
+                decoder.feed(buffer, 0, count, lines::add);
+            }
+        }
+    }
+
+    /**
+     * 單行解析結果
+     *
+     * @param lineNumber 行號，從 1 開始
+     * @param message    解析出的訊息，無法解析時為 null
+     */
+    private record ParsedLine(long lineNumber, CustomMessage message) {
+    }
+
+    /**
+     * 兩種匯入方式共用的行解析與結果統計
+     * 為每一行編號並解析為 CustomMessage，補上缺少的 ID 與時間戳；無法解析或發送失敗的行計入失敗，
+     * 錯誤明細最多保留 IngestResult.MAX_ERRORS 筆。發送完成回呼可能在其他執行緒呼叫 fail，因此所有方法都同步
+     */
+    private class LineTracker {
+
+        private final List<IngestResult.LineError> errors = new ArrayList<>();
+        private long received;
+        private long failed;
+
+        /**
+         * 為下一行編號並解析，無法解析時計入失敗
+         *
+         * @param line 一行 NDJSON
+         * @return 解析結果，無法解析時訊息為 null
+         */
+        private ParsedLine parse(byte[] line) {
+            long lineNumber;
+            synchronized (this) {
+                lineNumber = ++received;
+            }
+            CustomMessage message;
+            try {
+                message = objectMapper.readValue(line, CustomMessage.class);
+            } catch (IOException e) {
+                fail(lineNumber, "JSON 解析失敗: " + e.getMessage());
+                return new ParsedLine(lineNumber, null);
+            }
+            if (message.getId() == null || message.getId().isEmpty()) {
+                message.setId(UUID.randomUUID().toString());
+            }
+            message.setTimestamp(System.currentTimeMillis());
+            return new ParsedLine(lineNumber, message);
+        }
+
+        /**
+         * 將一行計入失敗
+         *
+         * @param lineNumber 行號
+         * @param error      錯誤原因
+         */
+        private synchronized void fail(long lineNumber, String error) {
+            failed++;
+            if (errors.size() < IngestResult.MAX_ERRORS) {
+                errors.add(new IngestResult.LineError(lineNumber, error));
+            }
+        }
+
+        /**
+         * 將收到筆數、失敗筆數及錯誤明細寫入結果，失敗筆數累加在結果原有的失敗筆數上
+         *
+         * @param result 匯入結果
+         */
+        private synchronized void fill(IngestResult result) {
+            result.setReceived(received);
+            result.setFailed(result.getFailed() + failed);
+            result.setErrors(new ArrayList<>(errors));
+        }
+    }
+
+    /**
+     * 單一請求的匯入流程
+     * 讀取、解析及送出都由 drain() 執行，以 work-in-progress 計數確保同一時間只有一個執行緒在處理，
+     * 容器的讀取回呼與發送完成回呼同時要求處理時，由正在處理的執行緒多跑一輪，不會遞迴也不需要鎖
+     */
+    public class Ingestion implements ReadListener {
+
+        private final ServletInputStream input;
+        private final String queue;
+        private final Consumer<IngestResult> onComplete;
+        private final NdjsonDecoder decoder;
+        private final int maxInFlight;
+        private final byte[] buffer = new byte[READ_BUFFER_BYTES];
+        // 已解出、尚未送出的行，只由 drain() 存取
+        private final Queue<byte[]> pending = new ArrayDeque<>();
+        private final AtomicInteger wip = new AtomicInteger();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicBoolean completed = new AtomicBoolean();
+        private final AtomicBoolean resumeQueued = new AtomicBoolean();
+        private final AtomicLong sent = new AtomicLong();
+        private final LineTracker tracker = new LineTracker();
+        private final long startNanos = System.nanoTime();
+        private boolean endOfInput;
+        private volatile Throwable abortCause;
+
+        private Ingestion(ServletInputStream input, String queue, Consumer<IngestResult> onComplete) {
+            MqConfig.Ingest config = mqConfig.getIngest();
+            this.input = input;
+            this.queue = queue;
+            this.onComplete = onComplete;
+            this.decoder = new NdjsonDecoder(config.getMaxLineBytes());
+            this.maxInFlight = Math.max(1, config.getMaxInFlight());
+        }
+
+        @Override
+        public void onDataAvailable() {
+            drain();
+        }
+
+        @Override
+        public void onAllDataRead() {
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            log.warn("讀取匯入請求內容失敗: {}", t.getMessage());
+            abort(t);
+        }
+
+        /**
+         * 中止匯入，停止讀取；已送出的發送完成後返回結果
+         *
+         * @param cause 中止原因
+         */
+        public void abort(Throwable cause) {
+            if (abortCause == null) {
+                abortCause = cause;
+            }
+            drain();
+        }
+
+        /**
+         * 取得目前為止的匯入結果
+         *
+         * @return 匯入結果
+         */
+        public IngestResult snapshot() {
+            IngestResult result = new IngestResult();
+            result.setSent(sent.get());
+            Throwable cause = abortCause;
+            if (cause != null) {
+                result.setAborted(true);
+                result.setAbortCause(cause);
+                result.setAbortReason(cause.getMessage());
+            }
+            long elapsedNanos = System.nanoTime() - startNanos;
+            result.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+            result.setMessagesPerSecond(elapsedNanos > 0 ? sent.get() * 1e9 / elapsedNanos : 0);
+            tracker.fill(result);
+            return result;
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                pump();
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void pump() {
+            if (completed.get()) {
+                return;
+            }
+            try {
+                readAndDispatch();
+            } catch (IOException | RuntimeException e) {
+                // 讀取或解碼失敗 (例如單行過長) 時中止
+                if (abortCause == null) {
+                    abortCause = e;
+                }
+            }
+            boolean finished = abortCause != null || (endOfInput && pending.isEmpty());
+            if (finished && inFlight.get() == 0 && completed.compareAndSet(false, true)) {
+                IngestResult result = snapshot();
+                log.info("NDJSON 匯入完成: 收到 {} 筆，成功 {} 筆，失敗 {} 筆，{} ms{}", result.getReceived(),
+                        result.getSent(), result.getFailed(), result.getElapsedMillis(),
+                        result.isAborted() ? "，已中止: " + result.getAbortReason() : "");
+                onComplete.accept(result);
+            }
+        }
+
+        /**
+         * 送出已解出的行；名額用完時返回，等待發送完成回呼，否則在請求內容可讀時繼續讀取
+         */
+        private void readAndDispatch() throws IOException {
+            dispatchPending();
+            while (abortCause == null && pending.isEmpty() && !endOfInput) {
+                if (input.isFinished()) {
+                    endOfInput = true;
+                    decoder.finish(pending::add);
+                } else if (!input.isReady()) {
+                    // 容器在有資料可讀時呼叫 onDataAvailable
+                    return;
+                } else {
+                    int count = input.read(buffer);
+                    if (count < 0) {
+                        endOfInput = true;
+                        decoder.finish(pending::add);
+                    } else {
+                        decoder.feed(buffer, 0, count, pending::add);
+                    }
+                }
+                dispatchPending();
+            }
+        }
+
+        private void dispatchPending() {
+            while (abortCause == null && !pending.isEmpty() && inFlight.get() < maxInFlight) {
+                dispatch(pending.poll());
+            }
+        }
+
+        private void dispatch(byte[] line) {
+            ParsedLine parsed = tracker.parse(line);
+            if (parsed.message() == null) {
+                return;
+            }
+            long lineNumber = parsed.lineNumber();
+            CustomMessage message = parsed.message();
+
+            inFlight.incrementAndGet();
+            CompletableFuture<Void> future;
+            try {
+                future = messageSender.sendMessageAsync(queue, message);
+            } catch (MqNotConnectedException | UnknownQueueException | PayloadTooLargeException e) {
+                // 之後的訊息也無法發送，停止讀取讓客戶端得知
+                inFlight.decrementAndGet();
+                tracker.fail(lineNumber, e.getMessage());
+                abortCause = e;
+                return;
+            } catch (RuntimeException e) {
+                inFlight.decrementAndGet();
+                tracker.fail(lineNumber, e.getMessage());
+                return;
+            }
+            // 已完成時在目前的 drain() 中處理，否則回呼執行緒只更新計數，交給 resumeExecutor 繼續
+            boolean done = future.isDone();
+            future.whenComplete((result, error) -> {
+                if (error == null) {
+                    sent.incrementAndGet();
+                } else {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause()
+                            : error;
+                    tracker.fail(lineNumber, cause.getMessage());
+                }
+                inFlight.decrementAndGet();
+                if (done) {
+                    drain();
+                } else {
+                    resume();
+                }
+            });
+        }
+
+        /**
+         * 在 resumeExecutor 上執行 drain()，同一個匯入同時最多排隊一個工作；執行緒池已停止或佇列已滿時直接執行
+         */
+        private void resume() {
+            if (!resumeQueued.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                resumeExecutor.execute(() -> {
+                    resumeQueued.set(false);
+                    drain();
+                });
+            } catch (RejectedExecutionException e) {
+                resumeQueued.set(false);
+                drain();
+            }
+        }
+    }
+}
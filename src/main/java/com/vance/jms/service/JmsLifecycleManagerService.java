@@ -37,9 +37,8 @@ public class JmsLifecycleManagerService {
         // 列出所有註冊的監聽器容器
         log.info("當前已註冊的監聽器容器 ID: {}", jmsListenerEndpointRegistry.getListenerContainerIds());
 
-        // 在初始化時，JMS 監聽器可能還沒有被完全註冊，所以這裡不嘗試啟動它們
-        // 而是在 JmsTestApplication 的 main 方法中啟動它們
-        log.info("JMS 監聽器將在應用程式啟動後自動啟動");
+        // 監聽器容器不會自動啟動，MqConnectionService 在背景建立連接後發布 ConnectionResumedEvent 時才啟動
+        log.info("JMS 監聽器將在 MQ 連接建立後啟動");
     }
 
     /**
@@ -0,0 +1,243 @@
+package com.vance.jms.service;
+
+import java.util.Enumeration;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jms.config.JmsListenerEndpointRegistry;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.listener.MessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.vance.jms.config.MonitoredMessageListenerContainer;
+import com.vance.jms.config.MqConfig;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 監聽器消費者數量自動調整服務
+ * 定期觀察 mainMessageListener 的隊列積壓量、監聽器處理耗時及空轉比例，
+ * 在 MqConfig.autoscaler 設定的上下限之間增減消費者數量。
+ * 需連續多個評估週期符合條件才調整，且調整後有冷卻時間，避免來回震盪。
+ */
+@Slf4j
+@Service
+public class ListenerAutoscalerService {
+
+    static final String CONTAINER_ID = "mainMessageListener";
+
+    @Autowired
+    private JmsListenerEndpointRegistry jmsListenerEndpointRegistry;
+
+    @Autowired
+    private JmsTemplate jmsTemplate;
+
+    @Autowired
+    private MqConfig mqConfig;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Counter scaleUpCounter;
+    private Counter scaleDownCounter;
+
+    // 上一個評估週期的累計值，用於計算本週期的增量
+    private long lastReceived;
+    private long lastIdle;
+    private long lastHandled;
+    private long lastHandlerNanos;
+
+    private int scaleUpStreak;
+    private int scaleDownStreak;
+    private long lastScaleAtMillis;
+
+    private volatile int targetConsumers;
+    private volatile double lastIdleRatio;
+    private volatile long lastBacklog;
+    private volatile double lastHandlerLatencyMs;
+
+    /**
+     * 註冊自動調整相關的指標
+     */
+    @PostConstruct
+    public void init() {
+        scaleUpCounter = Counter.builder("jms.listener.scaling.decisions").tag("direction", "up")
+                .description("消費者擴充次數").register(meterRegistry);
+        scaleDownCounter = Counter.builder("jms.listener.scaling.decisions").tag("direction", "down")
+                .description("消費者縮減次數").register(meterRegistry);
+        Gauge.builder("jms.listener.consumers.target", this, s -> s.targetConsumers)
+                .description("自動調整設定的消費者數量").register(meterRegistry);
+        Gauge.builder("jms.listener.idle.ratio", this, s -> s.lastIdleRatio)
+                .description("最近一個評估週期的空轉比例").register(meterRegistry);
+        Gauge.builder("jms.listener.backlog", this, s -> s.lastBacklog)
+                .description("最近一次估算的隊列積壓量").register(meterRegistry);
+        Gauge.builder("jms.listener.handler.latency", this, s -> s.lastHandlerLatencyMs)
+                .description("最近一個評估週期的平均處理耗時 (毫秒)").baseUnit("milliseconds").register(meterRegistry);
+    }
+
+    /**
+     * 定期評估並調整消費者數量的排程任務。
+     * 間隔由 MqConfig.autoscaler.evaluationIntervalSeconds 控制。
+     */
+    @Scheduled(fixedDelayString = "#{@mqConfig.autoscaler.evaluationIntervalSeconds * 1000}")
+    public void evaluate() {
+        MqConfig.Autoscaler config = mqConfig.getAutoscaler();
+        if (!config.isEnabled()) {
+            return;
+        }
+
+        MessageListenerContainer listenerContainer = jmsListenerEndpointRegistry.getListenerContainer(CONTAINER_ID);
+        if (!(listenerContainer instanceof MonitoredMessageListenerContainer container) || !container.isRunning()) {
+            return;
+        }
+
+        WindowStats stats = collect(container, config);
+        int current = container.getConcurrentConsumers();
+        int target = decide(stats, current, System.currentTimeMillis());
+        targetConsumers = target;
+        if (target == current) {
+            return;
+        }
+
+        log.info("調整 {} 消費者數量: {} -> {} (空轉比例: {}, 積壓量: {}, 平均處理耗時: {} ms)", CONTAINER_ID, current,
+                target, String.format("%.2f", stats.getIdleRatio()), stats.getBacklog(),
+                String.format("%.1f", stats.getHandlerLatencyMs()));
+        // 先調整 concurrentConsumers 再調整上限，縮減時多出的消費者會在下一次空轉後停止
+        container.setConcurrentConsumers(target);
+        container.setMaxConcurrentConsumers(target);
+        if (target > current) {
+            scaleUpCounter.increment();
+        } else {
+            scaleDownCounter.increment();
+        }
+    }
+
+    /**
+     * 依本評估週期的統計決定消費者數量
+     *
+     * @param stats      本評估週期的統計
+     * @param current    目前的消費者數量
+     * @param nowMillis  目前時間 (毫秒)
+     * @return 調整後的消費者數量，不需調整時等於 current
+     */
+    int decide(WindowStats stats, int current, long nowMillis) {
+        MqConfig.Autoscaler config = mqConfig.getAutoscaler();
+        int min = Math.max(1, config.getMinConsumers());
+        int max = Math.max(min, config.getMaxConsumers());
+        if (current < min || current > max) {
+            return Math.min(max, Math.max(min, current));
+        }
+        if (stats.getPolls() == 0) {
+            // 本週期沒有任何 receive，無法判斷
+            return current;
+        }
+
+        boolean saturated = stats.getIdleRatio() <= config.getScaleUpIdleRatio()
+                || stats.getBacklog() >= config.getScaleUpBacklog();
+        boolean latencyTooHigh = config.getMaxHandlerLatencyMs() > 0
+                && stats.getHandlerLatencyMs() > config.getMaxHandlerLatencyMs();
+        boolean underused = stats.getIdleRatio() >= config.getScaleDownIdleRatio()
+                && stats.getBacklog() < config.getScaleUpBacklog();
+
+        // 處理耗時過高代表下游已是瓶頸，增加消費者只會加重負擔
+        scaleUpStreak = saturated && !latencyTooHigh ? scaleUpStreak + 1 : 0;
+        scaleDownStreak = underused ? scaleDownStreak + 1 : 0;
+
+        if (nowMillis - lastScaleAtMillis < TimeUnit.SECONDS.toMillis(config.getCooldownSeconds())) {
+            return current;
+        }
+
+        int step = Math.max(1, config.getStep());
+        int target = current;
+        if (scaleUpStreak >= config.getScaleUpWindows() && current < max) {
+            target = Math.min(max, current + step);
+        } else if (scaleDownStreak >= config.getScaleDownWindows() && current > min) {
+            target = Math.max(min, current - step);
+        }
+
+        if (target != current) {
+            scaleUpStreak = 0;
+            scaleDownStreak = 0;
+            lastScaleAtMillis = nowMillis;
+        }
+        return target;
+    }
+
+    /**
+     * 收集本評估週期的統計
+     *
+     * @param container 監聽器容器
+     * @param config    自動調整設定
+     * @return 本評估週期的統計
+     */
+    private WindowStats collect(MonitoredMessageListenerContainer container, MqConfig.Autoscaler config) {
+        long received = container.getReceivedCount();
+        long idle = container.getIdleReceiveCount();
+        long handled = container.getHandledCount();
+        long handlerNanos = container.getHandlerNanos();
+
+        long receivedDelta = received - lastReceived;
+        long idleDelta = idle - lastIdle;
+        long handledDelta = handled - lastHandled;
+        long handlerNanosDelta = handlerNanos - lastHandlerNanos;
+        lastReceived = received;
+        lastIdle = idle;
+        lastHandled = handled;
+        lastHandlerNanos = handlerNanos;
+
+        long polls = receivedDelta + idleDelta;
+        double idleRatio = polls == 0 ? 1.0 : (double) idleDelta / polls;
+        double latencyMs = handledDelta == 0 ? 0 : handlerNanosDelta / (double) handledDelta / 1_000_000;
+        long backlog = probeBacklog(config.getBacklogProbeLimit());
+
+        lastIdleRatio = idleRatio;
+        lastBacklog = backlog;
+        lastHandlerLatencyMs = latencyMs;
+        return new WindowStats(polls, idleRatio, backlog, latencyMs);
+    }
+
+    /**
+     * 以 QueueBrowser 估算隊列積壓量，最多瀏覽 limit 筆
+     *
+     * @param limit 最多瀏覽的訊息數量，0 表示不瀏覽
+     * @return 估算的積壓量，無法取得時為 0
+     */
+    private long probeBacklog(int limit) {
+        if (limit <= 0) {
+            return 0;
+        }
+        try {
+            Long count = jmsTemplate.browse(mqConfig.getQueueName(), (session, browser) -> {
+                long n = 0;
+                Enumeration<?> messages = browser.getEnumeration();
+                while (n < limit && messages.hasMoreElements()) {
+                    messages.nextElement();
+                    n++;
+                }
+                return n;
+            });
+            return count != null ? count : 0;
+        } catch (Exception e) {
+            log.warn("估算隊列積壓量失敗: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * 單一評估週期的統計
+     */
+    @Value
+    static class WindowStats {
+        // 本週期 receive 呼叫次數 (收到訊息及空轉)
+        long polls;
+        double idleRatio;
+        long backlog;
+        double handlerLatencyMs;
+    }
+}
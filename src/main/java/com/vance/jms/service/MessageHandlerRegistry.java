@@ -0,0 +1,262 @@
+package com.vance.jms.service;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jms.listener.adapter.ListenerExecutionFailedException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import com.vance.jms.config.MessageHandler;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 訊息處理器登記服務
+ * 登記所有 MessageHandler bean，依內容類型、JMSType 及訊息屬性選出最具體的處理器。
+ * 內容類型與 JMSType 的候選清單只在第一次出現時計算並快取，之後的訊息只需比對訊息屬性條件。
+ * 設定專屬執行緒的處理器各自擁有固定大小的執行緒池，限制同時處理該類型的執行緒數量，執行緒池的指標以 jms.handler 前綴發布。
+ * 監聽器執行緒等待專屬執行緒處理完畢才返回，處理失敗時拋出異常，由監聽器容器 rollback，訊息不會在處理完成前被確認。
+ */
+@Slf4j
+@Service
+public class MessageHandlerRegistry {
+
+    // 快取的路由數量上限，JMSType 由發送端決定，避免大量不同的值佔用記憶體
+    private static final int MAX_CACHED_ROUTES = 1024;
+
+    @Autowired
+    private ObjectProvider<MessageHandler<?>> handlerProvider;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final List<HandlerEntry> entries = new ArrayList<>();
+    private final Map<RouteKey, List<HandlerEntry>> routes = new ConcurrentHashMap<>();
+
+    /**
+     * 依 @Order 順序登記處理器，並為設定專屬執行緒的處理器建立執行緒池
+     */
+    @PostConstruct
+    public void init() {
+        handlerProvider.orderedStream().forEach(handler -> {
+            HandlerEntry entry = new HandlerEntry(handler, entries.size(), createExecutor(handler));
+            entries.add(entry);
+            log.info("已登記訊息處理器 {}: 類型 {}，JMSType {}，屬性 {}={}，專屬執行緒 {}", handler.getName(),
+                    handler.getPayloadType().getSimpleName(), handler.getJmsType(), handler.getHeaderName(),
+                    handler.getHeaderValue(), handler.getConcurrency());
+        });
+    }
+
+    /**
+     * 將訊息內容交給最符合的處理器
+     *
+     * @param message 原始 JMS 訊息，用於比對 JMSType 及訊息屬性
+     * @param payload 轉換後的訊息內容
+     * @param inline  true 時一律在目前執行緒上處理 (例如批次接收的交易中)
+     * @return 找到處理器時為 true
+     * @throws JMSException                       讀取 JMSType 或訊息屬性失敗時拋出
+     * @throws ListenerExecutionFailedException 處理失敗時拋出
+     */
+    public boolean dispatch(Message message, Object payload, boolean inline) throws JMSException {
+        return dispatch(message, payload, inline, Set.of());
+    }
+
+    /**
+     * 將訊息內容交給指定名稱中最符合的處理器
+     *
+     * @param message  原始 JMS 訊息，用於比對 JMSType 及訊息屬性
+     * @param payload  轉換後的訊息內容
+     * @param inline   true 時一律在目前執行緒上處理
+     * @param handlers 允許的處理器名稱，空集合表示不限制
+     * @return 找到處理器時為 true
+     * @throws JMSException                       讀取 JMSType 或訊息屬性失敗時拋出
+     * @throws ListenerExecutionFailedException 處理失敗時拋出
+     */
+    public boolean dispatch(Message message, Object payload, boolean inline, Set<String> handlers)
+            throws JMSException {
+        RouteKey key = new RouteKey(payload.getClass(), message.getJMSType());
+        List<HandlerEntry> candidates = routes.get(key);
+        if (candidates == null) {
+            candidates = resolve(key);
+            if (routes.size() < MAX_CACHED_ROUTES) {
+                routes.putIfAbsent(key, candidates);
+            }
+        }
+        for (HandlerEntry entry : candidates) {
+            if (!handlers.isEmpty() && !handlers.contains(entry.handler.getName())) {
+                continue;
+            }
+            if (!entry.matchesHeader(message)) {
+                continue;
+            }
+            if (inline || entry.executor == null || payload instanceof InputStream) {
+                entry.handle(payload);
+            } else {
+                await(entry, entry.executor.submit(() -> entry.handle(payload)));
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 等待專屬執行緒處理完畢，並將處理失敗拋回監聽器執行緒
+     * 等待中被中斷時仍等待處理結束，避免處理中的訊息在 rollback 後與重新投遞的訊息同時處理
+     */
+    private static void await(HandlerEntry entry, Future<?> future) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    future.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new ListenerExecutionFailedException("訊息處理器 " + entry.handler.getName() + " 處理失敗",
+                    e.getCause());
+        } catch (CancellationException e) {
+            throw new ListenerExecutionFailedException("訊息處理器 " + entry.handler.getName() + " 已停止", e);
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 找出內容類型及 JMSType 符合的處理器，依條件具體程度排序：
+     * 有訊息屬性條件者優先，其次為有 JMSType 條件者，再依內容類型與實際類型的距離，最後依登記順序
+     */
+    private List<HandlerEntry> resolve(RouteKey key) {
+        return entries.stream()
+                .filter(entry -> entry.handler.getPayloadType().isAssignableFrom(key.payloadClass()))
+                .filter(entry -> entry.handler.getJmsType() == null
+                        || entry.handler.getJmsType().equals(key.jmsType()))
+                .sorted(Comparator.comparingInt((HandlerEntry entry) -> entry.handler.getHeaderName() != null ? 0 : 1)
+                        .thenComparingInt(entry -> entry.handler.getJmsType() != null ? 0 : 1)
+                        .thenComparingInt(entry -> distance(entry.handler.getPayloadType(), key.payloadClass()))
+                        .thenComparingInt(entry -> entry.index))
+                .toList();
+    }
+
+    /**
+     * 實際類型到處理器內容類型的繼承層數，介面視為最遠
+     */
+    private static int distance(Class<?> handlerType, Class<?> payloadClass) {
+        int distance = 0;
+        for (Class<?> type = payloadClass; type != null; type = type.getSuperclass()) {
+            if (type == handlerType) {
+                return distance;
+            }
+            distance++;
+        }
+        return Integer.MAX_VALUE;
+    }
+
+    private ExecutorService createExecutor(MessageHandler<?> handler) {
+        if (handler.getConcurrency() <= 0) {
+            return null;
+        }
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(handler.getConcurrency(), handler.getConcurrency(), 0L,
+                TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(handler.getQueueCapacity()),
+                new CustomizableThreadFactory("jms-handler-" + handler.getName() + "-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, handler.getName(), "jms.handler");
+    }
+
+    /**
+     * 停止專屬執行緒池，等待已交出的內容處理完畢
+     * 時限內未開始處理的內容會被取消，等待中的監聽器執行緒收到異常後 rollback，由 MQ 重新投遞
+     */
+    @PreDestroy
+    public void close() {
+        for (HandlerEntry entry : entries) {
+            if (entry.executor == null) {
+                continue;
+            }
+            entry.executor.shutdown();
+            try {
+                if (!entry.executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                    log.warn("訊息處理器 {} 未在時限內處理完畢，取消剩餘內容並 rollback", entry.handler.getName());
+                    cancel(entry.executor.shutdownNow());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancel(entry.executor.shutdownNow());
+            }
+        }
+    }
+
+    private static void cancel(List<Runnable> tasks) {
+        for (Runnable task : tasks) {
+            if (task instanceof Future<?> future) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * 路由快取的鍵：內容的實際類型及 JMSType
+     */
+    private record RouteKey(Class<?> payloadClass, String jmsType) {
+    }
+
+    /**
+     * 已登記的處理器及其專屬執行緒池
+     */
+    private static final class HandlerEntry {
+        private final MessageHandler<Object> handler;
+        private final int index;
+        private final ExecutorService executor;
+
+        @SuppressWarnings("unchecked")
+        private HandlerEntry(MessageHandler<?> handler, int index, ExecutorService executor) {
+            this.handler = (MessageHandler<Object>) handler;
+            this.index = index;
+            this.executor = executor;
+        }
+
+        private boolean matchesHeader(Message message) throws JMSException {
+            String name = handler.getHeaderName();
+            return name == null || Objects.equals(handler.getHeaderValue(), message.getStringProperty(name));
+        }
+
+        private void handle(Object payload) {
+            try {
+                handler.handle(payload);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new ListenerExecutionFailedException("訊息處理器 " + handler.getName() + " 處理失敗", e);
+            }
+        }
+    }
+}
@@ -1,13 +1,24 @@
 package com.vance.jms.service;
 
-import java.io.Serializable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jms.annotation.JmsListener;
+import org.springframework.jms.listener.adapter.ListenerExecutionFailedException;
 import org.springframework.stereotype.Service;
 
+import com.vance.jms.config.BatchMessageHandler;
+import com.vance.jms.config.BinaryMessageConverter;
+import com.vance.jms.config.MqConfig;
+import com.vance.jms.constant.Constant;
+import com.vance.jms.exception.ChunkGroupLimitException;
 import com.vance.jms.model.CustomMessage;
 
+import io.micrometer.core.instrument.Timer;
 import jakarta.jms.BytesMessage;
 import jakarta.jms.JMSException;
 import jakarta.jms.Message;
@@ -18,14 +29,50 @@ import lombok.extern.slf4j.Slf4j;
 /**
  * 訊息接收服務
  * 使用 JmsLifecycleManagerService 實現 MQ 斷線時的重新連線機制
+ * 啟用批次接收時由 BatchMessageListenerContainer 呼叫 onMessages 整批處理，
+ * 設定分區數量時再依分區鍵交給 PartitionedDispatcher 平行處理
+ * 大型二進制數據的分段訊息交由 ChunkReassembler 重組，收齊後以串流處理
+ * 壓縮的訊息先由 PayloadCompressor 還原內容，再依原始類型分派
+ * 二進制格式的物件訊息由 BinaryMessageConverter 解碼；以 Java 序列化傳送的 ObjectMessage 預設不處理
+ * 轉換後的內容依類型、JMSType 及訊息屬性交給 MessageHandlerRegistry 登記的 MessageHandler 處理
+ * 啟用 IdempotencyFilter 時，已處理過的重複訊息不再交給處理器
+ * mq-config.queues 中其他隊列的監聽器經由 QueueListenerConfigurer 呼叫帶有 QueueTarget 的方法，
+ * 訊息只交給該隊列設定的處理器
  */
 @Slf4j
 @Service
-public class MessageReceiver {
+public class MessageReceiver implements BatchMessageHandler {
 
     @Autowired
     private MqConnectionService mqConnectionService;
 
+    @Autowired
+    private ChunkReassembler chunkReassembler;
+
+    @Autowired
+    private PayloadCompressor payloadCompressor;
+
+    @Autowired
+    private BinaryMessageConverter binaryMessageConverter;
+
+    @Autowired
+    private MqConfig mqConfig;
+
+    @Autowired
+    private MessagingMetrics messagingMetrics;
+
+    @Autowired
+    private PayloadLogger payloadLogger;
+
+    @Autowired
+    private MessageHandlerRegistry messageHandlerRegistry;
+
+    @Autowired
+    private PartitionedDispatcher partitionedDispatcher;
+
+    @Autowired
+    private IdempotencyFilter idempotencyFilter;
+
     /**
      * 單一監聽器方法，根據訊息類型分派處理
      *
@@ -33,75 +80,307 @@ public class MessageReceiver {
      */
     @JmsListener(destination = "${mq-config.queue-name}", containerFactory = "jmsListenerContainerFactory", id = "mainMessageListener")
     public void onMessage(Message message) {
-        log.info("收到訊息: {}", message);
-        try {
-            // 檢查 MQ 連接狀態
-            if (!mqConnectionService.isConnected()) {
-                log.warn("MQ 連接已中斷，無法處理訊息。訊息將被放回隊列或丟棄。");
-                throw new JMSException("MQ 連接已中斷");
-            }
+        onMessage(defaultTarget(), message);
+    }
 
-            if (message instanceof TextMessage) {
-                String text = ((TextMessage) message).getText();
-                log.info("接收到文本訊息: {}", text);
-                handleTextMessage(text);
-            } else if (message instanceof ObjectMessage) {
-                Serializable object = ((ObjectMessage) message).getObject();
-                log.info("接收到物件訊息: {}", object);
-                if (object instanceof CustomMessage) {
-                    handleObjectMessage((CustomMessage) object);
-                } else {
-                    log.warn("接收到未知類型的 ObjectMessage: {}", object.getClass().getName());
-                    // 處理未知類型的 ObjectMessage
-                }
-            } else if (message instanceof BytesMessage) {
-                BytesMessage bytesMessage = (BytesMessage) message;
-                byte[] bytes = new byte[(int) bytesMessage.getBodyLength()];
-                bytesMessage.readBytes(bytes);
-                log.info("接收到二進制訊息: {} bytes", bytes.length);
-                handleByteMessage(bytes);
-            } else {
-                log.warn("接收到未知訊息類型: {}", message.getClass().getName());
-                // 處理未知訊息類型
-            }
+    /**
+     * 指定隊列的監聽器方法，根據訊息類型分派處理
+     *
+     * @param queue   接收訊息的隊列
+     * @param message 接收到的原始 JMS 訊息
+     * @throws ChunkGroupLimitException 分段群組數量已達上限時拋出，由監聽器容器 rollback 後重新投遞
+     * @throws RuntimeException         處理器處理失敗時拋出，由監聽器容器 rollback 後重新投遞
+     */
+    public void onMessage(QueueTopology.QueueTarget queue, Message message) {
+        try {
+            checkConnection();
+            dispatch(queue, message, false);
+        } catch (ChunkGroupLimitException e) {
+            log.warn("分段群組數量已達上限，rollback 等待重新投遞: {}", e.getMessage());
+            throw e;
         } catch (JMSException e) {
             log.error("處理 JMS 訊息時發生錯誤: {}", e.getMessage(), e);
             // 當 MQ 連接中斷時，JmsLifecycleManagerService 會停止監聽器，
             // 所以這裡不需要額外處理
+        } catch (RuntimeException e) {
+            // 處理器 (含專屬執行緒上的處理器) 失敗時不可 commit，否則訊息會遺失
+            log.error("處理訊息失敗，rollback 等待重新投遞: {}", e.getMessage(), e);
+            messagingMetrics.recordRollback("receive");
+            throw e;
+        }
+    }
+
+    /**
+     * 批次接收模式下的監聽器方法，逐筆分派處理
+     * 任一筆處理失敗時拋出異常，由監聽器容器將整批訊息 rollback
+     *
+     * @param messages 同一個交易中收到的訊息
+     * @throws JMSException 連接中斷或讀取訊息失敗時拋出
+     */
+    @Override
+    public void onMessages(List<Message> messages) throws JMSException {
+        onMessages(defaultTarget(), messages);
+    }
+
+    /**
+     * 指定隊列在批次接收模式下的監聽器方法
+     *
+     * @param queue    接收訊息的隊列
+     * @param messages 同一個交易中收到的訊息
+     * @throws JMSException 連接中斷或讀取訊息失敗時拋出
+     */
+    public void onMessages(QueueTopology.QueueTarget queue, List<Message> messages) throws JMSException {
+        log.debug("從隊列 {} 收到批次訊息: {} 筆", queue.name(), messages.size());
+        checkConnection();
+        try {
+            if (partitionedDispatcher.isEnabled()) {
+                dispatchPartitioned(queue, messages);
+            } else {
+                for (Message message : messages) {
+                    dispatch(queue, message, true);
+                }
+            }
+        } catch (JMSException | RuntimeException e) {
+            messagingMetrics.recordRollback("receive.batch");
+            throw e;
+        }
+    }
+
+    /**
+     * 依分區鍵將一批訊息交給 PartitionedDispatcher 平行處理，相同分區鍵的訊息依接收順序處理
+     * 沒有分區鍵屬性的壓縮訊息及二進制物件訊息在此還原以取得 CustomMessage 的 id，還原結果直接交給處理通道
+     *
+     * @param queue    接收訊息的隊列
+     * @param messages 同一個交易中收到的訊息
+     * @throws JMSException 讀取分區鍵或訊息內容失敗時拋出
+     */
+    private void dispatchPartitioned(QueueTopology.QueueTarget queue, List<Message> messages)
+            throws JMSException {
+        List<PartitionedDispatcher.PartitionTask> tasks = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            Object decoded = null;
+            String key = partitionKey(message);
+            if (key == null) {
+                decoded = decompress(message);
+                if (decoded == null && message instanceof BytesMessage && binaryMessageConverter.isBinary(message)) {
+                    decoded = binaryMessageConverter.fromMessage(message);
+                }
+                if (decoded instanceof CustomMessage customMessage) {
+                    key = customMessage.getId();
+                }
+            }
+            Object payload = decoded;
+            tasks.add(new PartitionedDispatcher.PartitionTask(key, () -> dispatch(queue, message, payload, true)));
+        }
+        try {
+            partitionedDispatcher.execute(tasks);
+        } catch (JMSException | RuntimeException e) {
+            throw e;
         } catch (Exception e) {
-            log.error("處理訊息時發生未知錯誤: {}", e.getMessage(), e);
-            // 處理其他異常
+            throw new ListenerExecutionFailedException("分區處理失敗: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 讀取分區鍵：設定的訊息屬性、JMSXGroupID、發送端記錄的 CustomMessage id 或分段群組 ID，都沒有時為 null
+     */
+    private String partitionKey(Message message) throws JMSException {
+        String property = mqConfig.getListener().getPartitionKeyProperty();
+        String key = property.isEmpty() ? null : message.getStringProperty(property);
+        if (key == null) {
+            key = message.getStringProperty(Constant.PartitionProperty.GROUP_ID);
+        }
+        if (key == null) {
+            key = message.getStringProperty(Constant.PartitionProperty.KEY);
+        }
+        if (key == null) {
+            key = message.getStringProperty(Constant.ChunkProperty.GROUP_ID);
+        }
+        return key;
+    }
+
+    /**
+     * 根據訊息類型分派處理，並記錄處理耗時及結果
+     *
+     * @param queue   接收訊息的隊列
+     * @param message 接收到的原始 JMS 訊息
+     * @param inline  true 時在目前執行緒上處理，不交給處理器的專屬執行緒 (批次接收的交易中)
+     * @throws JMSException 讀取訊息內容失敗時拋出
+     */
+    void dispatch(QueueTopology.QueueTarget queue, Message message, boolean inline) throws JMSException {
+        dispatch(queue, message, null, inline);
+    }
+
+    /**
+     * 根據訊息類型分派處理，並記錄處理耗時及結果
+     *
+     * 壓縮的訊息由 PayloadCompressor 還原內容，以還原後的內容交給處理器，訊息本身仍為收到的 BytesMessage
+     *
+     * @param queue   接收訊息的隊列
+     * @param message 接收到的 JMS 訊息
+     * @param decoded 已還原或解碼的訊息內容，尚未讀取時為 null
+     * @param inline  true 時在目前執行緒上處理
+     * @throws JMSException 讀取訊息內容失敗時拋出
+     */
+    private void dispatch(QueueTopology.QueueTarget queue, Message message, Object decoded, boolean inline)
+            throws JMSException {
+        Timer.Sample sample = messagingMetrics.start();
+        String type = MessagingMetrics.TYPE_OTHER;
+        try {
+            if (decoded == null) {
+                decoded = decompress(message);
+            }
+            type = typeOf(message, decoded);
+            if (decoded != null) {
+                payloadLogger.log(PayloadLogger.CATEGORY_RECEIVE, queue.destination(), decoded);
+                route(queue, message, decoded, inline);
+            } else {
+                handle(queue, message, inline);
+            }
+        } catch (JMSException | RuntimeException e) {
+            messagingMetrics.recordReceive(sample, type, false);
+            messagingMetrics.recordError(MessagingMetrics.OPERATION_RECEIVE, type, e);
+            throw e;
+        }
+        messagingMetrics.recordReceive(sample, type, true);
+    }
+
+    /**
+     * 還原壓縮的訊息內容：原為文本時為 String，二進制格式的物件為解碼後的物件，其他二進制數據為 byte[]
+     *
+     * @return 未壓縮時為 null
+     */
+    private Object decompress(Message message) throws JMSException {
+        Object body = payloadCompressor.decompress(message);
+        if (body instanceof byte[] bytes && binaryMessageConverter.isBinary(message)) {
+            return binaryMessageConverter.decode(message, bytes);
         }
+        return body;
     }
 
     /**
-     * 處理接收到的 Message 物件訊息
+     * 訊息類型的指標標籤，壓縮的訊息依還原後的內容判斷
+     */
+    private String typeOf(Message message, Object payload) throws JMSException {
+        if (message instanceof TextMessage || payload instanceof String) {
+            return MessagingMetrics.TYPE_TEXT;
+        } else if (payload instanceof byte[]) {
+            return MessagingMetrics.TYPE_BYTES;
+        } else if (message instanceof ObjectMessage) {
+            return MessagingMetrics.TYPE_OBJECT;
+        } else if (message instanceof BytesMessage) {
+            return binaryMessageConverter.isBinary(message) ? MessagingMetrics.TYPE_OBJECT
+                    : MessagingMetrics.TYPE_BYTES;
+        }
+        return MessagingMetrics.TYPE_OTHER;
+    }
+
+    /**
+     * 將未壓縮的訊息轉換為內容物件，交給 MessageHandlerRegistry 選出的處理器
      *
-     * @param message 接收到的訊息物件
+     * @param queue   接收訊息的隊列
+     * @param message 未壓縮的 JMS 訊息
+     * @param inline  true 時在目前執行緒上處理
+     * @throws JMSException 讀取訊息內容失敗時拋出
      */
-    private void handleObjectMessage(CustomMessage message) {
-        log.info("處理訊息物件: {}", message);
-        // 在這裡添加處理 Message 物件的邏輯
+    private void handle(QueueTopology.QueueTarget queue, Message message, boolean inline) throws JMSException {
+        if (message instanceof ObjectMessage && !mqConfig.getConverter().isAllowObjectMessage()) {
+            // 反序列化不受信任的 Java 序列化內容可能執行任意程式碼，需明確啟用才處理
+            log.warn("已略過 Java 序列化的 ObjectMessage，請改用 JSON 或 BINARY 格式: {}", message.getJMSMessageID());
+            return;
+        }
+        if (message instanceof BytesMessage bytesMessage && !binaryMessageConverter.isBinary(message)
+                && chunkReassembler.isChunk(bytesMessage)) {
+            // 串流只在收齊時建立，處理器需在目前執行緒上讀完，之後即關閉並刪除暫存檔
+            try (InputStream in = chunkReassembler.append(bytesMessage)) {
+                if (in != null) {
+                    route(queue, message, in, true);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("讀取重組後的二進制數據失敗", e);
+            }
+            return;
+        }
+        Object payload = extract(message);
+        if (payload == null) {
+            log.warn("接收到未知訊息類型: {}", message.getClass().getName());
+            return;
+        }
+        payloadLogger.log(PayloadLogger.CATEGORY_RECEIVE, queue.destination(), payload);
+        route(queue, message, payload, inline);
     }
 
     /**
-     * 處理接收到的文本訊息
+     * 讀取訊息內容：文本為 String、二進制格式的物件為解碼後的物件、ObjectMessage 為反序列化後的物件、
+     * 其他二進制數據為 byte[]
      *
-     * @param text 接收到的文本
+     * @return 訊息內容，不支援的訊息類型為 null
+     */
+    private Object extract(Message message) throws JMSException {
+        if (message instanceof TextMessage textMessage) {
+            return textMessage.getText();
+        } else if (message instanceof BytesMessage && binaryMessageConverter.isBinary(message)) {
+            return binaryMessageConverter.fromMessage(message);
+        } else if (message instanceof ObjectMessage objectMessage) {
+            return objectMessage.getObject();
+        } else if (message instanceof BytesMessage bytesMessage) {
+            byte[] bytes = new byte[(int) bytesMessage.getBodyLength()];
+            bytesMessage.readBytes(bytes);
+            return bytes;
+        }
+        return null;
+    }
+
+    /**
+     * 略過已處理過的重複訊息，其餘交給隊列設定的處理器，處理器成功返回後記錄為已處理
+     * 專屬執行緒上的處理器也由 dispatch 等待處理完畢；處理失敗時異常直接拋出，不會記錄
+     * 分段重組的串流由 ChunkReassembler 依群組 ID 重組，不經過重複訊息過濾
+     */
+    private void route(QueueTopology.QueueTarget queue, Message message, Object payload, boolean inline)
+            throws JMSException {
+        String id = idempotencyFilter.isEnabled() && !(payload instanceof InputStream)
+                ? idempotencyKey(queue, message, payload) : null;
+        if (id != null && idempotencyFilter.isDuplicate(id)) {
+            log.debug("略過已處理過的重複訊息: {}", id);
+            return;
+        }
+        if (!messageHandlerRegistry.dispatch(message, payload, inline, queue.handlers())) {
+            log.warn("隊列 {} 沒有可處理 {} 的訊息處理器，JMSType: {}", queue.name(), payload.getClass().getName(),
+                    message.getJMSType());
+        }
+        if (id != null) {
+            idempotencyFilter.markProcessed(id);
+        }
+    }
+
+    /**
+     * 重複訊息過濾使用的 ID：CustomMessage 使用發送端指定的 id，重送時不會改變；其他訊息使用 JMSMessageID
+     * 其他隊列的 ID 加上隊列名稱，不同隊列中相同 id 的訊息不會互相視為重複
      */
-    private void handleTextMessage(String text) {
-        log.info("處理文本訊息: {}", text);
-        // 在這裡添加處理文本訊息的邏輯
+    private String idempotencyKey(QueueTopology.QueueTarget queue, Message message, Object payload)
+            throws JMSException {
+        String id = payload instanceof CustomMessage customMessage && customMessage.getId() != null
+                ? customMessage.getId() : message.getJMSMessageID();
+        return id == null || queue.name().equals(mqConfig.getQueueName()) ? id : queue.name() + ":" + id;
     }
 
     /**
-     * 處理接收到的二進制數據訊息
+     * 預設隊列 (mq-config.queue-name)，不限制處理器
+     */
+    private QueueTopology.QueueTarget defaultTarget() {
+        return QueueTopology.QueueTarget.of(mqConfig.getQueueName(), null);
+    }
+
+    /**
+     * 檢查 MQ 連接狀態
      *
-     * @param bytes 接收到的二進制數據
+     * @throws JMSException MQ 連接已中斷時拋出
      */
-    private void handleByteMessage(byte[] bytes) {
-        log.info("處理二進制數據訊息: {} bytes", bytes.length);
-        // 在這裡添加處理二進制數據的邏輯
+    private void checkConnection() throws JMSException {
+        if (!mqConnectionService.isConnected()) {
+            log.warn("MQ 連接已中斷，無法處理訊息。訊息將被放回隊列或丟棄。");
+            throw new JMSException("MQ 連接已中斷");
+        }
     }
 
 }
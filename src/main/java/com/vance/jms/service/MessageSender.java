@@ -1,22 +1,55 @@
 package com.vance.jms.service;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jms.JmsException;
 import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.support.JmsUtils;
+import org.springframework.jms.support.converter.MessageConversionException;
+import org.springframework.jms.support.converter.MessageConverter;
 import org.springframework.stereotype.Service;
 
 import com.vance.jms.config.MqConfig;
 import com.vance.jms.exception.MqNotConnectedException; // Added import
+import com.vance.jms.exception.OutboxFullException;
+import com.vance.jms.exception.PayloadTooLargeException;
+import com.vance.jms.exception.UnknownQueueException;
+import com.vance.jms.model.BatchSendResult;
 import com.vance.jms.model.CustomMessage;
+import com.vance.jms.model.IngestResult;
 
+import io.micrometer.core.instrument.Timer;
+import jakarta.jms.BytesMessage;
+import jakarta.jms.Destination;
+import jakarta.jms.JMSException;
+import jakarta.jms.MessageProducer;
+import jakarta.jms.Session;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * 訊息發送服務
+ * 啟用 outbox 時，MQ 未連接或仍有待重送訊息的期間，訊息改寫入本地暫存，待連接恢復後依序重送
+ * 每個發送方法都可指定 mq-config.queues 中設定的隊列名稱，未指定時發送到預設隊列
+ * 啟用 mq-config.sharding 時，訊息依 ShardRouter 分配到多個 Queue Manager
+ * 啟用 mq-config.circuit-breaker 時，發送經過 SendCircuitBreaker，MQ 回應緩慢或失敗時立即拒絕發送
+ * 大量訊息可透過 sendStream 以同一個交易 Session 逐筆送出並定期 commit
  */
 @Slf4j
 @Service
 public class MessageSender {
 
+    // 串流複製使用的緩衝區，每個執行緒重複使用，避免每個請求配置新的陣列
+    private static final ThreadLocal<byte[]> STREAM_BUFFER = ThreadLocal.withInitial(() -> new byte[64 * 1024]);
+
     @Autowired
     JmsTemplate jmsTemplate;
 
@@ -26,46 +59,725 @@ public class MessageSender {
     @Autowired
     private MqConnectionService mqConnectionService;
 
+    @Autowired
+    private AsyncProducerPool asyncProducerPool;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private MessagingMetrics messagingMetrics;
+
+    @Autowired
+    private PayloadLogger payloadLogger;
+
+    @Autowired
+    private QueueTopology queueTopology;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private SendCircuitBreaker sendCircuitBreaker;
+
     /**
-     * 發送訊息到指定隊列，訊息將在指定秒後自動過期
+     * 發送訊息到預設隊列，訊息將在指定秒後自動過期
      * (過期時間在 JmsTemplate 中全局設定)
      *
      * @param message 要發送的訊息
      * @throws MqNotConnectedException if MQ is not connected
      */
     public void sendMessage(CustomMessage message) {
+        sendMessage(null, message);
+    }
+
+    /**
+     * 發送訊息到指定隊列，訊息將在隊列設定的秒數後自動過期
+     *
+     * @param queue   隊列名稱，null 表示預設隊列
+     * @param message 要發送的訊息
+     * @throws MqNotConnectedException if MQ is not connected
+     * @throws UnknownQueueException   隊列未設定時拋出
+     */
+    public void sendMessage(String queue, CustomMessage message) {
+        QueueTopology.QueueTarget resolved = resolve(queue);
+        if (spool(resolved, MessagingMetrics.TYPE_OBJECT, List.of(message))) {
+            log.debug("MQ 目前不可用，訊息已寫入本地暫存: {}", message.getId());
+            return;
+        }
         this.checkConnection();
-        log.info("發送訊息到隊列 {}: {}", mqConfig.getQueueName(), message);
-        jmsTemplate.convertAndSend(mqConfig.getQueueName(), message);
-        log.info("訊息已成功發送，將在 {} 秒後過期", mqConfig.getMessageTtlSeconds());
+        QueueTopology.QueueTarget target = route(resolved, message.getId());
+        payloadLogger.log(PayloadLogger.CATEGORY_SEND, target.destination(), message);
+        timeSend(MessagingMetrics.TYPE_OBJECT, 1,
+                () -> target.jmsTemplate().convertAndSend(target.destination(), message));
+        log.debug("訊息已成功發送到隊列 {}，將在 {} ms 後過期", target.destination(),
+                target.jmsTemplate().getTimeToLive());
     }
 
     /**
-     * 發送文本訊息到指定隊列，訊息將在指定秒後自動過期
+     * 發送文本訊息到預設隊列，訊息將在指定秒後自動過期
      * (過期時間在 JmsTemplate 中全局設定)
      *
      * @param text 要發送的文本
      * @throws MqNotConnectedException if MQ is not connected
      */
     public void sendTextMessage(String text) {
+        sendTextMessage(null, text);
+    }
+
+    /**
+     * 發送文本訊息到指定隊列，訊息將在隊列設定的秒數後自動過期
+     *
+     * @param queue 隊列名稱，null 表示預設隊列
+     * @param text  要發送的文本
+     * @throws MqNotConnectedException if MQ is not connected
+     * @throws UnknownQueueException   隊列未設定時拋出
+     */
+    public void sendTextMessage(String queue, String text) {
+        QueueTopology.QueueTarget resolved = resolve(queue);
+        if (spool(resolved, MessagingMetrics.TYPE_TEXT, List.of(text))) {
+            log.debug("MQ 目前不可用，文本訊息已寫入本地暫存");
+            return;
+        }
         this.checkConnection();
-        log.info("發送文本訊息到隊列 {}: {}", mqConfig.getQueueName(), text);
-        jmsTemplate.convertAndSend(mqConfig.getQueueName(), text);
-        log.info("文本訊息已成功發送，將在 {} 秒後過期", mqConfig.getMessageTtlSeconds());
+        QueueTopology.QueueTarget target = route(resolved, null);
+        payloadLogger.log(PayloadLogger.CATEGORY_SEND, target.destination(), text);
+        timeSend(MessagingMetrics.TYPE_TEXT, 1,
+                () -> target.jmsTemplate().convertAndSend(target.destination(), text));
+        log.debug("文本訊息已成功發送到隊列 {}，將在 {} ms 後過期", target.destination(),
+                target.jmsTemplate().getTimeToLive());
     }
 
     /**
-     * 發送二進制數據到指定隊列，訊息將在指定秒後自動過期
+     * 發送二進制數據到預設隊列，訊息將在指定秒後自動過期
      * (過期時間在 JmsTemplate 中全局設定)
      *
      * @param bytes 要發送的二進制數據
      * @throws MqNotConnectedException if MQ is not connected
      */
     public void sendByteMessage(byte[] bytes) {
+        sendByteMessage(null, bytes);
+    }
+
+    /**
+     * 發送二進制數據到指定隊列，訊息將在隊列設定的秒數後自動過期
+     *
+     * @param queue 隊列名稱，null 表示預設隊列
+     * @param bytes 要發送的二進制數據
+     * @throws MqNotConnectedException if MQ is not connected, or if a payload larger than the chunk size
+     *                                 would be spooled to the outbox
+     * @throws UnknownQueueException   隊列未設定時拋出
+     */
+    public void sendByteMessage(String queue, byte[] bytes) {
+        QueueTopology.QueueTarget resolved = resolve(queue);
+        if (requiresChunking(bytes.length)) {
+            rejectIfSpooling();
+        } else if (spool(resolved, MessagingMetrics.TYPE_BYTES, List.of(bytes))) {
+            log.debug("MQ 目前不可用，二進制數據已寫入本地暫存: {} bytes", bytes.length);
+            return;
+        }
+        this.checkConnection();
+        QueueTopology.QueueTarget target = route(resolved, null);
+        payloadLogger.log(PayloadLogger.CATEGORY_SEND, target.destination(), bytes);
+        if (requiresChunking(bytes.length)) {
+            timeSend(MessagingMetrics.TYPE_BYTES, 1,
+                    () -> sendChunked(target, writer -> writer.write(bytes, 0, bytes.length), bytes.length));
+            return;
+        }
+        timeSend(MessagingMetrics.TYPE_BYTES, 1,
+                () -> target.jmsTemplate().convertAndSend(target.destination(), bytes));
+        log.debug("二進制數據已成功發送到隊列 {}，將在 {} ms 後過期", target.destination(),
+                target.jmsTemplate().getTimeToLive());
+    }
+
+    /**
+     * 將輸入串流的內容直接寫入 BytesMessage 發送到預設隊列，不建立完整的中間陣列
+     * (過期時間在 JmsTemplate 中全局設定)
+     *
+     * @param in       二進制數據的輸入串流
+     * @param maxBytes 允許的最大位元組數
+     * @return 發送的位元組數
+     * @throws MqNotConnectedException   if MQ is not connected
+     * @throws PayloadTooLargeException 內容超過 maxBytes 時拋出，訊息不會交給接收端處理
+     */
+    public long sendByteStream(InputStream in, long maxBytes) {
+        return sendByteStream(null, in, maxBytes);
+    }
+
+    /**
+     * 將輸入串流的內容直接寫入 BytesMessage 發送到指定隊列，不建立完整的中間陣列
+     *
+     * @param queue    隊列名稱，null 表示預設隊列
+     * @param in       二進制數據的輸入串流
+     * @param maxBytes 允許的最大位元組數
+     * @return 發送的位元組數
+     * @throws MqNotConnectedException   if MQ is not connected
+     * @throws PayloadTooLargeException 內容超過 maxBytes 時拋出，訊息不會交給接收端處理；
+     *                                  分段發送時已 commit 的分段由中止訊息通知接收端捨棄
+     * @throws UnknownQueueException     隊列未設定時拋出
+     */
+    public long sendByteStream(String queue, InputStream in, long maxBytes) {
+        QueueTopology.QueueTarget resolved = resolve(queue);
+        if (outboxService.isSpooling()) {
+            // 暫存需要完整內容，在大小上限內讀取後走一般發送流程
+            byte[] bytes = readBounded(in, maxBytes);
+            sendByteMessage(queue, bytes);
+            return bytes.length;
+        }
+        this.checkConnection();
+        QueueTopology.QueueTarget target = route(resolved, null);
+        if (mqConfig.getChunking().isEnabled()) {
+            return timeSend(MessagingMetrics.TYPE_STREAM, 1, () -> sendChunked(target,
+                    writer -> copy(in, maxBytes, (buffer, length) -> writer.write(buffer, 0, length)), -1));
+        }
+        long[] written = new long[1];
+        timeSend(MessagingMetrics.TYPE_STREAM, 1,
+                () -> target.jmsTemplate().send(target.destination(), session -> {
+                    BytesMessage message = session.createBytesMessage();
+                    written[0] = copy(in, maxBytes, (buffer, length) -> message.writeBytes(buffer, 0, length));
+                    return message;
+                }));
+        log.debug("串流二進制數據已成功發送到隊列 {}: {} bytes，將在 {} ms 後過期", target.destination(), written[0],
+                target.jmsTemplate().getTimeToLive());
+        return written[0];
+    }
+
+    /**
+     * 非同步發送訊息到預設隊列，呼叫端不需等待 MQ 確認寫入
+     * (過期時間在 JmsTemplate 中全局設定)
+     *
+     * @param message 要發送的訊息
+     * @return MQ 確認寫入後完成的 Future
+     * @throws MqNotConnectedException if MQ is not connected
+     */
+    public CompletableFuture<Void> sendMessageAsync(CustomMessage message) {
+        return sendMessageAsync(null, message);
+    }
+
+    /**
+     * 非同步發送訊息到指定隊列，呼叫端不需等待 MQ 確認寫入
+     *
+     * @param queue   隊列名稱，null 表示預設隊列
+     * @param message 要發送的訊息
+     * @return MQ 確認寫入後完成的 Future
+     * @throws MqNotConnectedException if MQ is not connected
+     * @throws UnknownQueueException   隊列未設定時拋出
+     */
+    public CompletableFuture<Void> sendMessageAsync(String queue, CustomMessage message) {
+        QueueTopology.QueueTarget resolved = resolve(queue);
+        if (spool(resolved, MessagingMetrics.TYPE_OBJECT, List.of(message))) {
+            return CompletableFuture.completedFuture(null);
+        }
+        this.checkConnection();
+        AsyncProducerPool pool = asyncPool(message.getId());
+        payloadLogger.log(PayloadLogger.CATEGORY_SEND, resolved.destination(), message);
+        return timeSendAsync(MessagingMetrics.TYPE_OBJECT,
+                () -> pool.send(resolved.destination(), message, resolved.jmsTemplate()));
+    }
+
+    /**
+     * 非同步發送文本訊息到預設隊列，呼叫端不需等待 MQ 確認寫入
+     * (過期時間在 JmsTemplate 中全局設定)
+     *
+     * @param text 要發送的文本
+     * @return MQ 確認寫入後完成的 Future
+     * @throws MqNotConnectedException if MQ is not connected
+     */
+    public CompletableFuture<Void> sendTextMessageAsync(String text) {
+        return sendTextMessageAsync(null, text);
+    }
+
+    /**
+     * 非同步發送文本訊息到指定隊列，呼叫端不需等待 MQ 確認寫入
+     *
+     * @param queue 隊列名稱，null 表示預設隊列
+     * @param text  要發送的文本
+     * @return MQ 確認寫入後完成的 Future
+     * @throws MqNotConnectedException if MQ is not connected
+     * @throws UnknownQueueException   隊列未設定時拋出
+     */
+    public CompletableFuture<Void> sendTextMessageAsync(String queue, String text) {
+        QueueTopology.QueueTarget resolved = resolve(queue);
+        if (spool(resolved, MessagingMetrics.TYPE_TEXT, List.of(text))) {
+            return CompletableFuture.completedFuture(null);
+        }
+        this.checkConnection();
+        AsyncProducerPool pool = asyncPool(null);
+        payloadLogger.log(PayloadLogger.CATEGORY_SEND, resolved.destination(), text);
+        return timeSendAsync(MessagingMetrics.TYPE_TEXT,
+                () -> pool.send(resolved.destination(), text, resolved.jmsTemplate()));
+    }
+
+    /**
+     * 非同步發送二進制數據到預設隊列，呼叫端不需等待 MQ 確認寫入
+     * (過期時間在 JmsTemplate 中全局設定)
+     *
+     * @param bytes 要發送的二進制數據
+     * @return MQ 確認寫入後完成的 Future
+     * @throws MqNotConnectedException if MQ is not connected
+     */
+    public CompletableFuture<Void> sendByteMessageAsync(byte[] bytes) {
+        return sendByteMessageAsync(null, bytes);
+    }
+
+    /**
+     * 非同步發送二進制數據到指定隊列，呼叫端不需等待 MQ 確認寫入
+     *
+     * @param queue 隊列名稱，null 表示預設隊列
+     * @param bytes 要發送的二進制數據
+     * @return MQ 確認寫入後完成的 Future
+     * @throws MqNotConnectedException if MQ is not connected
+     * @throws UnknownQueueException   隊列未設定時拋出
+     */
+    public CompletableFuture<Void> sendByteMessageAsync(String queue, byte[] bytes) {
+        if (requiresChunking(bytes.length)) {
+            // 分段發送需要依序 commit 多個訊息，改為同步發送
+            sendByteMessage(queue, bytes);
+            return CompletableFuture.completedFuture(null);
+        }
+        QueueTopology.QueueTarget resolved = resolve(queue);
+        if (spool(resolved, MessagingMetrics.TYPE_BYTES, List.of(bytes))) {
+            return CompletableFuture.completedFuture(null);
+        }
+        this.checkConnection();
+        AsyncProducerPool pool = asyncPool(null);
+        payloadLogger.log(PayloadLogger.CATEGORY_SEND, resolved.destination(), bytes);
+        return timeSendAsync(MessagingMetrics.TYPE_BYTES,
+                () -> pool.send(resolved.destination(), bytes, resolved.jmsTemplate()));
+    }
+
+    /**
+     * 批次發送物件訊息到預設隊列
+     *
+     * @param messages 要發送的訊息清單
+     * @return 整批交易結果與每筆訊息的發送結果
+     * @throws MqNotConnectedException if MQ is not connected
+     */
+    public BatchSendResult sendBatch(List<CustomMessage> messages) {
+        return sendBatch(null, messages);
+    }
+
+    /**
+     * 批次發送物件訊息到指定隊列
+     * 整批訊息共用同一個交易 Session 與 MessageProducer，全部送出後一次 commit；
+     * 任一筆發送失敗時整批 rollback，其餘訊息不再發送
+     *
+     * @param queue    隊列名稱，null 表示預設隊列
+     * @param messages 要發送的訊息清單
+     * @return 整批交易結果與每筆訊息的發送結果
+     * @throws MqNotConnectedException if MQ is not connected
+     * @throws UnknownQueueException   隊列未設定時拋出
+     */
+    public BatchSendResult sendBatch(String queue, List<CustomMessage> messages) {
+        QueueTopology.QueueTarget resolved = resolve(queue);
+        if (spool(resolved, MessagingMetrics.TYPE_BATCH, messages)) {
+            log.info("MQ 目前不可用，批次 {} 筆訊息已寫入本地暫存", messages.size());
+            BatchSendResult result = new BatchSendResult();
+            result.setCommitted(true);
+            result.setSpooled(true);
+            messages.forEach(message -> result.addResult(message.getId(), true, null));
+            return result;
+        }
         this.checkConnection();
-        log.info("發送二進制數據到隊列 {}: {} bytes", mqConfig.getQueueName(), bytes.length);
-        jmsTemplate.convertAndSend(mqConfig.getQueueName(), bytes);
-        log.info("二進制數據已成功發送，將在 {} 秒後過期", mqConfig.getMessageTtlSeconds());
+        // 整批在同一個交易中發送，只能送到同一個分流節點，以第一筆的 id 選擇
+        QueueTopology.QueueTarget target = route(resolved, messages.isEmpty() ? null : messages.get(0).getId());
+        log.debug("批次發送 {} 筆訊息到隊列 {}", messages.size(), target.destination());
+        Timer.Sample sample = messagingMetrics.start();
+        BatchSendResult result;
+        try {
+            result = sendCircuitBreaker.execute(
+                    () -> target.jmsTemplate().execute(session -> doSendBatch(session, target, messages), true));
+        } catch (RuntimeException e) {
+            messagingMetrics.recordSend(sample, MessagingMetrics.TYPE_BATCH, messages.size(), false);
+            messagingMetrics.recordError(MessagingMetrics.OPERATION_SEND, MessagingMetrics.TYPE_BATCH, e);
+            throw e;
+        }
+        messagingMetrics.recordSend(sample, MessagingMetrics.TYPE_BATCH, messages.size(), result.isCommitted());
+        log.info("批次發送完成，commit: {}，成功 {} 筆，失敗 {} 筆", result.isCommitted(),
+                result.getSuccessCount(), result.getFailureCount());
+        return result;
+    }
+
+    /**
+     * 串流發送物件訊息到指定隊列
+     * 訊息逐筆從 messages 取得後送出，不在記憶體中累積；所有訊息共用同一個交易 Session 與 MessageProducer，
+     * 每 mq-config.ingest.commit-interval 筆或距上次 commit 超過 commit-interval-millis 時 commit 一次。
+     * 發送、commit 或取得下一筆訊息失敗時回滾尚未 commit 的訊息並停止，已 commit 的訊息不受影響。
+     * 每次 commit 經過斷路器，斷路器開啟時同樣回滾並停止。
+     * 啟用分流時整個串流發送到同一個 Queue Manager
+     *
+     * @param queue    隊列名稱，null 表示預設隊列
+     * @param messages 要發送的訊息，逐筆讀取
+     * @return 已 commit 及已回滾的訊息數、commit 次數，中途停止時包含中止原因
+     * @throws MqNotConnectedException if MQ is not connected，或仍有訊息在本地暫存等待重送
+     * @throws UnknownQueueException   隊列未設定時拋出
+     */
+    public IngestResult sendStream(String queue, Iterator<CustomMessage> messages) {
+        QueueTopology.QueueTarget resolved = resolve(queue);
+        if (outboxService.isSpooling()) {
+            // 串流訊息數量不受限制，不寫入本地暫存
+            throw new MqNotConnectedException("MQ is not available; streamed messages are not spooled.");
+        }
+        this.checkConnection();
+        QueueTopology.QueueTarget target = route(resolved, null);
+        IngestResult result = target.jmsTemplate()
+                .execute(session -> doSendStream(session, target, messages), true);
+        log.info("串流發送結束，已 commit {} 筆 ({} 次)，回滾 {} 筆{}", result.getSent(), result.getCommits(),
+                result.getFailed(), result.isAborted() ? "，已中止: " + result.getAbortReason() : "");
+        return result;
+    }
+
+    /**
+     * 在同一個 Session 中逐筆發送訊息並定期 commit，失敗時回滾尚未 commit 的部分
+     *
+     * @param session  JmsTemplate 提供的交易 Session
+     * @param target   發送目標
+     * @param messages 要發送的訊息
+     * @return 串流發送結果
+     * @throws JMSException 建立 Producer 失敗時拋出
+     */
+    private IngestResult doSendStream(Session session, QueueTopology.QueueTarget target,
+            Iterator<CustomMessage> messages) throws JMSException {
+        MqConfig.Ingest config = mqConfig.getIngest();
+        int commitInterval = Math.max(1, config.getCommitInterval());
+        long commitIntervalNanos = TimeUnit.MILLISECONDS.toNanos(config.getCommitIntervalMillis());
+        MessageConverter converter = target.jmsTemplate().getMessageConverter();
+        IngestResult result = new IngestResult();
+        MessageProducer producer = createProducer(session, target);
+        int pending = 0;
+        long pendingSinceNanos = 0;
+        Timer.Sample sample = null;
+        try {
+            while (messages.hasNext()) {
+                CustomMessage message = messages.next();
+                if (pending == 0) {
+                    sample = messagingMetrics.start();
+                    pendingSinceNanos = System.nanoTime();
+                }
+                producer.send(converter.toMessage(message, session));
+                pending++;
+                // 時間期限只在送出後檢查；hasNext() 等待上傳時不會 commit，Session 不可交給其他執行緒
+                if (pending >= commitInterval || System.nanoTime() - pendingSinceNanos >= commitIntervalNanos) {
+                    commitStream(session, sample, pending, result);
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                commitStream(session, sample, pending, result);
+                pending = 0;
+            }
+        } catch (JMSException | RuntimeException e) {
+            JmsUtils.rollbackIfNecessary(session);
+            messagingMetrics.recordRollback("send.stream");
+            if (pending > 0) {
+                messagingMetrics.recordSend(sample, MessagingMetrics.TYPE_BATCH, pending, false);
+            }
+            if (e instanceof JMSException || e instanceof JmsException) {
+                log.error("串流發送失敗，回滾尚未 commit 的 {} 筆訊息", pending, e);
+                messagingMetrics.recordError(MessagingMetrics.OPERATION_SEND, MessagingMetrics.TYPE_BATCH, e);
+            }
+            Throwable cause = e instanceof JMSException jmsException ? JmsUtils.convertJmsAccessException(jmsException)
+                    : e;
+            result.setFailed(pending);
+            result.setAborted(true);
+            result.setAbortCause(cause);
+            result.setAbortReason(cause.getMessage());
+        } finally {
+            JmsUtils.closeMessageProducer(producer);
+        }
+        return result;
+    }
+
+    /**
+     * 在斷路器保護下 commit 串流中累積的訊息，失敗時由呼叫端回滾
+     */
+    private void commitStream(Session session, Timer.Sample sample, int count, IngestResult result) {
+        sendCircuitBreaker.execute(() -> {
+            try {
+                JmsUtils.commitIfNecessary(session);
+            } catch (JMSException e) {
+                throw JmsUtils.convertJmsAccessException(e);
+            }
+            return null;
+        });
+        messagingMetrics.recordSend(sample, MessagingMetrics.TYPE_BATCH, count, true);
+        result.setSent(result.getSent() + count);
+        result.setCommits(result.getCommits() + 1);
+    }
+
+    /**
+     * 取得發送目標，預設隊列使用注入的 JmsTemplate，其他隊列由 QueueTopology 提供
+     *
+     * @param queue 隊列名稱，null、空白或預設隊列名稱表示預設隊列
+     * @return 發送目標
+     * @throws UnknownQueueException 隊列未設定時拋出
+     */
+    private QueueTopology.QueueTarget resolve(String queue) {
+        return queue == null || queue.isEmpty() || queue.equals(mqConfig.getQueueName())
+                ? QueueTopology.QueueTarget.of(mqConfig.getQueueName(), jmsTemplate)
+                : queueTopology.resolve(queue);
+    }
+
+    /**
+     * 啟用分流時改用 ShardRouter 選出的 Queue Manager 的連接池，QoS 設定不變
+     * 需在確認不寫入本地暫存之後呼叫，所有節點都中斷時的發送應先由 outbox 暫存
+     *
+     * @param target 發送目標
+     * @param key    分流使用的訊息鍵，null 時以加權輪詢分配
+     * @return 未啟用分流時為原發送目標，否則為選出節點上的發送目標
+     * @throws MqNotConnectedException 啟用分流且所有 Queue Manager 都無法連接時拋出
+     */
+    private QueueTopology.QueueTarget route(QueueTopology.QueueTarget target, String key) {
+        if (!shardRouter.isEnabled()) {
+            return target;
+        }
+        JmsTemplate template = shardRouter.route(key).templateFor(target.jmsTemplate());
+        return new QueueTopology.QueueTarget(target.name(), target.destination(), template, target.handlers());
+    }
+
+    /**
+     * 在斷路器保護下計時同步發送
+     */
+    private <T> T timeSend(String type, int count, Supplier<T> send) {
+        return sendCircuitBreaker.execute(() -> messagingMetrics.timeSend(type, count, send));
+    }
+
+    private void timeSend(String type, int count, Runnable send) {
+        timeSend(type, count, () -> {
+            send.run();
+            return null;
+        });
+    }
+
+    /**
+     * 在斷路器保護下計時非同步發送
+     */
+    private <T> CompletableFuture<T> timeSendAsync(String type, Supplier<CompletableFuture<T>> send) {
+        return sendCircuitBreaker.executeAsync(() -> messagingMetrics.timeSendAsync(type, send));
+    }
+
+    /**
+     * 非同步發送使用的通道：未啟用分流時使用 ibm.mq 的連接，啟用時使用 ShardRouter 選出節點專屬的通道，
+     * 兩者都不等待 MQ 確認，維持非同步發送的背壓行為
+     * 需在確認不寫入本地暫存之後呼叫
+     *
+     * @param key 分流使用的訊息鍵，null 時以加權輪詢分配
+     * @return 非同步發送通道
+     * @throws MqNotConnectedException 啟用分流且所有 Queue Manager 都無法連接時拋出
+     */
+    private AsyncProducerPool asyncPool(String key) {
+        return shardRouter.isEnabled() ? shardRouter.route(key).getAsyncProducerPool() : asyncProducerPool;
+    }
+
+    /**
+     * 在同一個 Session 中逐筆發送訊息並統一 commit 或 rollback
+     *
+     * @param session  JmsTemplate 提供的交易 Session
+     * @param target   發送目標
+     * @param messages 要發送的訊息清單
+     * @return 批次發送結果
+     * @throws JMSException 建立 Producer 或 commit 失敗時拋出
+     */
+    private BatchSendResult doSendBatch(Session session, QueueTopology.QueueTarget target,
+            List<CustomMessage> messages) throws JMSException {
+        BatchSendResult result = new BatchSendResult();
+        MessageProducer producer = createProducer(session, target);
+        try {
+            boolean failed = false;
+            for (CustomMessage message : messages) {
+                if (failed) {
+                    result.addResult(message.getId(), false, "批次中已有訊息發送失敗，未發送");
+                    continue;
+                }
+                try {
+                    producer.send(target.jmsTemplate().getMessageConverter().toMessage(message, session));
+                    result.addResult(message.getId(), true, null);
+                } catch (JMSException | MessageConversionException e) {
+                    log.error("批次發送訊息失敗，整批將回滾: {}", message.getId(), e);
+                    messagingMetrics.recordError(MessagingMetrics.OPERATION_SEND, MessagingMetrics.TYPE_BATCH, e);
+                    failed = true;
+                    result.addResult(message.getId(), false, e.getMessage());
+                }
+            }
+
+            if (failed) {
+                JmsUtils.rollbackIfNecessary(session);
+                messagingMetrics.recordRollback("send.batch");
+                // 已送出的訊息隨交易回滾，一併標記為失敗
+                result.getResults().stream().filter(BatchSendResult.ItemResult::isSuccess).forEach(item -> {
+                    item.setSuccess(false);
+                    item.setError("批次已回滾");
+                });
+            } else {
+                JmsUtils.commitIfNecessary(session);
+                result.setCommitted(true);
+            }
+            return result;
+        } finally {
+            JmsUtils.closeMessageProducer(producer);
+        }
+    }
+
+    /**
+     * 將二進制數據切分為多個 BytesMessage 發送，每段送出後立即 commit
+     *
+     * @param target      發送目標
+     * @param content     寫入分段內容的動作
+     * @param totalLength 原始數據總長度，未知時為 -1
+     * @return 發送的位元組數
+     */
+    private long sendChunked(QueueTopology.QueueTarget target, ChunkedContent content, long totalLength) {
+        int chunkSize = mqConfig.getChunking().getChunkSizeBytes();
+        long written = target.jmsTemplate().execute(session -> {
+            MessageProducer producer = createProducer(session, target);
+            ChunkedBytesWriter writer = new ChunkedBytesWriter(session, producer, chunkSize, totalLength);
+            try {
+                content.writeTo(writer);
+                long total = writer.finish();
+                log.info("二進制數據已分段發送到隊列 {}: {} bytes，共 {} 段", target.destination(), total,
+                        writer.getChunkCount());
+                return total;
+            } catch (JMSException | RuntimeException e) {
+                JmsUtils.rollbackIfNecessary(session);
+                messagingMetrics.recordRollback("send.chunk");
+                abort(writer, target);
+                throw e;
+            } finally {
+                JmsUtils.closeMessageProducer(producer);
+            }
+        }, true);
+        log.debug("二進制數據已成功發送，將在 {} ms 後過期", target.jmsTemplate().getTimeToLive());
+        return written;
+    }
+
+    /**
+     * 分段發送失敗時通知接收端捨棄已 commit 的分段，中止訊息也無法送出時由接收端逾時丟棄
+     */
+    private void abort(ChunkedBytesWriter writer, QueueTopology.QueueTarget target) {
+        try {
+            if (writer.abort()) {
+                log.warn("分段發送失敗，已通知隊列 {} 的接收端捨棄分段群組 {}", target.destination(),
+                        writer.getGroupId());
+            }
+        } catch (JMSException | RuntimeException e) {
+            log.warn("無法送出分段群組 {} 的中止訊息，接收端將在逾時後丟棄: {}", writer.getGroupId(), e.getMessage());
+        }
+    }
+
+    /**
+     * 超過分段大小的內容不寫入本地暫存：重送以單一訊息發送，會超過 MQ 的訊息大小上限而永遠無法送達
+     *
+     * @throws MqNotConnectedException 目前的發送會寫入本地暫存時拋出
+     */
+    private void rejectIfSpooling() {
+        if (outboxService.isSpooling()) {
+            throw new MqNotConnectedException(
+                    "MQ is not available; payloads larger than the chunk size are not spooled.");
+        }
+    }
+
+    private boolean requiresChunking(int length) {
+        MqConfig.Chunking chunking = mqConfig.getChunking();
+        return chunking.isEnabled() && length > chunking.getChunkSizeBytes();
+    }
+
+    /**
+     * 建立發送到目標隊列的 Producer，沿用目標 JmsTemplate 的 QoS 設定 (過期時間、傳遞模式、優先級)
+     *
+     * @param session JmsTemplate 提供的 Session
+     * @param target  發送目標
+     * @return 已設定 QoS 的 Producer
+     * @throws JMSException 建立 Producer 失敗時拋出
+     */
+    private MessageProducer createProducer(Session session, QueueTopology.QueueTarget target) throws JMSException {
+        JmsTemplate template = target.jmsTemplate();
+        Destination destination = template.getDestinationResolver()
+                .resolveDestinationName(session, target.destination(), template.isPubSubDomain());
+        MessageProducer producer = session.createProducer(destination);
+        try {
+            producer.setDeliveryMode(template.getDeliveryMode());
+            producer.setPriority(template.getPriority());
+            producer.setTimeToLive(template.getTimeToLive());
+        } catch (JMSException e) {
+            JmsUtils.closeMessageProducer(producer);
+            throw e;
+        }
+        return producer;
+    }
+
+    /**
+     * 以執行緒共用的緩衝區分段讀取輸入串流，超過 maxBytes 時立即停止
+     *
+     * @param in       輸入串流
+     * @param maxBytes 允許的最大位元組數
+     * @param sink     接收每段讀取內容的目標
+     * @return 讀取的位元組數
+     * @throws JMSException 寫入訊息失敗時拋出
+     */
+    private static long copy(InputStream in, long maxBytes, ChunkSink sink) throws JMSException {
+        byte[] buffer = STREAM_BUFFER.get();
+        long total = 0;
+        try {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                total += read;
+                if (total > maxBytes) {
+                    throw new PayloadTooLargeException("Payload exceeds the limit of " + maxBytes + " bytes.");
+                }
+                sink.accept(buffer, read);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("讀取二進制數據失敗", e);
+        }
+        return total;
+    }
+
+    private static byte[] readBounded(InputStream in, long maxBytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            copy(in, maxBytes, (buffer, length) -> out.write(buffer, 0, length));
+        } catch (JMSException e) {
+            // ByteArrayOutputStream 不會拋出 JMSException
+            throw new IllegalStateException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 接收串流複製的每段內容
+     */
+    @FunctionalInterface
+    private interface ChunkSink {
+        void accept(byte[] buffer, int length) throws JMSException;
+    }
+
+    /**
+     * 將內容寫入分段發送的 writer
+     */
+    @FunctionalInterface
+    private interface ChunkedContent {
+        void writeTo(ChunkedBytesWriter writer) throws JMSException;
+    }
+
+    /**
+     * 在 MQ 未連接或仍有待重送訊息時寫入本地暫存
+     *
+     * @param target   發送目標
+     * @param type     訊息類型，用於指標
+     * @param payloads 要發送的內容
+     * @return 已寫入暫存時為 true，未啟用 outbox 或可直接發送時為 false
+     * @throws MqNotConnectedException 暫存已滿時拋出
+     */
+    private boolean spool(QueueTopology.QueueTarget target, String type, List<?> payloads) {
+        try {
+            if (outboxService.spoolIfNeeded(target.name(), payloads)) {
+                messagingMetrics.recordSpooled(type, payloads.size());
+                return true;
+            }
+            return false;
+        } catch (OutboxFullException e) {
+            throw new MqNotConnectedException("MQ is not available and the outbox is full.", e);
+        }
     }
 
     /**
@@ -74,7 +786,8 @@ public class MessageSender {
      * @throws MqNotConnectedException if MQ is not connected
      */
     private void checkConnection() {
-        if (!mqConnectionService.isConnected()) {
+        // 啟用分流時由各節點的健康狀態判斷，所有節點都中斷時 ShardRouter 拋出 MqNotConnectedException
+        if (!shardRouter.isEnabled() && !mqConnectionService.isConnected()) {
             throw new MqNotConnectedException("MQ is not connected.");
         }
     }
@@ -0,0 +1,190 @@
+package com.vance.jms.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * 訊息收發指標
+ * 記錄各訊息類型的發送耗時、監聽器處理耗時、收發訊息數、錯誤及 rollback 次數，
+ * 耗時以直方圖發布，可在 /actuator/prometheus 計算百分位數；每秒訊息數由 jms.messages 的增量計算
+ */
+@Service
+public class MessagingMetrics {
+
+    public static final String TYPE_OBJECT = "object";
+    public static final String TYPE_TEXT = "text";
+    public static final String TYPE_BYTES = "bytes";
+    public static final String TYPE_STREAM = "stream";
+    public static final String TYPE_BATCH = "batch";
+    public static final String TYPE_OTHER = "other";
+
+    public static final String OPERATION_SEND = "send";
+    public static final String OPERATION_RECEIVE = "receive";
+
+    private final MeterRegistry meterRegistry;
+    private final Meter.MeterProvider<Timer> sendTimers;
+    private final Meter.MeterProvider<Timer> receiveTimers;
+    private final Meter.MeterProvider<Counter> messageCounters;
+    private final Meter.MeterProvider<Counter> spooledCounters;
+    private final Meter.MeterProvider<Counter> errorCounters;
+    private final Meter.MeterProvider<Counter> rollbackCounters;
+
+    public MessagingMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.sendTimers = Timer.builder("jms.send").publishPercentileHistogram()
+                .description("發送訊息到 MQ 的耗時").withRegistry(meterRegistry);
+        this.receiveTimers = Timer.builder("jms.receive").publishPercentileHistogram()
+                .description("監聽器處理單筆訊息的耗時").withRegistry(meterRegistry);
+        this.messageCounters = Counter.builder("jms.messages")
+                .description("成功發送或處理的訊息數").withRegistry(meterRegistry);
+        this.spooledCounters = Counter.builder("jms.messages.spooled")
+                .description("MQ 不可用時寫入本地暫存的訊息數").withRegistry(meterRegistry);
+        this.errorCounters = Counter.builder("jms.errors")
+                .description("發送或處理訊息失敗的次數").withRegistry(meterRegistry);
+        this.rollbackCounters = Counter.builder("jms.rollbacks")
+                .description("交易 rollback 的次數").withRegistry(meterRegistry);
+    }
+
+    /**
+     * 開始計時
+     *
+     * @return 計時樣本，完成後交給 recordSend 或 recordReceive
+     */
+    public Timer.Sample start() {
+        return Timer.start(meterRegistry);
+    }
+
+    /**
+     * 計時同步發送，發送失敗時記錄錯誤並拋出原異常
+     *
+     * @param type  訊息類型
+     * @param count 此次發送的訊息數
+     * @param send  發送動作
+     * @return 發送動作的返回值
+     */
+    public <T> T timeSend(String type, int count, Supplier<T> send) {
+        Timer.Sample sample = start();
+        try {
+            T result = send.get();
+            recordSend(sample, type, count, true);
+            return result;
+        } catch (RuntimeException e) {
+            recordSend(sample, type, count, false);
+            recordError(OPERATION_SEND, type, e);
+            throw e;
+        }
+    }
+
+    /**
+     * 計時沒有返回值的同步發送
+     *
+     * @param type  訊息類型
+     * @param count 此次發送的訊息數
+     * @param send  發送動作
+     */
+    public void timeSend(String type, int count, Runnable send) {
+        timeSend(type, count, () -> {
+            send.run();
+            return null;
+        });
+    }
+
+    /**
+     * 計時非同步發送，在 MQ 確認寫入或失敗時記錄
+     *
+     * @param type 訊息類型
+     * @param send 發送動作
+     * @return 發送動作返回的原 Future
+     */
+    public <T> CompletableFuture<T> timeSendAsync(String type, Supplier<CompletableFuture<T>> send) {
+        Timer.Sample sample = start();
+        CompletableFuture<T> future;
+        try {
+            future = send.get();
+        } catch (RuntimeException e) {
+            recordSend(sample, type, 1, false);
+            recordError(OPERATION_SEND, type, e);
+            throw e;
+        }
+        future.whenComplete((result, error) -> {
+            recordSend(sample, type, 1, error == null);
+            if (error != null) {
+                recordError(OPERATION_SEND, type, error);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * 記錄一次發送的耗時及結果
+     *
+     * @param sample  開始發送時取得的計時樣本
+     * @param type    訊息類型
+     * @param count   此次發送的訊息數，成功時計入 jms.messages
+     * @param success 是否成功
+     */
+    public void recordSend(Timer.Sample sample, String type, int count, boolean success) {
+        sample.stop(sendTimers.withTags("type", type, "outcome", outcome(success)));
+        if (success) {
+            messageCounters.withTags("direction", "out", "type", type).increment(count);
+        }
+    }
+
+    /**
+     * 記錄監聽器處理一筆訊息的耗時及結果
+     *
+     * @param sample  開始處理時取得的計時樣本
+     * @param type    訊息類型
+     * @param success 是否成功
+     */
+    public void recordReceive(Timer.Sample sample, String type, boolean success) {
+        sample.stop(receiveTimers.withTags("type", type, "outcome", outcome(success)));
+        if (success) {
+            messageCounters.withTags("direction", "in", "type", type).increment();
+        }
+    }
+
+    /**
+     * 記錄寫入本地暫存的訊息
+     *
+     * @param type  訊息類型
+     * @param count 訊息數
+     */
+    public void recordSpooled(String type, int count) {
+        spooledCounters.withTags("type", type).increment(count);
+    }
+
+    /**
+     * 記錄一次失敗
+     *
+     * @param operation 發生失敗的操作 (send 或 receive)
+     * @param type      訊息類型
+     * @param error     失敗原因
+     */
+    public void recordError(String operation, String type, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        errorCounters.withTags("operation", operation, "type", type, "exception", cause.getClass().getSimpleName())
+                .increment();
+    }
+
+    /**
+     * 記錄一次交易 rollback
+     *
+     * @param operation 發生 rollback 的操作，例如 send.batch、send.chunk 或 receive.batch
+     */
+    public void recordRollback(String operation) {
+        rollbackCounters.withTags("operation", operation).increment();
+    }
+
+    private static String outcome(boolean success) {
+        return success ? "success" : "failure";
+    }
+}
@@ -2,11 +2,19 @@ package com.vance.jms.service;
 
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
@@ -14,124 +22,154 @@ import com.vance.jms.config.MqConfig;
 import com.vance.jms.event.ConnectionPausedEvent;
 import com.vance.jms.event.ConnectionResumedEvent;
 
+import jakarta.annotation.PreDestroy;
 import jakarta.jms.Connection;
 import jakarta.jms.ConnectionFactory;
 import jakarta.jms.JMSException;
-import lombok.Getter;
+import jakarta.jms.Session;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * 負責管理 MQ 連接狀態和處理重新連接邏輯的服務
+ * 連接狀態為 CONNECTED、RECONNECTING、PAUSED 三態的狀態機，以 AtomicReference 保存，
+ * isConnected() 及狀態查詢不需取得鎖，不會被進行中的重新連接阻塞。
+ * 同一時間只允許一個重新連接嘗試；自動重試在專屬的 mq-reconnect 執行緒上以 decorrelated jitter 指數退避排程
+ * (下一次延遲為 reconnectInitialDelayMillis 到上一次延遲 3 倍之間的隨機值，上限 reconnectIntervalSeconds)，
+ * 避免多個實例在 Queue Manager 恢復時同時重新連接；暫停時間同樣加入隨機偏移。
  */
 @Slf4j
 @Service
 public class MqConnectionService {
 
+    /**
+     * 連接狀態
+     */
+    public enum ConnectionState {
+        CONNECTED,
+        RECONNECTING,
+        PAUSED
+    }
+
     private final MqConfig mqConfig;
     // 實際的 IBM MQ ConnectionFactory
     private final ConnectionFactory connectionFactory;
     // 事件發布者
     private final ApplicationEventPublisher eventPublisher;
 
-    @Getter
-    private AtomicBoolean connected = new AtomicBoolean(false);
-    private AtomicInteger currentReconnectAttempts = new AtomicInteger(0);
-    private LocalDateTime pausedUntil = null;
-    // 追蹤連接是否從暫停狀態恢復
-    private boolean wasPaused = false;
-
-    public MqConnectionService(MqConfig mqConfig, ConnectionFactory connectionFactory,
+    private final AtomicReference<ConnectionState> state = new AtomicReference<>(ConnectionState.RECONNECTING);
+    private final AtomicInteger currentReconnectAttempts = new AtomicInteger(0);
+    // 是否有重新連接嘗試正在進行，同一時間只允許一個
+    private final AtomicBoolean attemptInProgress = new AtomicBoolean(false);
+    // 是否已排程下一次自動重試，避免重複排程
+    private final AtomicBoolean retryScheduled = new AtomicBoolean(false);
+    private volatile LocalDateTime pausedUntil;
+    // 上一次退避延遲 (毫秒)，0 表示尚未開始退避
+    private volatile long backoffMillis;
+    private final ScheduledExecutorService reconnectExecutor;
+    // 長期保持的監控連接，透過 ExceptionListener 即時得知連接中斷
+    private volatile Connection monitorConnection;
+    // 累計的重新連接嘗試及失敗次數，不隨成功連接或暫停重置，供指標使用
+    private final AtomicLong totalReconnectAttempts = new AtomicLong();
+    private final AtomicLong totalReconnectFailures = new AtomicLong();
+    // 已結束的暫停累計時間，以及目前暫停的開始時間 (未暫停時為 0)
+    private final AtomicLong totalPausedNanos = new AtomicLong();
+    private final AtomicLong pauseStartedNanos = new AtomicLong();
+
+    public MqConnectionService(MqConfig mqConfig, @Qualifier("mqConnectionFactory") ConnectionFactory connectionFactory,
             ApplicationEventPublisher eventPublisher) {
         this.mqConfig = mqConfig;
         this.connectionFactory = connectionFactory;
         this.eventPublisher = eventPublisher; // 注入的事件發布者
-        // 初始連接嘗試
-        log.info("MqConnectionService 已初始化。嘗試初始連接...");
-
-        // 嘗試建立初始連接
-        try (Connection connection = connectionFactory.createConnection()) {
-            connection.start(); // 顯式啟動以確保連接性
-            log.info("成功建立初始 MQ 連接。");
-            connected.set(true);
-
-            // 發布初始連接成功事件
-            log.info("發布初始連接成功事件");
-            eventPublisher.publishEvent(new ConnectionResumedEvent(this, false));
-
-            // 等待一段時間，確保事件被處理
-            try {
-                Thread.sleep(TimeUnit.SECONDS.toMillis(10));
-            } catch (InterruptedException ie) {
-                Thread.currentThread().interrupt();
-            }
-        } catch (JMSException e) {
-            connected.set(false);
-            currentReconnectAttempts.incrementAndGet();
-            log.error("無法建立初始 MQ 連接。錯誤: {} - {}", e.getClass().getName(), e.getMessage());
+        this.reconnectExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "mq-reconnect");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 初始連接在應用程式啟動完成後於背景進行，不阻塞 Spring context 建立
+        log.info("MqConnectionService 已初始化，應用程式啟動完成後建立 MQ 連接。");
+    }
 
-            // 初始連接失敗，啟動重連機制
-            checkAndEstablishConnection();
-        }
+    /**
+     * 應用程式啟動完成後在 mq-reconnect 執行緒上建立初始連接
+     * 連接成功時發布 ConnectionResumedEvent，由 JmsLifecycleManagerService 啟動監聽器；
+     * MQ 無法連接時依退避延遲持續重試，應用程式照常啟動並接受請求
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void connectOnStartup() {
+        log.info("應用程式啟動完成，開始建立初始 MQ 連接...");
+        scheduleRetry(0);
     }
 
     /**
      * 檢查當前連接狀態，並在未連接時嘗試建立連接。
-     * 此方法可以手動調用或由排程器調用。
+     * 此方法可以手動調用或由重試排程調用；已有其他嘗試進行中時立即返回，不會等待。
      */
-    public synchronized void checkAndEstablishConnection() {
-        if (connected.get()) {
+    public void checkAndEstablishConnection() {
+        if (isConnected()) {
             log.info("MQ 連接已經處於活動狀態。");
             return;
         }
+        if (!attemptInProgress.compareAndSet(false, true)) {
+            log.info("已有 MQ 重新連接嘗試進行中，略過此次請求。");
+            return;
+        }
+        try {
+            attemptConnection();
+        } finally {
+            attemptInProgress.set(false);
+        }
+    }
 
+    /**
+     * 執行一次連接嘗試，只由取得 attemptInProgress 的執行緒呼叫
+     */
+    private void attemptConnection() {
         log.info("嘗試建立 MQ 連接...");
 
-        if (pausedUntil != null && LocalDateTime.now().isBefore(pausedUntil)) {
-            log.warn("MQ 重新連接已暫停。將在 {} 之後重試。當前時間: {}", pausedUntil,
-                    LocalDateTime.now());
-            return;
-        } else if (pausedUntil != null && LocalDateTime.now().isAfter(pausedUntil)) {
+        // 追蹤連接是否從暫停狀態恢復
+        boolean wasPaused = false;
+        if (state.get() == ConnectionState.PAUSED) {
+            LocalDateTime until = pausedUntil;
+            if (until != null && LocalDateTime.now().isBefore(until)) {
+                log.warn("MQ 重新連接已暫停。將在 {} 之後重試。當前時間: {}", until, LocalDateTime.now());
+                return;
+            }
             log.info("MQ 重新連接暫停已結束。恢復連接嘗試。");
-            wasPaused = true; // 標記我們正在從暫停狀態恢復
-            pausedUntil = null; // 重置暫停
+            wasPaused = true;
+            endPause();
             currentReconnectAttempts.set(0); // 暫停後重置嘗試次數
+            backoffMillis = 0;
+            state.compareAndSet(ConnectionState.PAUSED, ConnectionState.RECONNECTING);
         }
 
         if (currentReconnectAttempts.get() >= mqConfig.getMaxReconnectAttempts()) {
-            log.warn("已達到最大重新連接嘗試次數 ({})。暫停重新連接 {} 分鐘。",
-                    mqConfig.getMaxReconnectAttempts(), mqConfig.getReconnectPauseMinutes());
-            pausedUntil = LocalDateTime.now().plus(mqConfig.getReconnectPauseMinutes(), ChronoUnit.MINUTES);
-            eventPublisher.publishEvent(new ConnectionPausedEvent(this, pausedUntil)); // 發布事件
+            pause();
             return;
         }
 
-        try (Connection connection = connectionFactory.createConnection()) {
-            connection.start(); // 顯式啟動以確保連接性
+        totalReconnectAttempts.incrementAndGet();
+        try {
+            openMonitorConnection();
             log.info("成功建立 MQ 連接。");
 
-            // 使用 compareAndSet 確保只有在連接狀態從 false 變為 true 時才發布事件
-            if (connected.compareAndSet(false, true)) {
+            // 只有狀態從未連接變為已連接時才發布事件
+            if (state.getAndSet(ConnectionState.CONNECTED) != ConnectionState.CONNECTED) {
                 // 檢查是否是從嘗試或暫停中恢復
                 boolean isRecovery = currentReconnectAttempts.get() > 0 || wasPaused;
 
                 currentReconnectAttempts.set(0); // 成功連接時重置嘗試次數
-                // 如果我們在暫停後到達這裡，pausedUntil 已經是 null
+                backoffMillis = 0;
 
                 // 無論是初始連接還是恢復連接，都發布 ConnectionResumedEvent 事件
                 // 這樣 JmsLifecycleManagerService 就能在應用程式啟動時正確啟動 JMS 監聽器
                 log.info("發布 ConnectionResumedEvent 事件，isRecovery={}", isRecovery);
                 eventPublisher.publishEvent(new ConnectionResumedEvent(this, isRecovery));
-
-                if (wasPaused) {
-                    wasPaused = false; // 重置 wasPaused 標誌
-                }
             } else {
-                log.info("連接狀態已經是 true，不需要發布事件。");
+                log.info("連接狀態已經是 CONNECTED，不需要發布事件。");
             }
-            // 不需要在這裡重置 pausedUntil，因為它在暫停結束或成功時已處理
         } catch (JMSException e) {
-            connected.set(false);
             currentReconnectAttempts.incrementAndGet();
+            totalReconnectFailures.incrementAndGet();
             log.error("無法建立 MQ 連接。嘗試 {}/{}。錯誤: {} - {}",
                     currentReconnectAttempts.get(), mqConfig.getMaxReconnectAttempts(), e.getClass().getName(),
                     e.getMessage());
@@ -139,77 +177,232 @@ public class MqConnectionService {
     }
 
     /**
-     * 定期檢查並在連接中斷時嘗試重新連接的排程任務。
-     * 固定延遲由 MqConfig.reconnectIntervalSeconds 控制。
+     * 達到最大重新連接嘗試次數，暫停重新連接
+     * 暫停時間在 reconnectPauseMinutes 的一半到全部之間隨機選取，避免多個實例同時結束暫停
+     */
+    private void pause() {
+        long pauseMillis = TimeUnit.MINUTES.toMillis(mqConfig.getReconnectPauseMinutes());
+        pauseMillis -= (long) (pauseMillis / 2 * ThreadLocalRandom.current().nextDouble());
+        LocalDateTime until = LocalDateTime.now().plus(pauseMillis, ChronoUnit.MILLIS);
+        log.warn("已達到最大重新連接嘗試次數 ({})。暫停重新連接至 {}。",
+                mqConfig.getMaxReconnectAttempts(), until);
+        pausedUntil = until;
+        pauseStartedNanos.set(System.nanoTime());
+        state.set(ConnectionState.PAUSED);
+        eventPublisher.publishEvent(new ConnectionPausedEvent(this, until)); // 發布事件
+    }
+
+    /**
+     * 計算下一次自動重試的延遲 (decorrelated jitter)
+     * 延遲為初始延遲到上一次延遲 3 倍之間的隨機值，並以 reconnectIntervalSeconds 為上限
+     *
+     * @return 延遲毫秒數
+     */
+    long nextBackoffMillis() {
+        long base = Math.max(1, mqConfig.getReconnectInitialDelayMillis());
+        long cap = Math.max(base, TimeUnit.SECONDS.toMillis(mqConfig.getReconnectIntervalSeconds()));
+        long upper = Math.max(base, Math.min(cap, backoffMillis * 3));
+        long delay = upper > base ? ThreadLocalRandom.current().nextLong(base, upper + 1) : base;
+        backoffMillis = delay;
+        return delay;
+    }
+
+    /**
+     * 排程自動重試，已有待執行的重試時不重複排程
+     *
+     * @param delayMillis 延遲毫秒數
+     */
+    private void scheduleRetry(long delayMillis) {
+        if (reconnectExecutor.isShutdown() || !retryScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        log.info("將在 {} 毫秒後嘗試重新連接 MQ。", delayMillis);
+        reconnectExecutor.schedule(this::retry, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 自動重試：嘗試連接，仍未連接時依退避延遲或暫停剩餘時間排程下一次
      */
-    @Scheduled(fixedDelayString = "#{@mqConfig.reconnectIntervalSeconds * 1000}")
-    public void scheduledReconnectTask() {
-        // 如果連接已中斷，嘗試重新連接
-        if (!connected.get()) {
-            log.info("排程任務運行中: MQ 連接已中斷。嘗試重新連接...");
+    private void retry() {
+        retryScheduled.set(false);
+        try {
             checkAndEstablishConnection();
+        } catch (RuntimeException e) {
+            log.error("MQ 重新連接嘗試發生非預期錯誤: {}", e.getMessage(), e);
+        }
+        ConnectionState current = state.get();
+        if (current == ConnectionState.PAUSED) {
+            LocalDateTime until = pausedUntil;
+            long remaining = until != null ? ChronoUnit.MILLIS.between(LocalDateTime.now(), until) : 0;
+            scheduleRetry(Math.max(0, remaining));
+        } else if (current == ConnectionState.RECONNECTING) {
+            scheduleRetry(nextBackoffMillis());
         }
     }
 
     /**
      * 定期檢查 MQ 連接狀態的排程任務。
-     * 固定延遲為 10 秒，比重連間隔更頻繁，以便更快地檢測到連接中斷。
+     * 連接中斷主要由監控連接的 ExceptionListener 即時偵測，此排程僅作為低頻率的備援檢查，
+     * 固定延遲由 MqConfig.statusCheckIntervalSeconds 控制。
+     * 檢查發現中斷時在 mq-reconnect 執行緒上重新連接，此排程及呼叫端都不會等待重新連接。
      */
-    @Scheduled(fixedDelay = 10000) // 每 10 秒檢查一次
+    @Scheduled(fixedDelayString = "#{@mqConfig.statusCheckIntervalSeconds * 1000}")
     public void scheduledConnectionStatusCheck() {
         log.info("定期連接狀態檢查任務運行中...");
-
-        // 檢查連接狀態
-        boolean wasConnected = connected.get();
         checkConnectionStatus();
-
-        // 如果檢查後發現連接已中斷，立即嘗試重連
-        if (wasConnected && !connected.get()) {
-            log.error("檢測到連接中斷，立即嘗試重連...");
-            checkAndEstablishConnection();
+        if (!isConnected()) {
+            // 自動重試的排程鏈若因故中斷，由此處補上
+            scheduleRetry(0);
         }
     }
 
     /**
      * 檢查 MQ 連接的實際狀態
-     * 此方法會嘗試建立一個測試連接，以確認 MQ 伺服器是否可用
-     * 如果連接失敗，會將 connected 設置為 false
+     * 此方法會在長期保持的監控連接上建立並關閉一個 Session，以確認 MQ 伺服器是否可用，
+     * 不需要重新建立連接及握手
+     * 如果檢查失敗，會將狀態設置為 RECONNECTING 並排程重新連接
      */
     public void checkConnectionStatus() {
-        if (!connected.get()) {
+        if (!isConnected()) {
             // 如果已知連接中斷，不需要再次檢查
             return;
         }
 
         log.info("檢查 MQ 連接狀態...");
-        try (Connection connection = connectionFactory.createConnection()) {
-            // 嘗試啟動連接以確認連接性
-            connection.start();
+        Connection connection = monitorConnection;
+        if (connection == null) {
+            handleConnectionLost("監控連接不存在");
+            return;
+        }
+        try {
+            connection.createSession(false, Session.AUTO_ACKNOWLEDGE).close();
             // 如果成功，不需要做任何事情，連接狀態保持為 true
             log.info("MQ 連接狀態檢查成功，連接正常。");
         } catch (JMSException e) {
             // 連接失敗，將狀態設置為 false
             log.error("MQ 連接狀態檢查失敗，連接已中斷: {} - {}", e.getClass().getName(), e.getMessage());
+            handleConnectionLost(e.getMessage());
+        }
+    }
 
-            // 如果之前是連接狀態，現在檢測到中斷，則發布事件並記錄
-            if (connected.compareAndSet(true, false)) {
-                log.error("檢測到 MQ 連接中斷！觸發重連機制。");
-                // 重置重連嘗試次數，因為這是新的中斷
-                currentReconnectAttempts.set(0);
-                // 發布連接中斷事件，通知 JmsLifecycleManagerService 停止監聽器
-                eventPublisher.publishEvent(new ConnectionPausedEvent(this, null));
-            }
+    /**
+     * 立即檢查 MQ 連接，確認中斷時立即排程重連。
+     * 發送端斷路器開啟時呼叫，讓連接狀態與發送的健康狀況一致，不需等待下一次排程檢查。
+     */
+    public void verifyConnection() {
+        boolean wasConnected = isConnected();
+        checkConnectionStatus();
+        if (wasConnected && !isConnected()) {
+            log.error("發送端斷路器開啟後確認連接已中斷");
+        }
+    }
+
+    /**
+     * 監控連接的 ExceptionListener 回呼。
+     * MQ 客戶端偵測到連接中斷時會立即呼叫此方法，不需等待下一次排程檢查。
+     * 已被取代的舊監控連接 (例如關閉時才送達的異常) 不影響目前的連接，直接忽略。
+     *
+     * @param connection 收到異常的監控連接
+     * @param exception  連接異常
+     */
+    void onConnectionException(Connection connection, JMSException exception) {
+        if (connection != monitorConnection) {
+            log.debug("忽略已被取代的監控連接的異常: {}", exception.getMessage());
+            return;
+        }
+        log.error("監控連接收到 MQ 連接異常: {} - {}", exception.getClass().getName(), exception.getMessage());
+        handleConnectionLost(exception.getMessage());
+    }
+
+    /**
+     * 將連接標記為中斷、發布事件並立即排程重新連接
+     *
+     * @param reason 中斷原因
+     */
+    private void handleConnectionLost(String reason) {
+        closeMonitorConnection();
+
+        // 如果之前是連接狀態，現在檢測到中斷，則發布事件並記錄
+        if (state.compareAndSet(ConnectionState.CONNECTED, ConnectionState.RECONNECTING)) {
+            log.error("檢測到 MQ 連接中斷！觸發重連機制。原因: {}", reason);
+            // 重置重連嘗試次數及退避延遲，因為這是新的中斷
+            currentReconnectAttempts.set(0);
+            backoffMillis = 0;
+            // 發布連接中斷事件，通知 JmsLifecycleManagerService 停止監聽器
+            eventPublisher.publishEvent(new ConnectionPausedEvent(this, null));
+            scheduleRetry(0);
+        }
+    }
+
+    /**
+     * 結束重新連接的暫停，並累計此次暫停的時間
+     */
+    private void endPause() {
+        long startedNanos = pauseStartedNanos.getAndSet(0);
+        if (startedNanos != 0) {
+            totalPausedNanos.addAndGet(System.nanoTime() - startedNanos);
+        }
+        pausedUntil = null;
+    }
+
+    /**
+     * 建立長期保持的監控連接並註冊 ExceptionListener
+     * 成功後取代舊的監控連接
+     *
+     * @throws JMSException 無法建立連接時拋出
+     */
+    private void openMonitorConnection() throws JMSException {
+        Connection connection = connectionFactory.createConnection();
+        try {
+            connection.setExceptionListener(exception -> onConnectionException(connection, exception));
+            connection.start(); // 顯式啟動以確保連接性
+        } catch (JMSException e) {
+            closeQuietly(connection);
+            throw e;
+        }
+        Connection previous = monitorConnection;
+        monitorConnection = connection;
+        if (previous != null) {
+            closeQuietly(previous);
+        }
+    }
+
+    /**
+     * 停止自動重試並關閉監控連接
+     */
+    @PreDestroy
+    public void close() {
+        reconnectExecutor.shutdownNow();
+        closeMonitorConnection();
+    }
+
+    /**
+     * 關閉監控連接
+     */
+    public void closeMonitorConnection() {
+        Connection connection = monitorConnection;
+        monitorConnection = null;
+        if (connection != null) {
+            closeQuietly(connection);
+        }
+    }
+
+    private void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (JMSException e) {
+            log.debug("關閉 MQ 監控連接時發生錯誤: {}", e.getMessage());
         }
     }
 
     /**
      * 手動觸發重新連接嘗試。
-     * 可以通過 API 端點或其他管理介面調用。
+     * 可以通過 API 端點或其他管理介面調用；處於暫停期且暫停時間未結束時只重置嘗試次數，不立即連接。
      */
     public void triggerManualReconnect() {
-        log.info("手動觸發重置重新連接嘗試次數及暫停時間。");
-        pausedUntil = null;
+        log.info("手動觸發重置重新連接嘗試次數。");
         currentReconnectAttempts.set(0);
+        backoffMillis = 0;
         checkAndEstablishConnection();
     }
 
@@ -219,7 +412,16 @@ public class MqConnectionService {
      * @return 如果已連接則為 true，否則為 false。
      */
     public boolean isConnected() {
-        return connected.get();
+        return state.get() == ConnectionState.CONNECTED;
+    }
+
+    /**
+     * 獲取當前連接狀態機的狀態。
+     *
+     * @return CONNECTED、RECONNECTING 或 PAUSED。
+     */
+    public ConnectionState getState() {
+        return state.get();
     }
 
     /**
@@ -239,4 +441,33 @@ public class MqConnectionService {
     public LocalDateTime getPausedUntil() {
         return pausedUntil;
     }
+
+    /**
+     * 獲取啟動以來的重新連接嘗試總次數。
+     *
+     * @return 重新連接嘗試總次數。
+     */
+    public long getTotalReconnectAttempts() {
+        return totalReconnectAttempts.get();
+    }
+
+    /**
+     * 獲取啟動以來的重新連接失敗總次數。
+     *
+     * @return 重新連接失敗總次數。
+     */
+    public long getTotalReconnectFailures() {
+        return totalReconnectFailures.get();
+    }
+
+    /**
+     * 獲取啟動以來重新連接處於暫停狀態的累計時間，包含目前進行中的暫停。
+     *
+     * @return 累計暫停時間 (秒)。
+     */
+    public double getTotalPausedSeconds() {
+        long startedNanos = pauseStartedNanos.get();
+        long nanos = totalPausedNanos.get() + (startedNanos != 0 ? System.nanoTime() - startedNanos : 0);
+        return nanos / (double) TimeUnit.SECONDS.toNanos(1);
+    }
 }
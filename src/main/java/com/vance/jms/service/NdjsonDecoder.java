@@ -0,0 +1,85 @@
+package com.vance.jms.service;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import com.vance.jms.exception.PayloadTooLargeException;
+
+/**
+ * 換行分隔 JSON (NDJSON) 的增量解碼器
+ * 依序餵入任意切分的位元組區塊，每遇到換行即交出一行 (不含換行及行尾的 \r)，空白行略過。
+ * 只緩衝目前尚未結束的一行，記憶體用量與請求內容的總長度無關；單行超過上限時拋出 PayloadTooLargeException
+ */
+public class NdjsonDecoder {
+
+    private final int maxLineBytes;
+    private byte[] line = new byte[256];
+    private int length;
+
+    /**
+     * @param maxLineBytes 單行位元組上限
+     */
+    public NdjsonDecoder(int maxLineBytes) {
+        this.maxLineBytes = maxLineBytes;
+    }
+
+    /**
+     * 解碼一個位元組區塊，區塊中每一個完整的行交給 consumer
+     *
+     * @param buffer   位元組區塊
+     * @param offset   起始位置
+     * @param count    位元組數
+     * @param consumer 接收完整的行
+     * @throws PayloadTooLargeException 單行超過上限時拋出
+     */
+    public void feed(byte[] buffer, int offset, int count, Consumer<byte[]> consumer) {
+        int start = offset;
+        int end = offset + count;
+        for (int i = offset; i < end; i++) {
+            if (buffer[i] == '\n') {
+                append(buffer, start, i - start);
+                emit(consumer);
+                start = i + 1;
+            }
+        }
+        append(buffer, start, end - start);
+    }
+
+    /**
+     * 請求內容結束，最後一行沒有換行時仍交給 consumer
+     *
+     * @param consumer 接收完整的行
+     */
+    public void finish(Consumer<byte[]> consumer) {
+        emit(consumer);
+    }
+
+    private void append(byte[] buffer, int offset, int count) {
+        if (count == 0) {
+            return;
+        }
+        if (length + count > maxLineBytes) {
+            throw new PayloadTooLargeException("NDJSON line exceeds " + maxLineBytes + " bytes.");
+        }
+        if (length + count > line.length) {
+            line = Arrays.copyOf(line, Math.min(maxLineBytes, Math.max(line.length * 2, length + count)));
+        }
+        System.arraycopy(buffer, offset, line, length, count);
+        length += count;
+    }
+
+    private void emit(Consumer<byte[]> consumer) {
+        int end = length;
+        if (end > 0 && line[end - 1] == '\r') {
+            end--;
+        }
+        boolean blank = true;
+        for (int i = 0; i < end && blank; i++) {
+            blank = Character.isWhitespace(line[i]);
+        }
+        if (!blank) {
+            consumer.accept(Arrays.copyOf(line, end));
+        }
+        length = 0;
+    }
+}
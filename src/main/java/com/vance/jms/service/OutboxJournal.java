@@ -0,0 +1,531 @@
+package com.vance.jms.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32C;
+
+import com.vance.jms.config.MqConfig.Outbox.FsyncPolicy;
+import com.vance.jms.exception.OutboxFullException;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Outbox 本地暫存日誌
+ * 以多個固定大小、記憶體映射 (memory-mapped) 的日誌段檔案依序追加紀錄，只能從頭依序讀取及確認。
+ * 每筆紀錄格式為 [長度 int][CRC32C int][類型 byte][目的地長度 short][目的地][內容]，
+ * 長度為 0 代表日誌段結尾。讀取進度記錄在 checkpoint 檔案，已全部確認的日誌段會被刪除。
+ * 重新開啟時以 CRC 找出最後一筆完整的紀錄，寫到一半的紀錄會被捨棄。
+ */
+@Slf4j
+public class OutboxJournal implements Closeable {
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    // [長度 int][CRC32C int]
+    private static final int HEADER_BYTES = 8;
+    // [日誌段編號 long][位置 int][CRC32C int]
+    private static final int CHECKPOINT_BYTES = 16;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final FsyncPolicy fsyncPolicy;
+
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private Segment writeSegment;
+    private int writePosition;
+    private long readSegmentId;
+    private int readPosition;
+    private long pendingEntries;
+    private boolean dirty;
+    private boolean closed;
+
+    private FileChannel checkpointChannel;
+    private MappedByteBuffer checkpointBuffer;
+
+    /**
+     * 開啟 (或建立) 指定目錄下的日誌，並從 checkpoint 恢復讀取進度
+     *
+     * @param directory     日誌檔存放目錄
+     * @param segmentSize   單一日誌段檔案大小 (位元組)
+     * @param maxTotalBytes 所有日誌段合計的大小上限 (位元組)
+     * @param fsyncPolicy   同步到磁碟的策略
+     * @throws IOException 開啟或恢復日誌失敗時拋出
+     */
+    public OutboxJournal(Path directory, int segmentSize, long maxTotalBytes, FsyncPolicy fsyncPolicy)
+            throws IOException {
+        if (segmentSize <= HEADER_BYTES) {
+            throw new IllegalArgumentException("segmentSize 過小: " + segmentSize);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = (int) Math.max(1, Math.min(Integer.MAX_VALUE, maxTotalBytes / segmentSize));
+        this.fsyncPolicy = fsyncPolicy;
+        Files.createDirectories(directory);
+        openCheckpoint();
+        recover();
+    }
+
+    /**
+     * 依序追加多筆紀錄，整批寫入前先確認容量，容量不足時整批都不寫入
+     *
+     * @param entries 要追加的紀錄
+     * @throws OutboxFullException 日誌已達大小上限或單筆紀錄超過日誌段大小時拋出
+     */
+    public synchronized void append(List<Entry> entries) {
+        ensureOpen();
+        List<byte[]> records = new ArrayList<>(entries.size());
+        int position = writePosition;
+        int capacity = writeSegment.capacity();
+        int newSegments = 0;
+        for (Entry entry : entries) {
+            byte[] record = encode(entry);
+            if (record.length > segmentSize) {
+                throw new OutboxFullException("訊息大小 " + record.length + " bytes 超過日誌段大小 " + segmentSize);
+            }
+            if (position + record.length > capacity) {
+                newSegments++;
+                position = 0;
+                capacity = segmentSize;
+            }
+            position += record.length;
+            records.add(record);
+        }
+        if (segments.size() + newSegments > maxSegments) {
+            throw new OutboxFullException("Outbox 已達大小上限，待重送 " + pendingEntries + " 筆");
+        }
+
+        int flushFrom = writePosition;
+        for (byte[] record : records) {
+            if (writePosition + record.length > writeSegment.capacity()) {
+                rollSegment();
+                flushFrom = 0;
+            }
+            writeSegment.buffer.put(writePosition, record);
+            writePosition += record.length;
+            pendingEntries++;
+        }
+        if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+            writeSegment.buffer.force(flushFrom, writePosition - flushFrom);
+        } else {
+            dirty = true;
+        }
+    }
+
+    /**
+     * 在必要時追加紀錄，判斷與寫入在同一個鎖內完成，避免與重送的結束判斷交錯
+     *
+     * @param force   是否無論日誌是否為空都寫入 (例如 MQ 未連接)
+     * @param entries 要追加的紀錄
+     * @return 已寫入時為 true；force 為 false 且日誌為空時不寫入並返回 false
+     * @throws OutboxFullException 日誌已達大小上限時拋出
+     */
+    public synchronized boolean appendIfPending(boolean force, List<Entry> entries) {
+        if (!force && pendingEntries == 0) {
+            return false;
+        }
+        append(entries);
+        return true;
+    }
+
+    /**
+     * 讀取目前第一筆尚未確認的紀錄，不會移動讀取進度
+     *
+     * @return 第一筆尚未確認的紀錄，沒有時為 null
+     */
+    public synchronized Entry peek() {
+        ensureOpen();
+        while (true) {
+            Segment segment = segments.get(readSegmentId);
+            boolean active = segment == writeSegment;
+            int limit = active ? writePosition : segment.capacity();
+            int end = nextRecordEnd(segment.buffer, readPosition, limit);
+            if (end > 0) {
+                return decode(segment, readPosition, end);
+            }
+            if (active) {
+                return null;
+            }
+            if (readPosition + HEADER_BYTES <= limit && segment.buffer.getInt(readPosition) != 0) {
+                log.warn("Outbox 日誌段 {} 位置 {} 的紀錄已損毀，略過該日誌段其餘內容", segment.path, readPosition);
+            }
+            advanceReadSegment();
+        }
+    }
+
+    /**
+     * 確認第一筆紀錄已處理完成，讀取進度移到下一筆
+     *
+     * @param entry 由 peek 取得的紀錄
+     * @throws IllegalStateException 紀錄不是目前第一筆尚未確認的紀錄時拋出
+     */
+    public synchronized void acknowledge(Entry entry) {
+        ensureOpen();
+        if (entry.segmentId != readSegmentId || entry.position != readPosition) {
+            throw new IllegalStateException("只能確認目前第一筆尚未確認的紀錄");
+        }
+        readPosition = entry.nextPosition;
+        pendingEntries--;
+        writeCheckpoint();
+    }
+
+    /**
+     * 將尚未同步的寫入及讀取進度同步到磁碟
+     */
+    public synchronized void flush() {
+        if (closed || !dirty) {
+            return;
+        }
+        writeSegment.buffer.force();
+        checkpointBuffer.force();
+        dirty = false;
+    }
+
+    /**
+     * 是否沒有尚未確認的紀錄
+     *
+     * @return 沒有尚未確認的紀錄時為 true
+     */
+    public synchronized boolean isEmpty() {
+        return pendingEntries == 0;
+    }
+
+    /**
+     * 獲取尚未確認的紀錄數量
+     *
+     * @return 尚未確認的紀錄數量
+     */
+    public synchronized long getPendingEntries() {
+        return pendingEntries;
+    }
+
+    /**
+     * 獲取目前的日誌段數量
+     *
+     * @return 日誌段數量
+     */
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * 獲取日誌段數量上限
+     *
+     * @return 日誌段數量上限
+     */
+    public int getMaxSegments() {
+        return maxSegments;
+    }
+
+    /**
+     * 同步到磁碟並關閉所有檔案
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        dirty = true;
+        flush();
+        closed = true;
+        segments.values().forEach(Segment::close);
+        segments.clear();
+        closeQuietly(checkpointChannel);
+    }
+
+    private void recover() throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                try {
+                    long id = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                    segments.put(id, Segment.open(path, id, segmentSize));
+                } catch (NumberFormatException e) {
+                    log.warn("忽略無法識別的 Outbox 檔案: {}", path);
+                }
+            }
+        }
+
+        long checkpointSegment = checkpointBuffer.getLong(0);
+        int checkpointPosition = checkpointBuffer.getInt(8);
+        boolean checkpointValid = checkpointBuffer.getInt(12) == checkpointCrc();
+        if (!checkpointValid && !isCheckpointBlank()) {
+            log.warn("Outbox checkpoint 已損毀，將從最早的日誌段重新讀取，可能重送部分訊息");
+        }
+
+        if (segments.isEmpty()) {
+            writeSegment = createSegment(checkpointValid ? checkpointSegment : 0);
+            writePosition = 0;
+            readSegmentId = writeSegment.id;
+            readPosition = 0;
+            writeCheckpoint();
+            return;
+        }
+
+        // 刪除 checkpoint 之前已全部確認的日誌段
+        if (checkpointValid) {
+            for (Map.Entry<Long, Segment> consumed : new ArrayList<>(segments.headMap(checkpointSegment).entrySet())) {
+                segments.remove(consumed.getKey());
+                consumed.getValue().delete();
+            }
+        }
+        if (checkpointValid && segments.containsKey(checkpointSegment)) {
+            readSegmentId = checkpointSegment;
+            readPosition = checkpointPosition;
+        } else {
+            readSegmentId = segments.firstKey();
+            readPosition = 0;
+        }
+
+        writeSegment = segments.lastEntry().getValue();
+        writePosition = recoverWritePosition(writeSegment);
+        if (readSegmentId == writeSegment.id && readPosition > writePosition) {
+            readPosition = writePosition;
+        }
+        pendingEntries = countPendingEntries();
+        writeCheckpoint();
+        log.info("已開啟 Outbox 日誌 {}，日誌段 {} 個，待重送 {} 筆", directory, segments.size(), pendingEntries);
+    }
+
+    /**
+     * 找出日誌段中最後一筆完整紀錄的結尾，並清除其後寫到一半的殘留資料
+     */
+    private int recoverWritePosition(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        int position = 0;
+        int end;
+        while ((end = nextRecordEnd(buffer, position, segment.capacity())) > 0) {
+            position = end;
+        }
+        boolean truncated = false;
+        for (int i = position; i < segment.capacity(); i++) {
+            if (buffer.get(i) != 0) {
+                buffer.put(i, (byte) 0);
+                truncated = true;
+            }
+        }
+        if (truncated) {
+            log.warn("Outbox 日誌段 {} 在位置 {} 之後有不完整的紀錄，已捨棄", segment.path, position);
+            buffer.force();
+        }
+        return position;
+    }
+
+    private long countPendingEntries() {
+        long count = 0;
+        int position = readPosition;
+        for (Segment segment : segments.tailMap(readSegmentId).values()) {
+            int limit = segment == writeSegment ? writePosition : segment.capacity();
+            int end;
+            while ((end = nextRecordEnd(segment.buffer, position, limit)) > 0) {
+                position = end;
+                count++;
+            }
+            position = 0;
+        }
+        return count;
+    }
+
+    private void rollSegment() {
+        if (fsyncPolicy != FsyncPolicy.NEVER) {
+            writeSegment.buffer.force();
+        }
+        writeSegment = createSegment(writeSegment.id + 1);
+        writePosition = 0;
+    }
+
+    private void advanceReadSegment() {
+        Segment consumed = segments.remove(readSegmentId);
+        readSegmentId = segments.higherKey(consumed.id);
+        readPosition = 0;
+        writeCheckpoint();
+        consumed.delete();
+    }
+
+    private Segment createSegment(long id) {
+        try {
+            Segment segment = Segment.open(directory.resolve(String.format("%020d%s", id, SEGMENT_SUFFIX)), id,
+                    segmentSize);
+            segments.put(id, segment);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("建立 Outbox 日誌段失敗", e);
+        }
+    }
+
+    private void openCheckpoint() throws IOException {
+        checkpointChannel = FileChannel.open(directory.resolve(CHECKPOINT_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        checkpointBuffer = checkpointChannel.map(FileChannel.MapMode.READ_WRITE, 0, CHECKPOINT_BYTES);
+    }
+
+    private void writeCheckpoint() {
+        checkpointBuffer.putLong(0, readSegmentId);
+        checkpointBuffer.putInt(8, readPosition);
+        checkpointBuffer.putInt(12, checkpointCrc());
+        if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+            checkpointBuffer.force();
+        } else {
+            dirty = true;
+        }
+    }
+
+    private int checkpointCrc() {
+        CRC32C crc = new CRC32C();
+        crc.update(checkpointBuffer.slice(0, 12));
+        return (int) crc.getValue();
+    }
+
+    private boolean isCheckpointBlank() {
+        return checkpointBuffer.getLong(0) == 0 && checkpointBuffer.getLong(8) == 0;
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Outbox 日誌已關閉");
+        }
+    }
+
+    private static byte[] encode(Entry entry) {
+        byte[] destination = entry.destination.getBytes(StandardCharsets.UTF_8);
+        if (destination.length > 0xFFFF) {
+            throw new IllegalArgumentException("目的地名稱過長: " + entry.destination);
+        }
+        int length = 1 + 2 + destination.length + entry.payload.length;
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + length);
+        record.putInt(length).putInt(0).put(entry.type).putShort((short) destination.length).put(destination)
+                .put(entry.payload);
+        record.putInt(4, crc(record, HEADER_BYTES, length));
+        return record.array();
+    }
+
+    private static Entry decode(Segment segment, int position, int end) {
+        ByteBuffer buffer = segment.buffer;
+        int offset = position + HEADER_BYTES;
+        byte type = buffer.get(offset);
+        int destinationLength = Short.toUnsignedInt(buffer.getShort(offset + 1));
+        byte[] destination = new byte[destinationLength];
+        buffer.get(offset + 3, destination);
+        byte[] payload = new byte[end - offset - 3 - destinationLength];
+        buffer.get(offset + 3 + destinationLength, payload);
+        Entry entry = new Entry(type, new String(destination, StandardCharsets.UTF_8), payload);
+        entry.segmentId = segment.id;
+        entry.position = position;
+        entry.nextPosition = end;
+        return entry;
+    }
+
+    /**
+     * 驗證指定位置的紀錄
+     *
+     * @return 紀錄完整時返回其結尾位置，否則返回 -1
+     */
+    private static int nextRecordEnd(ByteBuffer buffer, int position, int limit) {
+        if (position + HEADER_BYTES > limit) {
+            return -1;
+        }
+        int length = buffer.getInt(position);
+        if (length <= 0 || length > limit - position - HEADER_BYTES) {
+            return -1;
+        }
+        if (buffer.getInt(position + 4) != crc(buffer, position + HEADER_BYTES, length)) {
+            return -1;
+        }
+        return position + HEADER_BYTES + length;
+    }
+
+    private static int crc(ByteBuffer buffer, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("關閉 Outbox 檔案失敗: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 日誌中的一筆紀錄
+     */
+    @Getter
+    public static final class Entry {
+        private final byte type;
+        private final String destination;
+        private final byte[] payload;
+        private long segmentId = -1;
+        private int position;
+        private int nextPosition;
+
+        /**
+         * 建立要追加的紀錄
+         *
+         * @param type        訊息類型，參考 Constant.OutboxType
+         * @param destination 隊列的邏輯名稱 (mq-config.queues 的 name 或預設隊列名稱)
+         * @param payload     訊息內容
+         */
+        public Entry(byte type, String destination, byte[] payload) {
+            this.type = type;
+            this.destination = destination;
+            this.payload = payload;
+        }
+    }
+
+    /**
+     * 單一日誌段檔案
+     */
+    private static final class Segment {
+        private final long id;
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+
+        private Segment(long id, Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        private static Segment open(Path path, long id, int defaultSize) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            long size = channel.size() > 0 ? channel.size() : defaultSize;
+            return new Segment(id, path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        }
+
+        private int capacity() {
+            return buffer.capacity();
+        }
+
+        private void close() {
+            closeQuietly(channel);
+        }
+
+        private void delete() {
+            close();
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                log.warn("刪除已確認的 Outbox 日誌段失敗: {}", path, e);
+            }
+        }
+    }
+}
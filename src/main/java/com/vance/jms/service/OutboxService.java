@@ -0,0 +1,354 @@
+package com.vance.jms.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.support.converter.MessageConversionException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.RateLimiter;
+import com.ibm.mq.MQException;
+import com.ibm.mq.constants.CMQC;
+import com.vance.jms.config.MqConfig;
+import com.vance.jms.constant.Constant;
+import com.vance.jms.event.ConnectionResumedEvent;
+import com.vance.jms.exception.OutboxFullException;
+import com.vance.jms.exception.UnknownQueueException;
+import com.vance.jms.model.CustomMessage;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.jms.InvalidDestinationException;
+import jakarta.jms.JMSException;
+import jakarta.jms.MessageFormatException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * MQ 斷線時的本地暫存 (outbox) 服務
+ * 啟用後，MQ 未連接 (啟用分流時為所有節點都中斷) 或仍有待重送訊息時，發送改為寫入 OutboxJournal；
+ * 收到 ConnectionResumedEvent 或定期檢查時，由單一執行緒依寫入順序限速重送，
+ * 每筆訊息在 MQ 交易 commit 後才從日誌確認移除，因此重送為至少一次 (at-least-once)。
+ * 日誌記錄隊列的邏輯名稱，重送時由 QueueTopology 解析實際目的地及該隊列的 QoS 設定，與直接發送相同。
+ * 重送時遇到不會因重試而成功的錯誤 (隊列已不在設定中、目的地不存在、訊息格式或轉換錯誤、訊息過大) 時記錄並捨棄該筆，
+ * 避免單筆訊息卡住整個日誌；其他錯誤視為暫時性，停止重送等待下次觸發。
+ */
+@Slf4j
+@Service
+public class OutboxService {
+
+    @Autowired
+    private MqConfig mqConfig;
+
+    @Autowired
+    private QueueTopology queueTopology;
+
+    @Autowired
+    private MqConnectionService mqConnectionService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * 重送時視為永久失敗的 MQ 原因碼：目的地不存在、訊息超過隊列或隊列管理器的大小上限
+     */
+    private static final Set<Integer> PERMANENT_REASONS = Set.of(CMQC.MQRC_UNKNOWN_OBJECT_NAME,
+            CMQC.MQRC_MSG_TOO_BIG_FOR_Q, CMQC.MQRC_MSG_TOO_BIG_FOR_Q_MGR);
+    private static final int MAX_CAUSE_DEPTH = 10;
+
+    private final AtomicBoolean replaying = new AtomicBoolean();
+    private final AtomicLong spooledCount = new AtomicLong();
+    private final AtomicLong replayedCount = new AtomicLong();
+    private final AtomicLong discardedCount = new AtomicLong();
+    private volatile OutboxJournal journal;
+    private ExecutorService replayExecutor;
+    private RateLimiter rateLimiter;
+
+    /**
+     * 啟用時開啟本地日誌，恢復上次未重送完的訊息
+     *
+     * @throws IOException 開啟日誌失敗時拋出
+     */
+    @PostConstruct
+    public void init() throws IOException {
+        MqConfig.Outbox config = mqConfig.getOutbox();
+        if (!config.isEnabled()) {
+            return;
+        }
+        journal = new OutboxJournal(Paths.get(config.getDirectory()), config.getSegmentSizeBytes(),
+                config.getMaxTotalBytes(), config.getFsyncPolicy());
+        rateLimiter = RateLimiter.create(config.getReplayRatePerSecond());
+        replayExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "outbox-replay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("已啟用 Outbox 本地暫存，目錄: {}，同步策略: {}，待重送 {} 筆", config.getDirectory(),
+                config.getFsyncPolicy(), journal.getPendingEntries());
+    }
+
+    /**
+     * 在 MQ 未連接或仍有待重送訊息時寫入本地暫存，以維持發送順序
+     *
+     * @param queue    隊列的邏輯名稱 (mq-config.queues 的 name 或預設隊列名稱)
+     * @param payloads 要發送的內容 (CustomMessage、String 或 byte[])，整批寫入或整批拒絕
+     * @return 已寫入暫存時為 true；未啟用或可直接發送時為 false
+     * @throws OutboxFullException 暫存已達大小上限時拋出
+     */
+    public boolean spoolIfNeeded(String queue, List<?> payloads) {
+        OutboxJournal current = journal;
+        if (current == null) {
+            return false;
+        }
+        boolean connected = isAvailable();
+        if (connected && current.isEmpty()) {
+            return false;
+        }
+
+        List<OutboxJournal.Entry> entries = new ArrayList<>(payloads.size());
+        for (Object payload : payloads) {
+            entries.add(toEntry(queue, payload));
+        }
+        if (!current.appendIfPending(!connected, entries)) {
+            // 編碼期間已重送完畢，直接發送
+            return false;
+        }
+        spooledCount.addAndGet(entries.size());
+        return true;
+    }
+
+    /**
+     * 目前的發送是否會寫入本地暫存 (已啟用且 MQ 未連接或仍有待重送訊息)
+     *
+     * @return 會寫入本地暫存時為 true
+     */
+    public boolean isSpooling() {
+        OutboxJournal current = journal;
+        return current != null && (!isAvailable() || !current.isEmpty());
+    }
+
+    /**
+     * 處理連接恢復事件，開始重送暫存的訊息
+     *
+     * @param event 連接恢復事件
+     */
+    @EventListener
+    public void handleConnectionResumed(ConnectionResumedEvent event) {
+        triggerReplay();
+    }
+
+    /**
+     * 定期檢查是否有待重送的訊息，補足啟動時及重送中斷後的重送時機
+     */
+    @Scheduled(fixedDelayString = "#{@mqConfig.outbox.drainIntervalMs}")
+    public void scheduledReplay() {
+        triggerReplay();
+    }
+
+    /**
+     * fsyncPolicy 為 INTERVAL 時定期將日誌同步到磁碟
+     */
+    @Scheduled(fixedDelayString = "#{@mqConfig.outbox.fsyncIntervalMs}")
+    public void scheduledFlush() {
+        OutboxJournal current = journal;
+        if (current != null && mqConfig.getOutbox().getFsyncPolicy() == MqConfig.Outbox.FsyncPolicy.INTERVAL) {
+            current.flush();
+        }
+    }
+
+    /**
+     * 若已連接且有待重送訊息，在背景開始重送；同一時間只會有一個重送執行
+     */
+    public void triggerReplay() {
+        OutboxJournal current = journal;
+        if (current == null || current.isEmpty() || !isAvailable()) {
+            return;
+        }
+        if (replaying.compareAndSet(false, true)) {
+            try {
+                replayExecutor.execute(() -> replay(current));
+            } catch (RejectedExecutionException e) {
+                replaying.set(false);
+            }
+        }
+    }
+
+    /**
+     * 獲取本地暫存的統計資訊
+     *
+     * @return 包含是否啟用、待重送數量及日誌段數量等統計的 Map
+     */
+    public Map<String, Object> getStatistics() {
+        OutboxJournal current = journal;
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("enabled", current != null);
+        statistics.put("replaying", replaying.get());
+        statistics.put("pendingEntries", current != null ? current.getPendingEntries() : 0);
+        statistics.put("segments", current != null ? current.getSegmentCount() : 0);
+        statistics.put("maxSegments", current != null ? current.getMaxSegments() : 0);
+        statistics.put("spooled", spooledCount.get());
+        statistics.put("replayed", replayedCount.get());
+        statistics.put("discarded", discardedCount.get());
+        return statistics;
+    }
+
+    /**
+     * 停止重送並關閉本地日誌
+     */
+    @PreDestroy
+    public void close() {
+        OutboxJournal current = journal;
+        if (current == null) {
+            return;
+        }
+        replayExecutor.shutdown();
+        try {
+            if (!replayExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                log.warn("等待 Outbox 重送結束逾時");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        journal = null;
+        current.close();
+    }
+
+    /**
+     * 依寫入順序逐筆重送，MQ commit 後才確認移除；無法解析或永久失敗的訊息捨棄後繼續，
+     * 其他發送失敗時停止，等待下次觸發
+     */
+    private void replay(OutboxJournal current) {
+        long sent = 0;
+        log.info("開始重送 Outbox 暫存訊息，待重送 {} 筆", current.getPendingEntries());
+        try {
+            OutboxJournal.Entry entry;
+            while (!replayExecutor.isShutdown() && isAvailable()
+                    && (entry = current.peek()) != null) {
+                Object payload;
+                try {
+                    payload = fromEntry(entry);
+                } catch (IOException | IllegalArgumentException e) {
+                    log.error("無法解析 Outbox 暫存訊息，已略過: {}", e.getMessage());
+                    discard(current, entry);
+                    continue;
+                }
+                rateLimiter.acquire();
+                try {
+                    QueueTopology.QueueTarget target = queueTopology.resolve(entry.getDestination());
+                    templateFor(target, payload).convertAndSend(target.destination(), payload);
+                } catch (RuntimeException e) {
+                    if (!isPermanent(e)) {
+                        throw e;
+                    }
+                    log.error("Outbox 暫存訊息無法發送，已捨棄: 隊列 {}，類型 {}，大小 {} bytes，id {}，原因: {}",
+                            entry.getDestination(), entry.getType(), entry.getPayload().length, idOf(payload),
+                            e.getMessage());
+                    discard(current, entry);
+                    continue;
+                }
+                current.acknowledge(entry);
+                sent++;
+                replayedCount.incrementAndGet();
+            }
+        } catch (Exception e) {
+            log.error("重送 Outbox 暫存訊息失敗，等待下次重送: {}", e.getMessage());
+        } finally {
+            replaying.set(false);
+            log.info("Outbox 重送結束，本次重送 {} 筆，剩餘 {} 筆", sent, current.getPendingEntries());
+        }
+    }
+
+    private void discard(OutboxJournal current, OutboxJournal.Entry entry) {
+        current.acknowledge(entry);
+        discardedCount.incrementAndGet();
+    }
+
+    /**
+     * 是否為重試也不會成功的發送錯誤，沿 cause 及 JMSException 的 linked exception 檢查
+     */
+    private static boolean isPermanent(Throwable error) {
+        Throwable cause = error;
+        for (int depth = 0; cause != null && depth < MAX_CAUSE_DEPTH; depth++) {
+            if (cause instanceof UnknownQueueException
+                    || cause instanceof InvalidDestinationException || cause instanceof MessageFormatException
+                    || cause instanceof org.springframework.jms.InvalidDestinationException
+                    || cause instanceof org.springframework.jms.MessageFormatException
+                    || cause instanceof MessageConversionException) {
+                return true;
+            }
+            if (cause instanceof MQException mqException && PERMANENT_REASONS.contains(mqException.getReason())) {
+                return true;
+            }
+            cause = cause.getCause() == null && cause instanceof JMSException jmsException
+                    ? jmsException.getLinkedException() : cause.getCause();
+        }
+        return false;
+    }
+
+    private static String idOf(Object payload) {
+        return payload instanceof CustomMessage message ? message.getId() : "-";
+    }
+
+    /**
+     * MQ 是否可以發送：啟用分流時至少有一個健康的節點，否則為 ibm.mq 的連接狀態
+     */
+    private boolean isAvailable() {
+        return shardRouter.isEnabled() ? shardRouter.hasHealthyShard() : mqConnectionService.isConnected();
+    }
+
+    /**
+     * 重送使用的 JmsTemplate：沿用隊列專屬的 QoS 設定，啟用分流時與直接發送相同，依 CustomMessage 的 id 選出節點
+     */
+    private JmsTemplate templateFor(QueueTopology.QueueTarget target, Object payload) {
+        if (!shardRouter.isEnabled()) {
+            return target.jmsTemplate();
+        }
+        String key = payload instanceof CustomMessage message ? message.getId() : null;
+        return shardRouter.route(key).templateFor(target.jmsTemplate());
+    }
+
+    private OutboxJournal.Entry toEntry(String queue, Object payload) {
+        if (payload instanceof CustomMessage message) {
+            try {
+                return new OutboxJournal.Entry(Constant.OutboxType.OBJECT, queue,
+                        objectMapper.writeValueAsBytes(message));
+            } catch (IOException e) {
+                throw new IllegalArgumentException("無法序列化訊息: " + message.getId(), e);
+            }
+        } else if (payload instanceof String text) {
+            return new OutboxJournal.Entry(Constant.OutboxType.TEXT, queue,
+                    text.getBytes(StandardCharsets.UTF_8));
+        } else if (payload instanceof byte[] bytes) {
+            return new OutboxJournal.Entry(Constant.OutboxType.BYTES, queue, bytes);
+        }
+        throw new IllegalArgumentException("不支援暫存的訊息類型: " + payload.getClass().getName());
+    }
+
+    private Object fromEntry(OutboxJournal.Entry entry) throws IOException {
+        return switch (entry.getType()) {
+            case Constant.OutboxType.OBJECT -> objectMapper.readValue(entry.getPayload(), CustomMessage.class);
+            case Constant.OutboxType.TEXT -> new String(entry.getPayload(), StandardCharsets.UTF_8);
+            case Constant.OutboxType.BYTES -> entry.getPayload();
+            default -> throw new IllegalArgumentException("未知的暫存訊息類型: " + entry.getType());
+        };
+    }
+}
@@ -0,0 +1,228 @@
+package com.vance.jms.service;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.vance.jms.config.MqConfig;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 依分區鍵平行處理的分派服務
+ * 批次接收模式下，監聽器執行緒將一批訊息依分區鍵的雜湊值交給固定數量的處理通道 (lane)，
+ * 相同分區鍵的訊息一定進入同一條通道，並依接收順序逐筆處理；不同分區鍵的訊息則在多條通道上平行處理。
+ * 每條通道有一個專屬執行緒及固定容量的環狀佇列 (ArrayBlockingQueue)，佇列已滿時監聽器執行緒等待，形成背壓。
+ * 監聽器執行緒等待整批都處理完畢才返回，由監聽器容器 commit；任一筆失敗時略過同一批尚未開始的訊息，
+ * 由監聽器容器整批 rollback，因此訊息不會在處理完成前被確認。
+ */
+@Slf4j
+@Service
+public class PartitionedDispatcher {
+
+    @Autowired
+    private MqConfig mqConfig;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final AtomicInteger nextLane = new AtomicInteger();
+    private Lane[] lanes;
+
+    /**
+     * 依 mq-config.listener.partitions 建立處理通道，小於 2 時不啟用
+     */
+    @PostConstruct
+    public void init() {
+        MqConfig.Listener listener = mqConfig.getListener();
+        int partitions = listener.getPartitions();
+        if (partitions < 2) {
+            return;
+        }
+        if (listener.getBatchSize() <= 1) {
+            log.warn("分區處理需搭配批次接收 (mq-config.listener.batch-size 大於 1)，逐筆接收時不會平行處理");
+        }
+        int capacity = Math.max(listener.getBatchSize(), listener.getPartitionQueueCapacity());
+        lanes = new Lane[partitions];
+        for (int i = 0; i < partitions; i++) {
+            Lane lane = new Lane(i, capacity);
+            Gauge.builder("jms.partition.queue", lane.queue, BlockingQueue::size)
+                    .description("分區處理通道中等待處理的訊息數").tag("lane", String.valueOf(i))
+                    .register(meterRegistry);
+            lane.thread.start();
+            lanes[i] = lane;
+        }
+        log.info("已啟用分區處理: {} 條通道，每條佇列容量 {}，分區鍵屬性: {}", partitions, capacity,
+                listener.getPartitionKeyProperty().isEmpty() ? "JMSXGroupID" : listener.getPartitionKeyProperty());
+    }
+
+    /**
+     * 是否已啟用分區處理
+     *
+     * @return 已建立處理通道時為 true
+     */
+    public boolean isEnabled() {
+        return lanes != null;
+    }
+
+    /**
+     * 將一批工作依分區鍵交給處理通道，等待全部完成後返回
+     *
+     * @param tasks 依接收順序排列的工作
+     * @throws Exception 任一筆工作失敗時拋出第一個異常；等待中被中斷時拋出 InterruptedException
+     */
+    public void execute(List<PartitionTask> tasks) throws Exception {
+        BatchTracker tracker = new BatchTracker(tasks.size());
+        int submitted = 0;
+        try {
+            for (PartitionTask task : tasks) {
+                laneFor(task.key()).queue.put(new Entry(task.work(), tracker));
+                submitted++;
+            }
+            tracker.latch.await();
+        } catch (InterruptedException e) {
+            // 尚在處理中的訊息仍屬於目前的 Session，等待其結束後再讓監聽器容器 rollback
+            tracker.fail(e);
+            for (int i = submitted; i < tasks.size(); i++) {
+                tracker.latch.countDown();
+            }
+            awaitUninterruptibly(tracker.latch);
+            Thread.currentThread().interrupt();
+        }
+        Throwable failure = tracker.failure.get();
+        if (failure instanceof Exception exception) {
+            throw exception;
+        } else if (failure instanceof Error error) {
+            throw error;
+        }
+    }
+
+    private Lane laneFor(String key) {
+        int hash = key != null ? key.hashCode() : nextLane.getAndIncrement();
+        // 打散雜湊值的高位，避免相近的鍵集中在少數通道
+        return lanes[Math.floorMod(hash ^ (hash >>> 16), lanes.length)];
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 停止處理通道，通道執行緒在處理完目前的訊息後結束
+     * 監聽器容器已先停止，佇列中不會再有新的工作
+     */
+    @PreDestroy
+    public void close() {
+        if (lanes == null) {
+            return;
+        }
+        for (Lane lane : lanes) {
+            lane.thread.interrupt();
+        }
+    }
+
+    /**
+     * 單一工作及其分區鍵
+     *
+     * @param key  分區鍵，null 時依序分配到各通道，不保證順序
+     * @param work 處理動作
+     */
+    public record PartitionTask(String key, Work work) {
+    }
+
+    /**
+     * 在處理通道上執行的處理動作
+     */
+    @FunctionalInterface
+    public interface Work {
+        void run() throws Exception;
+    }
+
+    private record Entry(Work work, BatchTracker tracker) {
+    }
+
+    /**
+     * 追蹤一批工作的完成數量及第一個異常
+     */
+    private static final class BatchTracker {
+        private final CountDownLatch latch;
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        private BatchTracker(int size) {
+            this.latch = new CountDownLatch(size);
+        }
+
+        private void fail(Throwable e) {
+            failure.compareAndSet(null, e);
+        }
+    }
+
+    /**
+     * 單一處理通道，專屬執行緒依序處理佇列中的工作
+     */
+    private static final class Lane implements Runnable {
+        private final BlockingQueue<Entry> queue;
+        private final Thread thread;
+
+        private Lane(int index, int capacity) {
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.thread = new Thread(this, "jms-partition-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (!Thread.currentThread().isInterrupted()) {
+                Entry entry;
+                try {
+                    entry = queue.take();
+                } catch (InterruptedException e) {
+                    abandon();
+                    return;
+                }
+                // 同一批已有失敗時整批都會 rollback，略過尚未處理的訊息，避免相同鍵的後續訊息先被處理
+                if (entry.tracker.failure.get() == null) {
+                    try {
+                        entry.work.run();
+                    } catch (Throwable e) {
+                        entry.tracker.fail(e);
+                    }
+                }
+                entry.tracker.latch.countDown();
+            }
+            abandon();
+        }
+
+        /**
+         * 通道停止時，讓佇列中剩餘工作所屬的批次失敗，避免監聽器執行緒一直等待
+         */
+        private void abandon() {
+            Entry entry;
+            while ((entry = queue.poll()) != null) {
+                entry.tracker.fail(new IllegalStateException("分區處理通道已停止"));
+                entry.tracker.latch.countDown();
+            }
+        }
+    }
+}
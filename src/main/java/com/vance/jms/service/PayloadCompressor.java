@@ -0,0 +1,210 @@
+package com.vance.jms.service;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.vance.jms.config.DeflatePayloadCodec;
+import com.vance.jms.config.GzipPayloadCodec;
+import com.vance.jms.config.MqConfig;
+import com.vance.jms.config.PayloadCodec;
+import com.vance.jms.constant.Constant;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.jms.BytesMessage;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageFormatException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 訊息內容壓縮服務
+ * 管理可用的壓縮演算法，依 mq-config.compression 設定壓縮發送的內容，並還原收到的壓縮訊息；
+ * 同時記錄各演算法的壓縮前後位元組數、壓縮率及耗用的 CPU 時間
+ */
+@Slf4j
+@Service
+public class PayloadCompressor {
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    @Autowired
+    private MqConfig mqConfig;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectProvider<PayloadCodec> customCodecs;
+
+    private final Map<String, CodecMetrics> codecs = new ConcurrentHashMap<>();
+
+    /**
+     * 登記內建及自訂的壓縮演算法，並確認設定的演算法可用
+     */
+    @PostConstruct
+    public void init() {
+        MqConfig.Compression config = mqConfig.getCompression();
+        register(new DeflatePayloadCodec(config.getLevel()));
+        register(new GzipPayloadCodec(config.getLevel()));
+        customCodecs.orderedStream().forEach(this::register);
+        if (config.isEnabled()) {
+            if (!codecs.containsKey(config.getCodec())) {
+                throw new IllegalStateException("未知的壓縮演算法: " + config.getCodec() + "，可用: " + codecs.keySet());
+            }
+            log.info("已啟用訊息壓縮，演算法: {}，門檻: {} bytes", config.getCodec(), config.getThresholdBytes());
+        }
+    }
+
+    /**
+     * 是否啟用發送端壓縮
+     *
+     * @return 啟用時為 true
+     */
+    public boolean isEnabled() {
+        return mqConfig.getCompression().isEnabled();
+    }
+
+    /**
+     * 依設定壓縮內容
+     *
+     * @param data 原始數據
+     * @return 壓縮後的數據；未啟用、低於門檻或壓縮後未變小時返回 null
+     * @throws IOException 壓縮失敗時拋出
+     */
+    public byte[] compress(byte[] data) throws IOException {
+        MqConfig.Compression config = mqConfig.getCompression();
+        if (!config.isEnabled() || data.length < config.getThresholdBytes()) {
+            return null;
+        }
+        CodecMetrics codec = codecs.get(config.getCodec());
+        long start = cpuTime();
+        byte[] compressed = codec.codec.compress(data);
+        codec.compressTime.record(cpuTime() - start, TimeUnit.NANOSECONDS);
+        if (compressed.length >= data.length) {
+            codec.incompressible.increment();
+            return null;
+        }
+        codec.originalBytes.increment(data.length);
+        codec.compressedBytes.increment(compressed.length);
+        codec.ratio.record((double) compressed.length / data.length);
+        return compressed;
+    }
+
+    /**
+     * 目前設定的壓縮演算法名稱
+     *
+     * @return 演算法名稱
+     */
+    public String getCodecName() {
+        return mqConfig.getCompression().getCodec();
+    }
+
+    /**
+     * 判斷訊息是否經過壓縮
+     *
+     * @param message 收到的訊息
+     * @return 帶有壓縮演算法屬性時為 true
+     * @throws JMSException 讀取屬性失敗時拋出
+     */
+    public boolean isCompressed(Message message) throws JMSException {
+        return message.propertyExists(Constant.CompressionProperty.CODEC);
+    }
+
+    /**
+     * 解壓縮訊息內容
+     * 訊息本身不會被改變，屬性及標頭仍由原訊息讀取
+     *
+     * @param message 收到的訊息
+     * @return 未壓縮時返回 null；原為文本時返回 String，其餘返回 byte[]
+     * @throws JMSException 演算法未知、長度超過上限或數據損壞時拋出
+     */
+    public Object decompress(Message message) throws JMSException {
+        if (!isCompressed(message)) {
+            return null;
+        }
+        if (!(message instanceof BytesMessage bytesMessage)) {
+            throw new MessageFormatException("壓縮訊息必須為 BytesMessage: " + message.getClass().getName());
+        }
+        String codecName = message.getStringProperty(Constant.CompressionProperty.CODEC);
+        CodecMetrics codec = codecs.get(codecName);
+        if (codec == null) {
+            throw new MessageFormatException("未知的壓縮演算法: " + codecName);
+        }
+        int originalLength = message.getIntProperty(Constant.CompressionProperty.ORIGINAL_LENGTH);
+        int maxLength = mqConfig.getCompression().getMaxDecompressedBytes();
+        if (originalLength < 0 || originalLength > maxLength) {
+            throw new MessageFormatException("解壓縮後長度 " + originalLength + " bytes 超過上限 " + maxLength + " bytes");
+        }
+
+        byte[] compressed = new byte[(int) bytesMessage.getBodyLength()];
+        bytesMessage.readBytes(compressed);
+        long start = cpuTime();
+        byte[] body;
+        try {
+            body = codec.codec.decompress(compressed, originalLength);
+        } catch (IOException e) {
+            MessageFormatException exception = new MessageFormatException("解壓縮訊息失敗: " + e.getMessage());
+            exception.setLinkedException(e);
+            throw exception;
+        }
+        codec.decompressTime.record(cpuTime() - start, TimeUnit.NANOSECONDS);
+        boolean text = Constant.CompressionProperty.TYPE_TEXT
+                .equals(message.getStringProperty(Constant.CompressionProperty.ORIGINAL_TYPE));
+        return text ? new String(body, StandardCharsets.UTF_8) : body;
+    }
+
+    private void register(PayloadCodec codec) {
+        codecs.put(codec.getName(), new CodecMetrics(codec, meterRegistry));
+    }
+
+    /**
+     * 目前執行緒已使用的 CPU 時間；不支援時 (例如虛擬執行緒) 改用經過時間
+     */
+    private static long cpuTime() {
+        long cpu = THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported() ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : -1;
+        return cpu >= 0 ? cpu : System.nanoTime();
+    }
+
+    /**
+     * 單一壓縮演算法及其指標
+     */
+    private static final class CodecMetrics {
+        private final PayloadCodec codec;
+        private final Counter originalBytes;
+        private final Counter compressedBytes;
+        private final Counter incompressible;
+        private final DistributionSummary ratio;
+        private final Timer compressTime;
+        private final Timer decompressTime;
+
+        private CodecMetrics(PayloadCodec codec, MeterRegistry registry) {
+            String name = codec.getName();
+            this.codec = codec;
+            this.originalBytes = Counter.builder("jms.compression.bytes").tag("codec", name).tag("stage", "original")
+                    .description("壓縮前的位元組數").register(registry);
+            this.compressedBytes = Counter.builder("jms.compression.bytes").tag("codec", name)
+                    .tag("stage", "compressed").description("壓縮後的位元組數").register(registry);
+            this.incompressible = Counter.builder("jms.compression.incompressible").tag("codec", name)
+                    .description("壓縮後未變小而以原內容發送的訊息數").register(registry);
+            this.ratio = DistributionSummary.builder("jms.compression.ratio").tag("codec", name)
+                    .description("壓縮後與壓縮前的大小比例").register(registry);
+            this.compressTime = Timer.builder("jms.compression.cpu").tag("codec", name).tag("operation", "compress")
+                    .description("壓縮耗用的 CPU 時間").register(registry);
+            this.decompressTime = Timer.builder("jms.compression.cpu").tag("codec", name)
+                    .tag("operation", "decompress").description("解壓縮耗用的 CPU 時間").register(registry);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.vance.jms.service;
+
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.vance.jms.config.MqConfig;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.jms.BytesMessage;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.TextMessage;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 訊息內容日誌服務
+ * 取代在發送及接收路徑上以 INFO 記錄完整內容的做法：依 mq-config.payload-logging 設定抽樣、
+ * 每個類別每秒限量並截斷內容，被略過的筆數會附在下一筆日誌中。
+ * 日誌使用獨立的 jms.payload logger，可透過 logging.level.jms.payload 單獨關閉。
+ */
+@Slf4j(topic = "jms.payload")
+@Service
+public class PayloadLogger {
+
+    public static final String CATEGORY_REQUEST = "request";
+    public static final String CATEGORY_SEND = "send";
+    public static final String CATEGORY_RECEIVE = "receive";
+
+    @Autowired
+    private MqConfig mqConfig;
+
+    private final Set<String> fullPayloadQueues = ConcurrentHashMap.newKeySet();
+    private final Map<String, CategoryLimiter> limiters = new ConcurrentHashMap<>();
+
+    /**
+     * 載入啟動時設定的完整內容隊列
+     */
+    @PostConstruct
+    public void init() {
+        fullPayloadQueues.addAll(mqConfig.getPayloadLogging().getFullPayloadQueues());
+    }
+
+    /**
+     * 依設定記錄訊息內容
+     *
+     * @param category 日誌類別 (request、send、receive)
+     * @param queue    隊列名稱
+     * @param payload  訊息內容，可為 CustomMessage、文本、二進制數據或 JMS 訊息
+     */
+    public void log(String category, String queue, Object payload) {
+        log(category, queue, payload, System.nanoTime());
+    }
+
+    void log(String category, String queue, Object payload, long nowNanos) {
+        if (!log.isInfoEnabled()) {
+            return;
+        }
+        if (fullPayloadQueues.contains(queue)) {
+            log.info("[{}] {}: {}", category, queue, describe(payload, Integer.MAX_VALUE));
+            return;
+        }
+        MqConfig.PayloadLogging config = mqConfig.getPayloadLogging();
+        double sampleRate = config.getSampleRate();
+        if (sampleRate <= 0 || (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+            return;
+        }
+        CategoryLimiter limiter = limiters.computeIfAbsent(category, key -> new CategoryLimiter());
+        if (!limiter.tryAcquire(nowNanos, config.getMaxPerSecond())) {
+            return;
+        }
+        long suppressed = limiter.pending.sumThenReset();
+        if (suppressed > 0) {
+            log.info("[{}] {}: {} (已略過 {} 筆)", category, queue, describe(payload, config.getMaxLength()),
+                    suppressed);
+        } else {
+            log.info("[{}] {}: {}", category, queue, describe(payload, config.getMaxLength()));
+        }
+    }
+
+    /**
+     * 切換隊列是否記錄完整內容
+     *
+     * @param queue   隊列名稱
+     * @param enabled true 時記錄完整內容，false 時恢復抽樣
+     */
+    public void setFullPayload(String queue, boolean enabled) {
+        if (enabled) {
+            fullPayloadQueues.add(queue);
+        } else {
+            fullPayloadQueues.remove(queue);
+        }
+        log.info("隊列 {} 的完整內容日誌已{}", queue, enabled ? "開啟" : "關閉");
+    }
+
+    /**
+     * 獲取目前的日誌設定及各類別的統計
+     *
+     * @return 抽樣比例、每秒上限、完整內容隊列及各類別被限流略過的筆數
+     */
+    public Map<String, Object> getStatistics() {
+        MqConfig.PayloadLogging config = mqConfig.getPayloadLogging();
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("sampleRate", config.getSampleRate());
+        statistics.put("maxPerSecond", config.getMaxPerSecond());
+        statistics.put("maxLength", config.getMaxLength());
+        statistics.put("fullPayloadQueues", Set.copyOf(fullPayloadQueues));
+        Map<String, Long> suppressed = new LinkedHashMap<>();
+        limiters.forEach((category, limiter) -> suppressed.put(category, limiter.suppressed.sum()));
+        statistics.put("suppressed", suppressed);
+        return statistics;
+    }
+
+    /**
+     * 將內容轉為日誌文字，只讀取需要的部分；JMS 訊息不使用 toString，避免列出所有標頭及屬性
+     */
+    static String describe(Object payload, int maxLength) {
+        if (payload instanceof byte[] bytes) {
+            int length = Math.min(bytes.length, maxLength / 2);
+            String hex = HexFormat.of().formatHex(bytes, 0, length);
+            return bytes.length + " bytes [" + hex + (length < bytes.length ? "..." : "") + "]";
+        }
+        if (payload instanceof Message message) {
+            try {
+                if (message instanceof TextMessage textMessage) {
+                    return truncate(textMessage.getText(), maxLength);
+                }
+                if (message instanceof BytesMessage bytesMessage) {
+                    return "BytesMessage " + bytesMessage.getBodyLength() + " bytes, id="
+                            + message.getJMSMessageID();
+                }
+                return message.getClass().getSimpleName() + ", id=" + message.getJMSMessageID();
+            } catch (JMSException e) {
+                return message.getClass().getSimpleName() + " (無法讀取內容: " + e.getMessage() + ")";
+            }
+        }
+        return truncate(String.valueOf(payload), maxLength);
+    }
+
+    private static String truncate(String text, int maxLength) {
+        if (text == null || text.length() <= maxLength) {
+            return text;
+        }
+        return text.substring(0, maxLength) + "...(共 " + text.length() + " 字元)";
+    }
+
+    /**
+     * 單一類別的每秒限量，以目前的秒數為視窗，只在切換視窗時短暫加鎖
+     */
+    private static final class CategoryLimiter {
+        private volatile long window;
+        private final AtomicInteger count = new AtomicInteger();
+        // 累計被略過的筆數，以及上一筆日誌之後被略過的筆數
+        private final LongAdder suppressed = new LongAdder();
+        private final LongAdder pending = new LongAdder();
+
+        private boolean tryAcquire(long nowNanos, int maxPerSecond) {
+            long current = TimeUnit.NANOSECONDS.toSeconds(nowNanos);
+            if (current != window) {
+                synchronized (this) {
+                    if (current != window) {
+                        count.set(0);
+                        window = current;
+                    }
+                }
+            }
+            if (count.incrementAndGet() <= maxPerSecond) {
+                return true;
+            }
+            suppressed.increment();
+            pending.increment();
+            return false;
+        }
+    }
+}
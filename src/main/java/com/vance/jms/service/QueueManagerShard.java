@@ -0,0 +1,166 @@
+package com.vance.jms.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.jms.core.JmsTemplate;
+
+import com.vance.jms.config.PooledConnectionFactory;
+
+import jakarta.jms.Connection;
+import jakarta.jms.ConnectionFactory;
+import jakarta.jms.JMSException;
+import jakarta.jms.Session;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 單一分流節點 (Queue Manager)
+ * 同步發送使用節點專屬的 PooledConnectionFactory，非同步發送使用節點專屬的 AsyncProducerPool；
+ * 健康狀態與 MqConnectionService 相同，
+ * 由長期保持的監控連接的 ExceptionListener 即時偵測中斷，並由 ShardRouter 定期檢查及重新連接
+ */
+@Slf4j
+public class QueueManagerShard {
+
+    @Getter
+    private final String name;
+    @Getter
+    private final int weight;
+    private final ConnectionFactory connectionFactory;
+    @Getter
+    private final PooledConnectionFactory pooledConnectionFactory;
+    @Getter
+    private final AsyncProducerPool asyncProducerPool;
+    private final AtomicBoolean healthy = new AtomicBoolean(false);
+    // 依來源 JmsTemplate (預設或各隊列的 QoS 設定) 建立的節點專屬 JmsTemplate
+    private final Map<JmsTemplate, JmsTemplate> templates = new ConcurrentHashMap<>();
+    private volatile Connection monitorConnection;
+
+    /**
+     * @param name                    節點名稱
+     * @param weight                  分配權重
+     * @param connectionFactory       節點的 MQ ConnectionFactory，用於監控連接
+     * @param pooledConnectionFactory 節點的發送端連接池
+     * @param asyncProducerPool       節點的非同步發送通道
+     */
+    public QueueManagerShard(String name, int weight, ConnectionFactory connectionFactory,
+            PooledConnectionFactory pooledConnectionFactory, AsyncProducerPool asyncProducerPool) {
+        this.name = name;
+        this.weight = Math.max(1, weight);
+        this.connectionFactory = connectionFactory;
+        this.pooledConnectionFactory = pooledConnectionFactory;
+        this.asyncProducerPool = asyncProducerPool;
+    }
+
+    /**
+     * 節點目前是否可以發送
+     *
+     * @return 監控連接正常時為 true
+     */
+    public boolean isHealthy() {
+        return healthy.get();
+    }
+
+    /**
+     * 取得使用此節點連接池、其餘設定與來源相同的 JmsTemplate
+     *
+     * @param source 預設或隊列專屬的 JmsTemplate
+     * @return 此節點的 JmsTemplate
+     */
+    public JmsTemplate templateFor(JmsTemplate source) {
+        return templates.computeIfAbsent(source, this::copy);
+    }
+
+    private JmsTemplate copy(JmsTemplate source) {
+        JmsTemplate template = new JmsTemplate(pooledConnectionFactory);
+        template.setMessageConverter(source.getMessageConverter());
+        template.setDestinationResolver(source.getDestinationResolver());
+        template.setSessionTransacted(source.isSessionTransacted());
+        template.setExplicitQosEnabled(source.isExplicitQosEnabled());
+        template.setDeliveryMode(source.getDeliveryMode());
+        template.setPriority(source.getPriority());
+        template.setTimeToLive(source.getTimeToLive());
+        return template;
+    }
+
+    /**
+     * 檢查節點健康狀態：已連接時在監控連接上建立並關閉一個 Session，未連接時嘗試重新建立監控連接
+     */
+    public void checkHealth() {
+        Connection connection = monitorConnection;
+        if (connection != null) {
+            try {
+                connection.createSession(false, Session.AUTO_ACKNOWLEDGE).close();
+                return;
+            } catch (JMSException e) {
+                markDown(e.getMessage());
+            }
+        }
+        try {
+            openMonitorConnection();
+            if (healthy.compareAndSet(false, true)) {
+                log.info("分流節點 {} 已連接，開始分配訊息", name);
+            }
+        } catch (JMSException e) {
+            healthy.set(false);
+            log.warn("分流節點 {} 無法連接: {} - {}", name, e.getClass().getName(), e.getMessage());
+        }
+    }
+
+    /**
+     * 將節點標記為中斷，之後的訊息改分配到其他節點，直到下一次健康檢查成功
+     *
+     * @param reason 中斷原因
+     */
+    void markDown(String reason) {
+        closeMonitorConnection();
+        if (healthy.compareAndSet(true, false)) {
+            log.error("分流節點 {} 連接中斷，訊息改分配到其他節點。原因: {}", name, reason);
+            pooledConnectionFactory.resetConnection();
+            asyncProducerPool.close();
+        }
+    }
+
+    private void openMonitorConnection() throws JMSException {
+        Connection connection = connectionFactory.createConnection();
+        try {
+            connection.setExceptionListener(e -> markDown(e.getMessage()));
+            connection.start();
+        } catch (JMSException e) {
+            closeQuietly(connection);
+            throw e;
+        }
+        Connection previous = monitorConnection;
+        monitorConnection = connection;
+        if (previous != null) {
+            closeQuietly(previous);
+        }
+    }
+
+    /**
+     * 關閉監控連接、連接池及非同步發送通道
+     */
+    public void close() {
+        closeMonitorConnection();
+        asyncProducerPool.close();
+        pooledConnectionFactory.destroy();
+    }
+
+    private void closeMonitorConnection() {
+        Connection connection = monitorConnection;
+        monitorConnection = null;
+        if (connection != null) {
+            closeQuietly(connection);
+        }
+    }
+
+    private void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (JMSException e) {
+            log.debug("關閉分流節點 {} 的監控連接時發生錯誤: {}", name, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.vance.jms.service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.stereotype.Service;
+
+import com.vance.jms.config.MqConfig;
+import com.vance.jms.exception.UnknownQueueException;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 多隊列拓撲服務
+ * 依 mq-config.queues 為每個隊列建立發送目標：沿用預設 JmsTemplate 的連接及轉換器，
+ * 只在隊列設定了過期時間或傳遞模式時另外建立 JmsTemplate 以套用各自的 QoS。
+ * 監聽器容器由 QueueListenerConfigurer 依 getListenedQueues 註冊。
+ */
+@Slf4j
+@Service
+public class QueueTopology {
+
+    @Autowired
+    private MqConfig mqConfig;
+
+    @Autowired
+    private JmsTemplate jmsTemplate;
+
+    private final Map<String, QueueTarget> targets = new LinkedHashMap<>();
+
+    /**
+     * 建立各隊列的發送目標，名稱重複或與預設隊列相同時拋出異常
+     */
+    @PostConstruct
+    public void init() {
+        for (MqConfig.QueueDefinition definition : mqConfig.getQueues()) {
+            String name = definition.getName();
+            if (name == null || name.isEmpty()) {
+                throw new IllegalStateException("mq-config.queues 的隊列必須設定 name");
+            }
+            if (name.equals(mqConfig.getQueueName()) || targets.containsKey(name)) {
+                throw new IllegalStateException("mq-config.queues 的隊列名稱重複: " + name);
+            }
+            targets.put(name, new QueueTarget(name, definition.resolveDestination(), templateFor(definition),
+                    Set.copyOf(definition.getHandlers())));
+            log.info("已設定隊列 {}: 目的地 {}，監聽 {}，消費者 {}，處理器 {}", name, definition.resolveDestination(),
+                    definition.isListen(), definition.getConcurrency().isEmpty() ? "1" : definition.getConcurrency(),
+                    definition.getHandlers().isEmpty() ? "全部" : definition.getHandlers());
+        }
+    }
+
+    /**
+     * 取得發送目標
+     *
+     * @param name 隊列的邏輯名稱，null、空白或預設隊列名稱表示預設隊列
+     * @return 發送目標
+     * @throws UnknownQueueException 隊列未在 mq-config.queues 中設定時拋出
+     */
+    public QueueTarget resolve(String name) {
+        if (name == null || name.isEmpty() || name.equals(mqConfig.getQueueName())) {
+            return defaultTarget();
+        }
+        QueueTarget target = targets.get(name);
+        if (target == null) {
+            throw new UnknownQueueException("Unknown queue: " + name);
+        }
+        return target;
+    }
+
+    /**
+     * 預設隊列 (mq-config.queue-name) 的發送目標，使用預設 JmsTemplate，不限制處理器
+     *
+     * @return 發送目標
+     */
+    public QueueTarget defaultTarget() {
+        return QueueTarget.of(mqConfig.getQueueName(), jmsTemplate);
+    }
+
+    /**
+     * 是否為已設定的隊列名稱 (包含預設隊列)
+     *
+     * @param name 隊列的邏輯名稱
+     * @return 已設定時為 true
+     */
+    public boolean contains(String name) {
+        return name == null || name.isEmpty() || name.equals(mqConfig.getQueueName()) || targets.containsKey(name);
+    }
+
+    /**
+     * 需要建立監聽器容器的隊列
+     *
+     * @return listen 為 true 的隊列設定
+     */
+    public List<MqConfig.QueueDefinition> getListenedQueues() {
+        return mqConfig.getQueues().stream().filter(MqConfig.QueueDefinition::isListen).toList();
+    }
+
+    private JmsTemplate templateFor(MqConfig.QueueDefinition definition) {
+        if (definition.getMessageTtlSeconds() == null && definition.getDeliveryMode() == null) {
+            return jmsTemplate;
+        }
+        JmsTemplate template = new JmsTemplate(jmsTemplate.getConnectionFactory());
+        template.setMessageConverter(jmsTemplate.getMessageConverter());
+        template.setDestinationResolver(jmsTemplate.getDestinationResolver());
+        template.setSessionTransacted(jmsTemplate.isSessionTransacted());
+        template.setExplicitQosEnabled(true);
+        template.setPriority(jmsTemplate.getPriority());
+        template.setTimeToLive(definition.getMessageTtlSeconds() != null
+                ? TimeUnit.SECONDS.toMillis(definition.getMessageTtlSeconds())
+                : jmsTemplate.getTimeToLive());
+        template.setDeliveryMode(definition.getDeliveryMode() != null ? definition.getDeliveryMode().getValue()
+                : jmsTemplate.getDeliveryMode());
+        return template;
+    }
+
+    /**
+     * 單一隊列的發送及接收目標
+     *
+     * @param name        隊列的邏輯名稱
+     * @param destination MQ 上的實際隊列名稱
+     * @param jmsTemplate 套用此隊列 QoS 設定的 JmsTemplate
+     * @param handlers    可處理此隊列訊息的 MessageHandler 名稱，空集合表示不限制
+     */
+    public record QueueTarget(String name, String destination, JmsTemplate jmsTemplate, Set<String> handlers) {
+
+        /**
+         * 建立不限制處理器、名稱與目的地相同的目標
+         */
+        public static QueueTarget of(String destination, JmsTemplate jmsTemplate) {
+            return new QueueTarget(destination, destination, jmsTemplate, Set.of());
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package com.vance.jms.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.jms.JmsException;
+import org.springframework.jms.support.converter.MessageConversionException;
+import org.springframework.stereotype.Service;
+
+import com.vance.jms.config.MqConfig;
+import com.vance.jms.event.ConnectionResumedEvent;
+import com.vance.jms.exception.MqNotConnectedException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.jms.JMSException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 發送端斷路器
+ * 連接標記仍為已連接，但 Queue Manager 回應緩慢或部分失效時，每個請求執行緒都會卡在發送直到客戶端逾時。
+ * 斷路器依最近 windowSize 次發送的錯誤率及延遲百分位數判斷，超過門檻時開啟，開啟期間發送立即拋出
+ * MqNotConnectedException；經過 openDurationSeconds (或收到連接恢復事件) 後進入半開狀態，只放行少量探測發送，
+ * 全部成功才關閉，任一筆失敗或緩慢即再次開啟；探測名額用完後超過 openDurationSeconds 仍未回報結果 (例如非同步發送的 Future
+ * 一直未完成) 也視為失敗並再次開啟。開啟時通知 MqConnectionService 立即檢查連接，讓重連邏輯與發送狀態一致。
+ * 延遲百分位數以緩慢發送的比例判斷：p95 超過門檻等同於超過門檻的發送多於 5%，不需排序延遲。
+ */
+@Slf4j
+@Service
+public class SendCircuitBreaker {
+
+    /**
+     * 斷路器狀態
+     */
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    @Autowired
+    private MqConfig mqConfig;
+
+    @Autowired
+    private MqConnectionService mqConnectionService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger probePermits = new AtomicInteger();
+    private final AtomicInteger probeSuccesses = new AtomicInteger();
+    private volatile boolean enabled;
+    private volatile long openedAtNanos;
+    private volatile long halfOpenedAtNanos;
+
+    // 最近發送結果的環狀視窗，由 this 保護
+    private boolean[] failures;
+    private boolean[] slowCalls;
+    private int next;
+    private int size;
+    private int failureCount;
+    private int slowCount;
+    // 視窗中允許的緩慢發送比例 (百萬分之一)，以整數比較避免 1 - 0.9 之類的浮點誤差
+    private long slowAllowancePpm;
+
+    private Counter rejected;
+    private ExecutorService verifier;
+
+    /**
+     * 依設定建立滑動視窗及指標
+     */
+    @PostConstruct
+    public void init() {
+        MqConfig.CircuitBreaker config = mqConfig.getCircuitBreaker();
+        if (!config.isEnabled()) {
+            return;
+        }
+        int windowSize = Math.max(1, config.getWindowSize());
+        failures = new boolean[windowSize];
+        slowCalls = new boolean[windowSize];
+        slowAllowancePpm = Math.round((1 - config.getLatencyPercentile()) * 1_000_000);
+        rejected = Counter.builder("jms.circuit.rejected").description("斷路器開啟期間拒絕的發送數")
+                .register(meterRegistry);
+        Gauge.builder("jms.circuit.state", state, s -> s.get().ordinal())
+                .description("發送端斷路器狀態 (0 關閉、1 開啟、2 半開)").register(meterRegistry);
+        verifier = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "send-circuit-verifier");
+            thread.setDaemon(true);
+            return thread;
+        });
+        enabled = true;
+        log.info("已啟用發送端斷路器: 錯誤率 {}%，p{} 延遲 {} ms，開啟 {} 秒後以 {} 筆發送探測",
+                config.getFailureRateThreshold(), Math.round(config.getLatencyPercentile() * 100),
+                config.getLatencyThresholdMs(), config.getOpenDurationSeconds(), config.getHalfOpenProbes());
+    }
+
+    /**
+     * 是否已啟用斷路器
+     *
+     * @return 已啟用時為 true
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    /**
+     * 在斷路器保護下執行同步發送
+     *
+     * @param send 發送動作
+     * @return 發送動作的返回值
+     * @throws MqNotConnectedException 斷路器開啟或半開狀態的探測名額已用完時拋出
+     */
+    public <T> T execute(Supplier<T> send) {
+        if (!enabled) {
+            return send.get();
+        }
+        boolean probe = acquirePermission();
+        long start = System.nanoTime();
+        Throwable error = null;
+        try {
+            return send.get();
+        } catch (Throwable e) {
+            error = e;
+            throw e;
+        } finally {
+            // 包含 Error 在內一律記錄結果，否則半開狀態的探測名額不會歸還
+            record(probe, System.nanoTime() - start, error);
+        }
+    }
+
+    /**
+     * 在斷路器保護下執行非同步發送，在 MQ 確認寫入或失敗時記錄結果
+     *
+     * @param send 發送動作
+     * @return 發送動作返回的原 Future
+     * @throws MqNotConnectedException 斷路器開啟或半開狀態的探測名額已用完時拋出
+     */
+    public <T> CompletableFuture<T> executeAsync(Supplier<CompletableFuture<T>> send) {
+        if (!enabled) {
+            return send.get();
+        }
+        boolean probe = acquirePermission();
+        long start = System.nanoTime();
+        CompletableFuture<T> future;
+        try {
+            future = send.get();
+        } catch (Throwable e) {
+            record(probe, System.nanoTime() - start, e);
+            throw e;
+        }
+        future.whenComplete((result, error) -> record(probe, System.nanoTime() - start,
+                error instanceof CompletionException && error.getCause() != null ? error.getCause() : error));
+        return future;
+    }
+
+    /**
+     * 取得發送許可
+     *
+     * @return 此次發送為半開狀態的探測時為 true
+     * @throws MqNotConnectedException 不允許發送時拋出
+     */
+    private boolean acquirePermission() {
+        if (state.get() == State.OPEN) {
+            if (System.nanoTime() - openedAtNanos < openDurationNanos()) {
+                reject();
+            }
+            halfOpen();
+        }
+        if (state.get() == State.HALF_OPEN) {
+            int permits;
+            do {
+                permits = probePermits.get();
+                if (permits <= 0) {
+                    if (System.nanoTime() - halfOpenedAtNanos >= openDurationNanos()) {
+                        trip(String.format("半開探測未在 %d 秒內回報結果",
+                                mqConfig.getCircuitBreaker().getOpenDurationSeconds()));
+                    }
+                    reject();
+                }
+            } while (!probePermits.compareAndSet(permits, permits - 1));
+            return true;
+        }
+        return false;
+    }
+
+    private long openDurationNanos() {
+        return TimeUnit.SECONDS.toNanos(mqConfig.getCircuitBreaker().getOpenDurationSeconds());
+    }
+
+    private void reject() {
+        rejected.increment();
+        throw new MqNotConnectedException("Send circuit breaker is open.");
+    }
+
+    /**
+     * 記錄發送結果
+     * 只有 JMS 異常 (不含訊息轉換失敗，包含非同步發送回呼的 JMSException) 視為失敗；其他異常 (例如內容過大) 與 MQ 健康狀況無關，不列入計算
+     *
+     * @param probe        是否為半開狀態的探測
+     * @param elapsedNanos 發送耗時 (奈秒)
+     * @param error        發送異常，成功時為 null
+     */
+    void record(boolean probe, long elapsedNanos, Throwable error) {
+        MqConfig.CircuitBreaker config = mqConfig.getCircuitBreaker();
+        boolean failure = error instanceof JmsException && !(error instanceof MessageConversionException)
+                || error instanceof JMSException;
+        boolean ignored = error != null && !failure;
+        boolean slow = elapsedNanos > TimeUnit.MILLISECONDS.toNanos(config.getLatencyThresholdMs());
+        if (probe) {
+            if (state.get() != State.HALF_OPEN) {
+                return;
+            }
+            if (failure || (slow && !ignored)) {
+                trip(failure ? "半開探測發送失敗" : "半開探測發送緩慢");
+            } else if (ignored) {
+                probePermits.incrementAndGet();
+            } else if (probeSuccesses.incrementAndGet() >= Math.max(1, config.getHalfOpenProbes())) {
+                closeCircuit();
+            }
+            return;
+        }
+        if (ignored || state.get() != State.CLOSED) {
+            return;
+        }
+        String reason = null;
+        synchronized (this) {
+            if (size == failures.length) {
+                failureCount -= failures[next] ? 1 : 0;
+                slowCount -= slowCalls[next] ? 1 : 0;
+            } else {
+                size++;
+            }
+            failures[next] = failure;
+            slowCalls[next] = slow;
+            failureCount += failure ? 1 : 0;
+            slowCount += slow ? 1 : 0;
+            next = (next + 1) % failures.length;
+            if (size >= Math.max(1, config.getMinimumCalls())) {
+                if (failureCount * 100 >= config.getFailureRateThreshold() * size) {
+                    reason = String.format("錯誤率 %d/%d", failureCount, size);
+                } else if (slowCount * 1_000_000L > slowAllowancePpm * size) {
+                    reason = String.format("p%d 延遲超過 %d ms (%d/%d 筆緩慢)",
+                            Math.round(config.getLatencyPercentile() * 100), config.getLatencyThresholdMs(), slowCount,
+                            size);
+                }
+            }
+        }
+        if (reason != null) {
+            trip(reason);
+        }
+    }
+
+    /**
+     * 開啟斷路器，並請 MqConnectionService 在背景立即檢查連接
+     */
+    private void trip(String reason) {
+        openedAtNanos = System.nanoTime();
+        if (state.getAndSet(State.OPEN) == State.OPEN) {
+            return;
+        }
+        resetWindow();
+        log.error("發送端斷路器開啟，{} 秒內發送將立即失敗。原因: {}",
+                mqConfig.getCircuitBreaker().getOpenDurationSeconds(), reason);
+        verifier.execute(mqConnectionService::verifyConnection);
+    }
+
+    private void halfOpen() {
+        // 先取得狀態轉換再發放探測名額，同時轉換的其他執行緒在名額發放前會被拒絕，不會重複發放
+        if (state.compareAndSet(State.OPEN, State.HALF_OPEN)) {
+            log.info("發送端斷路器進入半開狀態，放行 {} 筆探測發送", startProbes());
+        }
+    }
+
+    /**
+     * 重新發放探測名額並開始計算回報期限
+     *
+     * @return 探測名額
+     */
+    private int startProbes() {
+        int probes = Math.max(1, mqConfig.getCircuitBreaker().getHalfOpenProbes());
+        halfOpenedAtNanos = System.nanoTime();
+        probeSuccesses.set(0);
+        probePermits.set(probes);
+        return probes;
+    }
+
+    private void closeCircuit() {
+        if (state.compareAndSet(State.HALF_OPEN, State.CLOSED)) {
+            resetWindow();
+            log.info("發送端斷路器探測成功，已關閉");
+        }
+    }
+
+    private synchronized void resetWindow() {
+        next = 0;
+        size = 0;
+        failureCount = 0;
+        slowCount = 0;
+    }
+
+    /**
+     * MQ 連接恢復時不必等待開啟時間結束，立即進入半開狀態探測；
+     * 已在半開狀態時，舊連接上的探測可能不會再回報結果，重新發放探測名額
+     *
+     * @param event 連接恢復事件
+     */
+    @EventListener
+    public void handleConnectionResumed(ConnectionResumedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (state.get() == State.OPEN) {
+            halfOpen();
+        } else if (state.get() == State.HALF_OPEN) {
+            log.info("MQ 連接已恢復，重新放行 {} 筆探測發送", startProbes());
+        }
+    }
+
+    /**
+     * 獲取斷路器統計資訊
+     *
+     * @return 是否啟用、目前狀態、視窗中的錯誤及緩慢發送數量與拒絕次數
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("enabled", enabled);
+        if (enabled) {
+            statistics.put("state", state.get());
+            synchronized (this) {
+                statistics.put("calls", size);
+                statistics.put("failures", failureCount);
+                statistics.put("slowCalls", slowCount);
+            }
+            statistics.put("rejected", (long) rejected.count());
+        }
+        return statistics;
+    }
+
+    /**
+     * 停止背景檢查執行緒
+     */
+    @PreDestroy
+    public void close() {
+        if (verifier != null) {
+            verifier.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.vance.jms.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ssl.SslBundles;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.google.common.collect.Iterables;
+import com.google.common.hash.Hashing;
+import com.ibm.mq.jakarta.jms.MQConnectionFactory;
+import com.ibm.mq.spring.boot.MQConfigurationProperties;
+import com.ibm.mq.spring.boot.MQConnectionFactoryCustomizer;
+import com.ibm.mq.spring.boot.MQConnectionFactoryFactory;
+import com.vance.jms.config.MqConfig;
+import com.vance.jms.config.PooledConnectionFactory;
+import com.vance.jms.exception.MqNotConnectedException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 發送端分流服務
+ * 依 mq-config.sharding 為每個 Queue Manager 建立 QueueManagerShard，發送時選出一個健康的節點：
+ * CONSISTENT_HASH 以訊息鍵在一致性雜湊環上找出節點，相同鍵固定發送到同一個節點，節點中斷時沿環找下一個健康節點，
+ * 只有原本分配到中斷節點的鍵會移動；沒有訊息鍵或 WEIGHTED_ROUND_ROBIN 時以平滑加權輪詢分配。
+ */
+@Slf4j
+@Service
+public class ShardRouter {
+
+    @Autowired
+    private MqConfig mqConfig;
+
+    @Autowired
+    private MQConfigurationProperties mqProperties;
+
+    @Autowired
+    private ObjectProvider<SslBundles> sslBundles;
+
+    @Autowired
+    private ObjectProvider<List<MQConnectionFactoryCustomizer>> factoryCustomizers;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JmsTemplate jmsTemplate;
+
+    private List<QueueManagerShard> shards = List.of();
+    // 一致性雜湊環：虛擬節點的雜湊值 -> 節點
+    private final NavigableMap<Integer, QueueManagerShard> ring = new TreeMap<>();
+    // 平滑加權輪詢中各節點目前的權重，索引與 shards 相同
+    private int[] currentWeights = new int[0];
+    private Counter failovers;
+
+    /**
+     * 依設定建立各節點的連接池並檢查一次健康狀態，未啟用或沒有設定節點時不分流
+     */
+    @PostConstruct
+    public void init() {
+        MqConfig.Sharding sharding = mqConfig.getSharding();
+        if (!sharding.isEnabled()) {
+            return;
+        }
+        if (sharding.getShards().isEmpty()) {
+            log.warn("已啟用分流但未設定 mq-config.sharding.shards，所有訊息發送到 ibm.mq 設定的 Queue Manager");
+            return;
+        }
+        List<QueueManagerShard> created = new ArrayList<>();
+        for (MqConfig.Shard shard : sharding.getShards()) {
+            created.add(createShard(shard));
+        }
+        register(created);
+        checkHealth();
+    }
+
+    /**
+     * 登記分流節點，建立一致性雜湊環及指標
+     *
+     * @param created 分流節點
+     */
+    void register(List<QueueManagerShard> created) {
+        int virtualNodes = Math.max(1, mqConfig.getSharding().getVirtualNodes());
+        for (QueueManagerShard shard : created) {
+            for (int i = 0; i < virtualNodes * shard.getWeight(); i++) {
+                ring.put(hash(shard.getName() + "#" + i), shard);
+            }
+            Gauge.builder("jms.shard.healthy", shard, s -> s.isHealthy() ? 1 : 0)
+                    .description("分流節點是否可以發送").tag("shard", shard.getName()).register(meterRegistry);
+        }
+        failovers = Counter.builder("jms.shard.failovers").description("因節點中斷改發送到其他節點的次數")
+                .register(meterRegistry);
+        currentWeights = new int[created.size()];
+        shards = List.copyOf(created);
+        log.info("已啟用分流: {} 個節點 {}，策略 {}", shards.size(),
+                shards.stream().map(QueueManagerShard::getName).toList(), mqConfig.getSharding().getStrategy());
+    }
+
+    private QueueManagerShard createShard(MqConfig.Shard shard) {
+        MQConfigurationProperties properties = new MQConfigurationProperties();
+        properties.setQueueManager(shard.getQueueManager());
+        properties.setConnName(shard.getConnName());
+        properties.setChannel(shard.getChannel().isEmpty() ? mqProperties.getChannel() : shard.getChannel());
+        properties.setUser(shard.getUser().isEmpty() ? mqProperties.getUser() : shard.getUser());
+        properties.setPassword(shard.getPassword().isEmpty() ? mqProperties.getPassword() : shard.getPassword());
+        properties.setApplicationName(mqProperties.getApplicationName());
+        properties.setSslCipherSuite(mqProperties.getSslCipherSuite());
+        properties.setSslPeerName(mqProperties.getSslPeerName());
+        properties.setSslBundle(mqProperties.getSslBundle());
+        MQConnectionFactory connectionFactory = new MQConnectionFactoryFactory(properties,
+                sslBundles.getIfAvailable(), factoryCustomizers.getIfAvailable())
+                .createConnectionFactory(MQConnectionFactory.class);
+
+        MqConfig.Pool pool = mqConfig.getPool();
+        PooledConnectionFactory pooledConnectionFactory = new PooledConnectionFactory(connectionFactory);
+        pooledConnectionFactory.setSessionCacheSize(pool.getSessionCacheSize());
+        pooledConnectionFactory.setCacheProducers(pool.isCacheProducers());
+        pooledConnectionFactory.setCacheConsumers(false);
+        pooledConnectionFactory.setReconnectOnException(true);
+        AsyncProducerPool asyncProducerPool = new AsyncProducerPool(connectionFactory, jmsTemplate, mqConfig);
+        return new QueueManagerShard(shard.resolveName(), shard.getWeight(), connectionFactory,
+                pooledConnectionFactory, asyncProducerPool);
+    }
+
+    /**
+     * 是否已啟用分流
+     *
+     * @return 已登記分流節點時為 true
+     */
+    public boolean isEnabled() {
+        return !shards.isEmpty();
+    }
+
+    /**
+     * 是否至少有一個節點可以發送
+     *
+     * @return 有健康的節點時為 true
+     */
+    public boolean hasHealthyShard() {
+        for (QueueManagerShard shard : shards) {
+            if (shard.isHealthy()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 選出發送的節點
+     *
+     * @param key 訊息鍵 (例如 CustomMessage 的 id)，null 時以加權輪詢分配
+     * @return 健康的節點
+     * @throws MqNotConnectedException 所有節點都無法連接時拋出
+     */
+    public QueueManagerShard route(String key) {
+        if (key != null && mqConfig.getSharding().getStrategy() == MqConfig.Sharding.Strategy.CONSISTENT_HASH) {
+            return routeByHash(key);
+        }
+        return routeByWeight();
+    }
+
+    private QueueManagerShard routeByHash(String key) {
+        int hash = hash(key);
+        QueueManagerShard owner = null;
+        // 從鍵的位置沿環順時針找第一個健康的節點，繞一圈都沒有時表示全部中斷
+        for (QueueManagerShard shard : Iterables.concat(ring.tailMap(hash, true).values(),
+                ring.headMap(hash, false).values())) {
+            if (owner == null) {
+                owner = shard;
+            }
+            if (shard.isHealthy()) {
+                if (shard != owner) {
+                    failovers.increment();
+                }
+                return shard;
+            }
+        }
+        throw new MqNotConnectedException("No healthy queue manager shard.");
+    }
+
+    /**
+     * 平滑加權輪詢：每次為健康節點加上各自的權重，選出目前權重最大者後扣除健康節點的權重總和，
+     * 權重 5:1:1 的節點會依 a a b a c a a 的順序分配，而不是連續分配給同一個節點
+     */
+    private synchronized QueueManagerShard routeByWeight() {
+        int total = 0;
+        int selected = -1;
+        for (int i = 0; i < shards.size(); i++) {
+            QueueManagerShard shard = shards.get(i);
+            if (!shard.isHealthy()) {
+                continue;
+            }
+            currentWeights[i] += shard.getWeight();
+            total += shard.getWeight();
+            if (selected < 0 || currentWeights[i] > currentWeights[selected]) {
+                selected = i;
+            }
+        }
+        if (selected < 0) {
+            throw new MqNotConnectedException("No healthy queue manager shard.");
+        }
+        currentWeights[selected] -= total;
+        return shards.get(selected);
+    }
+
+    private static int hash(String key) {
+        return Hashing.murmur3_32_fixed().hashString(key, StandardCharsets.UTF_8).asInt();
+    }
+
+    /**
+     * 定期檢查各節點健康狀態，中斷的節點嘗試重新連接
+     */
+    @Scheduled(fixedDelayString = "#{@mqConfig.sharding.healthCheckIntervalSeconds * 1000}")
+    public void checkHealth() {
+        for (QueueManagerShard shard : shards) {
+            shard.checkHealth();
+        }
+    }
+
+    /**
+     * 獲取分流統計資訊
+     *
+     * @return 是否啟用、策略及各節點的健康狀態與連接池使用情況
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("enabled", isEnabled());
+        if (isEnabled()) {
+            statistics.put("strategy", mqConfig.getSharding().getStrategy());
+            statistics.put("failovers", (long) failovers.count());
+            List<Map<String, Object>> nodes = new ArrayList<>();
+            for (QueueManagerShard shard : shards) {
+                Map<String, Object> node = new LinkedHashMap<>();
+                node.put("name", shard.getName());
+                node.put("weight", shard.getWeight());
+                node.put("healthy", shard.isHealthy());
+                node.put("sessionRequests", shard.getPooledConnectionFactory().getSessionRequests());
+                node.put("connectionCreations", shard.getPooledConnectionFactory().getConnectionCreations());
+                nodes.add(node);
+            }
+            statistics.put("shards", nodes);
+        }
+        return statistics;
+    }
+
+    /**
+     * 關閉各節點的監控連接及連接池
+     */
+    @PreDestroy
+    public void close() {
+        for (QueueManagerShard shard : shards) {
+            shard.close();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.vance.jms.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import jakarta.jms.ConnectionFactory;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageConsumer;
+import jakarta.jms.Session;
+import jakarta.jms.TextMessage;
+
+@ExtendWith(MockitoExtension.class)
+public class BatchMessageListenerContainerTest {
+
+    private static final long BATCH_RECEIVE_TIMEOUT = 50;
+
+    @Mock
+    private Session session;
+
+    @Mock
+    private MessageConsumer consumer;
+
+    @Mock
+    private BatchMessageHandler batchMessageHandler;
+
+    @Mock
+    private ConnectionFactory connectionFactory;
+
+    // messageReceived/noMessageReceived 需要容器內部的 invoker，測試中直接呼叫 doReceiveAndExecute 時略過
+    private final BatchMessageListenerContainer container = new BatchMessageListenerContainer() {
+        @Override
+        protected void messageReceived(Object invoker, Session session) {
+        }
+
+        @Override
+        protected void noMessageReceived(Object invoker, Session session) {
+        }
+    };
+
+    @BeforeEach
+    void setUp() throws JMSException {
+        lenient().when(session.getTransacted()).thenReturn(true);
+        container.setConnectionFactory(connectionFactory);
+        container.setSessionTransacted(true);
+        container.setAcceptMessagesWhileStopping(true);
+        container.setReceiveTimeout(10);
+        container.setBatchSize(3);
+        container.setBatchReceiveTimeout(BATCH_RECEIVE_TIMEOUT);
+        container.setBatchMessageHandler(batchMessageHandler);
+    }
+
+    // Test Case 1: A full batch is handed to the handler in order and committed once
+    @Test
+    void testFullBatch_ShouldCommitOnce() throws Exception {
+        List<Message> messages = List.of(mock(TextMessage.class), mock(TextMessage.class), mock(TextMessage.class));
+        when(consumer.receive(anyLong())).thenReturn(messages.get(0), messages.get(1), messages.get(2));
+
+        assertTrue(container.doReceiveAndExecute(null, session, consumer, null));
+
+        verify(batchMessageHandler).onMessages(messages);
+        verify(session, times(1)).commit();
+        verify(session, never()).rollback();
+        assertEquals(3, container.getHandledCount());
+    }
+
+    // Test Case 2: A partial batch is committed once batchReceiveTimeout expires
+    @Test
+    void testPartialBatch_ShouldCommitAfterReceiveTimeout() throws Exception {
+        Message first = mock(TextMessage.class);
+        when(consumer.receive(anyLong())).thenReturn(first).thenAnswer(invocation -> {
+            Thread.sleep(invocation.<Long>getArgument(0));
+            return null;
+        });
+        long start = System.nanoTime();
+
+        assertTrue(container.doReceiveAndExecute(null, session, consumer, null));
+
+        assertTrue(System.nanoTime() - start >= BATCH_RECEIVE_TIMEOUT * 1_000_000 / 2,
+                "Batch should wait for more messages before committing.");
+        verify(batchMessageHandler).onMessages(List.of(first));
+        verify(session, times(1)).commit();
+    }
+
+    // Test Case 3: A failing handler rolls back the whole batch without committing
+    @Test
+    void testHandlerFailure_ShouldRollbackWholeBatch() throws Exception {
+        List<Message> messages = List.of(mock(TextMessage.class), mock(TextMessage.class), mock(TextMessage.class));
+        when(consumer.receive(anyLong())).thenReturn(messages.get(0), messages.get(1), messages.get(2));
+        doThrow(new JMSException("handler failed")).when(batchMessageHandler).onMessages(messages);
+
+        assertTrue(container.doReceiveAndExecute(null, session, consumer, null));
+
+        verify(session, times(1)).rollback();
+        verify(session, never()).commit();
+    }
+
+    // Test Case 4: No message within receiveTimeout does not invoke the handler
+    @Test
+    void testNoMessage_ShouldNotInvokeHandler() throws Exception {
+        when(consumer.receive(anyLong())).thenReturn(null);
+
+        assertFalse(container.doReceiveAndExecute(null, session, consumer, null));
+
+        verify(batchMessageHandler, never()).onMessages(anyList());
+    }
+}
@@ -0,0 +1,127 @@
+package com.vance.jms.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jms.support.converter.MessageConversionException;
+import org.springframework.jms.support.converter.MessageConverter;
+
+import com.vance.jms.constant.Constant;
+import com.vance.jms.model.CustomMessage;
+
+import jakarta.jms.BytesMessage;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.Session;
+import jakarta.jms.TextMessage;
+
+@ExtendWith(MockitoExtension.class)
+public class BinaryMessageConverterTest {
+
+    @Mock
+    private MessageConverter fallback;
+
+    @Mock
+    private Session session;
+
+    private BinaryMessageConverter converter;
+
+    @BeforeEach
+    void setUp() {
+        converter = new BinaryMessageConverter(fallback, List.of(new CustomMessageBinaryCodec()));
+    }
+
+    // Test Case 1: CustomMessage is written as a typed BytesMessage and read back
+    @Test
+    void testCustomMessage_ShouldRoundTrip() throws JMSException {
+        CustomMessage original = new CustomMessage("id-1", "內容 content", 1234567890L);
+
+        byte[] body = encode(original);
+
+        assertEquals(original, converter.fromMessage(binaryMessage(Constant.BinaryType.CUSTOM_MESSAGE, body)));
+    }
+
+    // Test Case 2: Null fields survive the round trip
+    @Test
+    void testCustomMessage_WithNullFields_ShouldRoundTrip() throws JMSException {
+        CustomMessage original = new CustomMessage(null, null, 0L);
+
+        byte[] body = encode(original);
+
+        assertEquals(original, converter.fromMessage(binaryMessage(Constant.BinaryType.CUSTOM_MESSAGE, body)));
+    }
+
+    // Test Case 3: Unregistered types and plain messages go to the fallback converter
+    @Test
+    void testUnregisteredType_ShouldUseFallback() throws JMSException {
+        TextMessage textMessage = mock(TextMessage.class);
+        when(fallback.toMessage("text", session)).thenReturn(textMessage);
+        when(fallback.fromMessage(textMessage)).thenReturn("text");
+
+        assertSame(textMessage, converter.toMessage("text", session));
+        assertEquals("text", converter.fromMessage(textMessage));
+    }
+
+    // Test Case 4: Unknown type ids and truncated bodies are rejected
+    @Test
+    void testInvalidMessage_ShouldThrowException() throws JMSException {
+        byte[] body = encode(CustomMessage.of("id-1", "content"));
+
+        assertThrows(MessageConversionException.class, () -> converter.fromMessage(binaryMessage((short) 99, body)));
+        assertThrows(MessageConversionException.class, () -> converter
+                .fromMessage(binaryMessage(Constant.BinaryType.CUSTOM_MESSAGE, Arrays.copyOf(body, body.length - 3))));
+    }
+
+    // Test Case 5: Duplicate type ids are rejected when registering codecs
+    @Test
+    void testDuplicateTypeId_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> new BinaryMessageConverter(fallback,
+                List.of(new CustomMessageBinaryCodec(), new CustomMessageBinaryCodec())));
+    }
+
+    /**
+     * 以轉換器編碼並取得寫入 BytesMessage 的本文
+     */
+    private byte[] encode(CustomMessage message) throws JMSException {
+        BytesMessage bytesMessage = mock(BytesMessage.class);
+        byte[][] written = new byte[1][];
+        when(session.createBytesMessage()).thenReturn(bytesMessage);
+        doAnswer(invocation -> written[0] = invocation.getArgument(0)).when(bytesMessage).writeBytes(any(byte[].class));
+
+        Message result = converter.toMessage(message, session);
+
+        assertSame(bytesMessage, result);
+        verify(bytesMessage).setShortProperty(Constant.BinaryType.TYPE_ID_PROPERTY, Constant.BinaryType.CUSTOM_MESSAGE);
+        return written[0];
+    }
+
+    /**
+     * 建立一個帶有型別 ID 的二進制訊息
+     */
+    private static BytesMessage binaryMessage(short typeId, byte[] body) throws JMSException {
+        BytesMessage message = mock(BytesMessage.class);
+        ByteArrayInputStream in = new ByteArrayInputStream(body);
+        lenient().when(message.propertyExists(Constant.BinaryType.TYPE_ID_PROPERTY)).thenReturn(true);
+        lenient().when(message.getShortProperty(Constant.BinaryType.TYPE_ID_PROPERTY)).thenReturn(typeId);
+        lenient().when(message.getBodyLength()).thenReturn((long) body.length);
+        lenient().when(message.readBytes(any(byte[].class)))
+                .thenAnswer(invocation -> in.read(invocation.getArgument(0)));
+        return message;
+    }
+}
@@ -0,0 +1,90 @@
+package com.vance.jms.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import jakarta.jms.Connection;
+import jakarta.jms.ConnectionFactory;
+import jakarta.jms.JMSException;
+import jakarta.jms.Session;
+
+@ExtendWith(MockitoExtension.class)
+public class PooledConnectionFactoryTest {
+
+    @Mock
+    private ConnectionFactory targetConnectionFactory;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private Session session;
+
+    private PooledConnectionFactory pooledConnectionFactory;
+
+    @BeforeEach
+    void setUp() throws JMSException {
+        lenient().when(targetConnectionFactory.createConnection()).thenReturn(connection);
+        lenient().when(connection.createSession(anyBoolean(), anyInt())).thenReturn(session);
+        lenient().when(connection.createSession(anyInt())).thenReturn(session);
+        pooledConnectionFactory = new PooledConnectionFactory(targetConnectionFactory);
+        pooledConnectionFactory.setReconnectOnException(false);
+    }
+
+    // Test Case 1: A closed session is returned to the cache and counted as a hit on the next request
+    @Test
+    void testGetSession_CachedSession_ShouldCountHit() throws JMSException {
+        Connection shared = pooledConnectionFactory.createConnection();
+
+        shared.createSession(false, Session.AUTO_ACKNOWLEDGE).close();
+        shared.createSession(false, Session.AUTO_ACKNOWLEDGE).close();
+
+        assertEquals(2, pooledConnectionFactory.getSessionRequests());
+        assertEquals(1, pooledConnectionFactory.getSessionMisses());
+        assertEquals(1, pooledConnectionFactory.getSessionHits());
+        assertEquals(1, pooledConnectionFactory.getConnectionCreations());
+        assertTrue(pooledConnectionFactory.getMaxSessionWaitNanos() <= pooledConnectionFactory.getSessionWaitNanos());
+    }
+
+    // Test Case 2: Sessions held at the same time each create a physical session
+    @Test
+    void testGetSession_SessionsInUse_ShouldCountMisses() throws JMSException {
+        Connection shared = pooledConnectionFactory.createConnection();
+
+        Session first = shared.createSession(false, Session.AUTO_ACKNOWLEDGE);
+        Session second = shared.createSession(false, Session.AUTO_ACKNOWLEDGE);
+        first.close();
+        second.close();
+
+        assertEquals(2, pooledConnectionFactory.getSessionRequests());
+        assertEquals(2, pooledConnectionFactory.getSessionMisses());
+        assertEquals(0, pooledConnectionFactory.getSessionHits());
+    }
+
+    // Test Case 3: Resetting closes the shared connection and the next request creates a new one
+    @Test
+    void testResetConnection_ShouldRecreateConnection() throws JMSException {
+        pooledConnectionFactory.createConnection().createSession(false, Session.AUTO_ACKNOWLEDGE).close();
+
+        pooledConnectionFactory.resetConnection();
+        pooledConnectionFactory.createConnection().createSession(false, Session.AUTO_ACKNOWLEDGE).close();
+
+        assertEquals(1, pooledConnectionFactory.getResets());
+        assertEquals(2, pooledConnectionFactory.getConnectionCreations());
+        assertEquals(2, pooledConnectionFactory.getSessionMisses());
+        verify(connection).close();
+        verify(targetConnectionFactory, times(2)).createConnection();
+    }
+}
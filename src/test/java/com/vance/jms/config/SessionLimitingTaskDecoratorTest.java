@@ -0,0 +1,80 @@
+package com.vance.jms.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class SessionLimitingTaskDecoratorTest {
+
+    private static final int LIMIT = 2;
+
+    private final Semaphore sessionPermits = new Semaphore(LIMIT);
+
+    private final SessionLimitingTaskDecorator decorator = new SessionLimitingTaskDecorator(sessionPermits);
+
+    // Test Case 1: The permit is released when the consumer task throws
+    @Test
+    void testDecorate_TaskThrows_ShouldReleasePermit() {
+        Runnable task = decorator.decorate(() -> {
+            throw new IllegalStateException("listener failed");
+        });
+
+        for (int i = 0; i < LIMIT + 1; i++) {
+            assertThrows(IllegalStateException.class, task::run);
+        }
+
+        assertEquals(LIMIT, sessionPermits.availablePermits());
+    }
+
+    // Test Case 2: Tasks running at the same time never exceed the permit count
+    @Test
+    void testDecorate_ConcurrentTasks_ShouldNotExceedLimit() throws InterruptedException {
+        int tasks = 8;
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(tasks);
+        ExecutorService executor = Executors.newFixedThreadPool(tasks);
+        try {
+            for (int i = 0; i < tasks; i++) {
+                Runnable task = decorator.decorate(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(20);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        running.decrementAndGet();
+                    }
+                });
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                        task.run();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            start.countDown();
+
+            assertTrue(done.await(5, TimeUnit.SECONDS), "Tasks did not finish within 5 seconds.");
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(LIMIT, maxRunning.get());
+        assertEquals(LIMIT, sessionPermits.availablePermits());
+    }
+}
@@ -0,0 +1,193 @@
+package com.vance.jms.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.vance.jms.config.MqConfig;
+import com.vance.jms.constant.Constant;
+import com.vance.jms.exception.ChunkGroupLimitException;
+
+import jakarta.jms.BytesMessage;
+import jakarta.jms.JMSException;
+
+@ExtendWith(MockitoExtension.class)
+public class ChunkReassemblerTest {
+
+    @Spy
+    private MqConfig mqConfig = new MqConfig();
+
+    @InjectMocks
+    private ChunkReassembler chunkReassembler;
+
+    @TempDir
+    Path directory;
+
+    // Test Case 1: Chunks are joined in order and returned only after the last chunk
+    @Test
+    void testAppend_InOrder_ShouldReturnJoinedContent() throws Exception {
+        assertNull(chunkReassembler.append(chunk("g1", 1, false, 7, "abc")));
+        assertNull(chunkReassembler.append(chunk("g1", 2, false, 7, "de")));
+        InputStream in = chunkReassembler.append(chunk("g1", 3, true, 7, "fg"));
+
+        assertNotNull(in);
+        assertArrayEquals("abcdefg".getBytes(), in.readAllBytes());
+        assertEquals(1L, chunkReassembler.getStatistics().get("completed"));
+        assertEquals(0, chunkReassembler.getStatistics().get("openGroups"));
+    }
+
+    // Test Case 2: Redelivered chunks are ignored
+    @Test
+    void testAppend_DuplicateChunk_ShouldBeIgnored() throws Exception {
+        chunkReassembler.append(chunk("g1", 1, false, 4, "ab"));
+        assertNull(chunkReassembler.append(chunk("g1", 1, false, 4, "ab")));
+        InputStream in = chunkReassembler.append(chunk("g1", 2, true, 4, "cd"));
+
+        assertArrayEquals("abcd".getBytes(), in.readAllBytes());
+    }
+
+    // Test Case 3: Groups over the memory threshold spill to a file that is deleted on close
+    @Test
+    void testAppend_OverMemoryThreshold_ShouldSpillToFile() throws Exception {
+        mqConfig.getChunking().setMemoryThresholdBytes(4);
+        mqConfig.getChunking().setSpoolDirectory(directory.toString());
+
+        chunkReassembler.append(chunk("g1", 1, false, 10, "01234"));
+        try (InputStream in = chunkReassembler.append(chunk("g1", 2, true, 10, "56789"))) {
+            assertEquals(1, countFiles());
+            assertArrayEquals("0123456789".getBytes(), in.readAllBytes());
+        }
+        assertEquals(0, countFiles());
+    }
+
+    // Test Case 4: A length mismatch discards the group and later chunks of it are ignored
+    @Test
+    void testAppend_LengthMismatch_ShouldDiscardGroup() throws Exception {
+        chunkReassembler.append(chunk("g1", 1, false, 9, "ab"));
+
+        assertNull(chunkReassembler.append(chunk("g1", 2, true, 9, "cd")));
+        assertNull(chunkReassembler.append(chunk("g1", 2, true, 9, "cd")));
+        assertEquals(1L, chunkReassembler.getStatistics().get("discarded"));
+    }
+
+    // Test Case 5: An out-of-order chunk is buffered without blocking and joined once the missing chunk arrives
+    @Test
+    void testAppend_OutOfOrder_ShouldBufferUntilPreviousChunk() throws Exception {
+        chunkReassembler.append(chunk("g1", 1, false, 6, "ab"));
+
+        assertNull(chunkReassembler.append(chunk("g1", 3, true, 6, "ef")));
+        InputStream in = chunkReassembler.append(chunk("g1", 2, false, 6, "cd"));
+
+        assertArrayEquals("abcdef".getBytes(), in.readAllBytes());
+    }
+
+    // Test Case 6: Out-of-order chunks over the memory threshold are spooled and their files deleted after joining
+    @Test
+    void testAppend_OutOfOrderOverMemoryThreshold_ShouldSpoolPendingChunk() throws Exception {
+        mqConfig.getChunking().setMemoryThresholdBytes(4);
+        mqConfig.getChunking().setSpoolDirectory(directory.toString());
+
+        chunkReassembler.append(chunk("g1", 1, false, 9, "012"));
+        assertNull(chunkReassembler.append(chunk("g1", 3, true, 9, "678")));
+        assertEquals(1, countFiles());
+
+        try (InputStream in = chunkReassembler.append(chunk("g1", 2, false, 9, "345"))) {
+            assertArrayEquals("012345678".getBytes(), in.readAllBytes());
+        }
+        assertEquals(0, countFiles());
+    }
+
+    // Test Case 7: A missing chunk that never arrives discards the group and its buffered chunks on expiry
+    @Test
+    void testExpireGroups_MissingChunk_ShouldDiscardBufferedChunks() throws Exception {
+        mqConfig.getChunking().setMemoryThresholdBytes(0);
+        mqConfig.getChunking().setSpoolDirectory(directory.toString());
+        mqConfig.getChunking().setGroupTimeoutSeconds(0);
+        chunkReassembler.append(chunk("g1", 1, false, 6, "ab"));
+        assertNull(chunkReassembler.append(chunk("g1", 3, true, 6, "ef")));
+        Thread.sleep(5);
+
+        chunkReassembler.expireGroups();
+
+        assertEquals(1L, chunkReassembler.getStatistics().get("discarded"));
+        assertEquals(0, chunkReassembler.getStatistics().get("openGroups"));
+        assertEquals(0, countFiles());
+    }
+
+    // Test Case 8: Opening more groups than allowed is rejected so the listener rolls the chunk back
+    @Test
+    void testAppend_TooManyOpenGroups_ShouldThrowException() throws Exception {
+        mqConfig.getChunking().setMaxOpenGroups(1);
+        chunkReassembler.append(chunk("g1", 1, false, 4, "ab"));
+
+        assertThrows(ChunkGroupLimitException.class,
+                () -> chunkReassembler.append(chunk("g2", 1, false, 4, "ab")));
+        assertTrue(chunkReassembler.isChunk(chunk("g1", 2, true, 4, "cd")));
+    }
+
+    // Test Case 9: An abort from the sender discards the group at once, and later chunks of it are ignored
+    @Test
+    void testAppend_Aborted_ShouldDiscardGroupImmediately() throws Exception {
+        mqConfig.getChunking().setMemoryThresholdBytes(0);
+        mqConfig.getChunking().setSpoolDirectory(directory.toString());
+        chunkReassembler.append(chunk("g1", 1, false, -1, "ab"));
+        assertEquals(1, countFiles());
+
+        BytesMessage abort = chunk("g1", 2, false, -1, "");
+        when(abort.getBooleanProperty(Constant.ChunkProperty.ABORTED)).thenReturn(true);
+        assertNull(chunkReassembler.append(abort));
+
+        assertEquals(0, countFiles());
+        assertEquals(0, chunkReassembler.getStatistics().get("openGroups"));
+        assertEquals(1L, chunkReassembler.getStatistics().get("aborted"));
+        assertEquals(0L, chunkReassembler.getStatistics().get("discarded"));
+        assertNull(chunkReassembler.append(chunk("g1", 2, true, 4, "cd")));
+        assertEquals(0, chunkReassembler.getStatistics().get("openGroups"));
+    }
+
+    private long countFiles() throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    /**
+     * 建立一段可讀取內容的分段訊息
+     */
+    private static BytesMessage chunk(String groupId, int seq, boolean last, long total, String data)
+            throws JMSException {
+        BytesMessage message = mock(BytesMessage.class);
+        ByteArrayInputStream body = new ByteArrayInputStream(data.getBytes());
+        lenient().when(message.propertyExists(Constant.ChunkProperty.GROUP_ID)).thenReturn(true);
+        lenient().when(message.getStringProperty(Constant.ChunkProperty.GROUP_ID)).thenReturn(groupId);
+        lenient().when(message.getIntProperty(Constant.ChunkProperty.SEQ)).thenReturn(seq);
+        lenient().when(message.getBooleanProperty(Constant.ChunkProperty.LAST)).thenReturn(last);
+        lenient().when(message.getLongProperty(Constant.ChunkProperty.TOTAL_LENGTH)).thenReturn(total);
+        lenient().when(message.getBodyLength()).thenReturn((long) data.length());
+        lenient().when(message.readBytes(any(byte[].class))).thenAnswer(invocation -> {
+            int read = body.read(invocation.getArgument(0));
+            return read == -1 ? -1 : read;
+        });
+        return message;
+    }
+}
@@ -0,0 +1,94 @@
+package com.vance.jms.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.vance.jms.config.PooledConnectionFactory;
+import com.vance.jms.event.ConnectionPausedEvent;
+import com.vance.jms.event.ConnectionResumedEvent;
+
+@ExtendWith(MockitoExtension.class)
+public class ConnectionPoolServiceTest {
+
+    @Mock
+    private PooledConnectionFactory pooledConnectionFactory;
+
+    @InjectMocks
+    private ConnectionPoolService connectionPoolService;
+
+    private ConnectionPausedEvent paused() {
+        return new ConnectionPausedEvent(this, LocalDateTime.now().plusSeconds(30));
+    }
+
+    // Test Case 1: The pool is reset when the connection is paused
+    @Test
+    void testHandleConnectionPaused_ShouldResetPool() {
+        connectionPoolService.handleConnectionPaused(paused());
+
+        verify(pooledConnectionFactory).resetConnection();
+    }
+
+    // Test Case 2: The pool is reset when the connection resumes so sends use a new connection
+    @Test
+    void testHandleConnectionResumed_ShouldRecreatePool() {
+        connectionPoolService.handleConnectionPaused(paused());
+        connectionPoolService.handleConnectionResumed(new ConnectionResumedEvent(this));
+
+        verify(pooledConnectionFactory, times(2)).resetConnection();
+    }
+
+    // Test Case 3: A failing reset is logged and not propagated to the event publisher
+    @Test
+    void testHandleConnectionResumed_ResetFails_ShouldNotThrow() {
+        doThrow(new IllegalStateException("close failed")).when(pooledConnectionFactory).resetConnection();
+
+        connectionPoolService.handleConnectionResumed(new ConnectionResumedEvent(this));
+
+        verify(pooledConnectionFactory).resetConnection();
+    }
+
+    // Test Case 4: Statistics expose the pool counters and the average wait per request
+    @Test
+    void testGetStatistics_ShouldReportCounters() {
+        when(pooledConnectionFactory.getSessionCacheSize()).thenReturn(10);
+        when(pooledConnectionFactory.getSessionRequests()).thenReturn(4L);
+        when(pooledConnectionFactory.getSessionHits()).thenReturn(3L);
+        when(pooledConnectionFactory.getSessionMisses()).thenReturn(1L);
+        when(pooledConnectionFactory.getSessionWaitNanos()).thenReturn(8_000L);
+        when(pooledConnectionFactory.getMaxSessionWaitNanos()).thenReturn(5_000L);
+        when(pooledConnectionFactory.getConnectionCreations()).thenReturn(2L);
+        when(pooledConnectionFactory.getResets()).thenReturn(1L);
+
+        Map<String, Object> statistics = connectionPoolService.getStatistics();
+
+        assertEquals(10, statistics.get("sessionCacheSize"));
+        assertEquals(4L, statistics.get("sessionRequests"));
+        assertEquals(3L, statistics.get("sessionHits"));
+        assertEquals(1L, statistics.get("sessionMisses"));
+        assertEquals(2L, statistics.get("averageWaitMicros"));
+        assertEquals(5L, statistics.get("maxWaitMicros"));
+        assertEquals(2L, statistics.get("connectionCreations"));
+        assertEquals(1L, statistics.get("resets"));
+    }
+
+    // Test Case 5: No requests yet reports a zero average instead of dividing by zero
+    @Test
+    void testGetStatistics_NoRequests_ShouldReportZeroAverage() {
+        Map<String, Object> statistics = connectionPoolService.getStatistics();
+
+        assertEquals(0L, statistics.get("averageWaitMicros"));
+        assertEquals(0L, statistics.get("sessionRequests"));
+    }
+}
@@ -0,0 +1,118 @@
+package com.vance.jms.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.vance.jms.config.MqConfig;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+public class IdempotencyFilterTest {
+
+    @Spy
+    private MqConfig mqConfig = new MqConfig();
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private IdempotencyFilter idempotencyFilter;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        mqConfig.getIdempotency().setEnabled(true);
+        mqConfig.getIdempotency().setWindowMinutes(10);
+        mqConfig.getIdempotency().setMaxEntries(3);
+    }
+
+    // Test Case 1: The filter stays disabled unless configured
+    @Test
+    void testInit_Disabled_ShouldNotFilter() {
+        mqConfig.getIdempotency().setEnabled(false);
+
+        idempotencyFilter.init();
+
+        assertFalse(idempotencyFilter.isEnabled());
+        assertEquals(false, idempotencyFilter.getStatistics().get("enabled"));
+    }
+
+    // Test Case 2: Only ids marked as processed are reported as duplicates
+    @Test
+    void testIsDuplicate_AfterMarkProcessed_ShouldReturnTrue() {
+        idempotencyFilter.init();
+
+        assertFalse(idempotencyFilter.isDuplicate("id-1", 1000));
+        idempotencyFilter.markProcessed("id-1", 1000);
+
+        assertTrue(idempotencyFilter.isDuplicate("id-1", 2000));
+        assertFalse(idempotencyFilter.isDuplicate("id-2", 2000));
+        assertEquals(1L, idempotencyFilter.getStatistics().get("duplicates"));
+    }
+
+    // Test Case 3: Ids older than the window are treated as new, also across filter generations
+    @Test
+    void testIsDuplicate_AfterWindow_ShouldReturnFalse() {
+        idempotencyFilter.init();
+        long start = System.currentTimeMillis();
+        long window = TimeUnit.MINUTES.toMillis(10);
+
+        idempotencyFilter.markProcessed("id-1", start);
+        idempotencyFilter.markProcessed("id-2", start + window - 1);
+
+        assertFalse(idempotencyFilter.isDuplicate("id-1", start + window));
+        idempotencyFilter.markProcessed("id-3", start + window + 1);
+        assertTrue(idempotencyFilter.isDuplicate("id-2", start + window + 1));
+    }
+
+    // Test Case 4: The oldest ids are evicted once the entry limit is reached
+    @Test
+    void testMarkProcessed_OverMaxEntries_ShouldEvictOldest() {
+        idempotencyFilter.init();
+
+        for (int i = 1; i <= 4; i++) {
+            idempotencyFilter.markProcessed("id-" + i, 1000 + i);
+        }
+
+        assertFalse(idempotencyFilter.isDuplicate("id-1", 2000));
+        assertTrue(idempotencyFilter.isDuplicate("id-4", 2000));
+        assertEquals(3, idempotencyFilter.getStatistics().get("entries"));
+    }
+
+    // Test Case 5: Processed ids survive a restart through the snapshot file
+    @Test
+    void testSnapshot_WriteAndLoad_ShouldRestoreProcessedIds() {
+        mqConfig.getIdempotency().setSnapshotFile(tempDir.resolve("idempotency.snapshot").toString());
+        idempotencyFilter.init();
+        long now = System.currentTimeMillis();
+        idempotencyFilter.markProcessed("id-1", now);
+        idempotencyFilter.markProcessed("id-2", now - TimeUnit.MINUTES.toMillis(11));
+        idempotencyFilter.writeSnapshot();
+
+        IdempotencyFilter restarted = new IdempotencyFilter();
+        ReflectionTestUtils.setField(restarted, "mqConfig", mqConfig);
+        ReflectionTestUtils.setField(restarted, "meterRegistry", new SimpleMeterRegistry());
+        restarted.init();
+
+        assertTrue(restarted.isDuplicate("id-1", now + 1));
+        assertFalse(restarted.isDuplicate("id-2", now + 1));
+        assertEquals(1, restarted.getStatistics().get("entries"));
+    }
+}
@@ -0,0 +1,288 @@
+package com.vance.jms.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vance.jms.config.MqConfig;
+import com.vance.jms.exception.MqNotConnectedException;
+import com.vance.jms.exception.PayloadTooLargeException;
+import com.vance.jms.model.CustomMessage;
+import com.vance.jms.model.IngestResult;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+
+@ExtendWith(MockitoExtension.class)
+public class IngestionServiceTest {
+
+    private static final String QUEUE = "orders";
+
+    @Mock
+    private MessageSender messageSender;
+
+    @Spy
+    private MqConfig mqConfig = new MqConfig();
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private IngestionService ingestionService;
+
+    private final AtomicReference<IngestResult> result = new AtomicReference<>();
+
+    @BeforeEach
+    void setUp() {
+        mqConfig.getIngest().setMaxInFlight(2);
+        mqConfig.getIngest().setMaxLineBytes(128);
+        ingestionService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ingestionService.close();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean(), "Condition not met within 5 seconds.");
+    }
+
+    private static String line(String id, String content) {
+        return "{\"id\":\"" + id + "\",\"content\":\"" + content + "\"}\n";
+    }
+
+    // Test Case 1: Lines split across reads are decoded, blank lines skipped and invalid JSON counted as failed
+    @Test
+    void testIngest_ShouldSendEachLine() {
+        when(messageSender.sendMessageAsync(eq(QUEUE), any())).thenReturn(CompletableFuture.completedFuture(null));
+        String body = line("1", "a") + "\r\n" + "not json\n" + line("2", "b").trim();
+        StubInputStream input = new StubInputStream(body, 7);
+
+        ingestionService.ingest(input, QUEUE, result::set);
+
+        IngestResult summary = result.get();
+        assertEquals(3, summary.getReceived());
+        assertEquals(2, summary.getSent());
+        assertEquals(1, summary.getFailed());
+        assertEquals(2, summary.getErrors().get(0).line());
+        assertFalse(summary.isAborted());
+        ArgumentCaptor<CustomMessage> captor = ArgumentCaptor.forClass(CustomMessage.class);
+        verify(messageSender, times(2)).sendMessageAsync(eq(QUEUE), captor.capture());
+        assertEquals(List.of("a", "b"), captor.getAllValues().stream().map(CustomMessage::getContent).toList());
+    }
+
+    // Test Case 2: Reading stops once maxInFlight sends are pending and resumes as they complete
+    @Test
+    void testIngest_InFlightLimitReached_ShouldStopReading() throws InterruptedException {
+        List<CompletableFuture<Void>> futures = new CopyOnWriteArrayList<>();
+        when(messageSender.sendMessageAsync(eq(QUEUE), any())).thenAnswer(invocation -> {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            futures.add(future);
+            return future;
+        });
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 10; i++) {
+            body.append(line(String.valueOf(i), "payload-" + i));
+        }
+        StubInputStream input = new StubInputStream(body.toString(), 40);
+
+        ingestionService.ingest(input, QUEUE, result::set);
+
+        assertEquals(2, futures.size());
+        assertTrue(input.remaining() > 0, "Body should not be read while sends are pending.");
+
+        futures.get(0).complete(null);
+        await(() -> futures.size() == 3);
+
+        for (int i = 1; i < 10; i++) {
+            int index = i;
+            await(() -> futures.size() > index);
+            futures.get(i).complete(null);
+        }
+        await(() -> result.get() != null);
+        assertEquals(0, input.remaining());
+        assertEquals(10, result.get().getSent());
+    }
+
+    // Test Case 3: MQ becoming unavailable aborts the ingestion after pending sends complete
+    @Test
+    void testIngest_MqNotConnected_ShouldAbort() throws InterruptedException {
+        CompletableFuture<Void> first = new CompletableFuture<>();
+        when(messageSender.sendMessageAsync(eq(QUEUE), any())).thenReturn(first)
+                .thenThrow(new MqNotConnectedException("Cannot send message. MQ is not connected."));
+        StubInputStream input = new StubInputStream(line("1", "a") + line("2", "b") + line("3", "c"), 64);
+
+        ingestionService.ingest(input, QUEUE, result::set);
+        assertNull(result.get(), "Result should wait for the pending send.");
+        first.complete(null);
+        await(() -> result.get() != null);
+
+        IngestResult summary = result.get();
+        assertTrue(summary.isAborted());
+        assertInstanceOf(MqNotConnectedException.class, summary.getAbortCause());
+        assertEquals(1, summary.getSent());
+        assertEquals(1, summary.getFailed());
+        verify(messageSender, times(2)).sendMessageAsync(eq(QUEUE), any());
+    }
+
+    // Test Case 3.1: Reading resumes on an ingest-resume thread rather than the thread completing the send
+    @Test
+    void testIngest_SendCompleted_ShouldResumeOnResumeExecutor() throws InterruptedException {
+        CompletableFuture<Void> first = new CompletableFuture<>();
+        List<String> threads = new CopyOnWriteArrayList<>();
+        when(messageSender.sendMessageAsync(eq(QUEUE), any())).thenAnswer(invocation -> {
+            threads.add(Thread.currentThread().getName());
+            return threads.size() == 1 ? first : CompletableFuture.completedFuture(null);
+        });
+        mqConfig.getIngest().setMaxInFlight(1);
+        StubInputStream input = new StubInputStream(line("1", "a") + line("2", "b"), 64);
+
+        ingestionService.ingest(input, QUEUE, result::set);
+        Thread callback = new Thread(() -> first.complete(null), "mq-callback");
+        callback.start();
+        callback.join();
+        await(() -> result.get() != null);
+
+        assertEquals(2, result.get().getSent());
+        assertEquals(2, threads.size());
+        assertTrue(threads.get(1).startsWith("ingest-resume"), "Resumed on " + threads.get(1));
+    }
+
+    // Test Case 4: A line longer than maxLineBytes aborts the ingestion
+    @Test
+    void testIngest_LineTooLong_ShouldAbort() {
+        StubInputStream input = new StubInputStream(line("1", "x".repeat(200)), 64);
+
+        ingestionService.ingest(input, QUEUE, result::set);
+
+        assertInstanceOf(PayloadTooLargeException.class, result.get().getAbortCause());
+        assertEquals(0, result.get().getReceived());
+    }
+
+    // Test Case 5: Blocking stream hands parsed messages to the sender lazily and merges parse failures
+    @Test
+    void testStream_ShouldPassParsedMessagesToSender() {
+        List<String> contents = new ArrayList<>();
+        when(messageSender.sendStream(eq(QUEUE), any())).thenAnswer(invocation -> {
+            Iterator<CustomMessage> messages = invocation.getArgument(1);
+            IngestResult sent = new IngestResult();
+            messages.forEachRemaining(message -> contents.add(message.getContent()));
+            sent.setSent(contents.size());
+            sent.setCommits(1);
+            return sent;
+        });
+        String body = line("1", "a") + "\n" + "{broken\n" + line("2", "b");
+
+        IngestResult summary = ingestionService.stream(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), QUEUE);
+
+        assertEquals(List.of("a", "b"), contents);
+        assertEquals(3, summary.getReceived());
+        assertEquals(2, summary.getSent());
+        assertEquals(1, summary.getFailed());
+        assertEquals(1, summary.getCommits());
+        assertEquals(2, summary.getErrors().get(0).line());
+        assertFalse(summary.isAborted());
+    }
+
+    // Test Case 6: MQ unavailable before the stream starts returns an aborted result
+    @Test
+    void testStream_MqNotConnected_ShouldAbort() {
+        when(messageSender.sendStream(eq(QUEUE), any()))
+                .thenThrow(new MqNotConnectedException("MQ is not connected."));
+
+        IngestResult summary = ingestionService.stream(new ByteArrayInputStream(new byte[0]), QUEUE);
+
+        assertTrue(summary.isAborted());
+        assertInstanceOf(MqNotConnectedException.class, summary.getAbortCause());
+        assertEquals(0, summary.getSent());
+    }
+
+    /**
+     * 以固定大小區塊提供內容的非阻塞輸入串流，註冊 ReadListener 時立即通知有資料可讀
+     */
+    private static class StubInputStream extends ServletInputStream {
+
+        private final byte[] data;
+        private final int chunkSize;
+        private int position;
+
+        StubInputStream(String body, int chunkSize) {
+            this.data = body.getBytes(StandardCharsets.UTF_8);
+            this.chunkSize = chunkSize;
+        }
+
+        int remaining() {
+            return data.length - position;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return position == data.length;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            try {
+                readListener.onDataAvailable();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public int read() {
+            return position < data.length ? data[position++] : -1;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (isFinished()) {
+                return -1;
+            }
+            int count = Math.min(Math.min(length, chunkSize), remaining());
+            System.arraycopy(data, position, buffer, offset, count);
+            position += count;
+            return count;
+        }
+    }
+}
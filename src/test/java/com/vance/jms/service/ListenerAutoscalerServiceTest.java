@@ -0,0 +1,74 @@
+package com.vance.jms.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jms.config.JmsListenerEndpointRegistry;
+import org.springframework.jms.core.JmsTemplate;
+
+import com.vance.jms.config.MqConfig;
+import com.vance.jms.service.ListenerAutoscalerService.WindowStats;
+
+@ExtendWith(MockitoExtension.class)
+public class ListenerAutoscalerServiceTest {
+
+    private static final long NOW = 1_000_000L;
+
+    @Mock
+    private JmsListenerEndpointRegistry jmsListenerEndpointRegistry;
+
+    @Mock
+    private JmsTemplate jmsTemplate;
+
+    @Spy
+    private MqConfig mqConfig = new MqConfig();
+
+    @InjectMocks
+    private ListenerAutoscalerService listenerAutoscalerService;
+
+    // Test Case 1: Scale up only after consecutive saturated windows
+    @Test
+    void testDecide_ScaleUpAfterConsecutiveWindows() {
+        WindowStats saturated = new WindowStats(100, 0.0, 300, 10);
+
+        assertEquals(2, listenerAutoscalerService.decide(saturated, 2, NOW));
+        assertEquals(3, listenerAutoscalerService.decide(saturated, 2, NOW + 5_000));
+    }
+
+    // Test Case 2: Do not scale up while handler latency exceeds the limit
+    @Test
+    void testDecide_NoScaleUpWhenHandlerSlow() {
+        WindowStats slow = new WindowStats(100, 0.0, 300, 5_000);
+
+        assertEquals(2, listenerAutoscalerService.decide(slow, 2, NOW));
+        assertEquals(2, listenerAutoscalerService.decide(slow, 2, NOW + 5_000));
+    }
+
+    // Test Case 3: Cooldown suppresses consecutive adjustments
+    @Test
+    void testDecide_CooldownAfterScaling() {
+        WindowStats saturated = new WindowStats(100, 0.0, 300, 10);
+        listenerAutoscalerService.decide(saturated, 2, NOW);
+        assertEquals(3, listenerAutoscalerService.decide(saturated, 2, NOW + 5_000));
+
+        listenerAutoscalerService.decide(saturated, 3, NOW + 10_000);
+        assertEquals(3, listenerAutoscalerService.decide(saturated, 3, NOW + 15_000));
+        assertEquals(4, listenerAutoscalerService.decide(saturated, 3, NOW + 40_000));
+    }
+
+    // Test Case 4: Scale down when mostly idle, never below the minimum
+    @Test
+    void testDecide_ScaleDownToMinimum() {
+        mqConfig.getAutoscaler().setScaleDownWindows(1);
+        mqConfig.getAutoscaler().setCooldownSeconds(0);
+        WindowStats idle = new WindowStats(100, 0.9, 0, 1);
+
+        assertEquals(1, listenerAutoscalerService.decide(idle, 2, NOW));
+        assertEquals(1, listenerAutoscalerService.decide(idle, 1, NOW + 5_000));
+    }
+}
@@ -0,0 +1,236 @@
+package com.vance.jms.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.jms.listener.adapter.ListenerExecutionFailedException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.vance.jms.config.MessageHandler;
+import com.vance.jms.model.CustomMessage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+
+@ExtendWith(MockitoExtension.class)
+public class MessageHandlerRegistryTest {
+
+    @Mock
+    private Message message;
+
+    private final StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+    private final MessageHandlerRegistry registry = new MessageHandlerRegistry();
+    private final List<String> handled = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(registry, "handlerProvider", beanFactory.getBeanProvider(MessageHandler.class));
+        ReflectionTestUtils.setField(registry, "meterRegistry", new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        registry.close();
+    }
+
+    private void register(MessageHandler<?> handler) {
+        beanFactory.addBean(handler.getName(), handler);
+    }
+
+    private <T> MessageHandler<T> recording(String name, Class<T> type) {
+        return MessageHandler.of(name, type, payload -> handled.add(name));
+    }
+
+    // Test Case 1: The handler for the most specific payload type is chosen regardless of order
+    @Test
+    void testDispatch_SubclassPayload_ShouldChooseMostSpecificType() throws JMSException {
+        register(recording("object", Object.class));
+        register(recording("customMessage", CustomMessage.class));
+        registry.init();
+
+        assertTrue(registry.dispatch(message, CustomMessage.of("id-1", "content"), false));
+        assertTrue(registry.dispatch(message, "text", false));
+
+        assertEquals(List.of("customMessage", "object"), handled);
+    }
+
+    // Test Case 2: Handlers restricted by JMSType or property win over generic ones only when they match
+    @Test
+    void testDispatch_JmsTypeAndHeaderConditions_ShouldPreferMatchingHandler() throws JMSException {
+        register(recording("text", String.class));
+        register(new ConditionalHandler("order", "ORDER", null, null));
+        register(new ConditionalHandler("priority", null, "priority", "high"));
+        registry.init();
+        when(message.getJMSType()).thenReturn("ORDER", "ORDER", "OTHER");
+        when(message.getStringProperty("priority")).thenReturn("low", "high", "low");
+
+        registry.dispatch(message, "a", false);
+        registry.dispatch(message, "b", false);
+        registry.dispatch(message, "c", false);
+
+        assertEquals(List.of("order", "priority", "text"), handled);
+    }
+
+    // Test Case 3: Payloads without a matching handler are reported to the caller
+    @Test
+    void testDispatch_NoMatchingHandler_ShouldReturnFalse() throws JMSException {
+        register(recording("text", String.class));
+        registry.init();
+
+        assertFalse(registry.dispatch(message, new byte[] { 1 }, false));
+        assertTrue(handled.isEmpty());
+    }
+
+    // Test Case 4: Handlers with their own threads run off the listener thread unless inline is requested
+    @Test
+    void testDispatch_DedicatedThreads_ShouldRunAsyncUnlessInline() throws Exception {
+        List<Thread> threads = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(2);
+        register(new ConditionalHandler("async", null, null, null) {
+            @Override
+            public int getConcurrency() {
+                return 1;
+            }
+
+            @Override
+            public void handle(String payload) {
+                threads.add(Thread.currentThread());
+                latch.countDown();
+            }
+        });
+        registry.init();
+
+        registry.dispatch(message, "queued", false);
+        registry.dispatch(message, "inline", true);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(threads.contains(Thread.currentThread()));
+        assertTrue(threads.stream().anyMatch(thread -> thread != Thread.currentThread()));
+        assertNotEquals(threads.get(0), threads.get(1));
+    }
+
+    // Test Case 5: Checked exceptions from an inline handler are rethrown so the transaction rolls back
+    @Test
+    void testDispatch_InlineHandlerFails_ShouldRethrow() {
+        register(MessageHandler.of("failing", String.class, payload -> {
+            throw new Exception("處理失敗");
+        }));
+        registry.init();
+
+        assertThrows(ListenerExecutionFailedException.class, () -> registry.dispatch(message, "text", true));
+    }
+
+    // Test Case 6: A failing handler on its own threads fails the dispatch so the listener rolls back
+    @Test
+    void testDispatch_DedicatedThreadHandlerFails_ShouldRethrowOnListenerThread() {
+        List<Thread> threads = new CopyOnWriteArrayList<>();
+        register(new ConditionalHandler("failingAsync", null, null, null) {
+            @Override
+            public int getConcurrency() {
+                return 1;
+            }
+
+            @Override
+            public void handle(String payload) {
+                threads.add(Thread.currentThread());
+                throw new IllegalStateException("處理失敗");
+            }
+        });
+        registry.init();
+
+        assertThrows(IllegalStateException.class, () -> registry.dispatch(message, "text", false));
+
+        assertEquals(1, threads.size());
+        assertNotEquals(Thread.currentThread(), threads.get(0));
+    }
+
+    // Test Case 7: Dispatch to a handler on its own threads returns only after the handler has finished
+    @Test
+    void testDispatch_DedicatedThreads_ShouldWaitForHandler() throws JMSException {
+        register(new ConditionalHandler("slow", null, null, null) {
+            @Override
+            public int getConcurrency() {
+                return 1;
+            }
+
+            @Override
+            public void handle(String payload) {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                handled.add("slow");
+            }
+        });
+        registry.init();
+
+        assertTrue(registry.dispatch(message, "text", false));
+
+        assertEquals(List.of("slow"), handled);
+    }
+
+    /**
+     * 以 JMSType 或訊息屬性限制範圍的文本處理器
+     */
+    private class ConditionalHandler implements MessageHandler<String> {
+        private final String name;
+        private final String jmsType;
+        private final String headerName;
+        private final String headerValue;
+
+        ConditionalHandler(String name, String jmsType, String headerName, String headerValue) {
+            this.name = name;
+            this.jmsType = jmsType;
+            this.headerName = headerName;
+            this.headerValue = headerValue;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public Class<String> getPayloadType() {
+            return String.class;
+        }
+
+        @Override
+        public String getJmsType() {
+            return jmsType;
+        }
+
+        @Override
+        public String getHeaderName() {
+            return headerName;
+        }
+
+        @Override
+        public String getHeaderValue() {
+            return headerValue;
+        }
+
+        @Override
+        public void handle(String payload) {
+            handled.add(name);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.vance.jms.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.vance.jms.config.BinaryMessageConverter;
+import com.vance.jms.config.MqConfig;
+import com.vance.jms.constant.Constant;
+import com.vance.jms.exception.ChunkGroupLimitException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.jms.BytesMessage;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.TextMessage;
+
+@ExtendWith(MockitoExtension.class)
+public class MessageReceiverTest {
+
+    private static final String QUEUE = "TEST.QUEUE";
+
+    @Mock
+    private MqConnectionService mqConnectionService;
+
+    @Mock
+    private ChunkReassembler chunkReassembler;
+
+    @Mock
+    private PayloadCompressor payloadCompressor;
+
+    @Mock
+    private BinaryMessageConverter binaryMessageConverter;
+
+    @Spy
+    private MqConfig mqConfig = new MqConfig();
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private MessagingMetrics messagingMetrics = new MessagingMetrics(meterRegistry);
+
+    @Mock
+    private PayloadLogger payloadLogger;
+
+    @Mock
+    private MessageHandlerRegistry messageHandlerRegistry;
+
+    @Mock
+    private PartitionedDispatcher partitionedDispatcher;
+
+    @Mock
+    private IdempotencyFilter idempotencyFilter;
+
+    @InjectMocks
+    private MessageReceiver messageReceiver;
+
+    @BeforeEach
+    void setUp() throws JMSException {
+        mqConfig.setQueueName(QUEUE);
+        lenient().when(mqConnectionService.isConnected()).thenReturn(true);
+    }
+
+    private static TextMessage textMessage(String text) throws JMSException {
+        TextMessage message = mock(TextMessage.class);
+        lenient().when(message.getText()).thenReturn(text);
+        return message;
+    }
+
+    // Test Case 1: Every message of a batch is dispatched in order on the listener thread
+    @Test
+    void testOnMessages_ShouldDispatchEachMessageInline() throws JMSException {
+        TextMessage first = textMessage("a");
+        TextMessage second = textMessage("b");
+        when(messageHandlerRegistry.dispatch(any(), any(), anyBoolean(), any())).thenReturn(true);
+
+        messageReceiver.onMessages(List.of(first, second));
+
+        verify(messageHandlerRegistry).dispatch(eq(first), eq("a"), eq(true), any());
+        verify(messageHandlerRegistry).dispatch(eq(second), eq("b"), eq(true), any());
+    }
+
+    // Test Case 2: One failing message fails the batch so the container rolls back all of it
+    @Test
+    void testOnMessages_WhenOneMessageFails_ShouldRollbackBatch() throws JMSException {
+        TextMessage first = textMessage("a");
+        TextMessage second = textMessage("b");
+        TextMessage third = textMessage("c");
+        when(messageHandlerRegistry.dispatch(any(), any(), anyBoolean(), any())).thenReturn(true)
+                .thenThrow(new IllegalStateException("handler failed"));
+
+        assertThrows(IllegalStateException.class, () -> messageReceiver.onMessages(List.of(first, second, third)));
+
+        verify(messageHandlerRegistry, times(2)).dispatch(any(Message.class), any(), anyBoolean(), any());
+        assertEquals(1.0, meterRegistry.get("jms.rollbacks").tag("operation", "receive.batch").counter().count());
+    }
+
+    // Test Case 3: A lost connection rejects the batch before any message is handled
+    @Test
+    void testOnMessages_WhenNotConnected_ShouldThrowException() throws JMSException {
+        when(mqConnectionService.isConnected()).thenReturn(false);
+
+        assertThrows(JMSException.class, () -> messageReceiver.onMessages(List.of(textMessage("a"))));
+
+        verify(messageHandlerRegistry, never()).dispatch(any(Message.class), any(), anyBoolean(), any());
+    }
+
+    // Test Case 4: A chunk of a new group over maxOpenGroups is rethrown so the container rolls it back
+    @Test
+    void testOnMessage_WhenChunkGroupLimitReached_ShouldNotAcknowledge() throws JMSException {
+        BytesMessage message = mock(BytesMessage.class);
+        when(chunkReassembler.isChunk(message)).thenReturn(true);
+        when(chunkReassembler.append(message)).thenThrow(new ChunkGroupLimitException("limit"));
+
+        assertThrows(ChunkGroupLimitException.class, () -> messageReceiver.onMessage(message));
+
+        verify(message, never()).acknowledge();
+        verify(messageHandlerRegistry, never()).dispatch(any(Message.class), any(), anyBoolean(), any());
+    }
+
+    // Test Case 5: A compressed text message is dispatched with the decompressed text as its payload
+    @Test
+    void testOnMessage_CompressedText_ShouldDispatchDecompressedPayload() throws JMSException {
+        BytesMessage message = mock(BytesMessage.class);
+        when(payloadCompressor.decompress(message)).thenReturn("{\"id\":\"1\"}");
+        when(messageHandlerRegistry.dispatch(any(), any(), anyBoolean(), any())).thenReturn(true);
+
+        messageReceiver.onMessage(message);
+
+        verify(messageHandlerRegistry).dispatch(eq(message), eq("{\"id\":\"1\"}"), eq(false), any());
+        assertEquals(1.0,
+                meterRegistry.get("jms.messages").tag("direction", "in").tag("type", "text").counter().count());
+    }
+
+    // Test Case 6: JSON messages sharing a CustomMessage id run in receive order on one partition lane
+    @Test
+    void testOnMessages_PartitionedJsonWithSameId_ShouldKeepOrderOnOneLane() throws Exception {
+        mqConfig.getListener().setBatchSize(20);
+        mqConfig.getListener().setPartitions(4);
+        PartitionedDispatcher dispatcher = new PartitionedDispatcher();
+        ReflectionTestUtils.setField(dispatcher, "mqConfig", mqConfig);
+        ReflectionTestUtils.setField(dispatcher, "meterRegistry", meterRegistry);
+        dispatcher.init();
+        ReflectionTestUtils.setField(messageReceiver, "partitionedDispatcher", dispatcher);
+        Map<String, List<String>> processed = new ConcurrentHashMap<>();
+        Map<String, Set<Thread>> threads = new ConcurrentHashMap<>();
+        when(messageHandlerRegistry.dispatch(any(), any(), anyBoolean(), any())).thenAnswer(invocation -> {
+            String json = invocation.getArgument(1);
+            String id = json.substring(7, 9);
+            processed.computeIfAbsent(id, k -> new CopyOnWriteArrayList<>()).add(json);
+            threads.computeIfAbsent(id, k -> ConcurrentHashMap.newKeySet()).add(Thread.currentThread());
+            return true;
+        });
+        List<Message> messages = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            String id = "m" + (i % 2);
+            TextMessage message = textMessage("{\"id\":\"" + id + "\",\"seq\":" + i + "}");
+            lenient().when(message.getStringProperty(Constant.PartitionProperty.KEY)).thenReturn(id);
+            messages.add(message);
+        }
+
+        try {
+            messageReceiver.onMessages(messages);
+        } finally {
+            dispatcher.close();
+        }
+
+        for (int parity = 0; parity < 2; parity++) {
+            List<String> expected = new ArrayList<>();
+            for (int i = parity; i < 20; i += 2) {
+                expected.add("{\"id\":\"m" + parity + "\",\"seq\":" + i + "}");
+            }
+            assertEquals(expected, processed.get("m" + parity));
+            assertEquals(1, threads.get("m" + parity).size());
+        }
+    }
+
+    // Test Case 7: A handler failure on the single-message path is rethrown so the container rolls back
+    @Test
+    void testOnMessage_WhenHandlerFails_ShouldRollback() throws JMSException {
+        TextMessage message = textMessage("a");
+        when(messageHandlerRegistry.dispatch(any(), any(), anyBoolean(), any()))
+                .thenThrow(new IllegalStateException("handler failed"));
+
+        assertThrows(IllegalStateException.class, () -> messageReceiver.onMessage(message));
+
+        verify(message, never()).acknowledge();
+        assertEquals(1.0, meterRegistry.get("jms.rollbacks").tag("operation", "receive").counter().count());
+    }
+
+    // Test Case 8: A message whose handler fails is not recorded as processed, so its redelivery is handled again
+    @Test
+    void testOnMessage_WhenHandlerFails_ShouldNotMarkProcessed() throws JMSException {
+        TextMessage message = textMessage("a");
+        when(message.getJMSMessageID()).thenReturn("ID:1");
+        when(idempotencyFilter.isEnabled()).thenReturn(true);
+        when(messageHandlerRegistry.dispatch(any(), any(), anyBoolean(), any()))
+                .thenThrow(new IllegalStateException("handler failed")).thenReturn(true);
+
+        assertThrows(IllegalStateException.class, () -> messageReceiver.onMessage(message));
+        verify(idempotencyFilter, never()).markProcessed(any());
+
+        messageReceiver.onMessage(message);
+        verify(idempotencyFilter).markProcessed("ID:1");
+    }
+}
@@ -1,24 +1,61 @@
 package com.vance.jms.service;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
+import java.io.SequenceInputStream;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jms.UncategorizedJmsException;
 import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.core.MessageCreator;
+import org.springframework.jms.core.SessionCallback;
+import org.springframework.jms.support.converter.MessageConverter;
+import org.springframework.jms.support.destination.DestinationResolver;
 
 import com.vance.jms.config.MqConfig;
+import com.vance.jms.constant.Constant;
 import com.vance.jms.exception.MqNotConnectedException;
+import com.vance.jms.exception.OutboxFullException;
+import com.vance.jms.exception.PayloadTooLargeException;
+import com.vance.jms.model.BatchSendResult;
 import com.vance.jms.model.CustomMessage;
+import com.vance.jms.model.IngestResult;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.jms.BytesMessage;
+import jakarta.jms.JMSException;
+import jakarta.jms.MessageProducer;
+import jakarta.jms.Queue;
+import jakarta.jms.Session;
+import jakarta.jms.TextMessage;
 
 @ExtendWith(MockitoExtension.class)
 public class MessageSenderTest {
@@ -32,6 +69,26 @@ public class MessageSenderTest {
     @Mock
     private MqConnectionService mqConnectionService;
 
+    @Mock
+    private AsyncProducerPool asyncProducerPool;
+
+    @Mock
+    private OutboxService outboxService;
+
+    @Mock
+    private PayloadLogger payloadLogger;
+
+    @Mock
+    private ShardRouter shardRouter;
+
+    @Spy
+    private SendCircuitBreaker sendCircuitBreaker = new SendCircuitBreaker();
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private MessagingMetrics messagingMetrics = new MessagingMetrics(meterRegistry);
+
     @InjectMocks
     private MessageSender messageSender;
 
@@ -66,6 +123,7 @@ public class MessageSenderTest {
     void testSendByteMessage_WhenConnected_ShouldSend() {
         when(mqConnectionService.isConnected()).thenReturn(true);
         when(mqConfig.getQueueName()).thenReturn(TEST_QUEUE_NAME);
+        when(mqConfig.getChunking()).thenReturn(new MqConfig.Chunking());
         byte[] bytesMessage = new byte[] { 0, 1, 2 };
 
         assertDoesNotThrow(() -> messageSender.sendByteMessage(bytesMessage));
@@ -101,6 +159,7 @@ public class MessageSenderTest {
     @Test
     void testSendByteMessage_WhenNotConnected_ShouldThrowException() {
         when(mqConnectionService.isConnected()).thenReturn(false);
+        when(mqConfig.getChunking()).thenReturn(new MqConfig.Chunking());
         byte[] bytesMessage = new byte[] { 0, 1, 2 };
 
         assertThrows(MqNotConnectedException.class, () -> {
@@ -109,4 +168,397 @@ public class MessageSenderTest {
 
         verify(jmsTemplate, never()).convertAndSend(anyString(), any(byte[].class));
     }
+
+    // Test Case 3.1: Send Batch When Connected Should Commit Once
+    @Test
+    void testSendBatch_WhenConnected_ShouldCommitOnce() throws JMSException {
+        Session session = mockBatchSession();
+        MessageProducer producer = mock(MessageProducer.class);
+        when(session.createProducer(any())).thenReturn(producer);
+        List<CustomMessage> messages = List.of(CustomMessage.of("id1", "a"), CustomMessage.of("id2", "b"));
+
+        BatchSendResult result = messageSender.sendBatch(messages);
+
+        assertTrue(result.isCommitted());
+        assertEquals(2, result.getSuccessCount());
+        verify(producer, times(2)).send(any(TextMessage.class));
+        verify(session, times(1)).commit();
+        verify(session, never()).rollback();
+    }
+
+    // Test Case 3.2: Send Batch With Failure Should Rollback Whole Batch
+    @Test
+    void testSendBatch_WhenSendFails_ShouldRollback() throws JMSException {
+        Session session = mockBatchSession();
+        MessageProducer producer = mock(MessageProducer.class);
+        when(session.createProducer(any())).thenReturn(producer);
+        doThrow(new JMSException("put failed")).doNothing().when(producer).send(any(TextMessage.class));
+        List<CustomMessage> messages = List.of(CustomMessage.of("id1", "a"), CustomMessage.of("id2", "b"));
+
+        BatchSendResult result = messageSender.sendBatch(messages);
+
+        assertFalse(result.isCommitted());
+        assertEquals(0, result.getSuccessCount());
+        assertEquals(2, result.getFailureCount());
+        verify(producer, times(1)).send(any(TextMessage.class));
+        verify(session, times(1)).rollback();
+        verify(session, never()).commit();
+    }
+
+    // Test Case 3.3: Send Batch When Not Connected
+    @Test
+    void testSendBatch_WhenNotConnected_ShouldThrowException() {
+        when(mqConnectionService.isConnected()).thenReturn(false);
+
+        assertThrows(MqNotConnectedException.class, () -> {
+            messageSender.sendBatch(List.of(CustomMessage.of("id1", "a")));
+        });
+
+        verify(jmsTemplate, never()).execute(any(SessionCallback.class), anyBoolean());
+    }
+
+    // Test Case 4.1: Send CustomMessage Async When Connected
+    @Test
+    void testSendCustomMessageAsync_WhenConnected_ShouldDelegateToAsyncPool() {
+        when(mqConnectionService.isConnected()).thenReturn(true);
+        when(mqConfig.getQueueName()).thenReturn(TEST_QUEUE_NAME);
+        CustomMessage message = new CustomMessage("id1", "content", System.currentTimeMillis());
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        when(asyncProducerPool.send(TEST_QUEUE_NAME, message, jmsTemplate)).thenReturn(future);
+
+        assertSame(future, messageSender.sendMessageAsync(message));
+
+        verify(jmsTemplate, never()).convertAndSend(anyString(), any(CustomMessage.class));
+    }
+
+    // Test Case 4.2: Send TextMessage Async When Not Connected
+    @Test
+    void testSendTextMessageAsync_WhenNotConnected_ShouldThrowException() {
+        when(mqConnectionService.isConnected()).thenReturn(false);
+
+        assertThrows(MqNotConnectedException.class, () -> {
+            messageSender.sendTextMessageAsync("Hello World");
+        });
+
+        verify(asyncProducerPool, never()).send(anyString(), any(), any());
+    }
+
+    // Test Case 4.3: With Sharding Enabled Async Sends Use The Shard's Own Async Lanes Without Blocking
+    @Test
+    void testSendCustomMessageAsync_WhenSharded_ShouldUseShardAsyncPool() {
+        when(mqConfig.getQueueName()).thenReturn(TEST_QUEUE_NAME);
+        when(shardRouter.isEnabled()).thenReturn(true);
+        QueueManagerShard shard = mock(QueueManagerShard.class);
+        AsyncProducerPool shardPool = mock(AsyncProducerPool.class);
+        when(shard.getAsyncProducerPool()).thenReturn(shardPool);
+        when(shardRouter.route("id1")).thenReturn(shard);
+        CustomMessage message = new CustomMessage("id1", "content", System.currentTimeMillis());
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        when(shardPool.send(TEST_QUEUE_NAME, message, jmsTemplate)).thenReturn(future);
+
+        assertSame(future, messageSender.sendMessageAsync(message));
+
+        verify(asyncProducerPool, never()).send(anyString(), any(), any());
+        verify(jmsTemplate, never()).convertAndSend(anyString(), any(CustomMessage.class));
+    }
+
+    // Test Case 5.1: Send CustomMessage When Outbox Spools Should Not Touch MQ
+    @Test
+    void testSendCustomMessage_WhenSpooled_ShouldNotSend() {
+        when(mqConfig.getQueueName()).thenReturn(TEST_QUEUE_NAME);
+        CustomMessage message = new CustomMessage("id1", "content", System.currentTimeMillis());
+        when(outboxService.spoolIfNeeded(TEST_QUEUE_NAME, List.of(message))).thenReturn(true);
+
+        assertDoesNotThrow(() -> messageSender.sendMessage(message));
+
+        verify(mqConnectionService, never()).isConnected();
+        verify(jmsTemplate, never()).convertAndSend(anyString(), any(CustomMessage.class));
+    }
+
+    // Test Case 5.2: Send Batch When Outbox Spools Should Report Spooled
+    @Test
+    void testSendBatch_WhenSpooled_ShouldReportSpooled() {
+        when(mqConfig.getQueueName()).thenReturn(TEST_QUEUE_NAME);
+        List<CustomMessage> messages = List.of(new CustomMessage("id1", "a", 1L),
+                new CustomMessage("id2", "b", 1L));
+        when(outboxService.spoolIfNeeded(TEST_QUEUE_NAME, messages)).thenReturn(true);
+
+        BatchSendResult result = messageSender.sendBatch(messages);
+
+        assertTrue(result.isSpooled());
+        assertEquals(2, result.getSuccessCount());
+        verify(jmsTemplate, never()).execute(any(SessionCallback.class), anyBoolean());
+    }
+
+    // Test Case 5.3: Send TextMessage When Outbox Full Should Throw Exception
+    @Test
+    void testSendTextMessage_WhenOutboxFull_ShouldThrowException() {
+        when(mqConfig.getQueueName()).thenReturn(TEST_QUEUE_NAME);
+        when(outboxService.spoolIfNeeded(TEST_QUEUE_NAME, List.of("Hello World")))
+                .thenThrow(new OutboxFullException("full"));
+
+        assertThrows(MqNotConnectedException.class, () -> {
+            messageSender.sendTextMessage("Hello World");
+        });
+
+        verify(jmsTemplate, never()).convertAndSend(anyString(), (String) any());
+    }
+
+    // Test Case 5.4: With sharding enabled and no healthy shard, the outbox spools before any shard is routed
+    @Test
+    void testSendCustomMessage_WhenShardedAndSpooled_ShouldNotRoute() {
+        when(mqConfig.getQueueName()).thenReturn(TEST_QUEUE_NAME);
+        lenient().when(shardRouter.isEnabled()).thenReturn(true);
+        CustomMessage message = new CustomMessage("id1", "content", System.currentTimeMillis());
+        when(outboxService.spoolIfNeeded(TEST_QUEUE_NAME, List.of(message))).thenReturn(true);
+
+        assertDoesNotThrow(() -> messageSender.sendMessage(message));
+
+        verify(shardRouter, never()).route(any());
+        verify(jmsTemplate, never()).convertAndSend(anyString(), any(CustomMessage.class));
+    }
+
+    // Test Case 6.1: Stream Bytes When Connected Should Write Into BytesMessage
+    @Test
+    void testSendByteStream_WhenConnected_ShouldWriteBytesMessage() throws JMSException {
+        BytesMessage bytesMessage = mockStreamSession();
+        byte[] data = new byte[100_000];
+
+        assertEquals(data.length, messageSender.sendByteStream(new ByteArrayInputStream(data), data.length));
+
+        verify(bytesMessage, times(2)).writeBytes(any(byte[].class), eq(0), anyInt());
+    }
+
+    // Test Case 6.2: Stream Bytes Over Limit Should Throw Exception
+    @Test
+    void testSendByteStream_WhenTooLarge_ShouldThrowException() throws JMSException {
+        mockStreamSession();
+
+        assertThrows(PayloadTooLargeException.class,
+                () -> messageSender.sendByteStream(new ByteArrayInputStream(new byte[11]), 10));
+    }
+
+    // Test Case 7.1: Large ByteMessage With Chunking Enabled Should Send Numbered Chunks
+    @Test
+    void testSendByteMessage_WhenChunkingEnabled_ShouldSendChunks() throws JMSException {
+        Session session = mockExecuteSession();
+        MessageProducer producer = mock(MessageProducer.class);
+        when(session.createProducer(any())).thenReturn(producer);
+        List<BytesMessage> chunks = List.of(mock(BytesMessage.class), mock(BytesMessage.class),
+                mock(BytesMessage.class));
+        when(session.createBytesMessage()).thenReturn(chunks.get(0), chunks.get(1), chunks.get(2));
+        MqConfig.Chunking chunking = new MqConfig.Chunking();
+        chunking.setEnabled(true);
+        chunking.setChunkSizeBytes(4);
+        when(mqConfig.getChunking()).thenReturn(chunking);
+
+        messageSender.sendByteMessage(new byte[10]);
+
+        verify(producer, times(3)).send(any(BytesMessage.class));
+        verify(session, times(3)).commit();
+        verify(chunks.get(0)).setIntProperty(Constant.ChunkProperty.SEQ, 1);
+        verify(chunks.get(0)).setBooleanProperty(Constant.ChunkProperty.LAST, false);
+        verify(chunks.get(0)).setLongProperty(Constant.ChunkProperty.TOTAL_LENGTH, 10L);
+        verify(chunks.get(2)).setIntProperty(Constant.ChunkProperty.SEQ, 3);
+        verify(chunks.get(2)).setBooleanProperty(Constant.ChunkProperty.LAST, true);
+        verify(chunks.get(2)).writeBytes(any(byte[].class), eq(8), eq(2));
+        verify(jmsTemplate, never()).convertAndSend(anyString(), any(byte[].class));
+    }
+
+    // Test Case 7.2: ByteMessage Within Chunk Size Should Use Plain Send
+    @Test
+    void testSendByteMessage_WhenWithinChunkSize_ShouldNotChunk() {
+        when(mqConnectionService.isConnected()).thenReturn(true);
+        when(mqConfig.getQueueName()).thenReturn(TEST_QUEUE_NAME);
+        MqConfig.Chunking chunking = new MqConfig.Chunking();
+        chunking.setEnabled(true);
+        when(mqConfig.getChunking()).thenReturn(chunking);
+        byte[] bytes = new byte[] { 0, 1, 2 };
+
+        messageSender.sendByteMessage(bytes);
+
+        verify(jmsTemplate, times(1)).convertAndSend(TEST_QUEUE_NAME, bytes);
+        verify(jmsTemplate, never()).execute(any(SessionCallback.class), anyBoolean());
+    }
+
+    // Test Case 7.3: ByteMessage Over Chunk Size Is Rejected Instead Of Spooled While The Outbox Spools
+    @Test
+    void testSendByteMessage_WhenChunkedAndSpooling_ShouldNotSpool() {
+        when(outboxService.isSpooling()).thenReturn(true);
+        MqConfig.Chunking chunking = new MqConfig.Chunking();
+        chunking.setEnabled(true);
+        chunking.setChunkSizeBytes(4);
+        when(mqConfig.getChunking()).thenReturn(chunking);
+
+        assertThrows(MqNotConnectedException.class, () -> messageSender.sendByteMessage(new byte[10]));
+        assertThrows(MqNotConnectedException.class, () -> messageSender.sendByteMessageAsync(new byte[10]));
+
+        verify(outboxService, never()).spoolIfNeeded(anyString(), any());
+        verify(jmsTemplate, never()).execute(any(SessionCallback.class), anyBoolean());
+    }
+
+    // Test Case 7.4: Chunked Stream Over Limit After A Committed Chunk Should Send An Abort Message
+    @Test
+    void testSendByteStream_WhenChunkedAndTooLarge_ShouldSendAbort() throws JMSException {
+        Session session = mockExecuteSession();
+        MessageProducer producer = mock(MessageProducer.class);
+        when(session.createProducer(any())).thenReturn(producer);
+        List<BytesMessage> messages = List.of(mock(BytesMessage.class), mock(BytesMessage.class),
+                mock(BytesMessage.class));
+        when(session.createBytesMessage()).thenReturn(messages.get(0), messages.get(1), messages.get(2));
+        MqConfig.Chunking chunking = new MqConfig.Chunking();
+        chunking.setEnabled(true);
+        chunking.setChunkSizeBytes(4);
+        when(mqConfig.getChunking()).thenReturn(chunking);
+        SequenceInputStream in = new SequenceInputStream(new ByteArrayInputStream(new byte[8]),
+                new ByteArrayInputStream(new byte[8]));
+
+        assertThrows(PayloadTooLargeException.class, () -> messageSender.sendByteStream(in, 10));
+
+        BytesMessage abort = messages.get(2);
+        verify(abort).setStringProperty(eq(Constant.ChunkProperty.GROUP_ID), anyString());
+        verify(abort).setIntProperty(Constant.ChunkProperty.SEQ, 2);
+        verify(abort).setBooleanProperty(Constant.ChunkProperty.ABORTED, true);
+        verify(producer).send(abort);
+        verify(producer, never()).send(messages.get(1));
+        verify(session, times(2)).commit();
+        verify(session).rollback();
+        assertEquals(1.0, meterRegistry.get("jms.rollbacks").tag("operation", "send.chunk").counter().count());
+    }
+
+    // Test Case 8.1: Successful And Failed Sends Should Be Recorded Per Type
+    @Test
+    void testSendTextMessage_ShouldRecordSendMetrics() {
+        when(mqConnectionService.isConnected()).thenReturn(true);
+        when(mqConfig.getQueueName()).thenReturn(TEST_QUEUE_NAME);
+        doNothing().doThrow(new UncategorizedJmsException("put failed")).when(jmsTemplate)
+                .convertAndSend(TEST_QUEUE_NAME, "text");
+
+        messageSender.sendTextMessage("text");
+        assertThrows(UncategorizedJmsException.class, () -> messageSender.sendTextMessage("text"));
+
+        assertEquals(1, meterRegistry.get("jms.send").tags("type", "text", "outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("jms.send").tags("type", "text", "outcome", "failure").timer().count());
+        assertEquals(1.0, meterRegistry.get("jms.messages").tags("direction", "out", "type", "text").counter().count());
+        assertEquals(1.0, meterRegistry.get("jms.errors").tags("operation", "send", "type", "text").counter().count());
+    }
+
+    // Test Case 8.2: Rolled Back Batch Should Be Recorded As Failure And Rollback
+    @Test
+    void testSendBatch_WhenSendFails_ShouldRecordRollback() throws JMSException {
+        Session session = mockBatchSession();
+        MessageProducer producer = mock(MessageProducer.class);
+        when(session.createProducer(any())).thenReturn(producer);
+        doThrow(new JMSException("put failed")).when(producer).send(any(TextMessage.class));
+
+        messageSender.sendBatch(List.of(CustomMessage.of("id1", "a")));
+
+        assertEquals(1, meterRegistry.get("jms.send").tags("type", "batch", "outcome", "failure").timer().count());
+        assertEquals(1.0, meterRegistry.get("jms.rollbacks").tag("operation", "send.batch").counter().count());
+        assertTrue(meterRegistry.find("jms.messages").counters().isEmpty());
+    }
+
+    // Test Case 9.1: Stream Should Reuse One Session And Commit Every commitInterval Messages
+    @Test
+    void testSendStream_ShouldCommitPeriodically() throws JMSException {
+        Session session = mockBatchSession();
+        MessageProducer producer = mock(MessageProducer.class);
+        when(session.createProducer(any())).thenReturn(producer);
+        MqConfig.Ingest ingest = new MqConfig.Ingest();
+        ingest.setCommitInterval(2);
+        ingest.setCommitIntervalMillis(60_000);
+        when(mqConfig.getIngest()).thenReturn(ingest);
+        List<CustomMessage> messages = List.of(CustomMessage.of("id1", "a"), CustomMessage.of("id2", "b"),
+                CustomMessage.of("id3", "c"));
+
+        IngestResult result = messageSender.sendStream(null, messages.iterator());
+
+        assertFalse(result.isAborted());
+        assertEquals(3, result.getSent());
+        assertEquals(2, result.getCommits());
+        verify(session, times(1)).createProducer(any());
+        verify(producer, times(3)).send(any(TextMessage.class));
+        verify(session, times(2)).commit();
+        verify(session, never()).rollback();
+    }
+
+    // Test Case 9.2: Stream Failure Should Roll Back Only Messages After The Last Commit
+    @Test
+    void testSendStream_WhenSendFails_ShouldRollbackUncommitted() throws JMSException {
+        Session session = mockBatchSession();
+        MessageProducer producer = mock(MessageProducer.class);
+        when(session.createProducer(any())).thenReturn(producer);
+        doNothing().doNothing().doNothing().doThrow(new JMSException("put failed")).when(producer)
+                .send(any(TextMessage.class));
+        MqConfig.Ingest ingest = new MqConfig.Ingest();
+        ingest.setCommitInterval(2);
+        when(mqConfig.getIngest()).thenReturn(ingest);
+        List<CustomMessage> messages = List.of(CustomMessage.of("id1", "a"), CustomMessage.of("id2", "b"),
+                CustomMessage.of("id3", "c"), CustomMessage.of("id4", "d"), CustomMessage.of("id5", "e"));
+
+        IngestResult result = messageSender.sendStream(null, messages.iterator());
+
+        assertTrue(result.isAborted());
+        assertEquals(2, result.getSent());
+        assertEquals(1, result.getFailed());
+        verify(producer, times(4)).send(any(TextMessage.class));
+        verify(session, times(1)).commit();
+        verify(session, times(1)).rollback();
+        assertEquals(1.0, meterRegistry.get("jms.rollbacks").tag("operation", "send.stream").counter().count());
+    }
+
+    // Test Case 9.3: Stream While Outbox Spools Should Be Rejected
+    @Test
+    void testSendStream_WhenOutboxSpooling_ShouldThrowException() {
+        when(mqConfig.getQueueName()).thenReturn(TEST_QUEUE_NAME);
+        when(outboxService.isSpooling()).thenReturn(true);
+
+        assertThrows(MqNotConnectedException.class,
+                () -> messageSender.sendStream(null, List.of(CustomMessage.of("id1", "a")).iterator()));
+
+        verify(jmsTemplate, never()).execute(any(SessionCallback.class), anyBoolean());
+    }
+
+    /**
+     * 建立一個由 JmsTemplate.send 回呼使用的 Session 及 BytesMessage
+     */
+    private BytesMessage mockStreamSession() throws JMSException {
+        Session session = mock(Session.class);
+        BytesMessage bytesMessage = mock(BytesMessage.class);
+        when(mqConnectionService.isConnected()).thenReturn(true);
+        when(mqConfig.getQueueName()).thenReturn(TEST_QUEUE_NAME);
+        when(mqConfig.getChunking()).thenReturn(new MqConfig.Chunking());
+        when(session.createBytesMessage()).thenReturn(bytesMessage);
+        doAnswer(invocation -> ((MessageCreator) invocation.getArgument(1)).createMessage(session))
+                .when(jmsTemplate).send(eq(TEST_QUEUE_NAME), any(MessageCreator.class));
+        return bytesMessage;
+    }
+
+    /**
+     * 建立一個由 JmsTemplate.execute 回呼使用的交易 Session
+     */
+    private Session mockBatchSession() throws JMSException {
+        Session session = mockExecuteSession();
+        MessageConverter messageConverter = mock(MessageConverter.class);
+        when(jmsTemplate.getMessageConverter()).thenReturn(messageConverter);
+        when(messageConverter.toMessage(any(), eq(session))).thenAnswer(invocation -> mock(TextMessage.class));
+        return session;
+    }
+
+    /**
+     * 建立一個由 JmsTemplate.execute 回呼使用、可解析預設隊列的交易 Session
+     */
+    @SuppressWarnings("unchecked")
+    private Session mockExecuteSession() throws JMSException {
+        Session session = mock(Session.class);
+        DestinationResolver destinationResolver = mock(DestinationResolver.class);
+        when(mqConnectionService.isConnected()).thenReturn(true);
+        when(mqConfig.getQueueName()).thenReturn(TEST_QUEUE_NAME);
+        when(jmsTemplate.getDestinationResolver()).thenReturn(destinationResolver);
+        when(destinationResolver.resolveDestinationName(eq(session), eq(TEST_QUEUE_NAME), anyBoolean()))
+                .thenReturn(mock(Queue.class));
+        when(jmsTemplate.execute(any(SessionCallback.class), anyBoolean()))
+                .thenAnswer(invocation -> ((SessionCallback<?>) invocation.getArgument(0)).doInJms(session));
+        return session;
+    }
 }
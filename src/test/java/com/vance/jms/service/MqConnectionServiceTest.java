@@ -5,7 +5,9 @@ import com.vance.jms.event.ConnectionPausedEvent;
 import com.vance.jms.event.ConnectionResumedEvent;
 import jakarta.jms.Connection;
 import jakarta.jms.ConnectionFactory;
+import jakarta.jms.ExceptionListener;
 import jakarta.jms.JMSException;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -14,9 +16,12 @@ import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEvent;
 import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -40,38 +45,39 @@ public class MqConnectionServiceTest {
     private MqConnectionService mqConnectionService;
 
     @Captor
-    private ArgumentCaptor<Object> eventCaptor;
+    private ArgumentCaptor<ApplicationEvent> eventCaptor;
 
     @BeforeEach
     void setUp() {
         // Default MqConfig values that can be overridden in specific tests
-        when(mqConfig.getReconnectIntervalSeconds()).thenReturn(30); // Default, not directly used in these tests
-        when(mqConfig.getMaxReconnectAttempts()).thenReturn(3);    // Default for most tests
-        when(mqConfig.getReconnectPauseMinutes()).thenReturn(1);    // Default pause
+        lenient().when(mqConfig.getReconnectIntervalSeconds()).thenReturn(30); // Backoff cap
+        lenient().when(mqConfig.getReconnectInitialDelayMillis()).thenReturn(1000L); // Backoff base
+        lenient().when(mqConfig.getMaxReconnectAttempts()).thenReturn(3);    // Default for most tests
+        lenient().when(mqConfig.getReconnectPauseMinutes()).thenReturn(1);    // Default pause
     }
 
-    // Test Case 1: Successful Initial Connection
+    @AfterEach
+    void tearDown() {
+        mqConnectionService.close();
+    }
+
+    // Test Case 1: Construction does not connect; the first attempt connects and announces the initial connection
     @Test
     void testSuccessfulInitialConnection() throws JMSException {
-        when(connectionFactory.createConnection()).thenReturn(mockConnection);
+        assertFalse(mqConnectionService.isConnected(), "Constructor should not connect synchronously.");
+        verify(connectionFactory, never()).createConnection();
 
-        // Re-initialize or directly call checkAndEstablishConnection if constructor doesn't re-trigger with new mocks
-        // For this test, let's assume constructor call is enough or we make a direct call.
-        // If MqConnectionService is already created by @InjectMocks, its constructor has run.
-        // To test initial state *after* specific mock setup, we might need to call a method or re-initialize.
-        // Let's ensure checkAndEstablishConnection is called in a controlled way post-mock setup for clarity
-        
-        // Resetting the service to simulate construction AFTER mocks are set for initial connection
-        mqConnectionService = new MqConnectionService(mqConfig, connectionFactory, eventPublisher);
-        // The constructor calls checkAndEstablishConnection()
+        when(connectionFactory.createConnection()).thenReturn(mockConnection);
+        mqConnectionService.checkAndEstablishConnection();
 
         assertTrue(mqConnectionService.isConnected(), "Should be connected after successful initial attempt.");
-        assertEquals(0, mqConnectionService.getCurrentReconnectAttempts(), "Reconnect attempts should be 0 on success.");
+        assertEquals(MqConnectionService.ConnectionState.CONNECTED, mqConnectionService.getState());
+        assertEquals(0, mqConnectionService.getCurrentReconnectAttempts(), "Attempts should be 0 on success.");
         assertNull(mqConnectionService.getPausedUntil(), "Should not be paused on successful connection.");
-        
-        // Verify ConnectionResumedEvent is NOT published on initial successful connection
-        // (as per current logic, ResumedEvent is for recovery)
-        verify(eventPublisher, never()).publishEvent(any(ConnectionResumedEvent.class));
+
+        // The initial connection publishes a non-recovery ConnectionResumedEvent so listeners are started
+        verify(eventPublisher).publishEvent(eventCaptor.capture());
+        assertFalse(((ConnectionResumedEvent) eventCaptor.getValue()).isRecovery());
         verify(eventPublisher, never()).publishEvent(any(ConnectionPausedEvent.class));
     }
 
@@ -79,11 +85,8 @@ public class MqConnectionServiceTest {
     @Test
     void testConnectionFailureAndRetryLogic() throws JMSException {
         when(connectionFactory.createConnection()).thenThrow(new JMSException("Test connection failure"));
-        
-        // Constructor of MqConnectionService (via @InjectMocks or manual new) calls checkAndEstablishConnection once.
-        // For this test, we'll assume it's already been called once by @InjectMocks setup.
-        // Let's re-initialize for controlled test environment
-        mqConnectionService = new MqConnectionService(mqConfig, connectionFactory, eventPublisher); // First attempt fails
+
+        mqConnectionService.checkAndEstablishConnection(); // First attempt fails
 
         assertFalse(mqConnectionService.isConnected(), "Should not be connected after initial failure.");
         assertEquals(1, mqConnectionService.getCurrentReconnectAttempts(), "Reconnect attempts should be 1 after first failure.");
@@ -91,6 +94,7 @@ public class MqConnectionServiceTest {
         // Simulate second attempt
         mqConnectionService.checkAndEstablishConnection();
         assertFalse(mqConnectionService.isConnected(), "Should still not be connected after second failure.");
+        assertEquals(MqConnectionService.ConnectionState.RECONNECTING, mqConnectionService.getState());
         assertEquals(2, mqConnectionService.getCurrentReconnectAttempts(), "Reconnect attempts should be 2 after second failure.");
     }
 
@@ -100,8 +104,7 @@ public class MqConnectionServiceTest {
         when(mqConfig.getMaxReconnectAttempts()).thenReturn(2); // Override for this test
         when(connectionFactory.createConnection()).thenThrow(new JMSException("Test connection failure"));
 
-        // Re-initialize with new mqConfig settings reflected
-        mqConnectionService = new MqConnectionService(mqConfig, connectionFactory, eventPublisher); // Attempt 1
+        mqConnectionService.checkAndEstablishConnection(); // Attempt 1
 
         assertFalse(mqConnectionService.isConnected());
         assertEquals(1, mqConnectionService.getCurrentReconnectAttempts());
@@ -112,11 +115,14 @@ public class MqConnectionServiceTest {
         assertEquals(2, mqConnectionService.getCurrentReconnectAttempts()); // Reached max attempts
 
         // Next call should trigger pause
-        mqConnectionService.checkAndEstablishConnection(); 
+        mqConnectionService.checkAndEstablishConnection();
 
+        assertEquals(MqConnectionService.ConnectionState.PAUSED, mqConnectionService.getState());
         assertNotNull(mqConnectionService.getPausedUntil(), "Should be paused after reaching max attempts.");
         assertTrue(mqConnectionService.getPausedUntil().isAfter(LocalDateTime.now().minusSeconds(10)), "Pause time should be in the future.");
-        
+        // The jittered pause lasts between half and all of reconnectPauseMinutes
+        assertFalse(mqConnectionService.getPausedUntil().isAfter(LocalDateTime.now().plusMinutes(1)));
+
         verify(eventPublisher).publishEvent(eventCaptor.capture());
         assertTrue(eventCaptor.getValue() instanceof ConnectionPausedEvent, "ConnectionPausedEvent should be published.");
         ConnectionPausedEvent pausedEvent = (ConnectionPausedEvent) eventCaptor.getValue();
@@ -129,9 +135,10 @@ public class MqConnectionServiceTest {
         when(mqConfig.getMaxReconnectAttempts()).thenReturn(1); // Max 1 attempt before pause
         when(mqConfig.getReconnectPauseMinutes()).thenReturn(-1); // Pause for a negative minute (i.e., pause has expired)
 
-        // First attempt fails
+        // First attempt fails, second call triggers the pause
         when(connectionFactory.createConnection()).thenThrow(new JMSException("Initial failure"));
-        mqConnectionService = new MqConnectionService(mqConfig, connectionFactory, eventPublisher); // Attempt 1 fails, pause triggered
+        mqConnectionService.checkAndEstablishConnection();
+        mqConnectionService.checkAndEstablishConnection();
 
         assertFalse(mqConnectionService.isConnected());
         assertEquals(1, mqConnectionService.getCurrentReconnectAttempts());
@@ -150,16 +157,17 @@ public class MqConnectionServiceTest {
         assertEquals(0, mqConnectionService.getCurrentReconnectAttempts(), "Attempts should reset after successful connection.");
         assertNull(mqConnectionService.getPausedUntil(), "Pause should be cleared after successful connection.");
 
-        verify(eventPublisher).publishEvent(eventCaptor.capture());
-        assertTrue(eventCaptor.getValue() instanceof ConnectionResumedEvent, "ConnectionResumedEvent should be published.");
+        ArgumentCaptor<ConnectionResumedEvent> resumedCaptor = ArgumentCaptor.forClass(ConnectionResumedEvent.class);
+        verify(eventPublisher).publishEvent(resumedCaptor.capture());
+        assertTrue(resumedCaptor.getValue().isRecovery(), "ConnectionResumedEvent should be published as a recovery.");
     }
-    
+
     // Test Case 5: Manual Trigger
     @Test
     void testManualTrigger_NotPaused_Connects() throws JMSException {
         // Ensure not connected initially, but not paused
         when(connectionFactory.createConnection()).thenThrow(new JMSException("Initial failure for setup"));
-        mqConnectionService = new MqConnectionService(mqConfig, connectionFactory, eventPublisher);
+        mqConnectionService.checkAndEstablishConnection();
         assertEquals(1, mqConnectionService.getCurrentReconnectAttempts());
         assertFalse(mqConnectionService.isConnected());
         assertNull(mqConnectionService.getPausedUntil()); // Not paused
@@ -181,7 +189,8 @@ public class MqConnectionServiceTest {
         when(mqConfig.getReconnectPauseMinutes()).thenReturn(5); // Pause for 5 minutes
 
         when(connectionFactory.createConnection()).thenThrow(new JMSException("Failure"));
-        mqConnectionService = new MqConnectionService(mqConfig, connectionFactory, eventPublisher); // Fails and pauses
+        mqConnectionService.checkAndEstablishConnection(); // Fails
+        mqConnectionService.checkAndEstablishConnection(); // Pauses
 
         assertNotNull(mqConnectionService.getPausedUntil());
         assertTrue(mqConnectionService.getPausedUntil().isAfter(LocalDateTime.now()));
@@ -194,4 +203,131 @@ public class MqConnectionServiceTest {
         // No ConnectionResumedEvent should be published
         verify(eventPublisher, never()).publishEvent(any(ConnectionResumedEvent.class));
     }
+
+    // Test Case 6: A lost connection is marked immediately and reconnected on the background thread
+    @Test
+    void testConnectionException_ShouldReconnectInBackground() throws JMSException {
+        when(connectionFactory.createConnection()).thenReturn(mockConnection);
+        mqConnectionService.checkAndEstablishConnection();
+
+        exceptionListener(mockConnection).onException(new JMSException("MQRC_CONNECTION_BROKEN"));
+
+        verify(eventPublisher).publishEvent(any(ConnectionPausedEvent.class));
+        verify(eventPublisher, timeout(1000).times(2)).publishEvent(any(ConnectionResumedEvent.class));
+        assertTrue(mqConnectionService.isConnected());
+    }
+
+    // Test Case 7: Backoff delays grow with decorrelated jitter and stay within the configured bounds
+    @Test
+    void testNextBackoffMillis_ShouldStayWithinBounds() {
+        when(mqConfig.getReconnectInitialDelayMillis()).thenReturn(100L);
+        when(mqConfig.getReconnectIntervalSeconds()).thenReturn(2);
+
+        long previous = 0;
+        long max = 0;
+        for (int i = 0; i < 50; i++) {
+            long delay = mqConnectionService.nextBackoffMillis();
+            assertTrue(delay >= 100, "Delay should not be below the initial delay: " + delay);
+            assertTrue(delay <= 2000, "Delay should not exceed the cap: " + delay);
+            assertTrue(delay <= Math.max(100, previous * 3), "Delay should grow at most threefold: " + delay);
+            previous = delay;
+            max = Math.max(max, delay);
+        }
+        assertTrue(max > 100, "Delays should grow beyond the initial delay.");
+    }
+
+    // Test Case 8: A manual trigger during an active pause keeps the pause and only resets the attempt counter
+    @Test
+    void testManualTrigger_WhenPaused_ShouldKeepPause() throws JMSException {
+        when(mqConfig.getMaxReconnectAttempts()).thenReturn(1);
+        when(mqConfig.getReconnectPauseMinutes()).thenReturn(5);
+        when(connectionFactory.createConnection()).thenThrow(new JMSException("Failure"));
+        mqConnectionService.checkAndEstablishConnection(); // Fails
+        mqConnectionService.checkAndEstablishConnection(); // Pauses
+        LocalDateTime pausedUntil = mqConnectionService.getPausedUntil();
+
+        mqConnectionService.triggerManualReconnect();
+
+        assertEquals(MqConnectionService.ConnectionState.PAUSED, mqConnectionService.getState());
+        assertEquals(pausedUntil, mqConnectionService.getPausedUntil(), "The pause should not be ended early.");
+        assertEquals(0, mqConnectionService.getCurrentReconnectAttempts());
+        verify(connectionFactory, times(1)).createConnection();
+    }
+
+    // Test Case 9: Only one reconnect attempt runs at a time; concurrent callers return without waiting
+    @Test
+    void testCheckAndEstablishConnection_WhenAttemptInProgress_ShouldNotStartAnother() throws Exception {
+        CountDownLatch attemptStarted = new CountDownLatch(1);
+        CountDownLatch releaseAttempt = new CountDownLatch(1);
+        when(connectionFactory.createConnection()).thenAnswer(invocation -> {
+            attemptStarted.countDown();
+            releaseAttempt.await(5, TimeUnit.SECONDS);
+            return mockConnection;
+        });
+        Thread first = new Thread(mqConnectionService::checkAndEstablishConnection);
+        first.start();
+        assertTrue(attemptStarted.await(5, TimeUnit.SECONDS));
+
+        mqConnectionService.checkAndEstablishConnection();
+
+        assertEquals(MqConnectionService.ConnectionState.RECONNECTING, mqConnectionService.getState());
+        releaseAttempt.countDown();
+        first.join(5000);
+        assertTrue(mqConnectionService.isConnected());
+        verify(connectionFactory, times(1)).createConnection();
+    }
+
+    // Test Case 10: A second connection loss while already reconnecting does not publish another pause event
+    @Test
+    void testConnectionException_WhenAlreadyReconnecting_ShouldPublishOnce() throws JMSException {
+        when(connectionFactory.createConnection()).thenReturn(mockConnection)
+                .thenThrow(new JMSException("MQRC_CONNECTION_BROKEN"));
+        mqConnectionService.checkAndEstablishConnection();
+        ExceptionListener listener = exceptionListener(mockConnection);
+
+        listener.onException(new JMSException("MQRC_CONNECTION_BROKEN"));
+        listener.onException(new JMSException("MQRC_CONNECTION_BROKEN"));
+
+        assertEquals(MqConnectionService.ConnectionState.RECONNECTING, mqConnectionService.getState());
+        verify(eventPublisher, times(1)).publishEvent(any(ConnectionPausedEvent.class));
+    }
+
+    // Test Case 11: Startup connects in the background once the application is ready
+    @Test
+    void testConnectOnStartup_ShouldConnectInBackground() throws JMSException {
+        when(connectionFactory.createConnection()).thenReturn(mockConnection);
+
+        mqConnectionService.connectOnStartup();
+
+        verify(eventPublisher, timeout(1000)).publishEvent(any(ConnectionResumedEvent.class));
+        assertTrue(mqConnectionService.isConnected());
+    }
+
+    // Test Case 12: A late exception from a replaced monitor connection does not drop the new connection
+    @Test
+    void testConnectionException_FromReplacedConnection_ShouldBeIgnored() throws JMSException {
+        Connection replacement = mock(Connection.class);
+        when(connectionFactory.createConnection()).thenReturn(mockConnection, replacement);
+        mqConnectionService.checkAndEstablishConnection();
+        ExceptionListener staleListener = exceptionListener(mockConnection);
+        staleListener.onException(new JMSException("MQRC_CONNECTION_BROKEN"));
+        verify(eventPublisher, timeout(1000).times(2)).publishEvent(any(ConnectionResumedEvent.class));
+
+        staleListener.onException(new JMSException("MQRC_CONNECTION_BROKEN"));
+
+        assertTrue(mqConnectionService.isConnected());
+        verify(eventPublisher, times(1)).publishEvent(any(ConnectionPausedEvent.class));
+        verify(replacement, never()).close();
+
+        exceptionListener(replacement).onException(new JMSException("MQRC_CONNECTION_BROKEN"));
+
+        verify(eventPublisher, times(2)).publishEvent(any(ConnectionPausedEvent.class));
+        verify(replacement).close();
+    }
+
+    private static ExceptionListener exceptionListener(Connection connection) throws JMSException {
+        ArgumentCaptor<ExceptionListener> captor = ArgumentCaptor.forClass(ExceptionListener.class);
+        verify(connection).setExceptionListener(captor.capture());
+        return captor.getValue();
+    }
 }
@@ -0,0 +1,123 @@
+package com.vance.jms.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.vance.jms.config.MqConfig.Outbox.FsyncPolicy;
+import com.vance.jms.constant.Constant;
+import com.vance.jms.exception.OutboxFullException;
+
+public class OutboxJournalTest {
+
+    private static final String QUEUE = "TEST.QUEUE";
+
+    @TempDir
+    Path directory;
+
+    // Test Case 1: Entries are read back in append order and removed only after acknowledge
+    @Test
+    void testAppendPeekAcknowledge_ShouldPreserveOrder() throws IOException {
+        try (OutboxJournal journal = new OutboxJournal(directory, 1024, 4096, FsyncPolicy.ALWAYS)) {
+            journal.append(List.of(text("first"), text("second")));
+
+            OutboxJournal.Entry first = journal.peek();
+            assertEquals("first", payload(first));
+            assertEquals(QUEUE, first.getDestination());
+            assertEquals("first", payload(journal.peek()));
+
+            journal.acknowledge(first);
+            OutboxJournal.Entry second = journal.peek();
+            assertEquals("second", payload(second));
+            assertThrows(IllegalStateException.class, () -> journal.acknowledge(first));
+
+            journal.acknowledge(second);
+            assertNull(journal.peek());
+            assertTrue(journal.isEmpty());
+        }
+    }
+
+    // Test Case 2: Reopening resumes from the last acknowledged entry
+    @Test
+    void testReopen_ShouldResumeFromCheckpoint() throws IOException {
+        try (OutboxJournal journal = new OutboxJournal(directory, 1024, 4096, FsyncPolicy.INTERVAL)) {
+            journal.append(List.of(text("a"), text("b"), text("c")));
+            journal.acknowledge(journal.peek());
+        }
+
+        try (OutboxJournal journal = new OutboxJournal(directory, 1024, 4096, FsyncPolicy.INTERVAL)) {
+            assertEquals(2, journal.getPendingEntries());
+            assertEquals("b", payload(journal.peek()));
+            journal.append(List.of(text("d")));
+            journal.acknowledge(journal.peek());
+            assertEquals("c", payload(journal.peek()));
+            journal.acknowledge(journal.peek());
+            assertEquals("d", payload(journal.peek()));
+        }
+    }
+
+    // Test Case 3: Entries roll over to new segments and consumed segments are deleted
+    @Test
+    void testSegmentRoll_ShouldDeleteConsumedSegments() throws IOException {
+        try (OutboxJournal journal = new OutboxJournal(directory, 64, 1024, FsyncPolicy.NEVER)) {
+            for (int i = 0; i < 5; i++) {
+                journal.append(List.of(bytes(new byte[30])));
+            }
+            assertEquals(5, journal.getSegmentCount());
+
+            for (int i = 0; i < 5; i++) {
+                journal.acknowledge(journal.peek());
+            }
+            assertNull(journal.peek());
+            assertEquals(1, journal.getSegmentCount());
+        }
+    }
+
+    // Test Case 4: Appends beyond the size limit are rejected as a whole
+    @Test
+    void testAppend_WhenFull_ShouldRejectWholeBatch() throws IOException {
+        try (OutboxJournal journal = new OutboxJournal(directory, 64, 128, FsyncPolicy.NEVER)) {
+            journal.append(List.of(bytes(new byte[30])));
+
+            assertThrows(OutboxFullException.class,
+                    () -> journal.append(List.of(bytes(new byte[30]), bytes(new byte[30]))));
+            assertEquals(1, journal.getPendingEntries());
+            assertThrows(OutboxFullException.class, () -> journal.append(List.of(bytes(new byte[100]))));
+        }
+    }
+
+    // Test Case 5: appendIfPending only appends to an empty journal when forced
+    @Test
+    void testAppendIfPending_WhenEmptyAndNotForced_ShouldNotAppend() throws IOException {
+        try (OutboxJournal journal = new OutboxJournal(directory, 1024, 4096, FsyncPolicy.NEVER)) {
+            assertFalse(journal.appendIfPending(false, List.of(text("a"))));
+            assertTrue(journal.appendIfPending(true, List.of(text("a"))));
+            assertTrue(journal.appendIfPending(false, List.of(text("b"))));
+            assertEquals(2, journal.getPendingEntries());
+            assertArrayEquals("a".getBytes(StandardCharsets.UTF_8), journal.peek().getPayload());
+        }
+    }
+
+    private static OutboxJournal.Entry text(String text) {
+        return new OutboxJournal.Entry(Constant.OutboxType.TEXT, QUEUE, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static OutboxJournal.Entry bytes(byte[] bytes) {
+        return new OutboxJournal.Entry(Constant.OutboxType.BYTES, QUEUE, bytes);
+    }
+
+    private static String payload(OutboxJournal.Entry entry) {
+        return new String(entry.getPayload(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,197 @@
+package com.vance.jms.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jms.InvalidDestinationException;
+import org.springframework.jms.UncategorizedJmsException;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.support.JmsUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ibm.mq.MQException;
+import com.ibm.mq.constants.CMQC;
+import com.vance.jms.config.MqConfig;
+import com.vance.jms.exception.UnknownQueueException;
+
+import jakarta.jms.JMSException;
+
+@ExtendWith(MockitoExtension.class)
+public class OutboxServiceTest {
+
+    private static final String QUEUE = "TEST.QUEUE";
+
+    @Mock
+    private MqConfig mqConfig;
+
+    @Mock
+    private JmsTemplate jmsTemplate;
+
+    @Mock
+    private QueueTopology queueTopology;
+
+    @Mock
+    private MqConnectionService mqConnectionService;
+
+    @Mock
+    private ShardRouter shardRouter;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private OutboxService outboxService;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        MqConfig.Outbox outbox = new MqConfig.Outbox();
+        outbox.setEnabled(true);
+        outbox.setDirectory(directory.toString());
+        outbox.setSegmentSizeBytes(4096);
+        outbox.setMaxTotalBytes(64 * 1024);
+        outbox.setReplayRatePerSecond(1000);
+        lenient().when(mqConfig.getOutbox()).thenReturn(outbox);
+        lenient().when(shardRouter.isEnabled()).thenReturn(false);
+        lenient().when(queueTopology.resolve(QUEUE)).thenReturn(QueueTopology.QueueTarget.of(QUEUE, jmsTemplate));
+        outboxService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxService.close();
+    }
+
+    // Test Case 1: A permanently failing entry is discarded and the entries behind it are still replayed
+    @Test
+    void testReplay_PermanentFailure_ShouldDiscardAndContinue() throws Exception {
+        spool("first", "poison", "third");
+        lenient().doThrow(new InvalidDestinationException(
+                new jakarta.jms.InvalidDestinationException("MQRC_UNKNOWN_OBJECT_NAME")))
+                .when(jmsTemplate).convertAndSend(QUEUE, (Object) "poison");
+
+        replay();
+
+        verify(jmsTemplate).convertAndSend(QUEUE, (Object) "first");
+        verify(jmsTemplate).convertAndSend(QUEUE, (Object) "third");
+        Map<String, Object> statistics = outboxService.getStatistics();
+        assertEquals(0L, statistics.get("pendingEntries"));
+        assertEquals(2L, statistics.get("replayed"));
+        assertEquals(1L, statistics.get("discarded"));
+        assertFalse(outboxService.isSpooling());
+    }
+
+    // Test Case 2: A transient failure stops the replay and keeps the entry for the next attempt
+    @Test
+    void testReplay_TransientFailure_ShouldKeepEntry() throws Exception {
+        spool("first", "second");
+        doThrow(new UncategorizedJmsException("MQRC_CONNECTION_BROKEN"))
+                .when(jmsTemplate).convertAndSend(anyString(), any(Object.class));
+
+        replay();
+
+        verify(jmsTemplate, never()).convertAndSend(QUEUE, (Object) "second");
+        Map<String, Object> statistics = outboxService.getStatistics();
+        assertEquals(2L, statistics.get("pendingEntries"));
+        assertEquals(0L, statistics.get("replayed"));
+        assertEquals(0L, statistics.get("discarded"));
+
+        reset(jmsTemplate);
+        replay();
+
+        verify(jmsTemplate).convertAndSend(QUEUE, (Object) "first");
+        verify(jmsTemplate).convertAndSend(QUEUE, (Object) "second");
+        assertEquals(0L, outboxService.getStatistics().get("pendingEntries"));
+    }
+
+    // Test Case 3: An MQ reason code linked to the JMSException is recognised as a permanent failure
+    @Test
+    void testReplay_LinkedMqReasonCode_ShouldDiscard() throws Exception {
+        spool("too-big", "next");
+        JMSException cause = new JMSException("JMSWMQ2007");
+        cause.setLinkedException(new MQException(CMQC.MQCC_FAILED, CMQC.MQRC_MSG_TOO_BIG_FOR_Q, this));
+        lenient().doThrow(JmsUtils.convertJmsAccessException(cause))
+                .when(jmsTemplate).convertAndSend(QUEUE, (Object) "too-big");
+
+        replay();
+
+        verify(jmsTemplate).convertAndSend(QUEUE, (Object) "next");
+        assertEquals(1L, outboxService.getStatistics().get("discarded"));
+        assertEquals(0L, outboxService.getStatistics().get("pendingEntries"));
+    }
+
+    // Test Case 4: Replay resolves the queue again so its destination and QoS template are used
+    @Test
+    void testReplay_ConfiguredQueue_ShouldUseQueueTemplate() throws Exception {
+        JmsTemplate ordersTemplate = mock(JmsTemplate.class);
+        when(queueTopology.resolve("orders"))
+                .thenReturn(new QueueTopology.QueueTarget("orders", "DEV.ORDERS", ordersTemplate, Set.of()));
+        spoolTo("orders", "order-1");
+
+        replay();
+
+        verify(ordersTemplate).convertAndSend("DEV.ORDERS", (Object) "order-1");
+        verify(jmsTemplate, never()).convertAndSend(anyString(), any(Object.class));
+        assertEquals(1L, outboxService.getStatistics().get("replayed"));
+    }
+
+    // Test Case 5: An entry for a queue that is no longer configured is discarded
+    @Test
+    void testReplay_UnknownQueue_ShouldDiscard() throws Exception {
+        when(queueTopology.resolve("removed")).thenThrow(new UnknownQueueException("Unknown queue: removed"));
+        spoolTo("removed", "lost");
+        spoolTo(QUEUE, "kept");
+
+        replay();
+
+        verify(jmsTemplate).convertAndSend(QUEUE, (Object) "kept");
+        assertEquals(1L, outboxService.getStatistics().get("discarded"));
+        assertEquals(1L, outboxService.getStatistics().get("replayed"));
+    }
+
+    private void spool(String... texts) {
+        spoolTo(QUEUE, texts);
+    }
+
+    private void spoolTo(String queue, String... texts) {
+        when(mqConnectionService.isConnected()).thenReturn(false);
+        assertTrue(outboxService.spoolIfNeeded(queue, List.of(texts)));
+    }
+
+    private void replay() throws InterruptedException {
+        when(mqConnectionService.isConnected()).thenReturn(true);
+        outboxService.triggerReplay();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (Boolean.TRUE.equals(outboxService.getStatistics().get("replaying"))
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.vance.jms.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.vance.jms.config.MqConfig;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+public class PartitionedDispatcherTest {
+
+    @Spy
+    private MqConfig mqConfig = new MqConfig();
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private PartitionedDispatcher partitionedDispatcher;
+
+    @BeforeEach
+    void setUp() {
+        mqConfig.getListener().setBatchSize(50);
+        mqConfig.getListener().setPartitions(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        partitionedDispatcher.close();
+    }
+
+    // Test Case 1: Fewer than two partitions leaves the dispatcher disabled
+    @Test
+    void testInit_SinglePartition_ShouldStayDisabled() {
+        mqConfig.getListener().setPartitions(1);
+
+        partitionedDispatcher.init();
+
+        assertFalse(partitionedDispatcher.isEnabled());
+    }
+
+    // Test Case 2: Messages with the same key run on one lane in receive order
+    @Test
+    void testExecute_SameKey_ShouldKeepOrderOnOneThread() throws Exception {
+        partitionedDispatcher.init();
+        Map<String, List<Integer>> processed = new ConcurrentHashMap<>();
+        Map<String, List<Thread>> threads = new ConcurrentHashMap<>();
+        List<PartitionedDispatcher.PartitionTask> tasks = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            String key = "key-" + (i % 4);
+            int sequence = i;
+            tasks.add(new PartitionedDispatcher.PartitionTask(key, () -> {
+                processed.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>()).add(sequence);
+                threads.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>()).add(Thread.currentThread());
+            }));
+        }
+
+        partitionedDispatcher.execute(tasks);
+
+        assertEquals(4, processed.size());
+        processed.forEach((key, sequences) -> {
+            assertEquals(10, sequences.size());
+            for (int i = 1; i < sequences.size(); i++) {
+                assertTrue(sequences.get(i - 1) < sequences.get(i));
+            }
+            assertEquals(1, threads.get(key).stream().distinct().count());
+        });
+    }
+
+    // Test Case 3: Messages with different keys are processed in parallel
+    @Test
+    void testExecute_DifferentLanes_ShouldRunInParallel() throws Exception {
+        mqConfig.getListener().setPartitions(2);
+        partitionedDispatcher.init();
+        CyclicBarrier barrier = new CyclicBarrier(2);
+
+        // 沒有分區鍵的工作依序分配到兩條通道，只有同時執行才能通過 barrier
+        partitionedDispatcher.execute(List.of(
+                new PartitionedDispatcher.PartitionTask(null, () -> barrier.await(5, TimeUnit.SECONDS)),
+                new PartitionedDispatcher.PartitionTask(null, () -> barrier.await(5, TimeUnit.SECONDS))));
+    }
+
+    // Test Case 4: A failure is rethrown and later work for the same key is skipped
+    @Test
+    void testExecute_TaskFails_ShouldRethrowAndSkipRemaining() throws Exception {
+        partitionedDispatcher.init();
+        IllegalStateException failure = new IllegalStateException("處理失敗");
+        List<Integer> processed = new CopyOnWriteArrayList<>();
+
+        IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> partitionedDispatcher.execute(
+                List.of(new PartitionedDispatcher.PartitionTask("key", () -> processed.add(1)),
+                        new PartitionedDispatcher.PartitionTask("key", () -> {
+                            throw failure;
+                        }),
+                        new PartitionedDispatcher.PartitionTask("key", () -> processed.add(3)))));
+
+        assertSame(failure, thrown);
+        assertEquals(List.of(1), processed);
+
+        // 通道在失敗後仍可處理下一批
+        partitionedDispatcher.execute(List.of(new PartitionedDispatcher.PartitionTask("key", () -> processed.add(4))));
+        assertEquals(List.of(1, 4), processed);
+    }
+}
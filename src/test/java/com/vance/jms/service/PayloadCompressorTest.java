@@ -0,0 +1,201 @@
+package com.vance.jms.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jms.support.converter.MessageConverter;
+
+import com.vance.jms.config.CompressingMessageConverter;
+import com.vance.jms.config.MqConfig;
+import com.vance.jms.config.PayloadCodec;
+import com.vance.jms.constant.Constant;
+import com.vance.jms.model.CustomMessage;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.jms.BytesMessage;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageFormatException;
+import jakarta.jms.Session;
+import jakarta.jms.TextMessage;
+
+@ExtendWith(MockitoExtension.class)
+public class PayloadCompressorTest {
+
+    private static final String JSON = "{\"id\":\"1\",\"content\":\"repeated content repeated content\"}".repeat(50);
+
+    @Spy
+    private MqConfig mqConfig = new MqConfig();
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Mock
+    private ObjectProvider<PayloadCodec> customCodecs;
+
+    @InjectMocks
+    private PayloadCompressor payloadCompressor;
+
+    @BeforeEach
+    void setUp() {
+        mqConfig.getCompression().setEnabled(true);
+        lenient().when(customCodecs.orderedStream()).thenAnswer(invocation -> Stream.empty());
+    }
+
+    // Test Case 1: Payloads below the threshold or with compression disabled are not compressed
+    @Test
+    void testCompress_BelowThresholdOrDisabled_ShouldReturnNull() throws Exception {
+        payloadCompressor.init();
+
+        assertNull(payloadCompressor.compress(new byte[100]));
+        mqConfig.getCompression().setEnabled(false);
+        assertNull(payloadCompressor.compress(JSON.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    // Test Case 2: Deflate and gzip payloads are restored as the original text
+    @Test
+    void testCompressAndRestore_ShouldRoundTrip() throws Exception {
+        for (String codec : new String[] { "deflate", "gzip" }) {
+            mqConfig.getCompression().setCodec(codec);
+            payloadCompressor.init();
+            byte[] original = JSON.getBytes(StandardCharsets.UTF_8);
+
+            byte[] compressed = payloadCompressor.compress(original);
+            assertNotNull(compressed);
+            assertTrue(compressed.length < original.length / 4);
+
+            BytesMessage message = compressedMessage(codec, "TEXT", original.length, compressed);
+            assertEquals(JSON, payloadCompressor.decompress(message));
+            assertEquals(1, meterRegistry.get("jms.compression.ratio").tag("codec", codec).summary().count());
+        }
+    }
+
+    // Test Case 3: Incompressible payloads are sent as-is and counted
+    @Test
+    void testCompress_Incompressible_ShouldReturnNull() throws Exception {
+        payloadCompressor.init();
+        byte[] random = new byte[4096];
+        new Random(1).nextBytes(random);
+
+        assertNull(payloadCompressor.compress(random));
+        assertEquals(1.0,
+                meterRegistry.get("jms.compression.incompressible").tag("codec", "deflate").counter().count());
+    }
+
+    // Test Case 4: A declared length above the limit is rejected before decompressing
+    @Test
+    void testDecompress_LengthOverLimit_ShouldThrowException() throws Exception {
+        payloadCompressor.init();
+        mqConfig.getCompression().setMaxDecompressedBytes(10);
+
+        assertThrows(MessageFormatException.class,
+                () -> payloadCompressor.decompress(compressedMessage("deflate", "BYTES", 11, new byte[4])));
+    }
+
+    // Test Case 5: An unknown configured codec fails at startup
+    @Test
+    void testInit_UnknownCodec_ShouldThrowException() {
+        mqConfig.getCompression().setCodec("zstd");
+
+        assertThrows(IllegalStateException.class, () -> payloadCompressor.init());
+    }
+
+    // Test Case 6: The converter replaces large text messages with a compressed BytesMessage
+    @Test
+    void testConverter_LargeText_ShouldSendCompressedBytes() throws JMSException {
+        payloadCompressor.init();
+        MessageConverter delegate = mock(MessageConverter.class);
+        Session session = mock(Session.class);
+        TextMessage textMessage = mock(TextMessage.class);
+        BytesMessage bytesMessage = mock(BytesMessage.class);
+        when(delegate.toMessage("payload", session)).thenReturn(textMessage);
+        when(textMessage.getText()).thenReturn(JSON);
+        when(textMessage.getPropertyNames()).thenReturn(Collections.enumeration(List.of("_type")));
+        when(textMessage.getObjectProperty("_type")).thenReturn("java.lang.String");
+        when(session.createBytesMessage()).thenReturn(bytesMessage);
+
+        Message message = new CompressingMessageConverter(delegate, payloadCompressor).toMessage("payload", session);
+
+        assertSame(bytesMessage, message);
+        verify(bytesMessage).setObjectProperty("_type", "java.lang.String");
+        verify(bytesMessage).setStringProperty(Constant.CompressionProperty.CODEC, "deflate");
+        verify(bytesMessage).setStringProperty(Constant.CompressionProperty.ORIGINAL_TYPE, "TEXT");
+        verify(bytesMessage).setIntProperty(Constant.CompressionProperty.ORIGINAL_LENGTH, JSON.length());
+        verify(bytesMessage).writeBytes(any(byte[].class));
+    }
+
+    // Test Case 7: Compressed binary payloads are restored as a byte array and uncompressed messages as null
+    @Test
+    void testDecompress_BytesPayload_ShouldReturnByteArray() throws Exception {
+        payloadCompressor.init();
+        byte[] original = JSON.getBytes(StandardCharsets.UTF_8);
+        byte[] compressed = payloadCompressor.compress(original);
+        BytesMessage message = compressedMessage("deflate", "BYTES", original.length, compressed);
+
+        assertArrayEquals(original, assertInstanceOf(byte[].class, payloadCompressor.decompress(message)));
+        assertNull(payloadCompressor.decompress(mock(TextMessage.class)));
+    }
+
+    // Test Case 8: The converter records the CustomMessage id as the partition key property
+    @Test
+    void testConverter_CustomMessage_ShouldStampPartitionKey() throws JMSException {
+        mqConfig.getCompression().setEnabled(false);
+        payloadCompressor.init();
+        MessageConverter delegate = mock(MessageConverter.class);
+        Session session = mock(Session.class);
+        TextMessage textMessage = mock(TextMessage.class);
+        CustomMessage customMessage = new CustomMessage();
+        customMessage.setId("order-1");
+        when(delegate.toMessage(customMessage, session)).thenReturn(textMessage);
+        CompressingMessageConverter converter = new CompressingMessageConverter(delegate, payloadCompressor);
+
+        Message message = converter.toMessage(customMessage, session);
+
+        assertSame(textMessage, message);
+        verify(textMessage).setStringProperty(Constant.PartitionProperty.KEY, "order-1");
+    }
+
+    /**
+     * 建立一個帶有壓縮屬性的 BytesMessage
+     */
+    private static BytesMessage compressedMessage(String codec, String type, int originalLength, byte[] body)
+            throws JMSException {
+        BytesMessage message = mock(BytesMessage.class);
+        ByteArrayInputStream in = new ByteArrayInputStream(body);
+        lenient().when(message.propertyExists(Constant.CompressionProperty.CODEC)).thenReturn(true);
+        lenient().when(message.getStringProperty(Constant.CompressionProperty.CODEC)).thenReturn(codec);
+        lenient().when(message.getStringProperty(Constant.CompressionProperty.ORIGINAL_TYPE)).thenReturn(type);
+        lenient().when(message.getIntProperty(Constant.CompressionProperty.ORIGINAL_LENGTH)).thenReturn(originalLength);
+        lenient().when(message.getBodyLength()).thenReturn((long) body.length);
+        lenient().when(message.readBytes(any(byte[].class)))
+                .thenAnswer(invocation -> in.read(invocation.getArgument(0)));
+        return message;
+    }
+}
@@ -0,0 +1,120 @@
+package com.vance.jms.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.LoggerFactory;
+
+import com.vance.jms.config.MqConfig;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import jakarta.jms.JMSException;
+import jakarta.jms.TextMessage;
+
+@ExtendWith(MockitoExtension.class)
+public class PayloadLoggerTest {
+
+    private static final long NOW = TimeUnit.SECONDS.toNanos(100);
+
+    @Spy
+    private MqConfig mqConfig = new MqConfig();
+
+    @InjectMocks
+    private PayloadLogger payloadLogger;
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger("jms.payload");
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    @BeforeEach
+    void setUp() {
+        mqConfig.getPayloadLogging().setSampleRate(1);
+        mqConfig.getPayloadLogging().setMaxPerSecond(2);
+        mqConfig.getPayloadLogging().setMaxLength(8);
+        payloadLogger.init();
+        appender.start();
+        logger.addAppender(appender);
+        logger.setLevel(Level.INFO);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(appender);
+        logger.setLevel(null);
+    }
+
+    // Test Case 1: Payloads are truncated to the configured length
+    @Test
+    void testLog_LongText_ShouldTruncate() {
+        payloadLogger.log(PayloadLogger.CATEGORY_SEND, "Q1", "0123456789", NOW);
+
+        assertEquals("[send] Q1: 01234567...(共 10 字元)", appender.list.get(0).getFormattedMessage());
+    }
+
+    // Test Case 2: Entries over the per-second limit are dropped and reported with the next entry
+    @Test
+    void testLog_OverRateLimit_ShouldSuppressAndReport() {
+        for (int i = 0; i < 5; i++) {
+            payloadLogger.log(PayloadLogger.CATEGORY_RECEIVE, "Q1", "text", NOW);
+        }
+        payloadLogger.log(PayloadLogger.CATEGORY_SEND, "Q1", "text", NOW);
+        payloadLogger.log(PayloadLogger.CATEGORY_RECEIVE, "Q1", "text", NOW + TimeUnit.SECONDS.toNanos(1));
+
+        assertEquals(4, appender.list.size());
+        assertEquals("[receive] Q1: text (已略過 3 筆)", appender.list.get(3).getFormattedMessage());
+        assertEquals(Map.of("receive", 3L, "send", 0L), payloadLogger.getStatistics().get("suppressed"));
+    }
+
+    // Test Case 3: A sample rate of zero logs nothing
+    @Test
+    void testLog_ZeroSampleRate_ShouldNotLog() {
+        mqConfig.getPayloadLogging().setSampleRate(0);
+
+        payloadLogger.log(PayloadLogger.CATEGORY_SEND, "Q1", "text", NOW);
+
+        assertTrue(appender.list.isEmpty());
+    }
+
+    // Test Case 4: Queues switched to full payload skip sampling, limits and truncation
+    @Test
+    void testLog_FullPayloadQueue_ShouldLogEverything() {
+        mqConfig.getPayloadLogging().setSampleRate(0);
+        payloadLogger.setFullPayload("Q2", true);
+        appender.list.clear();
+
+        for (int i = 0; i < 3; i++) {
+            payloadLogger.log(PayloadLogger.CATEGORY_SEND, "Q2", "0123456789", NOW);
+        }
+        payloadLogger.log(PayloadLogger.CATEGORY_SEND, "Q1", "0123456789", NOW);
+
+        assertEquals(3, appender.list.size());
+        assertEquals("[send] Q2: 0123456789", appender.list.get(2).getFormattedMessage());
+    }
+
+    // Test Case 5: JMS messages are described without calling toString
+    @Test
+    void testDescribe_TextMessageAndBytes_ShouldReadOnlyBody() throws JMSException {
+        TextMessage message = mock(TextMessage.class);
+        when(message.getText()).thenReturn("hello");
+
+        assertEquals("hello", PayloadLogger.describe(message, 8));
+        assertEquals("5 bytes [01020304...]", PayloadLogger.describe(new byte[] { 1, 2, 3, 4, 5 }, 8));
+        verify(message, never()).getJMSMessageID();
+    }
+}
@@ -0,0 +1,123 @@
+package com.vance.jms.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jms.core.JmsTemplate;
+
+import com.vance.jms.config.MqConfig;
+import com.vance.jms.exception.UnknownQueueException;
+
+import jakarta.jms.ConnectionFactory;
+import jakarta.jms.DeliveryMode;
+
+@ExtendWith(MockitoExtension.class)
+public class QueueTopologyTest {
+
+    private static final String DEFAULT_QUEUE = "DEV.QUEUE.1";
+
+    @Spy
+    private MqConfig mqConfig = new MqConfig();
+
+    @Mock
+    private ConnectionFactory connectionFactory;
+
+    @Spy
+    private JmsTemplate jmsTemplate = new JmsTemplate();
+
+    @InjectMocks
+    private QueueTopology queueTopology;
+
+    @BeforeEach
+    void setUp() {
+        mqConfig.setQueueName(DEFAULT_QUEUE);
+        jmsTemplate.setConnectionFactory(connectionFactory);
+        jmsTemplate.setExplicitQosEnabled(true);
+        jmsTemplate.setTimeToLive(100_000);
+        jmsTemplate.setDeliveryMode(DeliveryMode.PERSISTENT);
+    }
+
+    private MqConfig.QueueDefinition queue(String name) {
+        MqConfig.QueueDefinition definition = new MqConfig.QueueDefinition();
+        definition.setName(name);
+        return definition;
+    }
+
+    // Test Case 1: The default queue and unnamed requests resolve to the injected JmsTemplate
+    @Test
+    void testResolve_DefaultQueue_ShouldUseDefaultTemplate() {
+        queueTopology.init();
+
+        QueueTopology.QueueTarget target = queueTopology.resolve(null);
+
+        assertEquals(DEFAULT_QUEUE, target.destination());
+        assertSame(jmsTemplate, target.jmsTemplate());
+        assertTrue(target.handlers().isEmpty());
+        assertEquals(DEFAULT_QUEUE, queueTopology.resolve(DEFAULT_QUEUE).destination());
+    }
+
+    // Test Case 2: A queue without its own QoS shares the default JmsTemplate and keeps its handler binding
+    @Test
+    void testResolve_NamedQueue_ShouldUseConfiguredDestination() {
+        MqConfig.QueueDefinition orders = queue("orders");
+        orders.setDestination("DEV.QUEUE.2");
+        orders.setHandlers(Set.of("customMessage"));
+        mqConfig.setQueues(List.of(orders));
+        queueTopology.init();
+
+        QueueTopology.QueueTarget target = queueTopology.resolve("orders");
+
+        assertEquals("DEV.QUEUE.2", target.destination());
+        assertSame(jmsTemplate, target.jmsTemplate());
+        assertEquals(Set.of("customMessage"), target.handlers());
+        assertTrue(queueTopology.contains("orders"));
+    }
+
+    // Test Case 3: A queue with its own TTL and delivery mode gets a dedicated JmsTemplate
+    @Test
+    void testResolve_QueueWithQos_ShouldUseDedicatedTemplate() {
+        MqConfig.QueueDefinition events = queue("events");
+        events.setMessageTtlSeconds(5);
+        events.setDeliveryMode(MqConfig.QueueDefinition.DeliveryMode.NON_PERSISTENT);
+        mqConfig.setQueues(List.of(events));
+        queueTopology.init();
+
+        JmsTemplate template = queueTopology.resolve("events").jmsTemplate();
+
+        assertNotSame(jmsTemplate, template);
+        assertEquals(5000, template.getTimeToLive());
+        assertEquals(DeliveryMode.NON_PERSISTENT, template.getDeliveryMode());
+        assertEquals(100_000, jmsTemplate.getTimeToLive());
+    }
+
+    // Test Case 4: Unknown queue names are rejected
+    @Test
+    void testResolve_UnknownQueue_ShouldThrowException() {
+        queueTopology.init();
+
+        assertFalse(queueTopology.contains("missing"));
+        assertThrows(UnknownQueueException.class, () -> queueTopology.resolve("missing"));
+    }
+
+    // Test Case 5: Duplicate queue names fail at startup
+    @Test
+    void testInit_DuplicateName_ShouldThrowException() {
+        mqConfig.setQueues(List.of(queue("orders"), queue("orders")));
+
+        assertThrows(IllegalStateException.class, () -> queueTopology.init());
+    }
+}
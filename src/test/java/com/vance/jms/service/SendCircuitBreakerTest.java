@@ -0,0 +1,227 @@
+package com.vance.jms.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jms.UncategorizedJmsException;
+import org.springframework.jms.support.converter.MessageConversionException;
+
+import com.vance.jms.config.MqConfig;
+import com.vance.jms.event.ConnectionResumedEvent;
+import com.vance.jms.exception.MqNotConnectedException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+public class SendCircuitBreakerTest {
+
+    @Spy
+    private MqConfig mqConfig = new MqConfig();
+
+    @Mock
+    private MqConnectionService mqConnectionService;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private SendCircuitBreaker sendCircuitBreaker;
+
+    @BeforeEach
+    void setUp() {
+        MqConfig.CircuitBreaker config = mqConfig.getCircuitBreaker();
+        config.setEnabled(true);
+        config.setWindowSize(10);
+        config.setMinimumCalls(4);
+        config.setFailureRateThreshold(50);
+        config.setLatencyPercentile(0.9);
+        config.setLatencyThresholdMs(100);
+        config.setHalfOpenProbes(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        sendCircuitBreaker.close();
+    }
+
+    private void fail() {
+        assertThrows(UncategorizedJmsException.class, () -> sendCircuitBreaker.execute(() -> {
+            throw new UncategorizedJmsException("MQRC_Q_MGR_NOT_AVAILABLE");
+        }));
+    }
+
+    private void succeed() {
+        assertEquals("ok", sendCircuitBreaker.execute(() -> "ok"));
+    }
+
+    // Test Case 1: The breaker opens once the JMS failure rate reaches the threshold and rejects sends
+    @Test
+    void testExecute_FailureRateExceeded_ShouldOpenAndReject() {
+        sendCircuitBreaker.init();
+
+        succeed();
+        succeed();
+        fail();
+        assertEquals(SendCircuitBreaker.State.CLOSED, sendCircuitBreaker.getState());
+        fail();
+
+        assertEquals(SendCircuitBreaker.State.OPEN, sendCircuitBreaker.getState());
+        assertThrows(MqNotConnectedException.class, this::succeed);
+        assertEquals(1L, sendCircuitBreaker.getStatistics().get("rejected"));
+        verify(mqConnectionService, timeout(1000)).verifyConnection();
+    }
+
+    // Test Case 2: Slow sends above the latency percentile open the breaker
+    @Test
+    void testRecord_LatencyPercentileExceeded_ShouldOpen() {
+        mqConfig.getCircuitBreaker().setMinimumCalls(10);
+        sendCircuitBreaker.init();
+        long slow = TimeUnit.MILLISECONDS.toNanos(500);
+
+        for (int i = 0; i < 9; i++) {
+            sendCircuitBreaker.record(false, 0, null);
+        }
+        // 10 筆中 1 筆緩慢，p90 仍在門檻內
+        sendCircuitBreaker.record(false, slow, null);
+        assertEquals(SendCircuitBreaker.State.CLOSED, sendCircuitBreaker.getState());
+        sendCircuitBreaker.record(false, slow, null);
+
+        assertEquals(SendCircuitBreaker.State.OPEN, sendCircuitBreaker.getState());
+    }
+
+    // Test Case 3: Errors unrelated to MQ health are not counted
+    @Test
+    void testExecute_ConversionError_ShouldNotCount() {
+        sendCircuitBreaker.init();
+
+        for (int i = 0; i < 5; i++) {
+            assertThrows(MessageConversionException.class, () -> sendCircuitBreaker.execute(() -> {
+                throw new MessageConversionException("bad payload");
+            }));
+        }
+
+        assertEquals(SendCircuitBreaker.State.CLOSED, sendCircuitBreaker.getState());
+        assertEquals(0, sendCircuitBreaker.getStatistics().get("calls"));
+        verify(mqConnectionService, never()).verifyConnection();
+    }
+
+    // Test Case 4: After the open duration, successful probes close the breaker
+    @Test
+    void testExecute_HalfOpenProbesSucceed_ShouldClose() {
+        mqConfig.getCircuitBreaker().setOpenDurationSeconds(0);
+        sendCircuitBreaker.init();
+        for (int i = 0; i < 4; i++) {
+            fail();
+        }
+        assertEquals(SendCircuitBreaker.State.OPEN, sendCircuitBreaker.getState());
+
+        succeed();
+        assertEquals(SendCircuitBreaker.State.HALF_OPEN, sendCircuitBreaker.getState());
+        succeed();
+
+        assertEquals(SendCircuitBreaker.State.CLOSED, sendCircuitBreaker.getState());
+    }
+
+    // Test Case 5: A failed probe reopens the breaker
+    @Test
+    void testExecute_HalfOpenProbeFails_ShouldReopen() {
+        sendCircuitBreaker.init();
+        for (int i = 0; i < 4; i++) {
+            fail();
+        }
+
+        sendCircuitBreaker.handleConnectionResumed(new ConnectionResumedEvent(this));
+        assertEquals(SendCircuitBreaker.State.HALF_OPEN, sendCircuitBreaker.getState());
+        fail();
+
+        assertEquals(SendCircuitBreaker.State.OPEN, sendCircuitBreaker.getState());
+        assertThrows(MqNotConnectedException.class, this::succeed);
+    }
+
+    // Test Case 5.1: A probe throwing an Error still returns its permit
+    @Test
+    void testExecute_HalfOpenProbeThrowsError_ShouldReleasePermit() {
+        mqConfig.getCircuitBreaker().setHalfOpenProbes(1);
+        sendCircuitBreaker.init();
+        for (int i = 0; i < 4; i++) {
+            fail();
+        }
+        sendCircuitBreaker.handleConnectionResumed(new ConnectionResumedEvent(this));
+
+        assertThrows(StackOverflowError.class, () -> sendCircuitBreaker.execute(() -> {
+            throw new StackOverflowError();
+        }));
+        succeed();
+
+        assertEquals(SendCircuitBreaker.State.CLOSED, sendCircuitBreaker.getState());
+    }
+
+    // Test Case 5.2: Probes that never report within the open duration reopen the breaker
+    @Test
+    void testExecuteAsync_HalfOpenProbesNeverComplete_ShouldReopen() {
+        mqConfig.getCircuitBreaker().setOpenDurationSeconds(0);
+        sendCircuitBreaker.init();
+        for (int i = 0; i < 4; i++) {
+            fail();
+        }
+        sendCircuitBreaker.executeAsync(CompletableFuture::new);
+        sendCircuitBreaker.executeAsync(CompletableFuture::new);
+        assertEquals(SendCircuitBreaker.State.HALF_OPEN, sendCircuitBreaker.getState());
+
+        assertThrows(MqNotConnectedException.class, this::succeed);
+        assertEquals(SendCircuitBreaker.State.OPEN, sendCircuitBreaker.getState());
+
+        succeed();
+        succeed();
+        assertEquals(SendCircuitBreaker.State.CLOSED, sendCircuitBreaker.getState());
+    }
+
+    // Test Case 5.3: A connection resumed event while half-open hands out new probe permits
+    @Test
+    void testHandleConnectionResumed_HalfOpen_ShouldRestartProbes() {
+        sendCircuitBreaker.init();
+        for (int i = 0; i < 4; i++) {
+            fail();
+        }
+        sendCircuitBreaker.handleConnectionResumed(new ConnectionResumedEvent(this));
+        sendCircuitBreaker.executeAsync(CompletableFuture::new);
+        sendCircuitBreaker.executeAsync(CompletableFuture::new);
+        assertThrows(MqNotConnectedException.class, this::succeed);
+        assertEquals(SendCircuitBreaker.State.HALF_OPEN, sendCircuitBreaker.getState());
+
+        sendCircuitBreaker.handleConnectionResumed(new ConnectionResumedEvent(this));
+        succeed();
+        succeed();
+
+        assertEquals(SendCircuitBreaker.State.CLOSED, sendCircuitBreaker.getState());
+    }
+
+    // Test Case 6: The breaker passes sends through when disabled
+    @Test
+    void testExecute_Disabled_ShouldPassThrough() {
+        mqConfig.getCircuitBreaker().setEnabled(false);
+        sendCircuitBreaker.init();
+
+        for (int i = 0; i < 10; i++) {
+            fail();
+        }
+
+        succeed();
+        assertEquals(SendCircuitBreaker.State.CLOSED, sendCircuitBreaker.getState());
+    }
+}
@@ -0,0 +1,135 @@
+package com.vance.jms.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.vance.jms.config.MqConfig;
+import com.vance.jms.config.PooledConnectionFactory;
+import com.vance.jms.exception.MqNotConnectedException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.jms.Connection;
+import jakarta.jms.ConnectionFactory;
+import jakarta.jms.JMSException;
+
+@ExtendWith(MockitoExtension.class)
+public class ShardRouterTest {
+
+    @Spy
+    private MqConfig mqConfig = new MqConfig();
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private ShardRouter shardRouter;
+
+    private QueueManagerShard qm1;
+    private QueueManagerShard qm2;
+    private QueueManagerShard qm3;
+
+    @BeforeEach
+    void setUp() throws JMSException {
+        mqConfig.getSharding().setEnabled(true);
+        qm1 = connectedShard("QM1", 5);
+        qm2 = connectedShard("QM2", 1);
+        qm3 = connectedShard("QM3", 1);
+    }
+
+    private QueueManagerShard connectedShard(String name, int weight) throws JMSException {
+        ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+        when(connectionFactory.createConnection()).thenReturn(mock(Connection.class));
+        QueueManagerShard shard = new QueueManagerShard(name, weight, connectionFactory,
+                mock(PooledConnectionFactory.class), mock(AsyncProducerPool.class));
+        shard.checkHealth();
+        return shard;
+    }
+
+    // Test Case 1: The same key always goes to the same queue manager
+    @Test
+    void testRoute_ConsistentHash_ShouldBeStablePerKey() {
+        shardRouter.register(List.of(qm1, qm2, qm3));
+
+        Map<QueueManagerShard, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            QueueManagerShard shard = shardRouter.route("order-" + i);
+            assertSame(shard, shardRouter.route("order-" + i));
+            counts.merge(shard, 1, Integer::sum);
+        }
+
+        assertEquals(3, counts.size());
+        assertTrue(counts.get(qm1) > counts.get(qm2));
+    }
+
+    // Test Case 2: Keys owned by a failed queue manager move to healthy ones, other keys stay in place
+    @Test
+    void testRoute_ShardDown_ShouldFailOverOnlyAffectedKeys() {
+        shardRouter.register(List.of(qm1, qm2, qm3));
+        Map<String, QueueManagerShard> before = new HashMap<>();
+        for (int i = 0; i < 200; i++) {
+            before.put("order-" + i, shardRouter.route("order-" + i));
+        }
+
+        qm2.markDown("連接中斷");
+
+        before.forEach((key, owner) -> {
+            QueueManagerShard shard = shardRouter.route(key);
+            if (owner == qm2) {
+                assertNotSame(qm2, shard);
+            } else {
+                assertSame(owner, shard);
+            }
+        });
+        assertTrue((long) shardRouter.getStatistics().get("failovers") > 0);
+        verify(qm2.getAsyncProducerPool()).close();
+        verify(qm1.getAsyncProducerPool(), never()).close();
+    }
+
+    // Test Case 3: Weighted round-robin interleaves queue managers by weight
+    @Test
+    void testRoute_WeightedRoundRobin_ShouldFollowWeights() {
+        mqConfig.getSharding().setStrategy(MqConfig.Sharding.Strategy.WEIGHTED_ROUND_ROBIN);
+        shardRouter.register(List.of(qm1, qm2, qm3));
+
+        List<QueueManagerShard> sequence = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            sequence.add(shardRouter.route("ignored"));
+        }
+
+        assertEquals(List.of(qm1, qm1, qm2, qm1, qm3, qm1, qm1), sequence);
+    }
+
+    // Test Case 4: Sending fails once every queue manager is down, which is when the outbox spools
+    @Test
+    void testRoute_AllShardsDown_ShouldThrowException() {
+        shardRouter.register(List.of(qm1, qm2));
+        qm1.markDown("連接中斷");
+        assertTrue(shardRouter.hasHealthyShard());
+        qm2.markDown("連接中斷");
+
+        assertFalse(shardRouter.hasHealthyShard());
+        assertThrows(MqNotConnectedException.class, () -> shardRouter.route("order-1"));
+        assertThrows(MqNotConnectedException.class, () -> shardRouter.route(null));
+    }
+}